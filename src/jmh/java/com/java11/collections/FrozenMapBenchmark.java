@@ -0,0 +1,120 @@
+package com.java11.collections;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite comparing FrozenMap with Map.ofEntries() and HashMap: build time and
+ * lookups of LOOKUPS random keys. Run with -prof gc: gc.alloc.rate.norm of the
+ * build benchmarks is the bytes allocated per map, an upper bound on its footprint
+ * (FrozenMapTest checks the retained footprint with JOL).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class FrozenMapBenchmark {
+
+    static final int LOOKUPS = 1024;
+
+    // Number of entries in each map
+    @Param({"1000", "100000"})
+    private int size;
+
+    private String[] keys;
+    private Map.Entry<String, Integer>[] entries;
+    private String[] lookups;
+
+    private Map<String, Integer> mapOfEntries;
+    private Map<String, Integer> hashMap;
+    private Map<String, Integer> frozenMap;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        keys = new String[size];
+        entries = new Map.Entry[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = "key-" + i;
+            entries[i] = Map.entry(keys[i], i);
+        }
+        Random random = new Random(42);
+        lookups = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            // Equal but not identical keys, as when they come from parsed input
+            lookups[i] = new String(keys[random.nextInt(size)]);
+        }
+        mapOfEntries = buildMapOfEntries();
+        hashMap = buildHashMap();
+        frozenMap = buildFrozenMap();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Map<String, Integer> buildMapOfEntries() {
+        return Map.ofEntries(entries);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Map<String, Integer> buildHashMap() {
+        Map<String, Integer> map = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : entries) {
+            map.put(entry.getKey(), entry.getValue());
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Map<String, Integer> buildFrozenMap() {
+        FrozenMap.Builder<String, Integer> builder = FrozenMap.newBuilder(size);
+        for (Map.Entry<String, Integer> entry : entries) {
+            builder.put(entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long mapOfEntriesGet() {
+        return sum(mapOfEntries);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long hashMapGet() {
+        return sum(hashMap);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long frozenMapGet() {
+        return sum(frozenMap);
+    }
+
+    private long sum(Map<String, Integer> map) {
+        long sum = 0;
+        for (String key : lookups) {
+            sum += map.get(key);
+        }
+        return sum;
+    }
+}
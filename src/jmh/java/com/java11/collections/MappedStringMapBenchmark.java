@@ -0,0 +1,112 @@
+package com.java11.collections;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite comparing MappedStringMap with a HashMap loaded from the same file:
+ * startup (open() vs reading every entry into the heap) and lookups of LOOKUPS
+ * random keys. With -prof gc the lookups show the allocation of the returned
+ * value only.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappedStringMapBenchmark {
+
+    static final int LOOKUPS = 1024;
+
+    // Number of entries in the file
+    @Param({"100000", "1000000"})
+    private int size;
+
+    private Path file;
+    private String[] lookups;
+    private MappedStringMap mappedMap;
+    private Map<String, String> hashMap;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("jmh-mapped-map", ".map");
+        try (MappedStringMap.Writer writer = MappedStringMap.newWriter(file)) {
+            for (int i = 0; i < size; i++) {
+                writer.put("key-" + i, "value-" + i);
+            }
+            writer.finish();
+        }
+        Random random = new Random(42);
+        lookups = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = "key-" + random.nextInt(size);
+        }
+        mappedMap = openMapped();
+        hashMap = loadHashMap();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // Single shots: mappings are only released by GC, so opening in a loop runs out of address space
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MappedStringMap openMapped() throws IOException {
+        return MappedStringMap.open(file);
+    }
+
+    /** What startup costs when the data has to be rebuilt in the heap */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Map<String, String> loadHashMap() throws IOException {
+        return new HashMap<>(MappedStringMap.open(file));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int mappedGet() {
+        return sum(mappedMap);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int hashMapGet() {
+        return sum(hashMap);
+    }
+
+    private int sum(Map<String, String> map) {
+        int sum = 0;
+        for (String key : lookups) {
+            sum += map.get(key).length();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,112 @@
+package com.java11.collections;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite comparing one-key updates of a config snapshot: copying into a
+ * HashMap and back to Map.copyOf() vs PersistentMap.with()/without(), and
+ * List.copyOf() vs PersistentVector.with(). Run with -prof gc to compare the
+ * bytes allocated per update.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PersistentCollectionsBenchmark {
+
+    // Number of keys in the snapshot
+    @Param({"100", "10000"})
+    private int size;
+
+    private Map<String, String> mapOf;
+    private PersistentMap<String, String> persistentMap;
+    private List<String> listOf;
+    private PersistentVector<String> persistentVector;
+    private String[] keys;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        keys = new String[size];
+        Map<String, String> entries = new HashMap<>();
+        List<String> elements = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            keys[i] = "config.key." + i;
+            entries.put(keys[i], "value-" + i);
+            elements.add("value-" + i);
+        }
+        mapOf = Map.copyOf(entries);
+        persistentMap = PersistentMap.copyOf(entries);
+        listOf = List.copyOf(elements);
+        persistentVector = PersistentVector.copyOf(elements);
+    }
+
+    private int nextIndex() {
+        next = next + 1 == size ? 0 : next + 1;
+        return next;
+    }
+
+    @Benchmark
+    public Map<String, String> mapOfWith() {
+        Map<String, String> copy = new HashMap<>(mapOf);
+        copy.put(keys[nextIndex()], "updated");
+        return Map.copyOf(copy);
+    }
+
+    @Benchmark
+    public Map<String, String> persistentMapWith() {
+        return persistentMap.with(keys[nextIndex()], "updated");
+    }
+
+    @Benchmark
+    public Map<String, String> mapOfWithout() {
+        Map<String, String> copy = new HashMap<>(mapOf);
+        copy.remove(keys[nextIndex()]);
+        return Map.copyOf(copy);
+    }
+
+    @Benchmark
+    public Map<String, String> persistentMapWithout() {
+        return persistentMap.without(keys[nextIndex()]);
+    }
+
+    @Benchmark
+    public List<String> listOfWith() {
+        List<String> copy = new ArrayList<>(listOf);
+        copy.set(nextIndex(), "updated");
+        return List.copyOf(copy);
+    }
+
+    @Benchmark
+    public List<String> persistentVectorWith() {
+        return persistentVector.with(nextIndex(), "updated");
+    }
+
+    @Benchmark
+    public String persistentMapGet() {
+        return persistentMap.get(keys[nextIndex()]);
+    }
+
+    @Benchmark
+    public String mapOfGet() {
+        return mapOf.get(keys[nextIndex()]);
+    }
+}
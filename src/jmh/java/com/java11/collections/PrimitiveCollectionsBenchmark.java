@@ -0,0 +1,161 @@
+package com.java11.collections;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite comparing lookups in ObjectIntMap and IntIntMap with Map.ofEntries()
+ * and HashMap holding boxed Integers. Each invocation looks up LOOKUPS random keys.
+ * Run with -prof gc to compare the allocation of building the maps.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(PrimitiveCollectionsBenchmark.LOOKUPS)
+public class PrimitiveCollectionsBenchmark {
+
+    static final int LOOKUPS = 1024;
+
+    // Number of entries in each map
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private String[] stringKeys;
+    private int[] intKeys;
+    private String[] stringLookups;
+    private int[] intLookups;
+
+    private Map<String, Integer> stringMapOf;
+    private Map<String, Integer> stringHashMap;
+    private ObjectIntMap<String> objectIntMap;
+    private Map<Integer, Integer> intHashMap;
+    private IntIntMap intIntMap;
+
+    @Setup
+    public void setUp() {
+        stringKeys = new String[size];
+        intKeys = new int[size];
+        for (int i = 0; i < size; i++) {
+            stringKeys[i] = "key-" + i;
+            intKeys[i] = i * 7 + 1000;
+        }
+        Random random = new Random(42);
+        stringLookups = new String[LOOKUPS];
+        intLookups = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            int index = random.nextInt(size);
+            // Equal but not identical keys, as when they come from parsed input
+            stringLookups[i] = new String(stringKeys[index]);
+            intLookups[i] = intKeys[index];
+        }
+        stringMapOf = buildMapOf();
+        stringHashMap = buildStringHashMap();
+        objectIntMap = buildObjectIntMap();
+        intHashMap = buildIntHashMap();
+        intIntMap = buildIntIntMap();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Integer> buildMapOf() {
+        Map.Entry<String, Integer>[] entries = new Map.Entry[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = Map.entry(stringKeys[i], i);
+        }
+        return Map.ofEntries(entries);
+    }
+
+    private Map<String, Integer> buildStringHashMap() {
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(stringKeys[i], i);
+        }
+        return map;
+    }
+
+    private ObjectIntMap<String> buildObjectIntMap() {
+        ObjectIntMap.Builder<String> builder = ObjectIntMap.newBuilder(size);
+        for (int i = 0; i < size; i++) {
+            builder.put(stringKeys[i], i);
+        }
+        return builder.build();
+    }
+
+    private Map<Integer, Integer> buildIntHashMap() {
+        Map<Integer, Integer> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(intKeys[i], i);
+        }
+        return map;
+    }
+
+    private IntIntMap buildIntIntMap() {
+        IntIntMap.Builder builder = IntIntMap.newBuilder(size);
+        for (int i = 0; i < size; i++) {
+            builder.put(intKeys[i], i);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public long stringMapOfGet() {
+        long sum = 0;
+        for (String key : stringLookups) {
+            sum += stringMapOf.get(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long stringHashMapGet() {
+        long sum = 0;
+        for (String key : stringLookups) {
+            sum += stringHashMap.get(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long objectIntMapGet() {
+        long sum = 0;
+        for (String key : stringLookups) {
+            sum += objectIntMap.getOrDefault(key, 0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long intHashMapGet() {
+        long sum = 0;
+        for (int key : intLookups) {
+            sum += intHashMap.get(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long intIntMapGet() {
+        long sum = 0;
+        for (int key : intLookups) {
+            sum += intIntMap.getOrDefault(key, 0);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,84 @@
+package com.java11.files;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite comparing ConfigParser with the lines()/trim()/split("=", 2) approach
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ConfigParserBenchmark {
+
+    // Number of keys in the generated config
+    @Param({"1000", "100000"})
+    private int keys;
+
+    private String config;
+    private ByteBuffer directBytes;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < keys; i++) {
+            if (i % 10 == 0) {
+                builder.append("# section ").append(i / 10).append('\n');
+            }
+            builder.append("service").append(i % 97).append(".setting").append(i)
+                    .append(" = value-").append(i).append('\n');
+        }
+        config = builder.toString();
+        byte[] bytes = config.getBytes(StandardCharsets.UTF_8);
+        directBytes = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    }
+
+    @Benchmark
+    public Map<String, String> splitLines() {
+        Map<String, String> map = new HashMap<>();
+        config.lines()
+                .filter(line -> !line.trim().startsWith("#") && !line.trim().isEmpty())
+                .forEach(line -> {
+                    String[] parts = line.split("=", 2);
+                    if (parts.length == 2) {
+                        map.put(parts[0].trim(), parts[1].trim());
+                    }
+                });
+        return map;
+    }
+
+    @Benchmark
+    public Map<String, String> parserCharSequence() {
+        return ConfigParser.toMap(config);
+    }
+
+    @Benchmark
+    public Map<String, String> parserByteBuffer() {
+        return ConfigParser.toMap(directBytes);
+    }
+
+    @Benchmark
+    public long parserOffsetsOnly() {
+        long[] sum = new long[1];
+        ConfigParser.parse(directBytes, (keyStart, keyEnd, valueStart, valueEnd) -> sum[0] += valueEnd - keyStart);
+        return sum[0];
+    }
+}
@@ -0,0 +1,84 @@
+package com.java11.files;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite for reloading a config file after a one-line edit:
+ * ConfigWatcher's incremental reload vs re-parsing the whole file.
+ * Both variants pay for rewriting the file on every invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ConfigWatcherBenchmark {
+
+    // Number of keys in the config file
+    @Param({"1000", "100000"})
+    private int keys;
+
+    private Path file;
+    private byte[][] versions;
+    private int version;
+    private ConfigWatcher watcher;
+
+    @Setup
+    public void setUp() throws IOException {
+        versions = new byte[2][];
+        for (int v = 0; v < 2; v++) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < keys; i++) {
+                builder.append("service.setting").append(i).append('=')
+                        .append(i == keys / 2 ? "edited-" + v : "value-" + i).append('\n');
+            }
+            versions[v] = builder.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        file = Files.createTempFile("jmh-config-watcher", ".properties");
+        Files.write(file, versions[0]);
+        watcher = ConfigWatcher.open(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        watcher.close();
+        Files.deleteIfExists(file);
+    }
+
+    private void toggle() throws IOException {
+        version ^= 1;
+        Files.write(file, versions[version]);
+    }
+
+    @Benchmark
+    public Map<String, String> incrementalReload() throws IOException {
+        toggle();
+        watcher.reload();
+        return watcher.snapshot();
+    }
+
+    @Benchmark
+    public Map<String, String> fullReparse() throws IOException {
+        toggle();
+        return ConfigParser.toMap(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,85 @@
+package com.java11.files;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite comparing MappedFileReader with Files.readString() on large files.
+ * At 2 GB readString() is expected to fail: the file no longer fits in one String.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class MappedFileReaderBenchmark {
+
+    // File size in megabytes
+    @Param({"1", "100", "2048"})
+    private int sizeMb;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        StringBuilder block = new StringBuilder();
+        for (int i = 0; block.length() < 1024 * 1024; i++) {
+            block.append("Line ").append(i).append(": This is test content for performance comparison.\n");
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(block.substring(0, block.lastIndexOf("\n") + 1)
+                .getBytes(StandardCharsets.UTF_8));
+        long target = sizeMb * 1024L * 1024L;
+        file = Files.createTempFile("jmh-mapped-reader", ".txt");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            while (channel.size() < target) {
+                channel.write(bytes.rewind());
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long readStringLines() throws IOException {
+        return Files.readString(file, StandardCharsets.UTF_8).lines().count();
+    }
+
+    @Benchmark
+    public long mappedLines() throws IOException {
+        try (MappedFileReader reader = MappedFileReader.open(file)) {
+            return reader.lines().count();
+        }
+    }
+
+    @Benchmark
+    public long mappedForEachLine() throws IOException {
+        long[] chars = new long[1];
+        try (MappedFileReader reader = MappedFileReader.open(file)) {
+            reader.forEachLine(line -> chars[0] += line.length());
+        }
+        return chars[0];
+    }
+}
@@ -0,0 +1,135 @@
+package com.java11.httpclient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite comparing BodyHandlers.ofString() + ObjectMapper with JsonBodyHandlers
+ * on a large JSON array served by a local server.
+ * Use -prof gc for allocation; time to first element is printed per iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@State(Scope.Benchmark)
+public class JsonBodyHandlersBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Number of array elements in the response
+    @Param({"1000", "200000"})
+    private int elements;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private HttpClient client;
+    private HttpRequest request;
+    private long firstElementNanos;
+    private long responses;
+
+    public static class Item {
+        public int id;
+        public String name;
+        public List<String> tags;
+    }
+
+    public static class Wrapper {
+        public List<Item> items;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < elements; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"id\":").append(i)
+                    .append(",\"name\":\"item number ").append(i)
+                    .append("\",\"tags\":[\"alpha\",\"beta\"]}");
+        }
+        byte[] body = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/items", exchange -> {
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        serverExecutor = Executors.newFixedThreadPool(2);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        client = HttpClient.newHttpClient();
+        request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/items"))
+                .build();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetFirstElement() {
+        firstElementNanos = 0;
+        responses = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printFirstElement() {
+        if (responses > 0) {
+            System.out.println("  mean time to first element: " + firstElementNanos / responses / 1000 + " us");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public void ofStringThenBind(Blackhole bh) throws IOException, InterruptedException {
+        String body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        for (Item item : MAPPER.readValue(body, Wrapper.class).items) {
+            bh.consume(item);
+        }
+    }
+
+    @Benchmark
+    public void streamingElements(Blackhole bh) throws IOException, InterruptedException {
+        JsonBodyHandlers.Summary summary = client.send(request,
+                JsonBodyHandlers.ofElements(MAPPER, "/items", Item.class, bh::consume)).body();
+        firstElementNanos += summary.getTimeToFirstElementNanos();
+        responses++;
+    }
+
+    @Benchmark
+    public Wrapper streamingObject() throws IOException, InterruptedException {
+        return client.send(request, JsonBodyHandlers.ofObject(MAPPER, Wrapper.class)).body();
+    }
+}
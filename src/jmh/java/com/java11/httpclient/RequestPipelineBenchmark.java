@@ -0,0 +1,130 @@
+package com.java11.httpclient;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite for HttpClientExample section 5 against a local server that sleeps
+ * before answering: all-at-once sendAsync + allOf vs RequestPipeline.
+ * Scores are per request; each iteration also prints the p99 request latency.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@State(Scope.Benchmark)
+@OperationsPerInvocation(RequestPipelineBenchmark.REQUESTS)
+public class RequestPipelineBenchmark {
+
+    static final int REQUESTS = 500;
+
+    // Server-side delay per request in milliseconds
+    @Param({"10"})
+    private int delayMs;
+
+    // Pipeline concurrency limit
+    @Param({"16", "64"})
+    private int maxInFlight;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private HttpClient client;
+    private List<HttpRequest> requests;
+    private LatencyHistogram latency;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.createContext("/delay", exchange -> {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        client = HttpClientFactory.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/delay");
+        requests = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            requests.add(HttpRequest.newBuilder(uri).build());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetLatency() {
+        latency = new LatencyHistogram();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printLatency() {
+        System.out.println("  latency: " + latency);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public void allAtOnce() {
+        List<CompletableFuture<HttpResponse<Void>>> futures = new ArrayList<>(REQUESTS);
+        for (HttpRequest request : requests) {
+            long start = System.nanoTime();
+            futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> latency.record(System.nanoTime() - start)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    @Benchmark
+    public void pipelineUnordered() {
+        runPipeline(false);
+    }
+
+    @Benchmark
+    public void pipelineOrdered() {
+        runPipeline(true);
+    }
+
+    private void runPipeline(boolean ordered) {
+        RequestPipeline<Void> pipeline = RequestPipeline.newBuilder(client, HttpResponse.BodyHandlers.discarding())
+                .maxInFlight(maxInFlight)
+                .ordered(ordered)
+                .build();
+        pipeline.forEach(requests.iterator(), result -> latency.record(result.getLatencyNanos())).join();
+    }
+}
@@ -0,0 +1,131 @@
+package com.java11.optional;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * JMH suite comparing Optional, OptionalInt and filter(isPresent).map(get)
+ * with Maybe, MaybeInt and Optionals on the same lookups. Run with -prof gc
+ * (the benchmarks profile does): the Maybe variants should show 0 B/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class MaybeBenchmark {
+
+    static final int LOOKUPS = 1024;
+
+    private String[] emails;
+    private String[] ports;
+    private List<Optional<String>> optionals;
+
+    @Setup
+    public void setUp() {
+        emails = new String[LOOKUPS];
+        ports = new String[LOOKUPS];
+        optionals = new ArrayList<>(LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++) {
+            // A third of the users have no email and a third of the ports are invalid
+            emails[i] = i % 3 == 0 ? null : "user" + i + "@example.com";
+            ports[i] = i % 3 == 1 ? "port-" + i : Integer.toString(1024 + i);
+            optionals.add(Optional.ofNullable(emails[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int optionalOfNullable() {
+        int sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += Optional.ofNullable(emails[i]).filter(email -> email.indexOf('@') > 0).map(String::length).orElse(0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int maybeOfNullable() {
+        int sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += Maybe.ofNullable(emails[i]).filter(email -> email.indexOf('@') > 0).mapToInt(String::length).orElse(0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int optionalIntParse() {
+        int sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += parsePort(ports[i]).orElse(-1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int maybeIntParse() {
+        int sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += MaybeInt.parse(ports[i]).orElse(-1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public List<String> filterIsPresentMapGet() {
+        return optionals.stream().filter(Optional::isPresent).map(Optional::get).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public List<String> flatMapOptionalStream() {
+        return optionals.stream().flatMap(Optional::stream).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public List<String> flatteningCollector() {
+        return optionals.stream().collect(Optionals.flattening(Collectors.toList()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int presentSpliterator() {
+        return Optionals.present(optionals).mapToInt(String::length).sum();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int filterIsPresentSum() {
+        return optionals.stream().filter(Optional::isPresent).map(Optional::get).mapToInt(String::length).sum();
+    }
+
+    private static OptionalInt parsePort(String text) {
+        try {
+            return OptionalInt.of(Integer.parseInt(text));
+        } catch (NumberFormatException e) {
+            return OptionalInt.empty();
+        }
+    }
+}
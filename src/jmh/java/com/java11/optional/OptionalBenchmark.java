@@ -0,0 +1,59 @@
+package com.java11.optional;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite for OptionalEnhancementsExample section 7: isEmpty() vs !isPresent()
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class OptionalBenchmark {
+
+    // Number of optionals checked per invocation
+    @Param({"1", "1000", "100000"})
+    private int size;
+
+    private List<Optional<String>> optionals;
+
+    @Setup
+    public void setUp() {
+        optionals = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            optionals.add(i % 3 == 0 ? Optional.empty() : Optional.of("value-" + i));
+        }
+    }
+
+    @Benchmark
+    public void isEmpty(Blackhole bh) {
+        for (Optional<String> optional : optionals) {
+            bh.consume(optional.isEmpty());
+        }
+    }
+
+    @Benchmark
+    public void notIsPresent(Blackhole bh) {
+        for (Optional<String> optional : optionals) {
+            bh.consume(!optional.isPresent());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.java11.optional;
+
+import com.java11.optional.OptionalEnhancementsExample.User;
+import com.java11.optional.UserRule.Field;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite comparing scans of a List&lt;User&gt; with the same scans over a
+ * UserStore's columns, and loading the store from a file. The heap saving
+ * itself is checked by UserStoreTest.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class UserStoreBenchmark {
+
+    // Number of User records
+    @Param({"100000", "1000000"})
+    private int records;
+
+    private List<User> users;
+    private UserStore store;
+    private UserStore.Utf8Predicate exampleDomain;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        users = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            users.add(new User(i % 50 == 0 ? null : "user" + i + (i % 3 == 0 ? "@example.com" : "@mail.org"),
+                    "User Number " + i));
+        }
+        store = UserStore.of(users);
+        exampleDomain = UserStore.Utf8Predicate.endsWith("@example.com");
+        file = Files.createTempFile("users", ".store");
+        store.write(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public BitSet listFilter() {
+        BitSet matches = new BitSet(records);
+        for (int i = 0; i < users.size(); i++) {
+            String email = users.get(i).getEmail();
+            if (email != null && email.endsWith("@example.com")) {
+                matches.set(i);
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public BitSet storeFilter() {
+        return store.filter(Field.EMAIL, exampleDomain);
+    }
+
+    @Benchmark
+    public long listNameLengths() {
+        long total = 0;
+        for (User user : users) {
+            total += user.getName().length();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long cursorNameLengths() {
+        long total = 0;
+        UserStore.Cursor cursor = store.cursor();
+        for (int i = 0; i < records; i++) {
+            total += cursor.moveTo(i).length(Field.NAME);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public UserStore readFile() throws IOException {
+        return UserStore.read(file);
+    }
+}
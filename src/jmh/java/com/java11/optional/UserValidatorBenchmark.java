@@ -0,0 +1,105 @@
+package com.java11.optional;
+
+import com.java11.optional.OptionalEnhancementsExample.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite comparing validateUser-style checks of one User at a time with
+ * UserValidator on a columnar batch, sequentially and on fork/join pools of
+ * 1, 2, 4 and 8 threads. Records per second is records / score.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class UserValidatorBenchmark {
+
+    // Number of User records validated per invocation
+    @Param({"100000", "1000000"})
+    private int records;
+
+    private List<User> users;
+    private UserBatch batch;
+    private UserValidator validator;
+
+    @Setup
+    public void setUp() {
+        String[] emails = {"john.doe@example.com", "", "   ", null, "no-at-sign.com", "jane@example.org"};
+        String[] names = {"John Doe", "", null, "Jane Smith"};
+        Random random = new Random(1);
+        users = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            // Mostly valid records, as in a nightly import
+            users.add(random.nextInt(10) == 0
+                    ? new User(emails[random.nextInt(emails.length)], names[random.nextInt(names.length)])
+                    : new User("user" + i + "@example.com", "User " + i));
+        }
+        batch = UserBatch.of(users);
+        validator = UserValidator.standard();
+    }
+
+    /** A fork/join pool of the given size, shared by the iterations of one trial */
+    @State(Scope.Benchmark)
+    public static class Pool {
+        // Fork/join parallelism
+        @Param({"1", "2", "4", "8"})
+        private int threads;
+
+        private ForkJoinPool pool;
+
+        @Setup(Level.Trial)
+        public void start() {
+            pool = new ForkJoinPool(threads);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int perRecordOptional() {
+        int invalid = 0;
+        for (User user : users) {
+            Optional<String> email = Optional.ofNullable(user.getEmail());
+            Optional<String> name = Optional.ofNullable(user.getName());
+            boolean valid = email.isPresent() && !email.get().trim().isEmpty()
+                    && email.get().matches("[^@\\s]+@[^@\\s]+\\.[^@\\s.]+")
+                    && name.isPresent() && !name.get().isBlank();
+            invalid += valid ? 0 : 1;
+        }
+        return invalid;
+    }
+
+    @Benchmark
+    public ValidationResult batchSequential() {
+        return validator.validateSequential(batch);
+    }
+
+    @Benchmark
+    public ValidationResult batchForkJoin(Pool pool) {
+        return validator.validate(batch, pool.pool);
+    }
+}
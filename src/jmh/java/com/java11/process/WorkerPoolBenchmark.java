@@ -0,0 +1,84 @@
+package com.java11.process;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite comparing a short job run as a fresh process per job
+ * (ProcessBuilder.start() of echo, or of a worker JVM) with the same job
+ * sent to a pre-started WorkerPool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkerPoolBenchmark {
+
+    @Param({"2"})
+    private int workers;
+
+    private final byte[] request = "job".getBytes(StandardCharsets.UTF_8);
+    private WorkerPool pool;
+
+    @Setup
+    public void setUp() throws Exception {
+        pool = WorkerPool.newBuilder(WorkerPool.javaWorker(WorkerProcess.Echo.class)).workers(workers).build();
+        // Let the workers start and warm up before measuring
+        for (int i = 0; i < 1000; i++) {
+            pool.submit(request).join();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public byte[] processPerJob() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder("echo", "job").start();
+        byte[] output = process.getInputStream().readAllBytes();
+        process.waitFor();
+        return output;
+    }
+
+    @Benchmark
+    public byte[] jvmPerJob() throws IOException, InterruptedException {
+        Process process = WorkerPool.javaWorker(WorkerProcess.Echo.class)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        try (DataOutputStream in = new DataOutputStream(process.getOutputStream())) {
+            in.writeInt(request.length);
+            in.write(request);
+        }
+        DataInputStream out = new DataInputStream(process.getInputStream());
+        out.readInt();
+        byte[] response = new byte[out.readInt()];
+        out.readFully(response);
+        process.waitFor();
+        return response;
+    }
+
+    @Benchmark
+    public byte[] pooled() {
+        return pool.submit(request).join();
+    }
+}
@@ -0,0 +1,74 @@
+package com.java11.strings;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * JMH scaling suite for the StringMethodsExample section 5 pipeline
+ * (strip / filter blank / count) at 1, 2, 4 and 8 threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class LineSpliteratorBenchmark {
+
+    // Parallelism of the pool running the stream
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    // Number of lines in the input
+    @Param({"1000000"})
+    private int lines;
+
+    private String text;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            builder.append(i % 5 == 0 ? "    " : "   user " + i + " record   ").append('\n');
+        }
+        text = builder.toString();
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public long stringLines() throws InterruptedException, ExecutionException {
+        return pool.submit(() -> process(text.lines().parallel())).get();
+    }
+
+    @Benchmark
+    public long lineSpliterator() throws InterruptedException, ExecutionException {
+        return pool.submit(() -> process(LineSpliterator.lines(text).parallel())).get();
+    }
+
+    private static long process(Stream<String> lines) {
+        return lines.map(String::strip)
+                .filter(line -> !line.isBlank())
+                .count();
+    }
+}
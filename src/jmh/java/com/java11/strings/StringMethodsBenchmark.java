@@ -0,0 +1,64 @@
+package com.java11.strings;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite for StringMethodsExample section 6: trim().isEmpty() vs isBlank()
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class StringMethodsBenchmark {
+
+    // Total length of the padded input
+    @Param({"8", "1024", "65536"})
+    private int length;
+
+    // "blank" is all whitespace, "padded" has a word in the middle
+    @Param({"blank", "padded"})
+    private String shape;
+
+    private String input;
+
+    @Setup
+    public void setUp() {
+        if (shape.equals("blank")) {
+            input = " ".repeat(length);
+        } else {
+            int pad = Math.max(0, (length - 4) / 2);
+            input = " ".repeat(pad) + "test" + " ".repeat(pad);
+        }
+    }
+
+    @Benchmark
+    public boolean trimIsEmpty() {
+        return input.trim().isEmpty();
+    }
+
+    @Benchmark
+    public boolean isBlank() {
+        return input.isBlank();
+    }
+
+    @Benchmark
+    public void trimVsStrip(Blackhole bh) {
+        bh.consume(input.trim());
+        bh.consume(input.strip());
+    }
+}
@@ -0,0 +1,118 @@
+package com.java11.strings;
+
+import com.java11.files.ConfigParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite comparing repeated config parses that create fresh key and value
+ * Strings with parses that take them from a StringPool, plus single lookups.
+ * Run with -prof gc (the benchmarks profile does) to see the allocation saved.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class StringPoolBenchmark {
+
+    static final int LOOKUPS = 1024;
+
+    // Number of keys in the generated config
+    @Param({"1000", "100000"})
+    private int keys;
+
+    private String config;
+    private ByteBuffer directBytes;
+    private byte[] bytes;
+    private int[] starts;
+    private int[] ends;
+    private StringPool pool;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < keys; i++) {
+            builder.append("service").append(i % 97).append(".setting").append(i)
+                    .append(" = value-").append(i % 10).append('\n');
+        }
+        config = builder.toString();
+        bytes = config.getBytes(StandardCharsets.UTF_8);
+        directBytes = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        // Room for every key and value, so steady-state parses only hit
+        pool = new StringPool(keys * 4);
+        ConfigParser.toMap(config, pool);
+
+        starts = new int[LOOKUPS];
+        ends = new int[LOOKUPS];
+        int[] index = {0};
+        ConfigParser.parse(config, (keyStart, keyEnd, valueStart, valueEnd) -> {
+            if (index[0] < LOOKUPS) {
+                starts[index[0]] = keyStart;
+                ends[index[0]++] = keyEnd;
+            }
+        });
+        for (int i = index[0]; i < LOOKUPS; i++) {
+            starts[i] = starts[i % index[0]];
+            ends[i] = ends[i % index[0]];
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> parseFresh() {
+        return ConfigParser.toMap(config);
+    }
+
+    @Benchmark
+    public Map<String, String> parsePooled() {
+        return ConfigParser.toMap(config, pool);
+    }
+
+    @Benchmark
+    public Map<String, String> parseBufferFresh() {
+        return ConfigParser.toMap(directBytes);
+    }
+
+    @Benchmark
+    public Map<String, String> parseBufferPooled() {
+        return ConfigParser.toMap(directBytes, pool);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int newString() {
+        int sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += new String(bytes, starts[i], ends[i] - starts[i], StandardCharsets.UTF_8).length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int internBytes() {
+        int sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            sum += pool.intern(bytes, starts[i], ends[i]).length();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,112 @@
+package com.java11.strings;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite comparing report lines built with concatenation and repeat(), with
+ * a StringBuilder, and with a pooled TextBuffer, each written to a channel.
+ * Run with -prof gc (the benchmarks profile does) to see the allocation per line.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TextBufferBenchmark {
+
+    static final int LINES = 1024;
+
+    private final WritableByteChannel sink = new DiscardingChannel();
+    private String[] names;
+    private double[] values;
+
+    @Setup
+    public void setUp() {
+        names = new String[LINES];
+        values = new double[LINES];
+        for (int i = 0; i < LINES; i++) {
+            names[i] = "metric-" + (i * 31 % 997);
+            values[i] = i * 1.37;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void concatenation() throws IOException {
+        for (int i = 0; i < LINES; i++) {
+            String id = String.valueOf(i);
+            String line = " ".repeat(Math.max(0, 6 - id.length())) + id + " | " + names[i] + " | "
+                    + String.format("%.2f", values[i]) + " | " + "*".repeat(i % 40) + "\n";
+            sink.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void stringBuilder() throws IOException {
+        StringBuilder line = new StringBuilder(128);
+        for (int i = 0; i < LINES; i++) {
+            line.setLength(0);
+            int mark = line.length();
+            line.append(i);
+            while (line.length() - mark < 6) {
+                line.insert(mark, ' ');
+            }
+            line.append(" | ").append(names[i]).append(" | ")
+                    .append(Math.round(values[i] * 100) / 100.0).append(" | ");
+            for (int n = 0; n < i % 40; n++) {
+                line.append('*');
+            }
+            line.append('\n');
+            sink.write(ByteBuffer.wrap(line.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void textBuffer() throws IOException {
+        try (TextBuffer line = TextBuffer.acquire()) {
+            for (int i = 0; i < LINES; i++) {
+                line.append(i, 6, ' ').append(" | ").append(names[i]).append(" | ")
+                        .append(values[i], 2).append(" | ").repeat('*', i % 40).newLine();
+                line.writeTo(sink);
+            }
+        }
+    }
+
+    /** Accepts every byte without copying it, like writing to /dev/null */
+    private static final class DiscardingChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.java11.strings;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH suite comparing TextScanner on UTF-8 bytes with String.strip(), isBlank()
+ * and lines(), both on a String already in memory and on bytes that must be
+ * decoded first, as for a request body.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TextScannerBenchmark {
+
+    // Input length in bytes
+    @Param({"64", "4096", "1048576"})
+    private int length;
+
+    private String padded;
+    private byte[] paddedBytes;
+    private String blank;
+    private byte[] blankBytes;
+    private String log;
+    private byte[] logBytes;
+
+    @Setup
+    public void setUp() {
+        int pad = Math.max(0, (length - 4) / 2);
+        padded = " ".repeat(pad) + "body" + "\t".repeat(pad);
+        blank = " \t".repeat(length / 2);
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; lines.length() < length; i++) {
+            lines.append("2024-01-01T00:00:00Z INFO request ").append(i).append(" done\n");
+        }
+        log = lines.substring(0, length);
+        paddedBytes = padded.getBytes(StandardCharsets.UTF_8);
+        blankBytes = blank.getBytes(StandardCharsets.UTF_8);
+        logBytes = log.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int stringStrip() {
+        return padded.strip().length();
+    }
+
+    @Benchmark
+    public int decodeAndStrip() {
+        return new String(paddedBytes, StandardCharsets.UTF_8).strip().length();
+    }
+
+    @Benchmark
+    public int scannerStrip() {
+        int start = TextScanner.stripStart(paddedBytes, StandardCharsets.UTF_8);
+        return TextScanner.stripEnd(paddedBytes, start, paddedBytes.length, StandardCharsets.UTF_8) - start;
+    }
+
+    @Benchmark
+    public boolean stringIsBlank() {
+        return blank.isBlank();
+    }
+
+    @Benchmark
+    public boolean scannerIsBlank() {
+        return TextScanner.isBlank(blankBytes, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public long stringLines() {
+        return log.lines().count();
+    }
+
+    @Benchmark
+    public long decodeAndLines() {
+        return new String(logBytes, StandardCharsets.UTF_8).lines().count();
+    }
+
+    @Benchmark
+    public int scannerLines() {
+        return TextScanner.forEachLine(logBytes, (start, end) -> { });
+    }
+}
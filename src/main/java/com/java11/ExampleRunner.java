@@ -0,0 +1,417 @@
+package com.java11;
+
+import com.java11.process.VirtualThreads;
+import com.java11.strings.TextBuffer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs named example tasks concurrently and prints their output in the order
+ * they were added, so a run takes as long as its slowest task instead of the
+ * sum of all of them. While a run is in progress System.out and System.err
+ * are replaced by streams that send each thread's output to the buffer of the
+ * task it is running; a task's output is printed under its heading, with its
+ * time, once it and every task before it have finished.
+ *
+ * <p>Only output written by a task's own thread is captured. Output from
+ * threads a task starts or hands work to, such as an HttpClient's executor or
+ * a process pump, goes straight to the real streams as it is written, without
+ * a heading and possibly interleaved with other tasks.
+ *
+ * <p>A run is structured: run() returns only after every task has finished.
+ * An interrupted run cancels the tasks that have not and waits for those
+ * already running to stop before it restores System.out and System.err, so a
+ * task that ignores interruption delays the return.
+ */
+public final class ExampleRunner {
+
+    /** Example body; may throw, which marks the task failed */
+    @FunctionalInterface
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    private static final Object RUN_LOCK = new Object();
+
+    private final List<String> names;
+    private final List<Task> tasks;
+    private final ExecutorService executor;
+
+    private ExampleRunner(Builder builder) {
+        this.names = List.copyOf(builder.names);
+        this.tasks = List.copyOf(builder.tasks);
+        this.executor = builder.executor;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Executor that runs one task after another on a single thread.
+     */
+    public static ExecutorService sequential() {
+        return platformThreads(1);
+    }
+
+    /**
+     * Fixed pool of daemon platform threads.
+     */
+    public static ExecutorService platformThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be positive: " + threads);
+        }
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "example-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Whether this JVM can run tasks on virtual threads (JDK 21+) */
+    public static boolean supportsVirtualThreads() {
+        return VirtualThreads.available();
+    }
+
+    /**
+     * Executor that starts a virtual thread per task.
+     *
+     * @throws UnsupportedOperationException before JDK 21
+     */
+    public static ExecutorService virtualThreads() {
+        ExecutorService executor = VirtualThreads.newExecutor();
+        if (executor == null) {
+            throw new UnsupportedOperationException("Virtual threads need JDK 21+, running " + Runtime.version());
+        }
+        return executor;
+    }
+
+    /**
+     * Virtual threads when the JVM has them, otherwise one platform thread per task.
+     */
+    public static ExecutorService defaultExecutor(int tasks) {
+        return supportsVirtualThreads() ? virtualThreads() : platformThreads(Math.max(1, tasks));
+    }
+
+    /**
+     * Runs every task, printing their output to out in order followed by a
+     * summary line. The executor is left running.
+     */
+    public Report run(PrintStream out) throws InterruptedException {
+        synchronized (RUN_LOCK) {
+            PrintStream realOut = System.out;
+            PrintStream realErr = System.err;
+            TaskRouter outRouter = new TaskRouter(realOut, false);
+            TaskRouter errRouter = new TaskRouter(realErr, true);
+            System.setOut(new PrintStream(outRouter, true));
+            System.setErr(new PrintStream(errRouter, true));
+            try {
+                return runAll(out);
+            } finally {
+                System.setOut(realOut);
+                System.setErr(realErr);
+            }
+        }
+    }
+
+    private Report runAll(PrintStream out) throws InterruptedException {
+        long start = System.nanoTime();
+        List<Future<TaskResult>> futures = new ArrayList<>(tasks.size());
+        List<Claim> claims = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            String name = names.get(i);
+            Task task = tasks.get(i);
+            Claim claim = new Claim();
+            claims.add(claim);
+            futures.add(executor.submit(() -> claim.run(name, task)));
+        }
+        List<TaskResult> results = new ArrayList<>(tasks.size());
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                TaskResult result = await(names.get(i), futures.get(i));
+                results.add(result);
+                print(result, out);
+            }
+        } finally {
+            // Nothing outlives the run, even when it is interrupted: tasks that
+            // haven't started never will, and running ones are waited for so
+            // none of them writes after run() has restored the streams
+            for (int i = 0; i < futures.size(); i++) {
+                futures.get(i).cancel(true);
+                claims.get(i).awaitIfStarted();
+            }
+        }
+        Report report = new Report(results, System.nanoTime() - start);
+        out.println(report);
+        return report;
+    }
+
+    private static TaskResult await(String name, Future<TaskResult> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException | CancellationException e) {
+            // execute() catches everything a task throws, so this is the executor failing
+            return new TaskResult(name, new byte[0], new byte[0], 0, e);
+        }
+    }
+
+    private static TaskResult execute(String name, Task task) {
+        Capture capture = new Capture();
+        CURRENT.set(capture);
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            task.run();
+        } catch (Throwable e) {
+            failure = e;
+            e.printStackTrace(System.err);
+        } finally {
+            CURRENT.remove();
+        }
+        long elapsed = System.nanoTime() - start;
+        return new TaskResult(name, capture.out.toByteArray(), capture.err.toByteArray(), elapsed, failure);
+    }
+
+    private static void print(TaskResult result, PrintStream out) {
+        try (TextBuffer text = TextBuffer.acquire()) {
+            text.append(result.getName()).newLine().repeat('=', 50).newLine().writeTo(out);
+            out.write(result.out, 0, result.out.length);
+            out.write(result.err, 0, result.err.length);
+            text.append(result.isFailure() ? "FAILED after " : "Took ")
+                    .append(result.getElapsedNanos() / 1e6, 1).append(" ms").newLine().newLine()
+                    .writeTo(out);
+        } catch (IOException e) {
+            out.println("Could not print output of " + result.getName() + ": " + e);
+        }
+        out.flush();
+    }
+
+    /**
+     * Output buffers of the task the current thread is running. Deliberately not
+     * inherited: threads a task starts may outlive it or serve later tasks, so
+     * their output goes to the real streams.
+     */
+    private static final ThreadLocal<Capture> CURRENT = new ThreadLocal<>();
+
+    /** Decides between a task starting and the run ending, so only started tasks are waited for */
+    private static final class Claim {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        TaskResult run(String name, Task task) {
+            if (!claimed.compareAndSet(false, true)) {
+                throw new CancellationException("Run ended before " + name + " started");
+            }
+            try {
+                return execute(name, task);
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        void awaitIfStarted() {
+            if (claimed.compareAndSet(false, true)) {
+                return;
+            }
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class Capture {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+    }
+
+    /** Sends writes to the current task's buffer, or to the real stream outside a task */
+    private static final class TaskRouter extends OutputStream {
+        private final PrintStream real;
+        private final boolean err;
+
+        TaskRouter(PrintStream real, boolean err) {
+            this.real = real;
+            this.err = err;
+        }
+
+        private OutputStream target() {
+            Capture capture = CURRENT.get();
+            if (capture == null) {
+                return real;
+            }
+            return err ? capture.err : capture.out;
+        }
+
+        @Override
+        public void write(int b) {
+            try {
+                target().write(b);
+            } catch (IOException e) {
+                // Neither a PrintStream nor a ByteArrayOutputStream throws
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int off, int len) {
+            try {
+                target().write(bytes, off, len);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (CURRENT.get() == null) {
+                real.flush();
+            }
+        }
+    }
+
+    /** Outcome of one task */
+    public static final class TaskResult {
+        private final String name;
+        private final byte[] out;
+        private final byte[] err;
+        private final long elapsedNanos;
+        private final Throwable failure;
+
+        TaskResult(String name, byte[] out, byte[] err, long elapsedNanos, Throwable failure) {
+            this.name = name;
+            this.out = out;
+            this.err = err;
+            this.elapsedNanos = elapsedNanos;
+            this.failure = failure;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** What the task printed to System.out, in the platform charset */
+        public String getOutput() {
+            return new String(out);
+        }
+
+        /** What the task printed to System.err, including the stack trace of a failure */
+        public String getErrorOutput() {
+            return new String(err);
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public boolean isFailure() {
+            return failure != null;
+        }
+
+        /** What the task threw, or null */
+        public Throwable getFailure() {
+            return failure;
+        }
+    }
+
+    /** Results of a run in the order the tasks were added */
+    public static final class Report {
+        private final List<TaskResult> results;
+        private final long wallNanos;
+
+        Report(List<TaskResult> results, long wallNanos) {
+            this.results = Collections.unmodifiableList(results);
+            this.wallNanos = wallNanos;
+        }
+
+        public List<TaskResult> getResults() {
+            return results;
+        }
+
+        /** Time from the first submit to the last task's output */
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        /** What the run would have taken with the tasks one after another */
+        public long getTotalTaskNanos() {
+            long total = 0;
+            for (TaskResult result : results) {
+                total += result.getElapsedNanos();
+            }
+            return total;
+        }
+
+        public int getFailureCount() {
+            int failures = 0;
+            for (TaskResult result : results) {
+                if (result.isFailure()) {
+                    failures++;
+                }
+            }
+            return failures;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d tasks, %d failed: wall %.1f ms, task total %.1f ms (%.2fx)",
+                    results.size(), getFailureCount(), wallNanos / 1e6, getTotalTaskNanos() / 1e6,
+                    wallNanos == 0 ? 0 : (double) getTotalTaskNanos() / wallNanos);
+        }
+    }
+
+    public static final class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final List<Task> tasks = new ArrayList<>();
+        private ExecutorService executor;
+
+        private Builder() {
+        }
+
+        /** Adds a task; its output is printed under name */
+        public Builder task(String name, Task task) {
+            names.add(name);
+            tasks.add(task);
+            return this;
+        }
+
+        /** Executor the tasks run on; defaultExecutor() when not set */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public ExampleRunner build() {
+            if (tasks.isEmpty()) {
+                throw new IllegalArgumentException("No tasks to run");
+            }
+            if (executor == null) {
+                executor = defaultExecutor(tasks.size());
+            }
+            return new ExampleRunner(this);
+        }
+    }
+}
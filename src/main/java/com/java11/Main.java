@@ -7,56 +7,76 @@ import com.java11.files.FileMethodsExample;
 import com.java11.optional.OptionalEnhancementsExample;
 import com.java11.process.ProcessApiExample;
 
+import java.util.concurrent.ExecutorService;
+
 /**
- * Main class to demonstrate Java 11 features
+ * Main class to demonstrate Java 11 features.
+ *
+ * <p>The examples run concurrently through ExampleRunner, each printed under
+ * its own heading with its time. Arguments pick the executor:
+ * {@code --sequential} runs them one after another, {@code --threads N} on N
+ * platform threads and {@code --virtual} on virtual threads (JDK 21+). By
+ * default they run on virtual threads when available, otherwise on one
+ * platform thread per example.
  */
 public class Main {
-    
+
+    private static final int EXAMPLES = 6;
+    private static final String USAGE = "Usage: Main [--sequential | --threads N | --virtual]";
+
     public static void main(String[] args) {
         System.out.println("=== Java 11 Features Demonstration ===\n");
-        
+
+        ExecutorService executor = null;
         try {
-            // 1. String Methods
-            System.out.println("1. String Methods Examples:");
-            System.out.println("=".repeat(50));
-            StringMethodsExample.runExamples();
-            System.out.println();
-            
-            // 2. Collection Factory Methods
-            System.out.println("2. Collection Factory Methods Examples:");
-            System.out.println("=".repeat(50));
-            CollectionFactoryExample.runExamples();
-            System.out.println();
-            
-            // 3. File Methods
-            System.out.println("3. File Methods Examples:");
-            System.out.println("=".repeat(50));
-            FileMethodsExample.runExamples();
-            System.out.println();
-            
-            // 4. Optional Enhancements
-            System.out.println("4. Optional Enhancements Examples:");
-            System.out.println("=".repeat(50));
-            OptionalEnhancementsExample.runExamples();
-            System.out.println();
-            
-            // 5. Process API
-            System.out.println("5. Process API Examples:");
-            System.out.println("=".repeat(50));
-            ProcessApiExample.runExamples();
-            System.out.println();
-            
-            // 6. HTTP Client (requires internet connection)
-            System.out.println("6. HTTP Client Examples:");
-            System.out.println("=".repeat(50));
-            HttpClientExample.runExamples();
-            System.out.println();
-            
+            executor = executorFor(args);
+            ExampleRunner.newBuilder()
+                    .executor(executor)
+                    .task("1. String Methods Examples:", StringMethodsExample::runExamples)
+                    .task("2. Collection Factory Methods Examples:", CollectionFactoryExample::runExamples)
+                    .task("3. File Methods Examples:", FileMethodsExample::runExamples)
+                    .task("4. Optional Enhancements Examples:", OptionalEnhancementsExample::runExamples)
+                    .task("5. Process API Examples:", ProcessApiExample::runExamples)
+                    // requires internet connection
+                    .task("6. HTTP Client Examples:", HttpClientExample::runExamples)
+                    .build()
+                    .run(System.out);
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            // Only executorFor() throws these; failing examples are reported by the runner
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return;
         } catch (Exception e) {
             System.err.println("Error running examples: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
         }
-        
+
+        System.out.println("Performance sections print results only; for timings run the JMH suites:");
+        System.out.println("mvn -P benchmarks -DskipTests verify -Djmh.include=<Suite>Benchmark");
+        System.out.println();
         System.out.println("=== Java 11 Features Demonstration Complete ===");
     }
-} 
\ No newline at end of file
+
+    static ExecutorService executorFor(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sequential":
+                    return ExampleRunner.sequential();
+                case "--virtual":
+                    return ExampleRunner.virtualThreads();
+                case "--threads":
+                    if (i + 1 == args.length) {
+                        throw new IllegalArgumentException("--threads needs a count");
+                    }
+                    return ExampleRunner.platformThreads(Integer.parseInt(args[i + 1]));
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        return ExampleRunner.defaultExecutor(EXAMPLES);
+    }
+}
@@ -1,5 +1,8 @@
 package com.java11.collections;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Set;
 import java.util.Map;
@@ -56,8 +59,15 @@ public class CollectionFactoryExample {
         } catch (UnsupportedOperationException e) {
             System.out.println("Cannot modify immutable map: " + e.getMessage());
         }
+
+        // Primitive-specialized counterparts keep ints unboxed in flat arrays
+        ObjectIntMap<String> counts = ObjectIntMap.of("One", 1, "Two", 2, "Three", 3);
+        System.out.println("ObjectIntMap: " + counts + ", value for 'Two': " + counts.get("Two"));
+        IntIntMap squares = IntIntMap.of(2, 4, 3, 9, 4, 16);
+        System.out.println("IntIntMap: " + squares + ", square of 3: " + squares.get(3));
+        System.out.println("IntList: " + IntList.of(3, 1, 4, 1, 5) + ", IntSet: " + IntSet.of(2, 7, 1, 8));
         System.out.println();
-        
+
         // 4. Map.ofEntries() - for more than 10 key-value pairs
         System.out.println("4. Map.ofEntries() - Large Maps:");
         Map<String, String> largeMap = Map.ofEntries(
@@ -79,6 +89,15 @@ public class CollectionFactoryExample {
         largeMap.entrySet().stream()
                 .limit(5)
                 .forEach(entry -> System.out.println("  " + entry.getKey() + ": " + entry.getValue()));
+
+        // For tables with 100k+ keys built once at startup, FrozenMap computes a
+        // perfect hash so get() is one hash and one equals() with no probing
+        FrozenMap.Builder<String, Integer> frozenBuilder = FrozenMap.newBuilder(100_000);
+        for (int i = 0; i < 100_000; i++) {
+            frozenBuilder.put("sku-" + i, i);
+        }
+        Map<String, Integer> frozenMap = frozenBuilder.build();
+        System.out.println("FrozenMap with " + frozenMap.size() + " entries, 'sku-4242' -> " + frozenMap.get("sku-4242"));
         System.out.println();
         
         // 5. Comparison with old way
@@ -132,6 +151,25 @@ public class CollectionFactoryExample {
                 System.out.println("  " + key + ": " + value);
             }
         });
+
+        // Snapshots that change a few keys at a time share everything else
+        PersistentMap<String, String> snapshot = PersistentMap.copyOf(config);
+        PersistentMap<String, String> updated = snapshot.with("server.port", "9090").without("cache.ttl");
+        System.out.println("Snapshot server.port = " + snapshot.get("server.port")
+                + ", updated server.port = " + updated.get("server.port")
+                + ", updated size = " + updated.size());
+
+        // Reference data too large for the heap: write it to a file once, then map it
+        try {
+            Path mapFile = Files.createTempFile("reference-data", ".map");
+            MappedStringMap.write(mapFile, config);
+            Map<String, String> mapped = MappedStringMap.open(mapFile);
+            System.out.println("Mapped from " + Files.size(mapFile) + " bytes off-heap, server.port = "
+                    + mapped.get("server.port"));
+            Files.deleteIfExists(mapFile);
+        } catch (IOException e) {
+            System.err.println("Error writing mapped map: " + e.getMessage());
+        }
         System.out.println();
         
         // 7. Performance and memory benefits
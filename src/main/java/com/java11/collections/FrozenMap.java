@@ -0,0 +1,373 @@
+package com.java11.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable map for large lookup tables that are built once and read often.
+ * build() computes a minimal perfect hash over the keys (hash, displace and
+ * compress, as in CHD): keys are hashed into buckets of about three, and each
+ * bucket gets a seed that sends its keys to free slots of a table exactly as
+ * long as the map. get() is then one hashCode(), one seed lookup and one
+ * equals() with no probing. Apart from the key and value arrays the map holds
+ * one int seed per bucket, a little over one byte per entry.
+ *
+ * <p>Distinct keys with equal hashCode() can't be told apart by any seed; all
+ * but one of each such group go to a small overflow map that is checked after
+ * a miss. Null keys and values are rejected, as in Map.of().
+ */
+public final class FrozenMap<K, V> extends AbstractMap<K, V> {
+
+    /** Average number of keys per bucket; higher is smaller but slower to build */
+    private static final int BUCKET_SIZE = 3;
+
+    /** Fills the single slot of the empty map so that get() needs no size check */
+    private static final Object NONE = new Object();
+
+    private static final FrozenMap<?, ?> EMPTY = new FrozenMap<>(
+            new int[1], new Object[]{NONE}, new Object[1], 0, null);
+
+    private final int[] seeds;
+    private final Object[] keys;
+    private final Object[] values;
+    private final int size;
+    private final Map<K, V> overflow;
+    private Set<Entry<K, V>> entrySet;
+
+    private FrozenMap(int[] seeds, Object[] keys, Object[] values, int size, Map<K, V> overflow) {
+        this.seeds = seeds;
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+        this.overflow = overflow;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> FrozenMap<K, V> of() {
+        return (FrozenMap<K, V>) EMPTY;
+    }
+
+    /**
+     * @throws NullPointerException if the map has a null key or value
+     */
+    public static <K, V> FrozenMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof FrozenMap) {
+            @SuppressWarnings("unchecked")
+            FrozenMap<K, V> frozen = (FrozenMap<K, V>) map;
+            return frozen;
+        }
+        Builder<K, V> builder = newBuilder(map.size());
+        map.forEach(builder::put);
+        return builder.build();
+    }
+
+    public static <K, V> Builder<K, V> newBuilder() {
+        return new Builder<>(16);
+    }
+
+    public static <K, V> Builder<K, V> newBuilder(int expectedSize) {
+        return new Builder<>(expectedSize);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        long hash = hash(key.hashCode());
+        int seed = seeds[bucket(hash, seeds.length)];
+        int slot = slot(hash, seed, keys.length);
+        Object candidate = keys[slot];
+        if (candidate == key || candidate.equals(key)) {
+            return (V) values[slot];
+        }
+        return overflow == null ? null : overflow.get(key);
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        V value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> entries = entrySet;
+        if (entries == null) {
+            entries = new EntrySet();
+            entrySet = entries;
+        }
+        return entries;
+    }
+
+    /** Entries that share a hashCode() with another key and are not in the table */
+    int getOverflowSize() {
+        return overflow == null ? 0 : overflow.size();
+    }
+
+    /** Spreads the hash code over 64 bits; the high half picks the bucket */
+    private static long hash(int hashCode) {
+        return hashCode * 0x9E3779B97F4A7C15L;
+    }
+
+    private static int bucket(long hash, int buckets) {
+        return reduce((int) (hash >>> 32), buckets);
+    }
+
+    /**
+     * Multiplies all 64 bits after mixing in the seed, so keys that share a
+     * bucket (and so have different hashes) are separated by some seed.
+     */
+    private static int slot(long hash, int seed, int slots) {
+        return reduce((int) (((hash ^ seed * 0xC2B2AE3D27D4EB4FL) * 0x9E3779B97F4A7C15L) >>> 32), slots);
+    }
+
+    /** Maps a 32-bit hash onto [0, n) with a multiply instead of a division */
+    private static int reduce(int hash, int n) {
+        return (int) (((hash & 0xFFFFFFFFL) * n) >>> 32);
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            Iterator<Entry<K, V>> overflowEntries = overflow == null
+                    ? null
+                    : overflow.entrySet().iterator();
+            int slots = size - getOverflowSize();
+            return new Iterator<>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < slots || (overflowEntries != null && overflowEntries.hasNext());
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public Entry<K, V> next() {
+                    if (next < slots) {
+                        int slot = next++;
+                        return new SimpleImmutableEntry<>((K) keys[slot], (V) values[slot]);
+                    }
+                    if (overflowEntries == null) {
+                        throw new NoSuchElementException();
+                    }
+                    return new SimpleImmutableEntry<>(overflowEntries.next());
+                }
+            };
+        }
+    }
+
+    /**
+     * Collects entries for build(). The builder can keep taking entries and be
+     * built again; each map is independent of it.
+     */
+    public static final class Builder<K, V> {
+        private Object[] keys;
+        private Object[] values;
+        private int size;
+
+        private Builder(int expectedSize) {
+            if (expectedSize < 0) {
+                throw new IllegalArgumentException("expectedSize must not be negative: " + expectedSize);
+            }
+            keys = new Object[Math.max(expectedSize, 1)];
+            values = new Object[keys.length];
+        }
+
+        /**
+         * Duplicate keys are reported by build(), so put() needs no lookup.
+         */
+        public Builder<K, V> put(K key, V value) {
+            Objects.requireNonNull(key);
+            Objects.requireNonNull(value);
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            keys[size] = key;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        public Builder<K, V> putAll(Map<? extends K, ? extends V> map) {
+            map.forEach(this::put);
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if a key was put twice, as Map.of() does
+         */
+        @SuppressWarnings("unchecked")
+        public FrozenMap<K, V> build() {
+            if (size == 0) {
+                return of();
+            }
+            int[] hashCodes = new int[size];
+            for (int i = 0; i < size; i++) {
+                hashCodes[i] = keys[i].hashCode();
+            }
+            boolean[] overflowing = new boolean[size];
+            Map<K, V> overflow = splitCollisions(hashCodes, overflowing);
+            int slots = size - (overflow == null ? 0 : overflow.size());
+
+            int[] entries = new int[slots];
+            long[] hashes = new long[slots];
+            for (int i = 0, j = 0; i < size; i++) {
+                if (!overflowing[i]) {
+                    entries[j] = i;
+                    hashes[j] = hash(hashCodes[i]);
+                    j++;
+                }
+            }
+            int[] seeds = new int[Math.max(1, slots / BUCKET_SIZE)];
+            int[] slotOf = place(hashes, seeds, slots);
+
+            Object[] tableKeys = new Object[slots];
+            Object[] tableValues = new Object[slots];
+            for (int j = 0; j < slots; j++) {
+                tableKeys[slotOf[j]] = keys[entries[j]];
+                tableValues[slotOf[j]] = values[entries[j]];
+            }
+            return new FrozenMap<>(seeds, tableKeys, tableValues, size, overflow);
+        }
+
+        /**
+         * Finds keys with equal hash codes by sorting them. Equal keys are
+         * duplicates; of distinct keys sharing a hash code, all but the first
+         * are marked and returned as the overflow map.
+         */
+        @SuppressWarnings("unchecked")
+        private Map<K, V> splitCollisions(int[] hashCodes, boolean[] overflowing) {
+            long[] sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = ((long) hashCodes[i] << 32) | i;
+            }
+            Arrays.sort(sorted);
+            Map<K, V> overflow = null;
+            int start = 0;
+            while (start < size) {
+                int end = start + 1;
+                while (end < size && (sorted[end] >>> 32) == (sorted[start] >>> 32)) {
+                    end++;
+                }
+                for (int a = start; a < end; a++) {
+                    int first = (int) sorted[a];
+                    for (int b = a + 1; b < end; b++) {
+                        if (keys[first].equals(keys[(int) sorted[b]])) {
+                            throw new IllegalArgumentException("duplicate key: " + keys[first]);
+                        }
+                    }
+                    if (a > start) {
+                        if (overflow == null) {
+                            overflow = new HashMap<>();
+                        }
+                        overflow.put((K) keys[first], (V) values[first]);
+                        overflowing[first] = true;
+                    }
+                }
+                start = end;
+            }
+            return overflow;
+        }
+
+        /**
+         * Fills in a seed per bucket and returns the slot of each hash. Buckets
+         * are placed largest first, trying seeds until all of a bucket's keys land
+         * on free, distinct slots. The last single-key buckets need the most
+         * tries, but each try is one multiply.
+         */
+        private static int[] place(long[] hashes, int[] seeds, int slots) {
+            int buckets = seeds.length;
+            // Group hash indexes by bucket, then order buckets by size, largest first
+            int[] bucketStart = new int[buckets + 1];
+            for (long hash : hashes) {
+                bucketStart[bucket(hash, buckets) + 1]++;
+            }
+            int maxBucketSize = 0;
+            for (int b = 0; b < buckets; b++) {
+                maxBucketSize = Math.max(maxBucketSize, bucketStart[b + 1]);
+                bucketStart[b + 1] += bucketStart[b];
+            }
+            int[] members = new int[hashes.length];
+            int[] fill = Arrays.copyOf(bucketStart, buckets);
+            for (int i = 0; i < hashes.length; i++) {
+                members[fill[bucket(hashes[i], buckets)]++] = i;
+            }
+            int[] bySize = new int[maxBucketSize + 2];
+            for (int b = 0; b < buckets; b++) {
+                bySize[maxBucketSize - (bucketStart[b + 1] - bucketStart[b]) + 1]++;
+            }
+            for (int s = 1; s < bySize.length; s++) {
+                bySize[s] += bySize[s - 1];
+            }
+            int[] order = new int[buckets];
+            for (int b = 0; b < buckets; b++) {
+                order[bySize[maxBucketSize - (bucketStart[b + 1] - bucketStart[b])]++] = b;
+            }
+
+            long[] taken = new long[(slots + 63) >>> 6];
+            int[] slotOf = new int[hashes.length];
+            int[] candidate = new int[maxBucketSize];
+            for (int b : order) {
+                int from = bucketStart[b];
+                int count = bucketStart[b + 1] - from;
+                if (count == 0) {
+                    break;
+                }
+                for (int seed = 0; ; seed++) {
+                    if (seed == Integer.MAX_VALUE) {
+                        throw new IllegalStateException("No seed places bucket " + b);
+                    }
+                    if (fits(hashes, members, from, count, seed, taken, slots, candidate)) {
+                        for (int m = 0; m < count; m++) {
+                            taken[candidate[m] >>> 6] |= 1L << candidate[m];
+                            slotOf[members[from + m]] = candidate[m];
+                        }
+                        seeds[b] = seed;
+                        break;
+                    }
+                }
+            }
+            return slotOf;
+        }
+
+        private static boolean fits(long[] hashes, int[] members, int from, int count, int seed,
+                                    long[] taken, int slots, int[] candidate) {
+            for (int m = 0; m < count; m++) {
+                int slot = slot(hashes[members[from + m]], seed, slots);
+                if ((taken[slot >>> 6] & (1L << slot)) != 0) {
+                    return false;
+                }
+                for (int other = 0; other < m; other++) {
+                    if (candidate[other] == slot) {
+                        return false;
+                    }
+                }
+                candidate[m] = slot;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.java11.collections;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable int to int map, the primitive counterpart of Map.of() for Integer keys
+ * and values. Keys and values live in two parallel int[] tables with linear
+ * probing: no Map.Entry, Integer or node objects, 8 bytes per table slot (12 to
+ * 23 bytes per entry, depending on how the size rounds up to a power of two)
+ * instead of roughly 70 for a HashMap&lt;Integer, Integer&gt;.
+ * Empty slots hold key 0; a key of 0 itself is kept in separate fields.
+ */
+public final class IntIntMap {
+
+    /** Receives each entry in forEach() */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    private static final IntIntMap EMPTY = new IntIntMap(new int[2], new int[2], false, 0, 0);
+
+    private final int[] keys;
+    private final int[] values;
+    private final boolean hasZeroKey;
+    private final int zeroValue;
+    private final int size;
+
+    private IntIntMap(int[] keys, int[] values, boolean hasZeroKey, int zeroValue, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.hasZeroKey = hasZeroKey;
+        this.zeroValue = zeroValue;
+        this.size = size;
+    }
+
+    public static IntIntMap of() {
+        return EMPTY;
+    }
+
+    public static IntIntMap of(int k1, int v1) {
+        return newBuilder(1).put(k1, v1).build();
+    }
+
+    public static IntIntMap of(int k1, int v1, int k2, int v2) {
+        return newBuilder(2).put(k1, v1).put(k2, v2).build();
+    }
+
+    public static IntIntMap of(int k1, int v1, int k2, int v2, int k3, int v3) {
+        return newBuilder(3).put(k1, v1).put(k2, v2).put(k3, v3).build();
+    }
+
+    public static Builder newBuilder() {
+        return new Builder(16);
+    }
+
+    /** Sizes the table up front so that building never rehashes */
+    public static Builder newBuilder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return key == 0 ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * @throws NoSuchElementException if the key is absent
+     */
+    public int get(int key) {
+        if (key == 0) {
+            if (hasZeroKey) {
+                return zeroValue;
+            }
+        } else {
+            int index = indexOf(key);
+            if (index >= 0) {
+                return values[index];
+            }
+        }
+        throw new NoSuchElementException("key not found: " + key);
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : defaultValue;
+    }
+
+    /** Iteration order is unspecified, as for Map.of() */
+    public void forEach(EntryConsumer action) {
+        if (hasZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        int index = PrimitiveHashing.mix(key) & mask;
+        int slot;
+        while ((slot = keys[index]) != 0) {
+            if (slot == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof IntIntMap)) {
+            return false;
+        }
+        IntIntMap other = (IntIntMap) o;
+        if (size != other.size || (hasZeroKey && (!other.hasZeroKey || zeroValue != other.zeroValue))) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            int key = keys[i];
+            if (key != 0) {
+                int index = other.indexOf(key);
+                if (index < 0 || other.values[index] != values[i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // Same as Map.hashCode() for the boxed entries
+        int[] hash = new int[1];
+        forEach((key, value) -> hash[0] += key ^ value);
+        return hash[0];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("{");
+        forEach((key, value) -> text.append(text.length() > 1 ? ", " : "").append(key).append('=').append(value));
+        return text.append('}').toString();
+    }
+
+    /**
+     * Collects entries into a growing table. build() hands the table to the map
+     * without copying it, so a builder can only be built once.
+     */
+    public static final class Builder {
+        private int[] keys;
+        private int[] values;
+        private boolean hasZeroKey;
+        private int zeroValue;
+        private int size;
+        private boolean built;
+
+        private Builder(int expectedSize) {
+            if (expectedSize < 0) {
+                throw new IllegalArgumentException("expectedSize must not be negative: " + expectedSize);
+            }
+            int length = PrimitiveHashing.tableSize(expectedSize);
+            keys = new int[length];
+            values = new int[length];
+        }
+
+        /**
+         * @throws IllegalArgumentException if the key was already put, as Map.of() does
+         */
+        public Builder put(int key, int value) {
+            if (built) {
+                throw new IllegalStateException("Builder already built");
+            }
+            if (key == 0) {
+                if (hasZeroKey) {
+                    throw new IllegalArgumentException("duplicate key: 0");
+                }
+                hasZeroKey = true;
+                zeroValue = value;
+            } else {
+                if (size + 1 > keys.length * PrimitiveHashing.LOAD_FACTOR) {
+                    rehash(keys.length * 2);
+                }
+                if (!insert(keys, values, key, value)) {
+                    throw new IllegalArgumentException("duplicate key: " + key);
+                }
+            }
+            size++;
+            return this;
+        }
+
+        public IntIntMap build() {
+            if (built) {
+                throw new IllegalStateException("Builder already built");
+            }
+            built = true;
+            if (size == 0) {
+                return EMPTY;
+            }
+            // Shrink a table that was sized for more entries than were put
+            int nonZero = hasZeroKey ? size - 1 : size;
+            int length = PrimitiveHashing.tableSize(nonZero);
+            if (length < keys.length) {
+                rehash(length);
+            }
+            return new IntIntMap(keys, values, hasZeroKey, zeroValue, size);
+        }
+
+        private void rehash(int length) {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[length];
+            values = new int[length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    insert(keys, values, oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static boolean insert(int[] keys, int[] values, int key, int value) {
+            int mask = keys.length - 1;
+            int index = PrimitiveHashing.mix(key) & mask;
+            while (keys[index] != 0) {
+                if (keys[index] == key) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = value;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.java11.collections;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable list of ints backed by a single int[], the primitive counterpart of
+ * List.of(). Elements are stored unboxed: 4 bytes each instead of a reference
+ * plus an Integer object.
+ */
+public final class IntList {
+
+    private static final IntList EMPTY = new IntList(new int[0]);
+
+    private final int[] elements;
+
+    private IntList(int[] elements) {
+        this.elements = elements;
+    }
+
+    public static IntList of() {
+        return EMPTY;
+    }
+
+    /**
+     * The array is copied, so later changes to it don't affect the list.
+     */
+    public static IntList of(int... elements) {
+        return elements.length == 0 ? EMPTY : new IntList(elements.clone());
+    }
+
+    public static IntList copyOf(IntStream elements) {
+        return of0(elements.toArray());
+    }
+
+    private static IntList of0(int[] owned) {
+        return owned.length == 0 ? EMPTY : new IntList(owned);
+    }
+
+    public int size() {
+        return elements.length;
+    }
+
+    public boolean isEmpty() {
+        return elements.length == 0;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= elements.length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + elements.length);
+        }
+        return elements[index];
+    }
+
+    public int first() {
+        if (elements.length == 0) {
+            throw new NoSuchElementException();
+        }
+        return elements[0];
+    }
+
+    public int indexOf(int value) {
+        for (int i = 0; i < elements.length; i++) {
+            if (elements[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int element : elements) {
+            action.accept(element);
+        }
+    }
+
+    public IntStream stream() {
+        return Arrays.stream(elements);
+    }
+
+    public int[] toArray() {
+        return elements.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof IntList && Arrays.equals(elements, ((IntList) o).elements);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(elements);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(elements);
+    }
+}
@@ -0,0 +1,145 @@
+package com.java11.collections;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable set of ints in an open-addressing int[] table, the primitive
+ * counterpart of Set.of(). Empty slots hold 0; whether 0 itself is a member
+ * is kept in a separate flag.
+ */
+public final class IntSet {
+
+    private static final IntSet EMPTY = new IntSet(new int[2], false, 0);
+
+    private final int[] table;
+    private final boolean containsZero;
+    private final int size;
+
+    private IntSet(int[] table, boolean containsZero, int size) {
+        this.table = table;
+        this.containsZero = containsZero;
+        this.size = size;
+    }
+
+    public static IntSet of() {
+        return EMPTY;
+    }
+
+    /**
+     * @throws IllegalArgumentException if an element is repeated, as Set.of() does
+     */
+    public static IntSet of(int... elements) {
+        return build(elements, true);
+    }
+
+    /** Like of(), but duplicates are dropped, as Set.copyOf() does */
+    public static IntSet copyOf(int[] elements) {
+        return build(elements, false);
+    }
+
+    public static IntSet copyOf(IntStream elements) {
+        return build(elements.toArray(), false);
+    }
+
+    private static IntSet build(int[] elements, boolean rejectDuplicates) {
+        if (elements.length == 0) {
+            return EMPTY;
+        }
+        int[] table = new int[PrimitiveHashing.tableSize(elements.length)];
+        int mask = table.length - 1;
+        boolean zero = false;
+        int size = 0;
+        for (int element : elements) {
+            boolean added;
+            if (element == 0) {
+                added = !zero;
+                zero = true;
+            } else {
+                int index = PrimitiveHashing.mix(element) & mask;
+                while (table[index] != 0 && table[index] != element) {
+                    index = (index + 1) & mask;
+                }
+                added = table[index] == 0;
+                table[index] = element;
+            }
+            if (added) {
+                size++;
+            } else if (rejectDuplicates) {
+                throw new IllegalArgumentException("duplicate element: " + element);
+            }
+        }
+        return new IntSet(table, zero, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int mask = table.length - 1;
+        int index = PrimitiveHashing.mix(value) & mask;
+        int slot;
+        while ((slot = table[index]) != 0) {
+            if (slot == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /** Iteration order is unspecified, as for Set.of() */
+    public void forEach(IntConsumer action) {
+        if (containsZero) {
+            action.accept(0);
+        }
+        for (int slot : table) {
+            if (slot != 0) {
+                action.accept(slot);
+            }
+        }
+    }
+
+    public IntStream stream() {
+        IntStream members = Arrays.stream(table).filter(slot -> slot != 0);
+        return containsZero ? IntStream.concat(IntStream.of(0), members) : members;
+    }
+
+    public int[] toArray() {
+        return stream().toArray();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof IntSet)) {
+            return false;
+        }
+        IntSet other = (IntSet) o;
+        return size == other.size && stream().allMatch(other::contains);
+    }
+
+    @Override
+    public int hashCode() {
+        // Sum of elements, as Set.hashCode() would give for the boxed values
+        return stream().sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("[");
+        forEach(element -> text.append(text.length() > 1 ? ", " : "").append(element));
+        return text.append(']').toString();
+    }
+}
@@ -0,0 +1,63 @@
+package com.java11.collections;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file region mapped as consecutive MappedByteBuffers, since one buffer can't
+ * exceed 2 GB. Each buffer extends {@code overlap} bytes into the next segment,
+ * so a value that starts in a segment and is at most that long can be read
+ * from the segment's buffer alone.
+ */
+final class MappedSegments {
+
+    private final MappedByteBuffer[] buffers;
+    private final long start;
+    private final int shift;
+    private final int mask;
+
+    MappedSegments(FileChannel channel, FileChannel.MapMode mode, long start, long length,
+                   int shift, int overlap) throws IOException {
+        if (shift < 3 || shift > 30) {
+            throw new IllegalArgumentException("Segment shift out of range: " + shift);
+        }
+        if (overlap < 0 || overlap > Integer.MAX_VALUE - (1 << shift)) {
+            throw new IllegalArgumentException("Overlap too large: " + overlap);
+        }
+        this.start = start;
+        this.shift = shift;
+        this.mask = (1 << shift) - 1;
+        int count = (int) ((length + mask) >>> shift);
+        buffers = new MappedByteBuffer[Math.max(count, 1)];
+        for (int i = 0; i < buffers.length; i++) {
+            long offset = (long) i << shift;
+            long size = Math.min(length - offset, (1L << shift) + overlap);
+            buffers[i] = channel.map(mode, start + offset, Math.max(size, 0));
+        }
+    }
+
+    /** Buffer holding the file position */
+    MappedByteBuffer buffer(long position) {
+        return buffers[(int) ((position - start) >>> shift)];
+    }
+
+    /** Index of the file position within buffer(position) */
+    int index(long position) {
+        return (int) ((position - start) & mask);
+    }
+
+    long getLong(long position) {
+        return buffer(position).getLong(index(position));
+    }
+
+    void putLong(long position, long value) {
+        buffer(position).putLong(index(position), value);
+    }
+
+    void force() {
+        for (MappedByteBuffer buffer : buffers) {
+            buffer.force();
+        }
+    }
+}
@@ -0,0 +1,504 @@
+package com.java11.collections;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Read-only String to String map stored in a file and read through
+ * MappedByteBuffers, for reference data too large for the heap. The file is
+ * written once by a Writer; open() only maps it, so opening takes the same time
+ * for a thousand entries as for a billion, and lookups read the page cache
+ * directly without creating objects other than the returned value.
+ *
+ * <p>File layout, all numbers big-endian:
+ * <pre>
+ *   header  64 bytes: magic, version, longest record, entry count, table offset, table bits
+ *   records varint key length, varint value length, UTF-8 key, UTF-8 value
+ *   table   2^bits longs, 0 = empty, else 24-bit hash tag &lt;&lt; 40 | record offset
+ * </pre>
+ * The table is an open-addressing hash index with linear probing at most 70%
+ * full; the tag lets a probe skip records whose key can't match. Keys are
+ * hashed with String.hashCode(), which Strings cache, and compared against the
+ * stored UTF-8 bytes without decoding them into a String.
+ *
+ * <p>Java 11 can't unmap a buffer explicitly; the mappings are released when
+ * the map is garbage collected, so open a file once and share the map.
+ */
+public final class MappedStringMap extends AbstractMap<String, String> {
+
+    private static final long MAGIC = 0x4A31314D41503031L; // "J11MAP01"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int DEFAULT_SEGMENT_SHIFT = 30;
+    private static final long OFFSET_MASK = (1L << 40) - 1;
+    /** Longest record a segment of the default size can overlap into the next one, just under 1 GB */
+    static final int MAX_RECORD_LENGTH = Integer.MAX_VALUE - (1 << DEFAULT_SEGMENT_SHIFT);
+
+    private final Path file;
+    private final long entryCount;
+    private final long tableOffset;
+    private final long tableMask;
+    private final MappedSegments records;
+    private final MappedSegments table;
+    private Set<Entry<String, String>> entrySet;
+
+    private MappedStringMap(Path file, int segmentShift) throws IOException {
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // Read the whole header
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getLong() != MAGIC) {
+                throw new IOException("Not a mapped string map: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + ": " + file);
+            }
+            int longestRecord = header.getInt();
+            if (longestRecord < 0 || longestRecord > MAX_RECORD_LENGTH) {
+                throw new IOException("Corrupt longest record length " + longestRecord + ": " + file);
+            }
+            entryCount = header.getLong();
+            tableOffset = header.getLong();
+            int tableBits = header.getInt();
+            tableMask = (1L << tableBits) - 1;
+            if (tableOffset + (8L << tableBits) > channel.size()) {
+                throw new IOException("Truncated mapped string map: " + file);
+            }
+            // Mappings stay valid after the channel is closed
+            records = new MappedSegments(channel, FileChannel.MapMode.READ_ONLY,
+                    HEADER_SIZE, tableOffset - HEADER_SIZE, segmentShift, longestRecord);
+            table = new MappedSegments(channel, FileChannel.MapMode.READ_ONLY,
+                    tableOffset, 8L << tableBits, segmentShift, 0);
+        }
+    }
+
+    /**
+     * Maps a file written by a Writer.
+     */
+    public static MappedStringMap open(Path file) throws IOException {
+        return new MappedStringMap(file, DEFAULT_SEGMENT_SHIFT);
+    }
+
+    /** Maps the file in segments of 2^segmentShift bytes, so tests can cross segment boundaries */
+    static MappedStringMap open(Path file, int segmentShift) throws IOException {
+        return new MappedStringMap(file, segmentShift);
+    }
+
+    /**
+     * Writes the map to the file, replacing it.
+     */
+    public static void write(Path file, Map<String, String> map) throws IOException {
+        try (Writer writer = newWriter(file)) {
+            for (Entry<String, String> entry : map.entrySet()) {
+                writer.put(entry.getKey(), entry.getValue());
+            }
+            writer.finish();
+        }
+    }
+
+    public static Writer newWriter(Path file) throws IOException {
+        return new Writer(file);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /** Number of entries, which may exceed what size() can report */
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(entryCount, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return entryCount == 0;
+    }
+
+    /**
+     * @throws NullPointerException if the key is null, as for Map.of()
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return Objects.requireNonNull(key) instanceof String && find((String) key) >= 0;
+    }
+
+    /**
+     * @throws NullPointerException if the key is null, as for Map.of()
+     */
+    @Override
+    public String get(Object key) {
+        if (!(Objects.requireNonNull(key) instanceof String)) {
+            return null;
+        }
+        long record = find((String) key);
+        return record < 0 ? null : readValue(record);
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        Set<Entry<String, String>> entries = entrySet;
+        if (entries == null) {
+            entries = new EntrySet();
+            entrySet = entries;
+        }
+        return entries;
+    }
+
+    /** Offset of the key's record, or -1 */
+    private long find(String key) {
+        long hash = hash(key);
+        long tag = tag(hash);
+        for (long slot = hash & tableMask; ; slot = (slot + 1) & tableMask) {
+            long entry = table.getLong(tableOffset + slot * 8);
+            if (entry == 0) {
+                return -1;
+            }
+            if ((entry & ~OFFSET_MASK) == tag) {
+                long record = entry & OFFSET_MASK;
+                if (keyEquals(records.buffer(record), records.index(record), key)) {
+                    return record;
+                }
+            }
+        }
+    }
+
+    private String readValue(long record) {
+        ByteBuffer buffer = records.buffer(record);
+        int index = records.index(record);
+        int keyLength = readVarint(buffer, index);
+        index += varintSize(keyLength);
+        int valueLength = readVarint(buffer, index);
+        index += varintSize(valueLength) + keyLength;
+        return decode(buffer, index, valueLength);
+    }
+
+    private String readKey(long record) {
+        ByteBuffer buffer = records.buffer(record);
+        int index = records.index(record);
+        int keyLength = readVarint(buffer, index);
+        index += varintSize(keyLength);
+        index += varintSize(readVarint(buffer, index));
+        return decode(buffer, index, keyLength);
+    }
+
+    private static String decode(ByteBuffer buffer, int index, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(index + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares the UTF-8 key of the record at index with the String's chars,
+     * decoding one code point at a time.
+     */
+    private static boolean keyEquals(ByteBuffer buffer, int index, String key) {
+        int keyLength = readVarint(buffer, index);
+        index += varintSize(keyLength);
+        index += varintSize(readVarint(buffer, index));
+        int end = index + keyLength;
+        int length = key.length();
+        // UTF-8 needs at least one byte and at most three per char
+        if (keyLength < length || keyLength > 3 * length) {
+            return false;
+        }
+        int c = 0;
+        while (index < end) {
+            int b = buffer.get(index++);
+            if (b >= 0) {
+                if (c >= length || key.charAt(c++) != b) {
+                    return false;
+                }
+                continue;
+            }
+            int codePoint;
+            int continuation;
+            if ((b & 0xE0) == 0xC0) {
+                codePoint = b & 0x1F;
+                continuation = 1;
+            } else if ((b & 0xF0) == 0xE0) {
+                codePoint = b & 0x0F;
+                continuation = 2;
+            } else {
+                codePoint = b & 0x07;
+                continuation = 3;
+            }
+            for (int i = 0; i < continuation; i++) {
+                codePoint = (codePoint << 6) | (buffer.get(index++) & 0x3F);
+            }
+            if (Character.isBmpCodePoint(codePoint)) {
+                if (c >= length || key.charAt(c++) != codePoint) {
+                    return false;
+                }
+            } else if (c + 1 >= length
+                    || key.charAt(c++) != Character.highSurrogate(codePoint)
+                    || key.charAt(c++) != Character.lowSurrogate(codePoint)) {
+                return false;
+            }
+        }
+        return c == length;
+    }
+
+    /** Murmur3 finalizer over String.hashCode(); low bits pick the slot, high bits are the tag */
+    private static long hash(String key) {
+        long z = key.hashCode() * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static long tag(long hash) {
+        return hash & ~OFFSET_MASK;
+    }
+
+    private static int readVarint(ByteBuffer buffer, int index) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get(index++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static int varintSize(int value) {
+        return value < 1 << 7 ? 1 : value < 1 << 14 ? 2 : value < 1 << 21 ? 3 : value < 1 << 28 ? 4 : 5;
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, String>> {
+        @Override
+        public int size() {
+            return MappedStringMap.this.size();
+        }
+
+        /** Entries in table order, which is unspecified */
+        @Override
+        public Iterator<Entry<String, String>> iterator() {
+            return new Iterator<>() {
+                private long slot = nextSlot(0);
+
+                @Override
+                public boolean hasNext() {
+                    return slot <= tableMask;
+                }
+
+                @Override
+                public Entry<String, String> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    long record = table.getLong(tableOffset + slot * 8) & OFFSET_MASK;
+                    slot = nextSlot(slot + 1);
+                    return new SimpleImmutableEntry<>(readKey(record), readValue(record));
+                }
+            };
+        }
+
+        private long nextSlot(long slot) {
+            while (slot <= tableMask && table.getLong(tableOffset + slot * 8) == 0) {
+                slot++;
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * Streams entries into a new file. Records are appended as they are put and
+     * their hashes are spilled to a temporary index file, so writing needs no
+     * more heap than one entry however many there are. finish() builds the hash
+     * table in a mapped region of the file and moves it into place; closing an
+     * unfinished writer discards it.
+     */
+    public static final class Writer implements Closeable {
+        private final Path file;
+        private final Path temp;
+        private final Path spill;
+        private final FileChannel channel;
+        private final DataOutputStream out;
+        private final DataOutputStream index;
+        private long position = HEADER_SIZE;
+        private long entries;
+        private int longestRecord;
+        private boolean finished;
+
+        private Writer(Path file) throws IOException {
+            this.file = file;
+            Path directory = file.toAbsolutePath().getParent();
+            this.temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            this.spill = Files.createTempFile(directory, file.getFileName().toString(), ".index");
+            this.channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(HEADER_SIZE);
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            this.index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spill), 1 << 16));
+        }
+
+        /**
+         * Keys must be well-formed UTF-16; duplicate keys are reported by finish().
+         */
+        public Writer put(String key, String value) throws IOException {
+            if (key == null || value == null) {
+                throw new NullPointerException("Mapped string maps have no null keys or values");
+            }
+            if (finished) {
+                throw new IllegalStateException("Writer already finished");
+            }
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+            long length = varintSize(keyBytes.length) + varintSize(valueBytes.length)
+                    + (long) keyBytes.length + valueBytes.length;
+            if (length > MAX_RECORD_LENGTH) {
+                throw new IllegalArgumentException("Entry longer than " + MAX_RECORD_LENGTH + " bytes: " + key);
+            }
+            if (position + length > OFFSET_MASK) {
+                throw new IllegalStateException("Mapped string maps hold at most 1 TB of records");
+            }
+            writeVarint(keyBytes.length);
+            writeVarint(valueBytes.length);
+            out.write(keyBytes);
+            out.write(valueBytes);
+            index.writeLong(hash(key));
+            index.writeLong(position);
+            position += length;
+            longestRecord = Math.max(longestRecord, (int) length);
+            entries++;
+            return this;
+        }
+
+        /**
+         * Writes the hash table and header and replaces the target file.
+         *
+         * @throws IllegalArgumentException if a key was put twice
+         */
+        public void finish() throws IOException {
+            if (finished) {
+                throw new IllegalStateException("Writer already finished");
+            }
+            finished = true;
+            out.flush();
+            index.close();
+            int tableBits = Math.max(1, 64 - Long.numberOfLeadingZeros((long) Math.ceil(entries / 0.7)));
+            long tableOffset = (position + 7) & ~7L;
+            long tableMask = (1L << tableBits) - 1;
+            MappedSegments records = new MappedSegments(channel, FileChannel.MapMode.READ_ONLY,
+                    HEADER_SIZE, position - HEADER_SIZE, DEFAULT_SEGMENT_SHIFT, longestRecord);
+            // Mapping past the end grows the file; the new table starts zeroed
+            MappedSegments table = new MappedSegments(channel, FileChannel.MapMode.READ_WRITE,
+                    tableOffset, 8L << tableBits, DEFAULT_SEGMENT_SHIFT, 0);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(spill), 1 << 16))) {
+                for (long i = 0; i < entries; i++) {
+                    long hash = in.readLong();
+                    long record = in.readLong();
+                    insert(records, table, tableOffset, tableMask, hash, record);
+                }
+            }
+            table.force();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+            header.putLong(MAGIC).putInt(VERSION).putInt(longestRecord)
+                    .putLong(entries).putLong(tableOffset).putInt(tableBits);
+            header.clear();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+            channel.close();
+            Files.deleteIfExists(spill);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        private static void insert(MappedSegments records, MappedSegments table, long tableOffset,
+                                   long tableMask, long hash, long record) {
+            long tag = tag(hash);
+            for (long slot = hash & tableMask; ; slot = (slot + 1) & tableMask) {
+                long position = tableOffset + slot * 8;
+                long entry = table.getLong(position);
+                if (entry == 0) {
+                    table.putLong(position, tag | record);
+                    return;
+                }
+                if ((entry & ~OFFSET_MASK) == tag && sameKey(records, entry & OFFSET_MASK, record)) {
+                    throw new IllegalArgumentException("duplicate key at record offset " + record);
+                }
+            }
+        }
+
+        private static boolean sameKey(MappedSegments records, long first, long second) {
+            ByteBuffer a = records.buffer(first);
+            ByteBuffer b = records.buffer(second);
+            int i = records.index(first);
+            int j = records.index(second);
+            int length = readVarint(a, i);
+            if (length != readVarint(b, j)) {
+                return false;
+            }
+            i += varintSize(length);
+            j += varintSize(length);
+            i += varintSize(readVarint(a, i));
+            j += varintSize(readVarint(b, j));
+            for (int k = 0; k < length; k++) {
+                if (a.get(i + k) != b.get(j + k)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void writeVarint(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+
+        /**
+         * Deletes the temporary files if finish() was not called or failed.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                out.close();
+                index.close();
+            } finally {
+                channel.close();
+                Files.deleteIfExists(spill);
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
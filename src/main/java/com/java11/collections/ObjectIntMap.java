@@ -0,0 +1,236 @@
+package com.java11.collections;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Immutable map from objects to ints, for lookup tables such as String to int
+ * where Map.of() would box every value. Keys and values live in parallel
+ * Object[] and int[] tables with linear probing; there are no entry or Integer
+ * objects. Null keys are rejected, as in Map.of().
+ */
+public final class ObjectIntMap<K> {
+
+    private static final ObjectIntMap<?> EMPTY = new ObjectIntMap<>(new Object[2], new int[2], 0);
+
+    private final Object[] keys;
+    private final int[] values;
+    private final int size;
+
+    private ObjectIntMap(Object[] keys, int[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K> ObjectIntMap<K> of() {
+        return (ObjectIntMap<K>) EMPTY;
+    }
+
+    public static <K> ObjectIntMap<K> of(K k1, int v1) {
+        return ObjectIntMap.<K>newBuilder(1).put(k1, v1).build();
+    }
+
+    public static <K> ObjectIntMap<K> of(K k1, int v1, K k2, int v2) {
+        return ObjectIntMap.<K>newBuilder(2).put(k1, v1).put(k2, v2).build();
+    }
+
+    public static <K> ObjectIntMap<K> of(K k1, int v1, K k2, int v2, K k3, int v3) {
+        return ObjectIntMap.<K>newBuilder(3).put(k1, v1).put(k2, v2).put(k3, v3).build();
+    }
+
+    /**
+     * Unboxes the values of an existing map.
+     */
+    public static <K> ObjectIntMap<K> copyOf(Map<? extends K, Integer> map) {
+        Builder<K> builder = newBuilder(map.size());
+        map.forEach(builder::put);
+        return builder.build();
+    }
+
+    public static <K> Builder<K> newBuilder() {
+        return new Builder<>(16);
+    }
+
+    /** Sizes the table up front so that building never rehashes */
+    public static <K> Builder<K> newBuilder(int expectedSize) {
+        return new Builder<>(expectedSize);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @throws NoSuchElementException if the key is absent
+     */
+    public int get(Object key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            throw new NoSuchElementException("key not found: " + key);
+        }
+        return values[index];
+    }
+
+    public int getOrDefault(Object key, int defaultValue) {
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : defaultValue;
+    }
+
+    /** Iteration order is unspecified, as for Map.of() */
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjIntConsumer<? super K> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept((K) keys[i], values[i]);
+            }
+        }
+    }
+
+    private int indexOf(Object key) {
+        Objects.requireNonNull(key);
+        int mask = keys.length - 1;
+        int index = PrimitiveHashing.mix(key.hashCode()) & mask;
+        Object slot;
+        while ((slot = keys[index]) != null) {
+            if (slot == key || slot.equals(key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof ObjectIntMap)) {
+            return false;
+        }
+        ObjectIntMap<?> other = (ObjectIntMap<?>) o;
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                int index = other.indexOf(keys[i]);
+                if (index < 0 || other.values[index] != values[i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // Same as Map.hashCode() for the boxed entries
+        int hash = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                hash += keys[i].hashCode() ^ values[i];
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("{");
+        forEach((key, value) -> text.append(text.length() > 1 ? ", " : "").append(key).append('=').append(value));
+        return text.append('}').toString();
+    }
+
+    /**
+     * Collects entries into a growing table. build() hands the table to the map
+     * without copying it, so a builder can only be built once.
+     */
+    public static final class Builder<K> {
+        private Object[] keys;
+        private int[] values;
+        private int size;
+        private boolean built;
+
+        private Builder(int expectedSize) {
+            if (expectedSize < 0) {
+                throw new IllegalArgumentException("expectedSize must not be negative: " + expectedSize);
+            }
+            int length = PrimitiveHashing.tableSize(expectedSize);
+            keys = new Object[length];
+            values = new int[length];
+        }
+
+        /**
+         * @throws IllegalArgumentException if the key was already put, as Map.of() does
+         */
+        public Builder<K> put(K key, int value) {
+            Objects.requireNonNull(key);
+            if (built) {
+                throw new IllegalStateException("Builder already built");
+            }
+            if (size + 1 > keys.length * PrimitiveHashing.LOAD_FACTOR) {
+                rehash(keys.length * 2);
+            }
+            if (!insert(keys, values, key, value)) {
+                throw new IllegalArgumentException("duplicate key: " + key);
+            }
+            size++;
+            return this;
+        }
+
+        public ObjectIntMap<K> build() {
+            if (built) {
+                throw new IllegalStateException("Builder already built");
+            }
+            built = true;
+            if (size == 0) {
+                return of();
+            }
+            int length = PrimitiveHashing.tableSize(size);
+            if (length < keys.length) {
+                rehash(length);
+            }
+            return new ObjectIntMap<>(keys, values, size);
+        }
+
+        private void rehash(int length) {
+            Object[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new Object[length];
+            values = new int[length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    insert(keys, values, oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static boolean insert(Object[] keys, int[] values, Object key, int value) {
+            int mask = keys.length - 1;
+            int index = PrimitiveHashing.mix(key.hashCode()) & mask;
+            Object slot;
+            while ((slot = keys[index]) != null) {
+                if (slot.equals(key)) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = value;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,540 @@
+package com.java11.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable map whose updates share structure with the previous version, stored
+ * as a hash array mapped trie. Each node covers five bits of the hash with a
+ * 32-bit bitmap and an array holding only the slots in use, so with() and
+ * without() copy one path of small arrays, about log32(n) of them, instead of
+ * the whole map. Null keys and values are rejected, as in Map.of().
+ *
+ * <p>A Builder changes the nodes it created in place, for bulk loading.
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    /** Trie depth never exceeds 7 levels of 5 bits plus one collision node */
+    private static final int MAX_DEPTH = 8;
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(0, BitmapNode.EMPTY);
+
+    private final int size;
+    private final Node root;
+    private Set<Entry<K, V>> entrySet;
+
+    private PersistentMap(int size, Node root) {
+        this.size = size;
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> of() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    public static <K, V> PersistentMap<K, V> of(K k1, V v1) {
+        return PersistentMap.<K, V>of().with(k1, v1);
+    }
+
+    public static <K, V> PersistentMap<K, V> of(K k1, V v1, K k2, V v2) {
+        return PersistentMap.<K, V>newBuilder().put(k1, v1).put(k2, v2).build();
+    }
+
+    public static <K, V> PersistentMap<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3) {
+        return PersistentMap.<K, V>newBuilder().put(k1, v1).put(k2, v2).put(k3, v3).build();
+    }
+
+    /**
+     * Unlike Map.copyOf(), a later key replaces an earlier equal one.
+     */
+    public static <K, V> PersistentMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentMap) {
+            @SuppressWarnings("unchecked")
+            PersistentMap<K, V> persistent = (PersistentMap<K, V>) map;
+            return persistent;
+        }
+        return PersistentMap.<K, V>newBuilder().putAll(map).build();
+    }
+
+    public static <K, V> Builder<K, V> newBuilder() {
+        return new Builder<>(of());
+    }
+
+    /**
+     * Builder that starts from this map's entries; the map is not changed.
+     */
+    public Builder<K, V> toBuilder() {
+        return new Builder<>(this);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        return (V) root.find(0, hash(Objects.requireNonNull(key)), key);
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        V value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Returns a map with the key mapped to the value, or this map if it already was.
+     */
+    public PersistentMap<K, V> with(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        Change change = new Change();
+        Node newRoot = root.with(null, 0, hash(key), key, value, change);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentMap<>(change.added ? size + 1 : size, newRoot);
+    }
+
+    /**
+     * Returns a map without the key, or this map if it had no such key.
+     */
+    public PersistentMap<K, V> without(Object key) {
+        Change change = new Change();
+        Node newRoot = root.without(null, 0, hash(Objects.requireNonNull(key)), key, change);
+        if (!change.removed) {
+            return this;
+        }
+        return size == 1 ? of() : new PersistentMap<>(size - 1, newRoot == null ? BitmapNode.EMPTY : newRoot);
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> entries = entrySet;
+        if (entries == null) {
+            entries = new EntrySet();
+            entrySet = entries;
+        }
+        return entries;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /** What an update did, so the map can keep its size without counting */
+    private static final class Change {
+        boolean added;
+        boolean removed;
+    }
+
+    /**
+     * A trie node holding key/value pairs. Nodes created by a Builder are owned
+     * by it and may be changed in place while it is building; all other
+     * changes copy the node.
+     */
+    private abstract static class Node {
+        final Object owner;
+
+        Node(Object owner) {
+            this.owner = owner;
+        }
+
+        boolean editableBy(Object editor) {
+            return editor != null && owner == editor;
+        }
+
+        abstract Object find(int shift, int hash, Object key);
+
+        abstract Node with(Object editor, int shift, int hash, Object key, Object value, Change change);
+
+        /** Returns the node without the key, or null if it would be empty */
+        abstract Node without(Object editor, int shift, int hash, Object key, Change change);
+
+        abstract int pairCount();
+
+        /** Key of pair i, or null if the pair holds a child node */
+        abstract Object keyAt(int i);
+
+        /** Value of pair i, or the child node */
+        abstract Object valueAt(int i);
+    }
+
+    /**
+     * Node for five bits of the hash. The bitmap marks which of the 32 slots are
+     * in use; array holds a key and value, or null and a child node, for each
+     * marked slot in order. Owned nodes may have spare room at the end.
+     */
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(null, 0, new Object[0]);
+
+        int bitmap;
+        Object[] array;
+
+        BitmapNode(Object owner, int bitmap, Object[] array) {
+            super(owner);
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int i = index(bit);
+            Object k = array[2 * i];
+            Object v = array[2 * i + 1];
+            if (k == null) {
+                return ((Node) v).find(shift + BITS, hash, key);
+            }
+            return key.equals(k) ? v : null;
+        }
+
+        @Override
+        Node with(Object editor, int shift, int hash, Object key, Object value, Change change) {
+            int bit = bit(hash, shift);
+            int i = index(bit);
+            if ((bitmap & bit) != 0) {
+                Object k = array[2 * i];
+                Object v = array[2 * i + 1];
+                if (k == null) {
+                    Node child = ((Node) v).with(editor, shift + BITS, hash, key, value, change);
+                    return child == v ? this : set(editor, 2 * i + 1, child);
+                }
+                if (key.equals(k)) {
+                    return value == v ? this : set(editor, 2 * i + 1, value);
+                }
+                change.added = true;
+                Node child = split(editor, shift + BITS, k, v, hash, key, value);
+                BitmapNode node = set(editor, 2 * i, null);
+                node.array[2 * i + 1] = child;
+                return node;
+            }
+            change.added = true;
+            int count = Integer.bitCount(bitmap);
+            if (editableBy(editor) && array.length > 2 * count) {
+                System.arraycopy(array, 2 * i, array, 2 * i + 2, 2 * (count - i));
+                array[2 * i] = key;
+                array[2 * i + 1] = value;
+                bitmap |= bit;
+                return this;
+            }
+            // Builders leave room for a few more pairs
+            Object[] newArray = new Object[2 * (count + (editor != null ? 4 : 1))];
+            System.arraycopy(array, 0, newArray, 0, 2 * i);
+            newArray[2 * i] = key;
+            newArray[2 * i + 1] = value;
+            System.arraycopy(array, 2 * i, newArray, 2 * i + 2, 2 * (count - i));
+            return new BitmapNode(editor, bitmap | bit, newArray);
+        }
+
+        @Override
+        Node without(Object editor, int shift, int hash, Object key, Change change) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = index(bit);
+            Object k = array[2 * i];
+            Object v = array[2 * i + 1];
+            if (k == null) {
+                Node child = ((Node) v).without(editor, shift + BITS, hash, key, change);
+                if (child == v) {
+                    return this;
+                }
+                if (child != null) {
+                    return set(editor, 2 * i + 1, child);
+                }
+            } else if (key.equals(k)) {
+                change.removed = true;
+            } else {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            int count = Integer.bitCount(bitmap);
+            if (editableBy(editor)) {
+                System.arraycopy(array, 2 * i + 2, array, 2 * i, 2 * (count - i - 1));
+                array[2 * count - 2] = null;
+                array[2 * count - 1] = null;
+                bitmap ^= bit;
+                return this;
+            }
+            Object[] newArray = new Object[2 * (count - 1)];
+            System.arraycopy(array, 0, newArray, 0, 2 * i);
+            System.arraycopy(array, 2 * i + 2, newArray, 2 * i, 2 * (count - i - 1));
+            return new BitmapNode(editor, bitmap ^ bit, newArray);
+        }
+
+        private BitmapNode set(Object editor, int index, Object element) {
+            BitmapNode node = editableBy(editor) ? this : new BitmapNode(editor, bitmap, array.clone());
+            node.array[index] = element;
+            return node;
+        }
+
+        /** Node holding two pairs that shared a slot at the level above */
+        private static Node split(Object editor, int shift, Object k1, Object v1, int h2, Object k2, Object v2) {
+            int h1 = hash(k1);
+            if (h1 == h2) {
+                return new CollisionNode(editor, h1, new Object[]{k1, v1, k2, v2});
+            }
+            Change ignored = new Change();
+            return EMPTY.with(editor, shift, h1, k1, v1, ignored)
+                    .with(editor, shift, h2, k2, v2, ignored);
+        }
+
+        @Override
+        int pairCount() {
+            return Integer.bitCount(bitmap);
+        }
+
+        @Override
+        Object keyAt(int i) {
+            return array[2 * i];
+        }
+
+        @Override
+        Object valueAt(int i) {
+            return array[2 * i + 1];
+        }
+    }
+
+    /** Keys whose hashes are equal in all 32 bits, searched linearly */
+    private static final class CollisionNode extends Node {
+        final int hash;
+        final Object[] array;
+
+        CollisionNode(Object owner, int hash, Object[] array) {
+            super(owner);
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int i = hash == this.hash ? indexOf(key) : -1;
+            return i < 0 ? null : array[i + 1];
+        }
+
+        @Override
+        Node with(Object editor, int shift, int hash, Object key, Object value, Change change) {
+            if (hash != this.hash) {
+                // Push this node one level down next to the new key
+                Object[] pair = {null, this};
+                return new BitmapNode(editor, bit(this.hash, shift), pair)
+                        .with(editor, shift, hash, key, value, change);
+            }
+            int i = indexOf(key);
+            if (i >= 0) {
+                if (array[i + 1] == value) {
+                    return this;
+                }
+                Object[] newArray = array.clone();
+                newArray[i + 1] = value;
+                return new CollisionNode(editor, hash, newArray);
+            }
+            change.added = true;
+            Object[] newArray = Arrays.copyOf(array, array.length + 2);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            return new CollisionNode(editor, hash, newArray);
+        }
+
+        @Override
+        Node without(Object editor, int shift, int hash, Object key, Change change) {
+            int i = hash == this.hash ? indexOf(key) : -1;
+            if (i < 0) {
+                return this;
+            }
+            change.removed = true;
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, i);
+            System.arraycopy(array, i + 2, newArray, i, array.length - i - 2);
+            return new CollisionNode(editor, hash, newArray);
+        }
+
+        @Override
+        int pairCount() {
+            return array.length / 2;
+        }
+
+        @Override
+        Object keyAt(int i) {
+            return array[2 * i];
+        }
+
+        @Override
+        Object valueAt(int i) {
+            return array[2 * i + 1];
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> entry = (Entry<?, ?>) o;
+            Object key = entry.getKey();
+            return key != null && Objects.equals(get(key), entry.getValue());
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator(root);
+        }
+    }
+
+    /** Depth-first walk with an explicit stack of nodes and positions */
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        private final Node[] nodes = new Node[MAX_DEPTH];
+        private final int[] positions = new int[MAX_DEPTH];
+        private int depth;
+        private Entry<K, V> next;
+
+        EntryIterator(Node root) {
+            nodes[0] = root;
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                int position = positions[depth];
+                if (position == node.pairCount()) {
+                    depth--;
+                    continue;
+                }
+                positions[depth]++;
+                Object key = node.keyAt(position);
+                Object value = node.valueAt(position);
+                if (key != null) {
+                    next = new SimpleImmutableEntry<>((K) key, (V) value);
+                    return;
+                }
+                depth++;
+                nodes[depth] = (Node) value;
+                positions[depth] = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = next;
+            advance();
+            return entry;
+        }
+    }
+
+    /**
+     * Puts and removes entries in place, then hands out an immutable map with
+     * build(). Building is O(1); the builder can keep going afterwards and
+     * copies whatever it shares with built maps before changing it.
+     */
+    public static final class Builder<K, V> {
+        private Object owner = new Object();
+        private Node root;
+        private int size;
+
+        private Builder(PersistentMap<K, V> map) {
+            this.root = map.root;
+            this.size = map.size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public Builder<K, V> put(K key, V value) {
+            Objects.requireNonNull(key);
+            Objects.requireNonNull(value);
+            Change change = new Change();
+            root = root.with(owner, 0, hash(key), key, value, change);
+            if (change.added) {
+                size++;
+            }
+            return this;
+        }
+
+        public Builder<K, V> putAll(Map<? extends K, ? extends V> map) {
+            map.forEach(this::put);
+            return this;
+        }
+
+        public Builder<K, V> remove(Object key) {
+            Change change = new Change();
+            Node newRoot = root.without(owner, 0, hash(Objects.requireNonNull(key)), key, change);
+            root = newRoot == null ? BitmapNode.EMPTY : newRoot;
+            if (change.removed) {
+                size--;
+            }
+            return this;
+        }
+
+        public PersistentMap<K, V> build() {
+            if (size == 0) {
+                return of();
+            }
+            PersistentMap<K, V> map = new PersistentMap<>(size, root);
+            // The map now shares the trie; later changes must copy it
+            owner = new Object();
+            return map;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.java11.collections;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list whose updates share structure with the previous version. The
+ * elements sit in a 32-way trie plus a tail array of up to 32 elements, so
+ * plus(), with() and withoutLast() copy one path of at most seven 32-slot arrays
+ * instead of the whole list, and get() reads at most seven levels. Null
+ * elements are rejected, as in List.of().
+ *
+ * <p>A Builder appends in place to the arrays it created, which makes bulk
+ * loading about as cheap as filling an ArrayList.
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Node EMPTY_NODE = new Node(null, new Object[WIDTH]);
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int size;
+    private final int shift;
+    private final Node root;
+    private final Object[] tail;
+
+    private PersistentVector(int size, int shift, Node root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> of() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    @SafeVarargs
+    public static <E> PersistentVector<E> of(E... elements) {
+        Builder<E> builder = newBuilder();
+        for (E element : elements) {
+            builder.add(element);
+        }
+        return builder.build();
+    }
+
+    public static <E> PersistentVector<E> copyOf(Collection<? extends E> elements) {
+        if (elements instanceof PersistentVector) {
+            @SuppressWarnings("unchecked")
+            PersistentVector<E> vector = (PersistentVector<E>) elements;
+            return vector;
+        }
+        Builder<E> builder = newBuilder();
+        for (E element : elements) {
+            builder.add(element);
+        }
+        return builder.build();
+    }
+
+    public static <E> Builder<E> newBuilder() {
+        return new Builder<>(of());
+    }
+
+    /**
+     * Builder that starts from this vector's elements; the vector is not changed.
+     */
+    public Builder<E> toBuilder() {
+        return new Builder<>(this);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return (E) arrayFor(index)[index & MASK];
+    }
+
+    /**
+     * Returns a vector with the element appended.
+     */
+    public PersistentVector<E> plus(E element) {
+        Objects.requireNonNull(element);
+        if (size - tailOffset(size) < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+        Node tailNode = new Node(null, tail);
+        int newShift = shift;
+        Node newRoot;
+        if ((size >>> BITS) > (1 << shift)) {
+            // The trie is full: add a level
+            newRoot = new Node(null, new Object[WIDTH]);
+            newRoot.array[0] = root;
+            newRoot.array[1] = newPath(null, shift, tailNode);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(null, size, shift, root, tailNode);
+        }
+        return new PersistentVector<>(size + 1, newShift, newRoot, new Object[]{element});
+    }
+
+    /**
+     * Returns a vector with the element at index replaced.
+     */
+    public PersistentVector<E> with(int index, E element) {
+        Objects.checkIndex(index, size);
+        Objects.requireNonNull(element);
+        if (index >= tailOffset(size)) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentVector<>(size, shift, root, newTail);
+        }
+        return new PersistentVector<>(size, shift, assoc(null, shift, root, index, element), tail);
+    }
+
+    /**
+     * Returns a vector without the last element.
+     *
+     * @throws IllegalStateException if the vector is empty
+     */
+    public PersistentVector<E> withoutLast() {
+        if (size == 0) {
+            throw new IllegalStateException("Vector is empty");
+        }
+        if (size == 1) {
+            return of();
+        }
+        if (size - tailOffset(size) > 1) {
+            return new PersistentVector<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        }
+        // The tail empties; the last leaf of the trie becomes the new tail
+        Object[] newTail = arrayFor(size - 2);
+        Node newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null) {
+            newRoot = EMPTY_NODE;
+        }
+        if (shift > BITS && newRoot.array[1] == null) {
+            newRoot = (Node) newRoot.array[0];
+            newShift -= BITS;
+        }
+        return new PersistentVector<>(size - 1, newShift, newRoot, newTail);
+    }
+
+    private static int tailOffset(int size) {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] arrayFor(int index) {
+        if (index >= tailOffset(size)) {
+            return tail;
+        }
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.array[(index >>> level) & MASK];
+        }
+        return node.array;
+    }
+
+    private static Node assoc(Object owner, int level, Node node, int index, Object element) {
+        Node copy = node.editable(owner);
+        if (level == 0) {
+            copy.array[index & MASK] = element;
+        } else {
+            int child = (index >>> level) & MASK;
+            copy.array[child] = assoc(owner, level - BITS, (Node) node.array[child], index, element);
+        }
+        return copy;
+    }
+
+    /** Adds the full tail as the leaf after the last one of a trie holding size - 32 elements */
+    private static Node pushTail(Object owner, int size, int level, Node parent, Node tailNode) {
+        int child = ((size - 1) >>> level) & MASK;
+        Node copy = parent.editable(owner);
+        Node inserted;
+        if (level == BITS) {
+            inserted = tailNode;
+        } else {
+            Node existing = (Node) parent.array[child];
+            inserted = existing != null
+                    ? pushTail(owner, size, level - BITS, existing, tailNode)
+                    : newPath(owner, level - BITS, tailNode);
+        }
+        copy.array[child] = inserted;
+        return copy;
+    }
+
+    private static Node newPath(Object owner, int level, Node node) {
+        if (level == 0) {
+            return node;
+        }
+        Node path = new Node(owner, new Object[WIDTH]);
+        path.array[0] = newPath(owner, level - BITS, node);
+        return path;
+    }
+
+    private Node popTail(int level, Node node) {
+        int child = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Node newChild = popTail(level - BITS, (Node) node.array[child]);
+            if (newChild == null && child == 0) {
+                return null;
+            }
+            Node copy = node.editable(null);
+            copy.array[child] = newChild;
+            return copy;
+        }
+        if (child == 0) {
+            return null;
+        }
+        Node copy = node.editable(null);
+        copy.array[child] = null;
+        return copy;
+    }
+
+    /**
+     * A 32-slot array of children or elements. A Builder marks the nodes it
+     * creates with itself as owner and may change them in place; every other
+     * change copies the node.
+     */
+    private static final class Node {
+        private final Object owner;
+        private final Object[] array;
+
+        Node(Object owner, Object[] array) {
+            this.owner = owner;
+            this.array = array;
+        }
+
+        Node editable(Object editor) {
+            return editor != null && owner == editor ? this : new Node(editor, array.clone());
+        }
+    }
+
+    /**
+     * Appends and replaces elements in place, then hands out an immutable
+     * vector with build(). Building is O(1); the builder can keep going
+     * afterwards and copies whatever it shares with built vectors before
+     * changing it.
+     */
+    public static final class Builder<E> {
+        private Object owner = new Object();
+        private int size;
+        private int shift;
+        private Node root;
+        private Object[] tail;
+
+        private Builder(PersistentVector<E> vector) {
+            this.size = vector.size;
+            this.shift = vector.shift;
+            this.root = vector.root;
+            this.tail = Arrays.copyOf(vector.tail, WIDTH);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public Builder<E> add(E element) {
+            Objects.requireNonNull(element);
+            if (size - tailOffset(size) < WIDTH) {
+                tail[size & MASK] = element;
+                size++;
+                return this;
+            }
+            Node tailNode = new Node(owner, tail);
+            tail = new Object[WIDTH];
+            tail[0] = element;
+            if ((size >>> BITS) > (1 << shift)) {
+                Node newRoot = new Node(owner, new Object[WIDTH]);
+                newRoot.array[0] = root;
+                newRoot.array[1] = newPath(owner, shift, tailNode);
+                root = newRoot;
+                shift += BITS;
+            } else {
+                root = pushTail(owner, size, shift, root, tailNode);
+            }
+            size++;
+            return this;
+        }
+
+        public Builder<E> addAll(Collection<? extends E> elements) {
+            for (E element : elements) {
+                add(element);
+            }
+            return this;
+        }
+
+        public Builder<E> set(int index, E element) {
+            Objects.checkIndex(index, size);
+            Objects.requireNonNull(element);
+            if (index >= tailOffset(size)) {
+                tail[index & MASK] = element;
+            } else {
+                root = assoc(owner, shift, root, index, element);
+            }
+            return this;
+        }
+
+        public PersistentVector<E> build() {
+            if (size == 0) {
+                return of();
+            }
+            PersistentVector<E> vector = new PersistentVector<>(size, shift, root,
+                    Arrays.copyOf(tail, size - tailOffset(size)));
+            // The vector now shares the trie; later changes must copy it
+            owner = new Object();
+            return vector;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.java11.collections;
+
+/**
+ * Table sizing and hash mixing shared by the open-addressing collections.
+ */
+final class PrimitiveHashing {
+
+    /** Tables are at most this full, so linear probes stay short */
+    static final float LOAD_FACTOR = 0.7f;
+
+    private PrimitiveHashing() {
+    }
+
+    /** Power-of-two table length for the given number of entries */
+    static int tableSize(int entries) {
+        long needed = Math.max(2, (long) Math.ceil(entries / (double) LOAD_FACTOR));
+        if (needed > 1 << 30) {
+            throw new IllegalArgumentException("Too many entries: " + entries);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    /**
+     * Spreads the bits of a hash code so that sequential ints and poor
+     * hashCode() implementations still fill a power-of-two table evenly.
+     */
+    static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
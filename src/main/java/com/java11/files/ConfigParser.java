@@ -0,0 +1,187 @@
+package com.java11.files;
+
+import com.java11.strings.ByteBuffers;
+import com.java11.strings.StringPool;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Single-pass parser for key=value configuration text.
+ * Follows the same rules as the lines()/trim()/split("=", 2) processing in
+ * FileMethodsExample: blank lines and lines starting with '#' are skipped,
+ * the key ends at the first '=', and key and value are trimmed.
+ * Unlike that approach it allocates nothing per line; the handler receives offsets
+ * and only toMap() creates Strings, one per key and value.
+ */
+public final class ConfigParser {
+
+    /**
+     * Receives the [start, end) offsets of each trimmed key and value.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        void entry(int keyStart, int keyEnd, int valueStart, int valueEnd);
+    }
+
+    private ConfigParser() {
+    }
+
+    public static void parse(CharSequence text, Handler handler) {
+        int end = text.length();
+        int position = 0;
+        while (position < end) {
+            int lineStart = position;
+            int equals = -1;
+            int i = lineStart;
+            char c = 0;
+            for (; i < end; i++) {
+                c = text.charAt(i);
+                if (c == '\n' || c == '\r') {
+                    break;
+                }
+                if (c == '=' && equals < 0) {
+                    equals = i;
+                }
+            }
+            position = i < end && c == '\r' && i + 1 < end && text.charAt(i + 1) == '\n' ? i + 2 : i + 1;
+
+            int keyStart = lineStart;
+            while (keyStart < i && text.charAt(keyStart) <= ' ') {
+                keyStart++;
+            }
+            if (equals < 0 || text.charAt(keyStart) == '#') {
+                continue;
+            }
+            int keyEnd = equals;
+            while (keyEnd > keyStart && text.charAt(keyEnd - 1) <= ' ') {
+                keyEnd--;
+            }
+            int valueStart = equals + 1;
+            while (valueStart < i && text.charAt(valueStart) <= ' ') {
+                valueStart++;
+            }
+            int valueEnd = i;
+            while (valueEnd > valueStart && text.charAt(valueEnd - 1) <= ' ') {
+                valueEnd--;
+            }
+            handler.entry(keyStart, keyEnd, valueStart, valueEnd);
+        }
+    }
+
+    /**
+     * Parses UTF-8 bytes between the buffer's position and limit; offsets are
+     * absolute buffer indexes. '=', '#' and line terminators are single bytes
+     * in UTF-8, so no decoding is needed while scanning.
+     */
+    public static void parse(ByteBuffer utf8, Handler handler) {
+        int end = utf8.limit();
+        int position = utf8.position();
+        while (position < end) {
+            int lineStart = position;
+            int equals = -1;
+            int i = lineStart;
+            byte b = 0;
+            for (; i < end; i++) {
+                b = utf8.get(i);
+                if (b == '\n' || b == '\r') {
+                    break;
+                }
+                if (b == '=' && equals < 0) {
+                    equals = i;
+                }
+            }
+            position = i < end && b == '\r' && i + 1 < end && utf8.get(i + 1) == '\n' ? i + 2 : i + 1;
+
+            int keyStart = lineStart;
+            while (keyStart < i && isSpace(utf8.get(keyStart))) {
+                keyStart++;
+            }
+            if (equals < 0 || utf8.get(keyStart) == '#') {
+                continue;
+            }
+            int keyEnd = equals;
+            while (keyEnd > keyStart && isSpace(utf8.get(keyEnd - 1))) {
+                keyEnd--;
+            }
+            int valueStart = equals + 1;
+            while (valueStart < i && isSpace(utf8.get(valueStart))) {
+                valueStart++;
+            }
+            int valueEnd = i;
+            while (valueEnd > valueStart && isSpace(utf8.get(valueEnd - 1))) {
+                valueEnd--;
+            }
+            handler.entry(keyStart, keyEnd, valueStart, valueEnd);
+        }
+    }
+
+    /**
+     * Parses the text into an unmodifiable map. Later keys override earlier ones.
+     */
+    public static Map<String, String> toMap(CharSequence text) {
+        Map<String, String> map = new HashMap<>();
+        parse(text, (keyStart, keyEnd, valueStart, valueEnd) ->
+                map.put(text.subSequence(keyStart, keyEnd).toString(),
+                        text.subSequence(valueStart, valueEnd).toString()));
+        return Collections.unmodifiableMap(map);
+    }
+
+    public static Map<String, String> toMap(ByteBuffer utf8) {
+        Map<String, String> map = new HashMap<>();
+        Utf8Strings strings = new Utf8Strings(utf8);
+        parse(utf8, (keyStart, keyEnd, valueStart, valueEnd) ->
+                map.put(strings.get(keyStart, keyEnd), strings.get(valueStart, valueEnd)));
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Parses the text into an unmodifiable map whose keys and values come from
+     * the pool, so parsing the same records again creates no new Strings.
+     */
+    public static Map<String, String> toMap(CharSequence text, StringPool pool) {
+        Map<String, String> map = new HashMap<>();
+        parse(text, (keyStart, keyEnd, valueStart, valueEnd) ->
+                map.put(pool.intern(text, keyStart, keyEnd), pool.intern(text, valueStart, valueEnd)));
+        return Collections.unmodifiableMap(map);
+    }
+
+    public static Map<String, String> toMap(ByteBuffer utf8, StringPool pool) {
+        Map<String, String> map = new HashMap<>();
+        parse(utf8, (keyStart, keyEnd, valueStart, valueEnd) ->
+                map.put(pool.intern(utf8, keyStart, keyEnd), pool.intern(utf8, valueStart, valueEnd)));
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static boolean isSpace(byte b) {
+        // Bytes >= 0x80 are negative and belong to multi-byte characters
+        return b >= 0 && b <= ' ';
+    }
+
+    /**
+     * Decodes byte ranges into Strings, reusing one scratch array for direct buffers.
+     */
+    static final class Utf8Strings {
+        private final ByteBuffer bytes;
+        private byte[] scratch = new byte[64];
+
+        Utf8Strings(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        String get(int from, int to) {
+            int length = to - from;
+            if (bytes.hasArray()) {
+                return new String(bytes.array(), bytes.arrayOffset() + from, length, StandardCharsets.UTF_8);
+            }
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            ByteBuffers.get(bytes, from, scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
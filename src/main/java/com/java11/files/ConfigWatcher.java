@@ -0,0 +1,340 @@
+package com.java11.files;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps a key=value configuration file loaded and reloads it when it changes on disk.
+ * On change only the lines between the common prefix and common suffix of the old
+ * and new content are parsed again. Each reload publishes a new unmodifiable Map
+ * through a volatile field, so readers never lock and never see a partial update.
+ */
+public class ConfigWatcher implements Closeable {
+
+    private final Path file;
+    private final Object reloadLock = new Object();
+
+    private volatile Map<String, String> snapshot;
+    private volatile ReloadStats stats = new ReloadStats(0, 0, 0, 0, -1, 0, 0, null);
+
+    // Guarded by reloadLock
+    private byte[] content;
+    private boolean hasDuplicateKeys;
+
+    private WatchService watchService;
+    private Thread watchThread;
+
+    private ConfigWatcher(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the file. Call start() to begin watching it.
+     */
+    public static ConfigWatcher open(Path file) throws IOException {
+        ConfigWatcher watcher = new ConfigWatcher(file.toAbsolutePath());
+        watcher.reload();
+        return watcher;
+    }
+
+    public Map<String, String> snapshot() {
+        return snapshot;
+    }
+
+    public String get(String key) {
+        return snapshot.get(key);
+    }
+
+    public ReloadStats stats() {
+        return stats;
+    }
+
+    /**
+     * Starts a daemon thread that reloads the file whenever its directory reports a change to it.
+     */
+    public synchronized void start() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watchThread = new Thread(this::watchLoop, "config-watcher-" + file.getFileName());
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Re-reads the file and publishes a new snapshot if its content changed.
+     * A failed read keeps the current snapshot and is recorded in stats().
+     *
+     * @return true if a new snapshot was published
+     */
+    public boolean reload() throws IOException {
+        synchronized (reloadLock) {
+            long allocatedBefore = ThreadAllocation.currentThreadBytes();
+            long start = System.nanoTime();
+
+            byte[] updated;
+            try {
+                updated = Files.readAllBytes(file);
+            } catch (IOException e) {
+                ReloadStats current = stats;
+                stats = new ReloadStats(current.reloads, current.incrementalReloads, current.lastChangedBytes,
+                        current.lastReloadNanos, current.lastAllocatedBytes, current.totalReloadNanos,
+                        current.failedReloads + 1, e);
+                throw e;
+            }
+            byte[] previous = content;
+            boolean incremental;
+            long changedBytes;
+            if (previous == null || hasDuplicateKeys) {
+                fullParse(updated);
+                incremental = false;
+                changedBytes = updated.length;
+            } else {
+                int prefix = commonPrefix(previous, updated);
+                if (prefix == previous.length && prefix == updated.length) {
+                    return false;
+                }
+                int suffix = commonSuffix(previous, updated, prefix);
+                // Widen to whole lines; prefix and suffix bytes are identical in both arrays
+                int from = lineStart(updated, prefix);
+                int oldTo = lineEnd(previous, previous.length - suffix);
+                int newTo = lineEnd(updated, updated.length - suffix);
+                changedBytes = newTo - from;
+                incremental = applyChange(previous, updated, from, oldTo, newTo);
+                if (!incremental) {
+                    fullParse(updated);
+                    changedBytes = updated.length;
+                }
+            }
+            content = updated;
+
+            long elapsed = System.nanoTime() - start;
+            long allocated = allocatedBefore < 0 ? -1 : ThreadAllocation.currentThreadBytes() - allocatedBefore;
+            ReloadStats current = stats;
+            stats = new ReloadStats(current.reloads + 1,
+                    current.incrementalReloads + (incremental ? 1 : 0),
+                    changedBytes, elapsed, allocated, current.totalReloadNanos + elapsed,
+                    current.failedReloads, current.lastFailure);
+            return true;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchThread.interrupt();
+            watchService = null;
+        }
+    }
+
+    private void watchLoop() {
+        WatchService service = watchService;
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Object context = event.context();
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || file.getFileName().equals(context)) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed && Files.exists(file)) {
+                    try {
+                        reload();
+                    } catch (IOException e) {
+                        // Recorded in stats(); the file may be mid-write and the next event reloads it again
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private void fullParse(byte[] bytes) {
+        Map<String, String> map = new HashMap<>();
+        boolean[] duplicates = new boolean[1];
+        ConfigParser.parse(ByteBuffer.wrap(bytes), (keyStart, keyEnd, valueStart, valueEnd) -> {
+            if (map.put(decode(bytes, keyStart, keyEnd), decode(bytes, valueStart, valueEnd)) != null) {
+                duplicates[0] = true;
+            }
+        });
+        hasDuplicateKeys = duplicates[0];
+        snapshot = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Replaces the entries of old [from, oldTo) with those of new [from, newTo).
+     * Returns false when a key also appears outside the changed lines, since
+     * "last one wins" then needs a full parse.
+     */
+    private boolean applyChange(byte[] previous, byte[] updated, int from, int oldTo, int newTo) {
+        Set<String> removed = new HashSet<>();
+        ConfigParser.parse(ByteBuffer.wrap(previous, from, oldTo - from),
+                (keyStart, keyEnd, valueStart, valueEnd) -> removed.add(decode(previous, keyStart, keyEnd)));
+
+        Map<String, String> added = new HashMap<>();
+        boolean[] conflict = new boolean[1];
+        Map<String, String> current = snapshot;
+        ConfigParser.parse(ByteBuffer.wrap(updated, from, newTo - from), (keyStart, keyEnd, valueStart, valueEnd) -> {
+            String key = decode(updated, keyStart, keyEnd);
+            if (added.put(key, decode(updated, valueStart, valueEnd)) != null
+                    || (current.containsKey(key) && !removed.contains(key))) {
+                conflict[0] = true;
+            }
+        });
+        if (conflict[0]) {
+            return false;
+        }
+
+        Map<String, String> map = new HashMap<>(current);
+        map.keySet().removeAll(removed);
+        map.putAll(added);
+        snapshot = Collections.unmodifiableMap(map);
+        return true;
+    }
+
+    private static String decode(byte[] bytes, int from, int to) {
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    private static int commonPrefix(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < length && a[i] == b[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int commonSuffix(byte[] a, byte[] b, int prefix) {
+        int max = Math.min(a.length, b.length) - prefix;
+        int i = 0;
+        while (i < max && a[a.length - 1 - i] == b[b.length - 1 - i]) {
+            i++;
+        }
+        return i;
+    }
+
+    /** Start of the line containing index */
+    private static int lineStart(byte[] bytes, int index) {
+        int i = index;
+        while (i > 0 && bytes[i - 1] != '\n' && bytes[i - 1] != '\r') {
+            i--;
+        }
+        return i;
+    }
+
+    /** End of the line containing index, after its terminator */
+    private static int lineEnd(byte[] bytes, int index) {
+        int i = index;
+        while (i < bytes.length && bytes[i] != '\n' && bytes[i] != '\r') {
+            i++;
+        }
+        if (i < bytes.length && bytes[i] == '\r') {
+            i++;
+        }
+        if (i < bytes.length && bytes[i] == '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Immutable reload counters. Allocation is -1 when the JVM can't measure it.
+     * Failed reloads, including those of the watch thread, are counted
+     * separately and do not change the other counters.
+     */
+    public static final class ReloadStats {
+        private final long reloads;
+        private final long incrementalReloads;
+        private final long lastChangedBytes;
+        private final long lastReloadNanos;
+        private final long lastAllocatedBytes;
+        private final long totalReloadNanos;
+        private final long failedReloads;
+        private final IOException lastFailure;
+
+        ReloadStats(long reloads, long incrementalReloads, long lastChangedBytes,
+                    long lastReloadNanos, long lastAllocatedBytes, long totalReloadNanos,
+                    long failedReloads, IOException lastFailure) {
+            this.reloads = reloads;
+            this.incrementalReloads = incrementalReloads;
+            this.lastChangedBytes = lastChangedBytes;
+            this.lastReloadNanos = lastReloadNanos;
+            this.lastAllocatedBytes = lastAllocatedBytes;
+            this.totalReloadNanos = totalReloadNanos;
+            this.failedReloads = failedReloads;
+            this.lastFailure = lastFailure;
+        }
+
+        public long getReloads() {
+            return reloads;
+        }
+
+        public long getIncrementalReloads() {
+            return incrementalReloads;
+        }
+
+        public long getFullReloads() {
+            return reloads - incrementalReloads;
+        }
+
+        public long getLastChangedBytes() {
+            return lastChangedBytes;
+        }
+
+        public long getLastReloadNanos() {
+            return lastReloadNanos;
+        }
+
+        public long getLastAllocatedBytes() {
+            return lastAllocatedBytes;
+        }
+
+        public long getAverageReloadNanos() {
+            return reloads == 0 ? 0 : totalReloadNanos / reloads;
+        }
+
+        /** Reloads that could not read the file */
+        public long getFailedReloads() {
+            return failedReloads;
+        }
+
+        /** Why the most recent failed reload failed, or null if none has */
+        public IOException getLastFailure() {
+            return lastFailure;
+        }
+
+        @Override
+        public String toString() {
+            return "reloads=" + reloads + " (incremental=" + incrementalReloads + ")"
+                    + ", lastChangedBytes=" + lastChangedBytes
+                    + ", lastReload=" + lastReloadNanos / 1000 + " us"
+                    + ", lastAllocated=" + lastAllocatedBytes + " B"
+                    + (failedReloads == 0 ? "" : ", failed=" + failedReloads + " (" + lastFailure.getMessage() + ")");
+        }
+    }
+}
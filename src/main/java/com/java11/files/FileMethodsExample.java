@@ -1,10 +1,16 @@
 package com.java11.files;
 
+import com.java11.strings.StringPool;
+import com.java11.strings.TextBuffer;
+
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 /**
  * Demonstrates new file methods introduced in Java 11
@@ -101,6 +107,28 @@ public class FileMethodsExample {
                             System.out.println("  " + parts[0].trim() + " = " + parts[1].trim());
                         }
                     });
+            
+            // Single pass over the text without splitting each line
+            Map<String, String> parsedConfig = ConfigParser.toMap(config);
+            System.out.println("ConfigParser found " + parsedConfig.size() + " keys, server.port = "
+                    + parsedConfig.get("server.port"));
+            
+            // Parsing the same file again with a pool reuses the key and value Strings of the first parse
+            StringPool pool = new StringPool(64);
+            Map<String, String> firstParse = ConfigParser.toMap(config, pool);
+            Map<String, String> secondParse = ConfigParser.toMap(config, pool);
+            System.out.println("Pooled re-parse shares keys: "
+                    + (firstParse.keySet().iterator().next() == secondParse.keySet().iterator().next())
+                    + " (" + pool + ")");
+            
+            // Reload after an edit - only the changed line is parsed again
+            try (ConfigWatcher watcher = ConfigWatcher.open(configFile)) {
+                Files.writeString(configFile, configContent.replace("server.port=8080", "server.port=9090"),
+                        StandardCharsets.UTF_8);
+                watcher.reload();
+                System.out.println("Reloaded server.port = " + watcher.get("server.port"));
+                System.out.println("Reload stats: " + watcher.stats());
+            }
             System.out.println();
             
             // 6. Error handling and encoding
@@ -124,29 +152,32 @@ public class FileMethodsExample {
             // 7. Performance comparison
             System.out.println("7. Performance comparison:");
             
-            // Create a larger file for testing
-            StringBuilder largeContent = new StringBuilder();
-            for (int i = 0; i < 1000; i++) {
-                largeContent.append("Line ").append(i).append(": This is test content for performance comparison.\n");
-            }
+            // Create a larger file for testing, encoding each line straight into one pooled buffer
             Path largeFile = Path.of("large_test_file.txt");
-            Files.writeString(largeFile, largeContent.toString(), StandardCharsets.UTF_8);
+            try (TextBuffer largeContent = TextBuffer.acquire();
+                 FileChannel channel = FileChannel.open(largeFile, StandardOpenOption.CREATE,
+                         StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (int i = 0; i < 1000; i++) {
+                    largeContent.append("Line ").append(i).append(": This is test content for performance comparison.\n");
+                }
+                largeContent.writeTo(channel);
+            }
             
-            // Time the new method
-            long start = System.nanoTime();
+            // New method
             String newMethodResult = Files.readString(largeFile, StandardCharsets.UTF_8);
-            long newMethodTime = System.nanoTime() - start;
             
-            // Time the old method
-            start = System.nanoTime();
+            // Old method
             byte[] oldMethodBytes = Files.readAllBytes(largeFile);
             String oldMethodResult = new String(oldMethodBytes, StandardCharsets.UTF_8);
-            long oldMethodTime = System.nanoTime() - start;
             
             System.out.println("File size: " + newMethodResult.length() + " characters");
-            System.out.println("New method (readString): " + newMethodTime + " ns");
-            System.out.println("Old method (readAllBytes): " + oldMethodTime + " ns");
-            System.out.println("Performance difference: " + String.format("%.2f", (double) oldMethodTime / newMethodTime) + "x");
+            System.out.println("Same content: " + newMethodResult.equals(oldMethodResult));
+            
+            // Memory-mapped streaming read - never holds the whole file in the heap
+            try (MappedFileReader reader = MappedFileReader.open(largeFile)) {
+                System.out.println("Mapped reader lines: " + reader.lines().count()
+                        + " (readString lines: " + newMethodResult.lines().count() + ")");
+            }
             System.out.println();
             
             // Cleanup
@@ -0,0 +1,289 @@
+package com.java11.files;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads UTF-8 text files through FileChannel.map in fixed-size windows.
+ * Unlike Files.readString() the whole file is never copied into the heap,
+ * so memory use stays flat regardless of file size.
+ * Lines are terminated by "\n", "\r" or "\r\n", the same as String.lines().
+ */
+public class MappedFileReader implements Closeable {
+
+    /** Default mapping window: 64 MB */
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    // Ranges smaller than this are not split for parallel streams
+    private static final long MIN_SPLIT_SIZE = 1024 * 1024;
+    private static final int SPLIT_SCAN_CHUNK = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowSize;
+
+    private MappedFileReader(FileChannel channel, int windowSize) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.windowSize = windowSize;
+    }
+
+    public static MappedFileReader open(Path file) throws IOException {
+        return open(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    public static MappedFileReader open(Path file, int windowSize) throws IOException {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        return new MappedFileReader(FileChannel.open(file, StandardOpenOption.READ), windowSize);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Calls the action for every line. The CharSequence is a reused view that is
+     * only valid during the call; copy it with toString() to keep it.
+     */
+    public void forEachLine(Consumer<? super CharSequence> action) {
+        LineCursor cursor = new LineCursor(0, size);
+        while (cursor.next()) {
+            action.accept(cursor.line());
+        }
+    }
+
+    /**
+     * Returns the lines of the file as Strings. Only one line per thread is held
+     * in memory at a time, so the stream can be used on files larger than the heap.
+     * The stream splits on line boundaries near the middle of each range,
+     * so parallel() scales across cores.
+     */
+    public Stream<String> lines() {
+        return StreamSupport.stream(new FileLineSpliterator(0, size), false);
+    }
+
+    /**
+     * Maps a read-only region of the file.
+     */
+    MappedByteBuffer map(long position, long length) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Finds the start of the first line at or after mid, or -1 if no line
+     * starts in [mid, end).
+     */
+    long nextLineStart(long mid, long end) {
+        long chunkStart = mid;
+        while (chunkStart < end) {
+            int chunkLength = (int) Math.min(SPLIT_SCAN_CHUNK, size - chunkStart);
+            MappedByteBuffer chunk = map(chunkStart, chunkLength);
+            for (int i = 0; i < chunkLength; i++) {
+                byte b = chunk.get(i);
+                if (b == '\n') {
+                    return chunkStart + i + 1;
+                }
+                if (b == '\r') {
+                    long next = chunkStart + i + 1;
+                    if (next < size && (i + 1 < chunkLength ? chunk.get(i + 1) : map(next, 1).get(0)) == '\n') {
+                        next++;
+                    }
+                    return next;
+                }
+            }
+            chunkStart += chunkLength;
+        }
+        return -1;
+    }
+
+    /**
+     * Spliterator over lines that start in [start, end).
+     */
+    private class FileLineSpliterator implements Spliterator<String> {
+        private final LineCursor cursor;
+
+        FileLineSpliterator(long start, long end) {
+            this.cursor = new LineCursor(start, end);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            if (!cursor.next()) {
+                return false;
+            }
+            action.accept(cursor.line().toString());
+            return true;
+        }
+
+        @Override
+        public Spliterator<String> trySplit() {
+            long remaining = cursor.end - cursor.position;
+            if (remaining < MIN_SPLIT_SIZE * 2) {
+                return null;
+            }
+            long split = nextLineStart(cursor.position + remaining / 2, cursor.end);
+            if (split <= cursor.position || split >= cursor.end) {
+                return null;
+            }
+            FileLineSpliterator prefix = new FileLineSpliterator(cursor.position, split);
+            cursor.position = split;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return cursor.end - cursor.position;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Walks lines that start in [start, end), remapping the window when a line
+     * crosses its edge. A line may extend past end, but never past the file size.
+     */
+    private class LineCursor {
+        private final long end;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        private CharBuffer chars = CharBuffer.allocate(256);
+
+        private MappedByteBuffer window;
+        private long windowStart;
+        private int windowLength;
+        private long position;
+
+        LineCursor(long start, long end) {
+            this.position = start;
+            this.end = end;
+        }
+
+        /**
+         * Advances to the next line and decodes it into the reusable buffer.
+         */
+        boolean next() {
+            if (position >= end || position >= size) {
+                return false;
+            }
+            int length = windowSize;
+            while (true) {
+                ensureWindow(length);
+                int from = (int) (position - windowStart);
+                int limit = windowLength;
+                boolean eof = windowStart + limit == size;
+                int i = from;
+                while (i < limit) {
+                    byte b = window.get(i);
+                    if (b == '\n' || b == '\r') {
+                        break;
+                    }
+                    i++;
+                }
+                if (i == limit && !eof) {
+                    length = remap(length);
+                    continue;
+                }
+                int terminator = 0;
+                if (i < limit) {
+                    terminator = 1;
+                    if (window.get(i) == '\r') {
+                        if (i + 1 == limit && !eof) {
+                            // Need one more byte to tell "\r" from "\r\n"
+                            length = remap(length);
+                            continue;
+                        }
+                        if (i + 1 < limit && window.get(i + 1) == '\n') {
+                            terminator = 2;
+                        }
+                    }
+                }
+                decode(from, i);
+                position = windowStart + i + terminator;
+                return true;
+            }
+        }
+
+        CharSequence line() {
+            return chars;
+        }
+
+        /**
+         * Drops the current window so the next one starts at the current line.
+         * If the window already started there, the line is longer than the
+         * window and the window size is doubled.
+         */
+        private int remap(int length) {
+            boolean startsAtLine = windowStart == position;
+            window = null;
+            if (!startsAtLine) {
+                return length;
+            }
+            if (length == Integer.MAX_VALUE) {
+                throw new UncheckedIOException(new IOException("Line at offset " + position + " exceeds 2 GB"));
+            }
+            return (int) Math.min(Integer.MAX_VALUE, (long) length * 2);
+        }
+
+        private void ensureWindow(int length) {
+            if (window != null && position >= windowStart && position < windowStart + windowLength) {
+                return;
+            }
+            windowStart = position;
+            windowLength = (int) Math.min(length, size - position);
+            window = map(position, windowLength);
+        }
+
+        private void decode(int from, int to) {
+            // Decode straight from the window, then restore its full limit for scanning
+            window.position(from).limit(to);
+            int needed = (int) Math.ceil((to - from) * (double) decoder.maxCharsPerByte());
+            if (chars.capacity() < needed) {
+                chars = CharBuffer.allocate(Math.max(needed, chars.capacity() * 2));
+            }
+            chars.clear();
+            decoder.reset();
+            try {
+                CoderResult result = decoder.decode(window, chars, true);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                decoder.flush(chars);
+            } catch (CharacterCodingException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                window.clear();
+            }
+            chars.flip();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.java11.files;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Bytes allocated by the current thread. getCurrentThreadAllocatedBytes()
+ * only exists from Java 14, so this version looks the thread up by id; the
+ * release 17 version in src/main/java17 uses the cheaper call.
+ */
+final class ThreadAllocation {
+
+    private static final ThreadMXBean BEAN = ManagementFactory.getThreadMXBean();
+
+    private ThreadAllocation() {
+    }
+
+    /**
+     * Bytes allocated by the current thread, or -1 if the JVM doesn't report it.
+     */
+    static long currentThreadBytes() {
+        if (BEAN instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) BEAN).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
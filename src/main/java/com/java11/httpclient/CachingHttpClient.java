@@ -0,0 +1,842 @@
+package com.java11.httpclient;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * HttpClient that caches GET responses in a size-bounded LRU, optionally backed by
+ * a directory on disk. Entries are fresh for their Cache-Control max-age; stale
+ * entries with an ETag or Last-Modified are revalidated with a conditional request,
+ * and a 304 refreshes the entry without transferring the body again.
+ * Concurrent requests for the same URI share one upstream call.
+ *
+ * <p>Only responses that can be stored are read into memory; any other
+ * response goes straight to the caller's BodyHandler, so streaming handlers
+ * still stream.
+ *
+ * <p>Entries are keyed by URI only, so requests with an Authorization header and
+ * responses with a Vary header are never cached. Unsafe methods (POST, PUT, ...)
+ * pass through and drop the entry for their URI.
+ */
+public class CachingHttpClient extends HttpClient {
+
+    private static final int DISK_FORMAT = 1;
+
+    private final HttpClient delegate;
+    private final Clock clock;
+    private final long maxMemoryBytes;
+    private final DiskTier disk;
+    private final HttpCacheMetrics metrics = new HttpCacheMetrics();
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    // Guarded by itself; access order makes the eldest entry the least recently used
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+
+    private CachingHttpClient(Builder builder) {
+        this.delegate = builder.delegate;
+        this.clock = builder.clock;
+        this.maxMemoryBytes = builder.maxMemoryBytes;
+        this.disk = builder.diskDirectory == null ? null : new DiskTier(builder.diskDirectory, builder.maxDiskBytes);
+    }
+
+    public static Builder newBuilder(HttpClient delegate) {
+        return new Builder(delegate);
+    }
+
+    public HttpCacheMetrics metrics() {
+        return metrics;
+    }
+
+    /** Bytes held by the in-memory tier */
+    public long memoryBytes() {
+        synchronized (memory) {
+            return memoryBytes;
+        }
+    }
+
+    /**
+     * Drops every entry from memory and disk.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+            memoryBytes = 0;
+        }
+        if (disk != null) {
+            disk.clear();
+        }
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        if (!isCacheable(request)) {
+            HttpResponse<T> response = delegate.send(request, responseBodyHandler);
+            invalidateIfUnsafe(request, response);
+            return response;
+        }
+        try {
+            return cachedSend(request, responseBodyHandler).get();
+        } catch (ExecutionException e) {
+            // Rethrow the upstream exception itself, so HttpTimeoutException, ConnectException
+            // and other IOException subtypes reach the caller as HttpClient.send() throws them
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        return sendAsync(request, responseBodyHandler, null);
+    }
+
+    /**
+     * Push promises are only accepted for requests that bypass the cache.
+     */
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        if (!isCacheable(request)) {
+            return delegate.sendAsync(request, responseBodyHandler, pushPromiseHandler)
+                    .whenComplete((response, error) -> {
+                        if (response != null) {
+                            invalidateIfUnsafe(request, response);
+                        }
+                    });
+        }
+        return cachedSend(request, responseBodyHandler);
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> cachedSend(HttpRequest request,
+                                                              HttpResponse.BodyHandler<T> handler) {
+        String key = request.uri().toString();
+        boolean[] fromDisk = new boolean[1];
+        Entry cached = lookup(key, fromDisk);
+        if (cached != null && !hasDirective(request.headers(), "no-cache") && cached.isFresh(clock.millis())) {
+            metrics.hit(fromDisk[0]);
+            return replay(cached, request, handler);
+        }
+
+        // Completes with null when the response could not be stored
+        CompletableFuture<Entry> fetch = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = inFlight.putIfAbsent(key, fetch);
+        if (existing != null) {
+            metrics.coalesced();
+            return existing.thenCompose(entry -> entry != null
+                    ? replay(entry, request, handler)
+                    : delegate.sendAsync(request, handler));
+        }
+        return fetch(key, request, cached, handler).whenComplete((fetched, error) -> {
+            inFlight.remove(key, fetch);
+            if (error != null) {
+                fetch.completeExceptionally(error);
+            } else {
+                fetch.complete(fetched.entry);
+            }
+        }).thenCompose(fetched -> fetched.entry != null
+                ? replay(fetched.entry, request, handler)
+                : CompletableFuture.completedFuture(fetched.response));
+    }
+
+    /**
+     * Sends the request upstream, conditionally if there is a stale entry with validators.
+     * A storable response or a 304 is read into an entry; any other response is
+     * passed to the caller's handler as it arrives.
+     */
+    private <T> CompletableFuture<Fetched<T>> fetch(String key, HttpRequest request, Entry stale,
+                                                    HttpResponse.BodyHandler<T> handler) {
+        HttpRequest upstream = request;
+        if (stale != null && stale.hasValidators()) {
+            HttpRequest.Builder conditional = HttpRequests.copyOf(request);
+            stale.header("ETag").ifPresent(etag -> conditional.setHeader("If-None-Match", etag));
+            stale.header("Last-Modified").ifPresent(date -> conditional.setHeader("If-Modified-Since", date));
+            upstream = conditional.build();
+        }
+        boolean revalidating = upstream != request;
+        HttpResponse.BodyHandler<Body<T>> split = info -> {
+            if ((revalidating && info.statusCode() == 304) || Entry.isStorable(info.statusCode(), info.headers())) {
+                return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), Body::buffered);
+            }
+            return HttpResponse.BodySubscribers.mapping(handler.apply(info), Body::streamed);
+        };
+        return delegate.sendAsync(upstream, split).thenApply(response -> {
+            long now = clock.millis();
+            if (revalidating && response.statusCode() == 304) {
+                metrics.revalidated();
+                Entry refreshed = stale.refresh(response.headers(), now);
+                store(key, refreshed);
+                return new Fetched<>(refreshed, null);
+            }
+            metrics.miss();
+            Body<T> body = response.body();
+            if (body.bytes == null) {
+                metrics.uncacheable();
+                remove(key);
+                return new Fetched<>(null, new StreamedResponse<>(response, body.value));
+            }
+            Entry entry = Entry.received(key, response.statusCode(), response.headers(), response.version(),
+                    body.bytes, now);
+            store(key, entry);
+            return new Fetched<>(entry, null);
+        });
+    }
+
+    /**
+     * Feeds the stored body to the caller's BodyHandler as a single buffer.
+     */
+    private static <T> CompletableFuture<HttpResponse<T>> replay(Entry entry, HttpRequest request,
+                                                                 HttpResponse.BodyHandler<T> handler) {
+        HttpResponse.BodySubscriber<T> subscriber = handler.apply(entry);
+        AtomicBoolean done = new AtomicBoolean();
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (!done.compareAndSet(false, true)) {
+                    return;
+                }
+                if (n <= 0) {
+                    subscriber.onError(new IllegalArgumentException("non-positive request: " + n));
+                    return;
+                }
+                if (entry.body.length > 0) {
+                    subscriber.onNext(List.of(ByteBuffer.wrap(entry.body).asReadOnlyBuffer()));
+                }
+                subscriber.onComplete();
+            }
+
+            @Override
+            public void cancel() {
+                done.set(true);
+            }
+        });
+        return subscriber.getBody().toCompletableFuture().thenApply(body ->
+                new CachedResponse<>(request, entry.statusCode, entry.headers, entry.version, body));
+    }
+
+    private Entry lookup(String key, boolean[] fromDisk) {
+        synchronized (memory) {
+            Entry entry = memory.get(key);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        if (disk == null) {
+            return null;
+        }
+        Entry entry = disk.read(key);
+        if (entry != null) {
+            fromDisk[0] = true;
+            putInMemory(key, entry);
+        }
+        return entry;
+    }
+
+    private void store(String key, Entry entry) {
+        putInMemory(key, entry);
+        if (disk != null) {
+            disk.write(entry);
+        }
+    }
+
+    private void putInMemory(String key, Entry entry) {
+        synchronized (memory) {
+            Entry previous = memory.remove(key);
+            if (previous != null) {
+                memoryBytes -= previous.size();
+            }
+            // Entries larger than the whole tier only live on disk
+            if (entry.size() > maxMemoryBytes) {
+                return;
+            }
+            memory.put(key, entry);
+            memoryBytes += entry.size();
+            Iterator<Entry> eldest = memory.values().iterator();
+            while (memoryBytes > maxMemoryBytes) {
+                memoryBytes -= eldest.next().size();
+                eldest.remove();
+                metrics.evicted();
+            }
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (memory) {
+            Entry previous = memory.remove(key);
+            if (previous != null) {
+                memoryBytes -= previous.size();
+            }
+        }
+        if (disk != null) {
+            disk.delete(key);
+        }
+    }
+
+    private void invalidateIfUnsafe(HttpRequest request, HttpResponse<?> response) {
+        String method = request.method();
+        if (!method.equals("GET") && !method.equals("HEAD") && response.statusCode() < 400) {
+            remove(request.uri().toString());
+        }
+    }
+
+    private static boolean isCacheable(HttpRequest request) {
+        HttpHeaders headers = request.headers();
+        return request.method().equals("GET")
+                && headers.firstValue("Authorization").isEmpty()
+                && headers.firstValue("If-None-Match").isEmpty()
+                && headers.firstValue("If-Modified-Since").isEmpty()
+                && !hasDirective(headers, "no-store");
+    }
+
+    private static boolean hasDirective(HttpHeaders headers, String directive) {
+        return directive(headers, directive) != null;
+    }
+
+    /**
+     * Value of a Cache-Control directive, "" if it has none, or null if absent.
+     */
+    private static String directive(HttpHeaders headers, String name) {
+        for (String header : headers.allValues("Cache-Control")) {
+            for (String part : header.split(",")) {
+                String token = part.trim();
+                int equals = token.indexOf('=');
+                String directive = equals < 0 ? token : token.substring(0, equals).trim();
+                if (directive.equalsIgnoreCase(name)) {
+                    return equals < 0 ? "" : token.substring(equals + 1).trim().replace("\"", "");
+                }
+            }
+        }
+        return null;
+    }
+
+    private static long parseSeconds(String value) {
+        try {
+            return value == null ? -1 : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** Upstream body: the bytes of a response to store, or the caller's body */
+    private static final class Body<T> {
+        private final byte[] bytes;
+        private final T value;
+
+        private Body(byte[] bytes, T value) {
+            this.bytes = bytes;
+            this.value = value;
+        }
+
+        static <T> Body<T> buffered(byte[] bytes) {
+            return new Body<>(bytes, null);
+        }
+
+        static <T> Body<T> streamed(T value) {
+            return new Body<>(null, value);
+        }
+    }
+
+    /** Result of an upstream call: an entry to replay, or the response that bypassed the cache */
+    private static final class Fetched<T> {
+        private final Entry entry;
+        private final HttpResponse<T> response;
+
+        Fetched(Entry entry, HttpResponse<T> response) {
+            this.entry = entry;
+            this.response = response;
+        }
+    }
+
+    /** Upstream response with the body the caller's handler produced */
+    private static final class StreamedResponse<T> implements HttpResponse<T> {
+        private final HttpResponse<?> response;
+        private final T body;
+
+        StreamedResponse(HttpResponse<?> response, T body) {
+            this.response = response;
+            this.body = body;
+        }
+
+        @Override
+        public int statusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public HttpRequest request() {
+            return response.request();
+        }
+
+        @Override
+        public Optional<HttpResponse<T>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return response.headers();
+        }
+
+        @Override
+        public T body() {
+            return body;
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return response.sslSession();
+        }
+
+        @Override
+        public URI uri() {
+            return response.uri();
+        }
+
+        @Override
+        public Version version() {
+            return response.version();
+        }
+
+        @Override
+        public String toString() {
+            return response.toString();
+        }
+    }
+
+    /**
+     * A stored response. Freshness is computed once from max-age minus Age when the
+     * response is received, so lookups only compare two longs.
+     */
+    private static final class Entry implements HttpResponse.ResponseInfo {
+        private final String key;
+        private final int statusCode;
+        private final HttpHeaders headers;
+        private final Version version;
+        private final byte[] body;
+        private final long freshUntilMillis;
+
+        Entry(String key, int statusCode, HttpHeaders headers, Version version, byte[] body,
+                      long freshUntilMillis) {
+            this.key = key;
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.version = version;
+            this.body = body;
+            this.freshUntilMillis = freshUntilMillis;
+        }
+
+        static Entry received(String key, int statusCode, HttpHeaders headers, Version version, byte[] body,
+                              long receivedMillis) {
+            return new Entry(key, statusCode, headers, version, body, freshUntil(headers, receivedMillis));
+        }
+
+        private static long freshUntil(HttpHeaders headers, long receivedMillis) {
+            if (hasDirective(headers, "no-cache")) {
+                return receivedMillis;
+            }
+            long maxAge = parseSeconds(directive(headers, "max-age"));
+            if (maxAge <= 0) {
+                return receivedMillis;
+            }
+            long age = Math.max(0, parseSeconds(headers.firstValue("Age").orElse(null)));
+            return receivedMillis + Math.max(0, maxAge - age) * 1000;
+        }
+
+        boolean isFresh(long nowMillis) {
+            return nowMillis < freshUntilMillis;
+        }
+
+        boolean hasValidators() {
+            return headers.firstValue("ETag").isPresent() || headers.firstValue("Last-Modified").isPresent();
+        }
+
+        /**
+         * Whether a response with this status and these headers may be stored,
+         * decided before its body is read.
+         */
+        static boolean isStorable(int statusCode, HttpHeaders headers) {
+            return statusCode == 200
+                    && !hasDirective(headers, "no-store")
+                    && headers.firstValue("Vary").isEmpty()
+                    && (headers.firstValue("ETag").isPresent() || headers.firstValue("Last-Modified").isPresent()
+                    || parseSeconds(directive(headers, "max-age")) > 0);
+        }
+
+        Optional<String> header(String name) {
+            return headers.firstValue(name);
+        }
+
+        /**
+         * Entry with the 304's headers merged over the stored ones.
+         */
+        Entry refresh(HttpHeaders notModified, long receivedMillis) {
+            Map<String, List<String>> merged = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            merged.putAll(headers.map());
+            merged.putAll(notModified.map());
+            merged.put("Content-Length", List.of(Integer.toString(body.length)));
+            return received(key, statusCode, HttpHeaders.of(merged, (name, value) -> true), version, body,
+                    receivedMillis);
+        }
+
+        long size() {
+            long size = body.length + key.length() + 64;
+            for (Map.Entry<String, List<String>> header : headers.map().entrySet()) {
+                size += header.getKey().length();
+                for (String value : header.getValue()) {
+                    size += value.length();
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public int statusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return headers;
+        }
+
+        @Override
+        public Version version() {
+            return version;
+        }
+    }
+
+    /**
+     * One file per entry, named by the SHA-256 of the URI. Files are written to a
+     * temporary name and moved into place, so readers never see a partial entry.
+     * When the directory exceeds its bound the least recently read files are deleted.
+     * Temporary files are never counted or trimmed; they belong to writes in progress.
+     */
+    private static final class DiskTier {
+        private final Path directory;
+        private final long maxBytes;
+        private final AtomicLong bytes = new AtomicLong();
+
+        DiskTier(Path directory, long maxBytes) {
+            this.directory = directory;
+            this.maxBytes = maxBytes;
+            try {
+                Files.createDirectories(directory);
+                try (Stream<Path> files = Files.list(directory)) {
+                    bytes.set(files.filter(DiskTier::isEntry).mapToLong(DiskTier::sizeOf).sum());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        Entry read(String key) {
+            Path file = fileFor(key);
+            if (!Files.exists(file)) {
+                return null;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != DISK_FORMAT || !in.readUTF().equals(key)) {
+                    return null;
+                }
+                int statusCode = in.readInt();
+                Version version = Version.valueOf(in.readUTF());
+                long freshUntil = in.readLong();
+                int headerCount = in.readInt();
+                Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                for (int i = 0; i < headerCount; i++) {
+                    String name = in.readUTF();
+                    int valueCount = in.readInt();
+                    List<String> values = new ArrayList<>(valueCount);
+                    for (int j = 0; j < valueCount; j++) {
+                        values.add(in.readUTF());
+                    }
+                    headers.put(name, values);
+                }
+                byte[] body = in.readNBytes(in.readInt());
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                return new Entry(key, statusCode, HttpHeaders.of(headers, (name, value) -> true), version, body,
+                        freshUntil);
+            } catch (IOException | RuntimeException e) {
+                // A truncated or unreadable file is treated as a miss
+                return null;
+            }
+        }
+
+        void write(Entry entry) {
+            Path file = fileFor(entry.key);
+            Path temp = null;
+            try {
+                temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(DISK_FORMAT);
+                    out.writeUTF(entry.key);
+                    out.writeInt(entry.statusCode);
+                    out.writeUTF(entry.version.name());
+                    out.writeLong(entry.freshUntilMillis);
+                    Map<String, List<String>> headers = entry.headers.map();
+                    out.writeInt(headers.size());
+                    for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                        out.writeUTF(header.getKey());
+                        out.writeInt(header.getValue().size());
+                        for (String value : header.getValue()) {
+                            out.writeUTF(value);
+                        }
+                    }
+                    out.writeInt(entry.body.length);
+                    out.write(entry.body);
+                }
+                long previous = sizeOf(file);
+                long written = Files.size(temp);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                if (bytes.addAndGet(written - previous) > maxBytes) {
+                    trim();
+                }
+            } catch (IOException e) {
+                // The disk tier is best effort; the entry is still cached in memory
+            } finally {
+                // Only still there if serializing or moving it failed
+                deleteQuietly(temp);
+            }
+        }
+
+        private static void deleteQuietly(Path file) {
+            if (file == null) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // Nothing more to do for a file we couldn't write either
+            }
+        }
+
+        void delete(String key) {
+            Path file = fileFor(key);
+            long size = sizeOf(file);
+            try {
+                if (Files.deleteIfExists(file)) {
+                    bytes.addAndGet(-size);
+                }
+            } catch (IOException e) {
+                // Left for trim() or the next write to replace
+            }
+        }
+
+        void clear() {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(DiskTier::isEntry).forEach(file -> {
+                    long size = sizeOf(file);
+                    try {
+                        if (Files.deleteIfExists(file)) {
+                            bytes.addAndGet(-size);
+                        }
+                    } catch (IOException e) {
+                        // Ignored, see delete()
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private synchronized void trim() throws IOException {
+            List<Path> oldestFirst;
+            try (Stream<Path> files = Files.list(directory)) {
+                oldestFirst = files.filter(DiskTier::isEntry)
+                        .sorted(Comparator.comparing(DiskTier::lastModified))
+                        .collect(Collectors.toList());
+            }
+            for (Path file : oldestFirst) {
+                if (bytes.get() <= maxBytes) {
+                    break;
+                }
+                long size = sizeOf(file);
+                if (Files.deleteIfExists(file)) {
+                    bytes.addAndGet(-size);
+                }
+            }
+        }
+
+        private Path fileFor(String key) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+                StringBuilder name = new StringBuilder(hash.length * 2);
+                for (byte b : hash) {
+                    name.append(String.format(Locale.ROOT, "%02x", b));
+                }
+                return directory.resolve(name.toString());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is required on every JVM", e);
+            }
+        }
+
+        /** Entry files are named by their hash; in-flight writes end in .tmp */
+        private static boolean isEntry(Path file) {
+            return !file.getFileName().toString().endsWith(".tmp");
+        }
+
+        private static long sizeOf(Path file) {
+            try {
+                return Files.size(file);
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+
+        private static FileTime lastModified(Path file) {
+            try {
+                return Files.getLastModifiedTime(file);
+            } catch (IOException e) {
+                return FileTime.fromMillis(0);
+            }
+        }
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() {
+        return delegate.cookieHandler();
+    }
+
+    @Override
+    public Optional<Duration> connectTimeout() {
+        return delegate.connectTimeout();
+    }
+
+    @Override
+    public Redirect followRedirects() {
+        return delegate.followRedirects();
+    }
+
+    @Override
+    public Optional<ProxySelector> proxy() {
+        return delegate.proxy();
+    }
+
+    @Override
+    public SSLContext sslContext() {
+        return delegate.sslContext();
+    }
+
+    @Override
+    public SSLParameters sslParameters() {
+        return delegate.sslParameters();
+    }
+
+    @Override
+    public Optional<Authenticator> authenticator() {
+        return delegate.authenticator();
+    }
+
+    @Override
+    public Version version() {
+        return delegate.version();
+    }
+
+    @Override
+    public Optional<Executor> executor() {
+        return delegate.executor();
+    }
+
+    @Override
+    public WebSocket.Builder newWebSocketBuilder() {
+        return delegate.newWebSocketBuilder();
+    }
+
+    public static final class Builder {
+        private final HttpClient delegate;
+        private long maxMemoryBytes = 16L * 1024 * 1024;
+        private Path diskDirectory;
+        private long maxDiskBytes;
+        private Clock clock = Clock.systemUTC();
+
+        private Builder(HttpClient delegate) {
+            this.delegate = Objects.requireNonNull(delegate);
+        }
+
+        public Builder maxMemoryBytes(long maxMemoryBytes) {
+            if (maxMemoryBytes < 0) {
+                throw new IllegalArgumentException("maxMemoryBytes must not be negative: " + maxMemoryBytes);
+            }
+            this.maxMemoryBytes = maxMemoryBytes;
+            return this;
+        }
+
+        /**
+         * Also keeps entries in the given directory, which survives restarts.
+         */
+        public Builder diskCache(Path directory, long maxBytes) {
+            if (maxBytes <= 0) {
+                throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+            }
+            this.diskDirectory = Objects.requireNonNull(directory);
+            this.maxDiskBytes = maxBytes;
+            return this;
+        }
+
+        /** Clock used for freshness; for tests */
+        public Builder clock(Clock clock) {
+            this.clock = Objects.requireNonNull(clock);
+            return this;
+        }
+
+        public CachingHttpClient build() {
+            return new CachingHttpClient(this);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.java11.httpclient;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters collected by a CachingHttpClient.
+ */
+public class HttpCacheMetrics {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder uncacheable = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    void hit(boolean fromDisk) {
+        hits.increment();
+        if (fromDisk) {
+            diskHits.increment();
+        }
+    }
+
+    void miss() {
+        misses.increment();
+    }
+
+    void revalidated() {
+        revalidations.increment();
+    }
+
+    void coalesced() {
+        coalesced.increment();
+    }
+
+    void uncacheable() {
+        uncacheable.increment();
+    }
+
+    void evicted() {
+        evictions.increment();
+    }
+
+    /** Responses served from a fresh cache entry without contacting the server */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /** Hits that were loaded from the disk tier */
+    public long getDiskHits() {
+        return diskHits.sum();
+    }
+
+    /** Requests that needed a full response from the server */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /** Stale entries confirmed by a 304 Not Modified */
+    public long getRevalidations() {
+        return revalidations.sum();
+    }
+
+    /** Requests that waited for an identical request already in flight */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /** GET responses that could not be stored (status, no-store, no validators or max-age) */
+    public long getUncacheable() {
+        return uncacheable.sum();
+    }
+
+    /** Entries dropped from memory to stay within the size bound */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long total = getHits() + getMisses() + getRevalidations();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d (disk=%d), misses=%d, revalidations=%d, coalesced=%d, uncacheable=%d, "
+                        + "evictions=%d, hitRate=%.2f",
+                getHits(), getDiskHits(), getMisses(), getRevalidations(), getCoalesced(), getUncacheable(),
+                getEvictions(), getHitRate());
+    }
+}
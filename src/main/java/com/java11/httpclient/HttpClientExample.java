@@ -1,10 +1,14 @@
 package com.java11.httpclient;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -13,16 +17,22 @@ import java.util.concurrent.ExecutionException;
  */
 public class HttpClientExample {
     
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
     public static void runExamples() {
         try {
             // 1. Basic HTTP GET request
             System.out.println("1. Basic HTTP GET request:");
-            HttpClient client = HttpClient.newHttpClient();
+            // Shared client: bounded executor, HTTP/2 preferred, connect/request timeouts
+            MeteredHttpClient client = HttpClientFactory.shared();
             HttpRequest request = HttpRequest.newBuilder()
                     .uri(URI.create("https://httpbin.org/get"))
                     .build();
+            // Repeated GETs of request go through the cache; it only stores responses with
+            // Cache-Control max-age or ETag/Last-Modified validators
+            CachingHttpClient cache = CachingHttpClient.newBuilder(client).build();
             
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = cache.send(request, HttpResponse.BodyHandlers.ofString());
             System.out.println("Status code: " + response.statusCode());
             System.out.println("Response body length: " + response.body().length() + " characters");
             System.out.println("Response headers: " + response.headers());
@@ -30,7 +40,7 @@ public class HttpClientExample {
             
             // 2. Asynchronous HTTP request
             System.out.println("2. Asynchronous HTTP request:");
-            CompletableFuture<HttpResponse<String>> futureResponse = client.sendAsync(
+            CompletableFuture<HttpResponse<String>> futureResponse = cache.sendAsync(
                     request, 
                     HttpResponse.BodyHandlers.ofString()
             );
@@ -53,14 +63,15 @@ public class HttpClientExample {
                     .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
                     .build();
             
-            HttpResponse<String> postResponse = client.send(postRequest, HttpResponse.BodyHandlers.ofString());
+            // Parsed with Jackson while the body arrives - no intermediate String
+            HttpResponse<JsonNode> postResponse = client.send(postRequest, JsonBodyHandlers.ofObject(MAPPER, JsonNode.class));
             System.out.println("POST Status code: " + postResponse.statusCode());
-            System.out.println("POST Response preview: " + postResponse.body().substring(0, Math.min(200, postResponse.body().length())) + "...");
+            System.out.println("POST echoed JSON: " + postResponse.body().get("json"));
             System.out.println();
             
             // 4. HTTP request with custom configuration
             System.out.println("4. HTTP request with custom configuration:");
-            HttpClient customClient = HttpClient.newBuilder()
+            MeteredHttpClient customClient = HttpClientFactory.newBuilder()
                     .connectTimeout(Duration.ofSeconds(10))
                     .followRedirects(HttpClient.Redirect.NORMAL)
                     .build();
@@ -75,6 +86,8 @@ public class HttpClientExample {
                 System.out.println("Custom request completed: " + customResponse.statusCode());
             } catch (Exception e) {
                 System.out.println("Custom request failed (expected due to timeout): " + e.getMessage());
+            } finally {
+                customClient.close();
             }
             System.out.println();
             
@@ -86,18 +99,18 @@ public class HttpClientExample {
                 HttpRequest.newBuilder().uri(URI.create("https://httpbin.org/delay/1")).build()
             };
             
-            CompletableFuture<HttpResponse<String>>[] futures = new CompletableFuture[requests.length];
-            for (int i = 0; i < requests.length; i++) {
-                futures[i] = client.sendAsync(requests[i], HttpResponse.BodyHandlers.ofString());
-            }
-            
-            // Wait for all to complete
-            CompletableFuture.allOf(futures).join();
-            
-            for (int i = 0; i < futures.length; i++) {
-                HttpResponse<String> concurrentResponse = futures[i].get();
-                System.out.println("Request " + (i + 1) + " completed: " + concurrentResponse.statusCode());
-            }
+            // At most 2 requests in flight; results arrive in request order
+            RequestPipeline<String> pipeline = RequestPipeline.newBuilder(client, HttpResponse.BodyHandlers.ofString())
+                    .maxInFlight(2)
+                    .ordered(true)
+                    .build();
+            pipeline.forEach(List.of(requests).iterator(), result -> {
+                if (result.isSuccess()) {
+                    System.out.println("Request " + (result.getIndex() + 1) + " completed: " + result.getResponse().statusCode());
+                } else {
+                    System.out.println("Request " + (result.getIndex() + 1) + " failed: " + result.getError().getMessage());
+                }
+            }).join();
             System.out.println();
             
             // 6. Error handling
@@ -124,9 +137,9 @@ public class HttpClientExample {
                     .header("X-Custom-Header", "CustomValue")
                     .build();
             
-            HttpResponse<String> headerResponse = client.send(headerRequest, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<JsonNode> headerResponse = client.send(headerRequest, JsonBodyHandlers.ofObject(MAPPER, JsonNode.class));
             System.out.println("Headers response status: " + headerResponse.statusCode());
-            System.out.println("Headers response preview: " + headerResponse.body().substring(0, Math.min(300, headerResponse.body().length())) + "...");
+            System.out.println("Headers echoed by server: " + headerResponse.body().get("headers"));
             System.out.println();
             
             // 8. Comparison with old way (URLConnection)
@@ -148,20 +161,17 @@ public class HttpClientExample {
             // 9. Performance comparison
             System.out.println("9. Performance comparison:");
             
-            // Time synchronous request
-            long start = System.currentTimeMillis();
-            HttpResponse<String> syncResponse = client.send(request, HttpResponse.BodyHandlers.ofString());
-            long syncTime = System.currentTimeMillis() - start;
+            // Synchronous request
+            HttpResponse<String> syncResponse = cache.send(request, HttpResponse.BodyHandlers.ofString());
             
-            // Time asynchronous request
-            start = System.currentTimeMillis();
-            CompletableFuture<HttpResponse<String>> perfFuture = client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+            // Asynchronous request
+            CompletableFuture<HttpResponse<String>> perfFuture = cache.sendAsync(request, HttpResponse.BodyHandlers.ofString());
             HttpResponse<String> asyncPerfResponse = perfFuture.get();
-            long asyncTime = System.currentTimeMillis() - start;
             
-            System.out.println("Synchronous request time: " + syncTime + " ms");
-            System.out.println("Asynchronous request time: " + asyncTime + " ms");
-            System.out.println("Both requests completed successfully");
+            System.out.println("Synchronous request status: " + syncResponse.statusCode());
+            System.out.println("Asynchronous request status: " + asyncPerfResponse.statusCode());
+            System.out.println("Shared client metrics: " + client.metrics());
+            System.out.println("Response cache metrics: " + cache.metrics());
             System.out.println();
             
             // 10. Benefits of new HTTP Client
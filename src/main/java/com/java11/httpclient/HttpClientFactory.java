@@ -0,0 +1,146 @@
+package com.java11.httpclient;
+
+import javax.net.ssl.SSLContext;
+import java.net.http.HttpClient;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates tuned, metered HttpClients instead of one HttpClient.newHttpClient() per call site.
+ * Each client has a bounded executor, prefers HTTP/2 (falling back to HTTP/1.1 when
+ * the server doesn't support it) and applies connect and request timeouts.
+ * Reusing one client keeps its connection pool, so TLS handshakes are paid once per connection.
+ */
+public final class HttpClientFactory {
+
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+    private static volatile MeteredHttpClient shared;
+
+    private HttpClientFactory() {
+    }
+
+    /**
+     * Process-wide client with the default settings.
+     */
+    public static MeteredHttpClient shared() {
+        MeteredHttpClient client = shared;
+        if (client == null) {
+            synchronized (HttpClientFactory.class) {
+                client = shared;
+                if (client == null) {
+                    client = newBuilder().build();
+                    shared = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private int maxThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        private int queueCapacity = 1024;
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration requestTimeout = Duration.ofSeconds(30);
+        private HttpClient.Version version = HttpClient.Version.HTTP_2;
+        private HttpClient.Redirect redirect = HttpClient.Redirect.NORMAL;
+        private SSLContext sslContext;
+
+        private Builder() {
+        }
+
+        /** Threads used for response handling and async completions */
+        public Builder maxThreads(int maxThreads) {
+            if (maxThreads <= 0) {
+                throw new IllegalArgumentException("maxThreads must be positive: " + maxThreads);
+            }
+            this.maxThreads = maxThreads;
+            return this;
+        }
+
+        /**
+         * Tasks queued beyond this are rejected. They are not run on the submitting
+         * thread, which may be the client's selector thread.
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /** Applied to requests without their own timeout; null disables it */
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        public Builder version(HttpClient.Version version) {
+            this.version = version;
+            return this;
+        }
+
+        public Builder followRedirects(HttpClient.Redirect redirect) {
+            this.redirect = redirect;
+            return this;
+        }
+
+        public Builder sslContext(SSLContext sslContext) {
+            this.sslContext = sslContext;
+            return this;
+        }
+
+        public MeteredHttpClient build() {
+            HttpClientMetrics metrics = new HttpClientMetrics();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads,
+                    60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(queueCapacity),
+                    daemonThreads("http-client-" + POOL_NUMBER.incrementAndGet()),
+                    new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(true);
+
+            HttpClient.Builder builder = HttpClient.newBuilder()
+                    .executor(executor)
+                    .version(version)
+                    .followRedirects(redirect)
+                    .sslContext(new CountingSSLContext(sslContextOrDefault(), metrics::connectionOpened));
+            if (connectTimeout != null) {
+                builder.connectTimeout(connectTimeout);
+            }
+            return new MeteredHttpClient(builder.build(), executor, metrics, requestTimeout);
+        }
+
+        private SSLContext sslContextOrDefault() {
+            if (sslContext != null) {
+                return sslContext;
+            }
+            try {
+                return SSLContext.getDefault();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("No default SSLContext", e);
+            }
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
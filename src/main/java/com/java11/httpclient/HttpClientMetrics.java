@@ -0,0 +1,115 @@
+package com.java11.httpclient;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters collected by a MeteredHttpClient.
+ * The HttpClient API doesn't report its connection pool, so connections are
+ * counted as TLS engines created by the client's SSLContext, one per new HTTPS
+ * connection. Cleartext connections aren't visible and aren't counted.
+ */
+public class HttpClientMetrics {
+
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder http1Responses = new LongAdder();
+    private final LongAdder http2Responses = new LongAdder();
+    private final LongAdder overlappingHttp2Responses = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAccumulator peakInFlight = new LongAccumulator(Math::max, 0);
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    void connectionOpened() {
+        connectionsOpened.increment();
+    }
+
+    /**
+     * Returns the number of other requests in flight when this one started.
+     */
+    int requestStarted() {
+        requests.increment();
+        int others = inFlight.getAndIncrement();
+        peakInFlight.accumulate(others + 1);
+        return others;
+    }
+
+    void requestCompleted(long nanos, boolean http2, int othersInFlight) {
+        inFlight.decrementAndGet();
+        latency.record(nanos);
+        if (http2) {
+            http2Responses.increment();
+            if (othersInFlight > 0) {
+                overlappingHttp2Responses.increment();
+            }
+        } else {
+            http1Responses.increment();
+        }
+    }
+
+    void requestFailed(long nanos) {
+        inFlight.decrementAndGet();
+        failures.increment();
+        latency.record(nanos);
+    }
+
+    /**
+     * TLS connections opened, counted as SSLEngines created by the client.
+     * Cleartext http:// connections aren't visible, so a client that only
+     * uses plain HTTP always reports 0.
+     */
+    public long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getHttp1Responses() {
+        return http1Responses.sum();
+    }
+
+    public long getHttp2Responses() {
+        return http2Responses.sum();
+    }
+
+    /**
+     * HTTP/2 responses whose request started while other requests of this client
+     * were in flight. This only shows overlap: the client doesn't report whether
+     * the requests actually shared a connection as multiplexed streams.
+     */
+    public long getOverlappingHttp2Responses() {
+        return overlappingHttp2Responses.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getPeakInFlight() {
+        return peakInFlight.get();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return "requests=" + getRequests()
+                + ", failures=" + getFailures()
+                + ", connectionsOpened=" + getConnectionsOpened()
+                + ", http1=" + getHttp1Responses()
+                + ", http2=" + getHttp2Responses()
+                + ", overlappingHttp2=" + getOverlappingHttp2Responses()
+                + ", peakInFlight=" + getPeakInFlight()
+                + ", latency[" + latency + "]";
+    }
+}
@@ -0,0 +1,25 @@
+package com.java11.httpclient;
+
+import java.net.http.HttpRequest;
+
+/**
+ * Helpers for deriving requests; HttpRequest.newBuilder(HttpRequest, filter) needs JDK 16.
+ */
+final class HttpRequests {
+
+    private HttpRequests() {
+    }
+
+    /**
+     * Builder pre-filled with the request's method, body, headers, timeout and version.
+     */
+    static HttpRequest.Builder copyOf(HttpRequest request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.uri())
+                .method(request.method(), request.bodyPublisher().orElse(HttpRequest.BodyPublishers.noBody()))
+                .expectContinue(request.expectContinue());
+        request.timeout().ifPresent(builder::timeout);
+        request.version().ifPresent(builder::version);
+        request.headers().map().forEach((name, values) -> values.forEach(value -> builder.header(name, value)));
+        return builder;
+    }
+}
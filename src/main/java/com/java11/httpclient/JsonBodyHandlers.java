@@ -0,0 +1,313 @@
+package com.java11.httpclient;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Body handlers that parse JSON while the response is still arriving, instead of
+ * buffering it with BodyHandlers.ofString() and parsing the String afterwards.
+ * The incoming ByteBuffers are fed to Jackson's non-blocking parser, so the whole
+ * body is never held in memory as bytes or as a String.
+ */
+public final class JsonBodyHandlers {
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    private JsonBodyHandlers() {
+    }
+
+    /**
+     * Receives every token of the document. The parser's current name and value
+     * are only valid during the call.
+     */
+    @FunctionalInterface
+    public interface TokenListener {
+        void onToken(JsonToken token, JsonParser parser) throws IOException;
+    }
+
+    /**
+     * Binds each element of the array at arrayPointer (a JSON Pointer such as "/items",
+     * or "" for a top-level array) to the given type and passes it to the action as soon
+     * as the element has arrived. Only one element is buffered at a time.
+     */
+    public static <T> HttpResponse.BodyHandler<Summary> ofElements(ObjectMapper mapper, String arrayPointer,
+                                                                   Class<T> type, Consumer<? super T> action) {
+        ObjectReader reader = mapper.readerFor(type);
+        return responseInfo -> new JsonBodySubscriber<>(mapper, new ElementSink<>(mapper, reader, arrayPointer, action));
+    }
+
+    public static HttpResponse.BodyHandler<Summary> ofTokens(ObjectMapper mapper, TokenListener listener) {
+        Objects.requireNonNull(listener);
+        return responseInfo -> new JsonBodySubscriber<>(mapper, new TokenSink<Summary>() {
+            @Override
+            public void accept(JsonToken token, JsonParser parser) throws IOException {
+                listener.onToken(token, parser);
+            }
+
+            @Override
+            public Summary finish(Summary summary) {
+                return summary;
+            }
+        });
+    }
+
+    /**
+     * Binds the whole body to the given type. Tokens are collected as they arrive,
+     * so there is no intermediate String copy of the body.
+     */
+    public static <T> HttpResponse.BodyHandler<T> ofObject(ObjectMapper mapper, Class<T> type) {
+        ObjectReader reader = mapper.readerFor(type);
+        return responseInfo -> new JsonBodySubscriber<>(mapper, new TokenSink<T>() {
+            private final TokenBuffer buffer = new TokenBuffer(mapper, false);
+
+            @Override
+            public void accept(JsonToken token, JsonParser parser) throws IOException {
+                buffer.copyCurrentEvent(parser);
+            }
+
+            @Override
+            public T finish(Summary summary) throws IOException {
+                try (JsonParser parser = buffer.asParser(mapper)) {
+                    return reader.readValue(parser);
+                }
+            }
+        });
+    }
+
+    /**
+     * Byte and timing counters for a streamed body. Times are measured from
+     * the moment the response headers arrived.
+     */
+    public static final class Summary {
+        private final long elements;
+        private final long bytes;
+        private final long timeToFirstElementNanos;
+        private final long totalNanos;
+
+        Summary(long elements, long bytes, long timeToFirstElementNanos, long totalNanos) {
+            this.elements = elements;
+            this.bytes = bytes;
+            this.timeToFirstElementNanos = timeToFirstElementNanos;
+            this.totalNanos = totalNanos;
+        }
+
+        /** Array elements bound by ofElements(), or tokens seen by ofTokens() */
+        public long getElements() {
+            return elements;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /** -1 if the body had no elements */
+        public long getTimeToFirstElementNanos() {
+            return timeToFirstElementNanos;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "elements=" + elements + ", bytes=" + bytes
+                    + ", firstElement=" + (timeToFirstElementNanos < 0 ? "n/a" : timeToFirstElementNanos / 1000 + " us")
+                    + ", total=" + totalNanos / 1000 + " us";
+        }
+    }
+
+    /**
+     * Consumes parser events and produces the body once the document is complete.
+     */
+    private interface TokenSink<T> {
+        void accept(JsonToken token, JsonParser parser) throws IOException;
+
+        T finish(Summary summary) throws IOException;
+
+        /** Number of elements produced so far; tokens by default */
+        default long elementsFor(long tokens) {
+            return tokens;
+        }
+    }
+
+    private static final class ElementSink<T> implements TokenSink<Summary> {
+        private final ObjectMapper mapper;
+        private final ObjectReader reader;
+        private final String arrayPointer;
+        private final Consumer<? super T> action;
+        private boolean inArray;
+        private TokenBuffer element;
+        private int nesting;
+        private long elements;
+
+        ElementSink(ObjectMapper mapper, ObjectReader reader, String arrayPointer, Consumer<? super T> action) {
+            this.mapper = mapper;
+            this.reader = reader;
+            this.arrayPointer = Objects.requireNonNull(arrayPointer);
+            this.action = Objects.requireNonNull(action);
+        }
+
+        @Override
+        public void accept(JsonToken token, JsonParser parser) throws IOException {
+            if (element != null) {
+                element.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    nesting++;
+                } else if (token.isStructEnd() && --nesting == 0) {
+                    emit();
+                }
+                return;
+            }
+            if (inArray) {
+                if (token == JsonToken.END_ARRAY) {
+                    inArray = false;
+                    return;
+                }
+                element = new TokenBuffer(mapper, false);
+                element.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    nesting = 1;
+                } else {
+                    emit();
+                }
+                return;
+            }
+            if (token == JsonToken.START_ARRAY
+                    && parser.getParsingContext().pathAsPointer().toString().equals(arrayPointer)) {
+                inArray = true;
+            }
+        }
+
+        private void emit() throws IOException {
+            T value;
+            try (JsonParser parser = element.asParser(mapper)) {
+                value = reader.readValue(parser);
+            }
+            element = null;
+            elements++;
+            action.accept(value);
+        }
+
+        @Override
+        public long elementsFor(long tokens) {
+            return elements;
+        }
+
+        @Override
+        public Summary finish(Summary summary) {
+            return summary;
+        }
+    }
+
+    /**
+     * Feeds response ByteBuffers into a non-blocking parser and passes each
+     * available token to the sink. Requests one buffer list at a time.
+     */
+    private static final class JsonBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+        private final TokenSink<T> sink;
+        private final byte[] chunk = new byte[CHUNK_SIZE];
+        private final long startNanos = System.nanoTime();
+        private Flow.Subscription subscription;
+        private long bytes;
+        private long tokens;
+        private long firstElementNanos = -1;
+
+        JsonBodySubscriber(ObjectMapper mapper, TokenSink<T> sink) {
+            try {
+                this.parser = mapper.getFactory().createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+            this.sink = sink;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            try {
+                for (ByteBuffer buffer : buffers) {
+                    while (buffer.hasRemaining()) {
+                        int length = Math.min(chunk.length, buffer.remaining());
+                        buffer.get(chunk, 0, length);
+                        bytes += length;
+                        // The parser consumes the whole chunk before asking for more input
+                        feeder.feedInput(chunk, 0, length);
+                        drainTokens();
+                    }
+                }
+                subscription.request(1);
+            } catch (IOException | RuntimeException e) {
+                subscription.cancel();
+                fail(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                feeder.endOfInput();
+                drainTokens();
+                long total = System.nanoTime() - startNanos;
+                result.complete(sink.finish(new Summary(sink.elementsFor(tokens), bytes, firstElementNanos, total)));
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        private void drainTokens() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                tokens++;
+                long before = sink.elementsFor(tokens - 1);
+                sink.accept(token, parser);
+                if (firstElementNanos < 0 && sink.elementsFor(tokens) > before) {
+                    firstElementNanos = System.nanoTime() - startNanos;
+                }
+            }
+        }
+
+        private void fail(Throwable error) {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                error.addSuppressed(e);
+            }
+            result.completeExceptionally(error);
+        }
+    }
+}
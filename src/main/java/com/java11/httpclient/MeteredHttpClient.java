@@ -0,0 +1,154 @@
+package com.java11.httpclient;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * HttpClient that records HttpClientMetrics for every request and applies a
+ * default request timeout to requests that don't set one.
+ * Created by HttpClientFactory; close() shuts down the client's executor.
+ */
+public class MeteredHttpClient extends HttpClient implements AutoCloseable {
+
+    private final HttpClient delegate;
+    private final ExecutorService executor;
+    private final HttpClientMetrics metrics;
+    private final Duration requestTimeout;
+
+    MeteredHttpClient(HttpClient delegate, ExecutorService executor, HttpClientMetrics metrics,
+                      Duration requestTimeout) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.metrics = metrics;
+        this.requestTimeout = requestTimeout;
+    }
+
+    public HttpClientMetrics metrics() {
+        return metrics;
+    }
+
+    public Optional<Duration> requestTimeout() {
+        return Optional.ofNullable(requestTimeout);
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        HttpRequest timed = withDefaultTimeout(request);
+        int othersInFlight = metrics.requestStarted();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<T> response = delegate.send(timed, responseBodyHandler);
+            metrics.requestCompleted(System.nanoTime() - start, response.version() == Version.HTTP_2, othersInFlight);
+            return response;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            metrics.requestFailed(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        return sendAsync(request, responseBodyHandler, null);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        HttpRequest timed = withDefaultTimeout(request);
+        int othersInFlight = metrics.requestStarted();
+        long start = System.nanoTime();
+        return delegate.sendAsync(timed, responseBodyHandler, pushPromiseHandler)
+                .whenComplete((response, error) -> {
+                    long elapsed = System.nanoTime() - start;
+                    if (error != null) {
+                        metrics.requestFailed(elapsed);
+                    } else {
+                        metrics.requestCompleted(elapsed, response.version() == Version.HTTP_2, othersInFlight);
+                    }
+                });
+    }
+
+    /**
+     * Copies the request with the default timeout if it doesn't have its own.
+     */
+    HttpRequest withDefaultTimeout(HttpRequest request) {
+        if (requestTimeout == null || request.timeout().isPresent()) {
+            return request;
+        }
+        return HttpRequests.copyOf(request).timeout(requestTimeout).build();
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() {
+        return delegate.cookieHandler();
+    }
+
+    @Override
+    public Optional<Duration> connectTimeout() {
+        return delegate.connectTimeout();
+    }
+
+    @Override
+    public Redirect followRedirects() {
+        return delegate.followRedirects();
+    }
+
+    @Override
+    public Optional<ProxySelector> proxy() {
+        return delegate.proxy();
+    }
+
+    @Override
+    public SSLContext sslContext() {
+        return delegate.sslContext();
+    }
+
+    @Override
+    public SSLParameters sslParameters() {
+        return delegate.sslParameters();
+    }
+
+    @Override
+    public Optional<Authenticator> authenticator() {
+        return delegate.authenticator();
+    }
+
+    @Override
+    public Version version() {
+        return delegate.version();
+    }
+
+    @Override
+    public Optional<Executor> executor() {
+        return delegate.executor();
+    }
+
+    @Override
+    public WebSocket.Builder newWebSocketBuilder() {
+        return delegate.newWebSocketBuilder();
+    }
+
+    /**
+     * Shuts down the executor. In-flight requests may fail afterwards.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
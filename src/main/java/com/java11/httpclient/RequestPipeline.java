@@ -0,0 +1,519 @@
+package com.java11.httpclient;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Sends a stream of requests with sendAsync while keeping at most maxInFlight of them
+ * outstanding, instead of starting them all at once and joining with CompletableFuture.allOf.
+ * Requests are pulled from an Iterator or a Flow.Publisher only when a slot is free,
+ * and results are published as a Flow.Publisher that honours downstream demand:
+ * in-flight requests plus undelivered results never exceed maxInFlight.
+ * Failed attempts are retried with exponential backoff and full jitter.
+ */
+public class RequestPipeline<T> {
+
+    private final HttpClient client;
+    private final HttpResponse.BodyHandler<T> bodyHandler;
+    private final int maxInFlight;
+    private final boolean ordered;
+    private final int maxRetries;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Predicate<HttpResponse<T>> retryOnResponse;
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private RequestPipeline(Builder<T> builder) {
+        this.client = builder.client;
+        this.bodyHandler = builder.bodyHandler;
+        this.maxInFlight = builder.maxInFlight;
+        this.ordered = builder.ordered;
+        this.maxRetries = builder.maxRetries;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.retryOnResponse = builder.retryOnResponse;
+    }
+
+    public static <T> Builder<T> newBuilder(HttpClient client, HttpResponse.BodyHandler<T> bodyHandler) {
+        return new Builder<>(client, bodyHandler);
+    }
+
+    /**
+     * Latency of completed requests, from the first attempt to the final result.
+     */
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+    /**
+     * Publisher of results for the given requests. The iterator is consumed by the
+     * single subscriber; only one subscription is supported.
+     */
+    public Flow.Publisher<Result<T>> process(Iterator<HttpRequest> requests) {
+        Objects.requireNonNull(requests);
+        return subscriber -> new Run(subscriber, new IteratorSource(requests)).start();
+    }
+
+    public Flow.Publisher<Result<T>> process(Flow.Publisher<HttpRequest> requests) {
+        Objects.requireNonNull(requests);
+        return subscriber -> {
+            PublisherSource source = new PublisherSource();
+            Run run = new Run(subscriber, source);
+            source.run = run;
+            run.start();
+            requests.subscribe(source);
+        };
+    }
+
+    /**
+     * Processes all requests, passing each result to the action as it completes.
+     */
+    public CompletableFuture<Void> forEach(Iterator<HttpRequest> requests, Consumer<? super Result<T>> action) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        process(requests).subscribe(new Flow.Subscriber<Result<T>>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Result<T> item) {
+                action.accept(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        return done;
+    }
+
+    private boolean shouldRetry(HttpResponse<T> response, Throwable error, int attempt) {
+        if (attempt > maxRetries) {
+            return false;
+        }
+        if (error != null) {
+            return unwrap(error) instanceof IOException;
+        }
+        return retryOnResponse.test(response);
+    }
+
+    /**
+     * Exponential backoff with full jitter: a random delay up to min(max, initial * 2^(attempt-1)).
+     */
+    long backoffMillis(int attempt) {
+        long cap = initialBackoff.toMillis() << Math.min(attempt - 1, 20);
+        long bound = Math.min(maxBackoff.toMillis(), cap);
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Where requests come from: either pulled from an iterator or pushed by an upstream publisher.
+     */
+    private interface Source {
+        /** Next request, or null if none is available right now */
+        HttpRequest poll();
+
+        boolean isExhausted();
+
+        /** Asks for enough requests to fill the free slots */
+        void demand(int freeSlots);
+
+        void cancel();
+    }
+
+    private static class IteratorSource implements Source {
+        private final Iterator<HttpRequest> iterator;
+        private volatile boolean exhausted;
+
+        IteratorSource(Iterator<HttpRequest> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public HttpRequest poll() {
+            if (!exhausted && iterator.hasNext()) {
+                return iterator.next();
+            }
+            exhausted = true;
+            return null;
+        }
+
+        @Override
+        public boolean isExhausted() {
+            return exhausted;
+        }
+
+        @Override
+        public void demand(int freeSlots) {
+            // Pulled on demand in poll()
+        }
+
+        @Override
+        public void cancel() {
+            exhausted = true;
+        }
+    }
+
+    private class PublisherSource implements Source, Flow.Subscriber<HttpRequest> {
+        private final Queue<HttpRequest> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicLong outstanding = new AtomicLong();
+        private volatile Flow.Subscription subscription;
+        private volatile boolean completed;
+        private Run run;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            run.drain();
+        }
+
+        @Override
+        public void onNext(HttpRequest item) {
+            outstanding.decrementAndGet();
+            queue.add(item);
+            run.drain();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            run.fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            run.drain();
+        }
+
+        @Override
+        public HttpRequest poll() {
+            return queue.poll();
+        }
+
+        @Override
+        public boolean isExhausted() {
+            return completed && queue.isEmpty();
+        }
+
+        @Override
+        public void demand(int freeSlots) {
+            Flow.Subscription current = subscription;
+            if (current == null || completed) {
+                return;
+            }
+            long wanted = freeSlots - queue.size() - outstanding.get();
+            if (wanted > 0) {
+                outstanding.addAndGet(wanted);
+                current.request(wanted);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+
+    /**
+     * One subscription: launches requests into free slots and delivers results
+     * against downstream demand. drain() is serialized with a work-in-progress counter.
+     */
+    private class Run implements Flow.Subscription {
+        private final Flow.Subscriber<? super Result<T>> subscriber;
+        private final Source source;
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger buffered = new AtomicInteger();
+        private final Queue<Result<T>> completedQueue = new ConcurrentLinkedQueue<>();
+        private final Map<Long, Result<T>> completedByIndex = new ConcurrentHashMap<>();
+        private final AtomicBoolean terminated = new AtomicBoolean();
+        private volatile boolean cancelled;
+        private volatile Throwable failure;
+        private long nextIndex;
+        private long nextToEmit;
+
+        Run(Flow.Subscriber<? super Result<T>> subscriber, Source source) {
+            this.subscriber = subscriber;
+            this.source = source;
+        }
+
+        void start() {
+            subscriber.onSubscribe(this);
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Demand must be positive: " + n));
+                return;
+            }
+            requested.accumulateAndGet(n, (current, added) -> {
+                long sum = current + added;
+                return sum < 0 ? Long.MAX_VALUE : sum;
+            });
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            source.cancel();
+        }
+
+        void fail(Throwable error) {
+            failure = error;
+            source.cancel();
+            drain();
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            while (true) {
+                if (cancelled) {
+                    return;
+                }
+                if (failure != null) {
+                    if (terminated.compareAndSet(false, true)) {
+                        subscriber.onError(failure);
+                    }
+                    return;
+                }
+                try {
+                    emit();
+                    launch();
+                } catch (RuntimeException e) {
+                    // Thrown by the request iterator
+                    failure = e;
+                    source.cancel();
+                    continue;
+                }
+                if (source.isExhausted() && inFlight.get() == 0 && buffered.get() == 0) {
+                    if (terminated.compareAndSet(false, true)) {
+                        subscriber.onComplete();
+                    }
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void emit() {
+            while (requested.get() > 0 && !cancelled) {
+                Result<T> result = ordered ? completedByIndex.remove(nextToEmit) : completedQueue.poll();
+                if (result == null) {
+                    return;
+                }
+                nextToEmit++;
+                buffered.decrementAndGet();
+                if (requested.get() != Long.MAX_VALUE) {
+                    requested.decrementAndGet();
+                }
+                subscriber.onNext(result);
+            }
+        }
+
+        private void launch() {
+            while (!cancelled) {
+                int free = maxInFlight - inFlight.get() - buffered.get();
+                if (free <= 0) {
+                    return;
+                }
+                HttpRequest request = source.poll();
+                if (request == null) {
+                    source.demand(free);
+                    return;
+                }
+                inFlight.incrementAndGet();
+                attempt(nextIndex++, request, 1, System.nanoTime());
+            }
+        }
+
+        private void attempt(long index, HttpRequest request, int attempt, long startNanos) {
+            CompletableFuture<HttpResponse<T>> sent;
+            try {
+                sent = client.sendAsync(request, bodyHandler);
+            } catch (RuntimeException e) {
+                // A request the client rejects outright still has to free its slot and produce a result
+                sent = CompletableFuture.failedFuture(e);
+            }
+            sent.whenComplete((response, error) -> {
+                if (!cancelled && shouldRetry(response, error, attempt)) {
+                    CompletableFuture.delayedExecutor(backoffMillis(attempt), TimeUnit.MILLISECONDS)
+                            .execute(() -> attempt(index, request, attempt + 1, startNanos));
+                    return;
+                }
+                long elapsed = System.nanoTime() - startNanos;
+                latency.record(elapsed);
+                Result<T> result = new Result<>(index, request, response,
+                        error == null ? null : unwrap(error), attempt, elapsed);
+                // Count the result as buffered before freeing its slot
+                buffered.incrementAndGet();
+                if (ordered) {
+                    completedByIndex.put(index, result);
+                } else {
+                    completedQueue.add(result);
+                }
+                inFlight.decrementAndGet();
+                drain();
+            });
+        }
+    }
+
+    /**
+     * Outcome of one request after retries: either a response or the last error.
+     */
+    public static final class Result<T> {
+        private final long index;
+        private final HttpRequest request;
+        private final HttpResponse<T> response;
+        private final Throwable error;
+        private final int attempts;
+        private final long latencyNanos;
+
+        Result(long index, HttpRequest request, HttpResponse<T> response, Throwable error,
+               int attempts, long latencyNanos) {
+            this.index = index;
+            this.request = request;
+            this.response = response;
+            this.error = error;
+            this.attempts = attempts;
+            this.latencyNanos = latencyNanos;
+        }
+
+        /** Position of the request in the input */
+        public long getIndex() {
+            return index;
+        }
+
+        public HttpRequest getRequest() {
+            return request;
+        }
+
+        /** The response, or null if every attempt failed with an exception */
+        public HttpResponse<T> getResponse() {
+            return response;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Result[#" + index + " " + request.uri()
+                    + (error == null ? " -> " + response.statusCode() : " failed: " + error)
+                    + ", attempts=" + attempts + "]";
+        }
+    }
+
+    public static final class Builder<T> {
+        private final HttpClient client;
+        private final HttpResponse.BodyHandler<T> bodyHandler;
+        private int maxInFlight = 64;
+        private boolean ordered;
+        private int maxRetries = 2;
+        private Duration initialBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(5);
+        private Predicate<HttpResponse<T>> retryOnResponse = response -> {
+            int status = response.statusCode();
+            return status == 429 || status == 502 || status == 503 || status == 504;
+        };
+
+        private Builder(HttpClient client, HttpResponse.BodyHandler<T> bodyHandler) {
+            this.client = Objects.requireNonNull(client);
+            this.bodyHandler = Objects.requireNonNull(bodyHandler);
+        }
+
+        public Builder<T> maxInFlight(int maxInFlight) {
+            if (maxInFlight <= 0) {
+                throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /** Deliver results in request order instead of completion order */
+        public Builder<T> ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        /** Retries after the first attempt; 0 disables retries */
+        public Builder<T> maxRetries(int maxRetries) {
+            if (maxRetries < 0) {
+                throw new IllegalArgumentException("maxRetries must not be negative: " + maxRetries);
+            }
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        public Builder<T> backoff(Duration initialBackoff, Duration maxBackoff) {
+            this.initialBackoff = Objects.requireNonNull(initialBackoff);
+            this.maxBackoff = Objects.requireNonNull(maxBackoff);
+            return this;
+        }
+
+        /** Responses to retry; by default 429, 502, 503 and 504. IOExceptions are always retried */
+        public Builder<T> retryOn(Predicate<HttpResponse<T>> retryOnResponse) {
+            this.retryOnResponse = Objects.requireNonNull(retryOnResponse);
+            return this;
+        }
+
+        public RequestPipeline<T> build() {
+            return new RequestPipeline<>(this);
+        }
+    }
+}
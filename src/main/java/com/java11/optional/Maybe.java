@@ -0,0 +1,116 @@
+package com.java11.optional;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Optional-like result whose absence is a null value field instead of a
+ * shared empty instance, so that the JIT's escape analysis can remove it
+ * entirely when a call returning it is inlined.
+ *
+ * <p>Optional.ofNullable(x) returns either Optional.empty()'s singleton or a
+ * new Optional. C2 cannot scalar-replace an object that may be the singleton,
+ * so the Optional is allocated on every call. Every Maybe, empty or not,
+ * comes from the one {@code new Maybe<>(value)} in each method, which C2 can
+ * replace by the value itself. Keep a Maybe local: storing it in a field or
+ * collection makes it a real allocation again.
+ */
+public final class Maybe<T> {
+
+    private final T value;
+
+    private Maybe(T value) {
+        this.value = value;
+    }
+
+    public static <T> Maybe<T> of(T value) {
+        return new Maybe<>(Objects.requireNonNull(value));
+    }
+
+    public static <T> Maybe<T> ofNullable(T value) {
+        return new Maybe<>(value);
+    }
+
+    /**
+     * An empty Maybe. It is a new instance rather than a constant so that
+     * escape analysis can remove it.
+     */
+    public static <T> Maybe<T> empty() {
+        return new Maybe<>(null);
+    }
+
+    public static <T> Maybe<T> fromOptional(Optional<? extends T> optional) {
+        return new Maybe<>(optional.orElse(null));
+    }
+
+    public boolean isPresent() {
+        return value != null;
+    }
+
+    public boolean isEmpty() {
+        return value == null;
+    }
+
+    public T get() {
+        if (value == null) {
+            throw new NoSuchElementException("No value present");
+        }
+        return value;
+    }
+
+    public T orElse(T other) {
+        return value != null ? value : other;
+    }
+
+    public T orElseGet(Supplier<? extends T> supplier) {
+        return value != null ? value : supplier.get();
+    }
+
+    public void ifPresent(Consumer<? super T> action) {
+        if (value != null) {
+            action.accept(value);
+        }
+    }
+
+    public <U> Maybe<U> map(Function<? super T, ? extends U> mapper) {
+        // One allocation site for both outcomes keeps the result replaceable
+        return new Maybe<>(value != null ? mapper.apply(value) : null);
+    }
+
+    public <U> Maybe<U> flatMap(Function<? super T, Maybe<U>> mapper) {
+        return new Maybe<>(value != null ? mapper.apply(value).value : null);
+    }
+
+    public MaybeInt mapToInt(ToIntFunction<? super T> mapper) {
+        return MaybeInt.ofBits(value != null ? mapper.applyAsInt(value) : MaybeInt.ABSENT);
+    }
+
+    public Maybe<T> filter(Predicate<? super T> predicate) {
+        return new Maybe<>(value != null && predicate.test(value) ? value : null);
+    }
+
+    public Optional<T> toOptional() {
+        return Optional.ofNullable(value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Maybe && Objects.equals(value, ((Maybe<?>) o).value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return value != null ? "Maybe[" + value + "]" : "Maybe.empty";
+    }
+}
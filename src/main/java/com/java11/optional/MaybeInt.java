@@ -0,0 +1,128 @@
+package com.java11.optional;
+
+import java.util.NoSuchElementException;
+import java.util.OptionalInt;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * OptionalInt-like result that escape analysis can remove. The int is kept in
+ * a long, and absence is a sentinel outside the int range, so there is one
+ * field, one allocation site per method and no shared empty instance. See
+ * Maybe for why that matters.
+ */
+public final class MaybeInt {
+
+    static final long ABSENT = Long.MIN_VALUE;
+
+    private final long bits;
+
+    private MaybeInt(long bits) {
+        this.bits = bits;
+    }
+
+    public static MaybeInt of(int value) {
+        return new MaybeInt(value);
+    }
+
+    public static MaybeInt empty() {
+        return new MaybeInt(ABSENT);
+    }
+
+    /** An int value, or ABSENT */
+    static MaybeInt ofBits(long bits) {
+        return new MaybeInt(bits);
+    }
+
+    public static MaybeInt fromOptional(OptionalInt optional) {
+        return new MaybeInt(optional.isPresent() ? optional.getAsInt() : ABSENT);
+    }
+
+    /**
+     * Parses a decimal int, or returns empty if text is null or not a valid
+     * int; unlike Integer.parseInt() no exception is created for bad input.
+     */
+    public static MaybeInt parse(CharSequence text) {
+        return new MaybeInt(parseBits(text));
+    }
+
+    public boolean isPresent() {
+        return bits != ABSENT;
+    }
+
+    public boolean isEmpty() {
+        return bits == ABSENT;
+    }
+
+    public int getAsInt() {
+        if (bits == ABSENT) {
+            throw new NoSuchElementException("No value present");
+        }
+        return (int) bits;
+    }
+
+    public int orElse(int other) {
+        return bits != ABSENT ? (int) bits : other;
+    }
+
+    public int orElseGet(IntSupplier supplier) {
+        return bits != ABSENT ? (int) bits : supplier.getAsInt();
+    }
+
+    public void ifPresent(IntConsumer action) {
+        if (bits != ABSENT) {
+            action.accept((int) bits);
+        }
+    }
+
+    public MaybeInt map(IntUnaryOperator mapper) {
+        return new MaybeInt(bits != ABSENT ? mapper.applyAsInt((int) bits) : ABSENT);
+    }
+
+    public MaybeInt filter(IntPredicate predicate) {
+        return new MaybeInt(bits != ABSENT && predicate.test((int) bits) ? bits : ABSENT);
+    }
+
+    public OptionalInt toOptional() {
+        return bits != ABSENT ? OptionalInt.of((int) bits) : OptionalInt.empty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MaybeInt && ((MaybeInt) o).bits == bits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(bits);
+    }
+
+    @Override
+    public String toString() {
+        return bits != ABSENT ? "MaybeInt[" + bits + "]" : "MaybeInt.empty";
+    }
+
+    private static long parseBits(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return ABSENT;
+        }
+        int length = text.length();
+        boolean negative = text.charAt(0) == '-';
+        int i = negative || text.charAt(0) == '+' ? 1 : 0;
+        if (i == length || length - i > 10) {
+            return ABSENT;
+        }
+        long result = 0;
+        for (; i < length; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return ABSENT;
+            }
+            result = result * 10 + digit;
+        }
+        result = negative ? -result : result;
+        return result < Integer.MIN_VALUE || result > Integer.MAX_VALUE ? ABSENT : result;
+    }
+}
@@ -0,0 +1,97 @@
+package com.java11.optional;
+
+import java.util.NoSuchElementException;
+import java.util.OptionalLong;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * OptionalLong-like result that escape analysis can remove. Every long is a
+ * valid value, so absence needs a flag next to it, but as in Maybe each
+ * method has a single allocation site and there is no shared empty instance.
+ */
+public final class MaybeLong {
+
+    private final long value;
+    private final boolean present;
+
+    private MaybeLong(long value, boolean present) {
+        this.value = value;
+        this.present = present;
+    }
+
+    public static MaybeLong of(long value) {
+        return new MaybeLong(value, true);
+    }
+
+    public static MaybeLong empty() {
+        return new MaybeLong(0, false);
+    }
+
+    public static MaybeLong fromOptional(OptionalLong optional) {
+        return new MaybeLong(optional.orElse(0), optional.isPresent());
+    }
+
+    public boolean isPresent() {
+        return present;
+    }
+
+    public boolean isEmpty() {
+        return !present;
+    }
+
+    public long getAsLong() {
+        if (!present) {
+            throw new NoSuchElementException("No value present");
+        }
+        return value;
+    }
+
+    public long orElse(long other) {
+        return present ? value : other;
+    }
+
+    public long orElseGet(LongSupplier supplier) {
+        return present ? value : supplier.getAsLong();
+    }
+
+    public void ifPresent(LongConsumer action) {
+        if (present) {
+            action.accept(value);
+        }
+    }
+
+    public MaybeLong map(LongUnaryOperator mapper) {
+        return new MaybeLong(present ? mapper.applyAsLong(value) : 0, present);
+    }
+
+    public MaybeLong filter(LongPredicate predicate) {
+        boolean kept = present && predicate.test(value);
+        return new MaybeLong(value, kept);
+    }
+
+    public OptionalLong toOptional() {
+        return present ? OptionalLong.of(value) : OptionalLong.empty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof MaybeLong)) {
+            return false;
+        }
+        MaybeLong other = (MaybeLong) o;
+        return present == other.present && (!present || value == other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return present ? Long.hashCode(value) : -1;
+    }
+
+    @Override
+    public String toString() {
+        return present ? "MaybeLong[" + value + "]" : "MaybeLong.empty";
+    }
+}
@@ -1,5 +1,12 @@
 package com.java11.optional;
 
+import com.java11.files.ConfigParser;
+import com.java11.strings.StringPool;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
 import java.util.Optional;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -49,6 +56,38 @@ public class OptionalEnhancementsExample {
         validateUser(user1);
         validateUser(user2);
         validateUser(user3);
+        
+        // Nightly-import scale: the same checks over a columnar batch, one failure bitset per rule
+        UserBatch.Builder batchBuilder = UserBatch.newBuilder(100_000);
+        for (int i = 0; i < 100_000; i++) {
+            User user = i % 10 == 1 ? user2 : i % 10 == 2 ? user3 : new User("user" + i + "@example.com", "User " + i);
+            batchBuilder.add(user);
+        }
+        ValidationResult validation = UserValidator.standard().validate(batchBuilder.build());
+        System.out.println("Batch validation: " + validation);
+        System.out.println("First records failing '" + validation.getRules().get(0) + "': "
+                + validation.getFailures(0).stream().limit(3).boxed().collect(Collectors.toList()));
+        
+        // The same records kept as packed UTF-8 columns instead of User objects, spilled to a file and read back
+        UserStore.Builder storeBuilder = UserStore.newBuilder(100_000);
+        for (int i = 0; i < 100_000; i++) {
+            storeBuilder.add("user" + i + (i % 4 == 0 ? "@example.com" : "@mail.org"), "User " + i);
+        }
+        try {
+            Path storeFile = Files.createTempFile("users", ".store");
+            try {
+                storeBuilder.build().write(storeFile);
+                UserStore store = UserStore.read(storeFile);
+                BitSet example = store.filter(UserRule.Field.EMAIL, UserStore.Utf8Predicate.endsWith("@example.com"));
+                System.out.println("User store: " + store.size() + " records in " + Files.size(storeFile)
+                        + " bytes on disk, " + example.cardinality() + " at example.com, first: "
+                        + store.cursor().moveTo(example.nextSetBit(0)).getString(UserRule.Field.NAME));
+            } finally {
+                Files.deleteIfExists(storeFile);
+            }
+        } catch (IOException e) {
+            System.err.println("Error spilling user store: " + e.getMessage());
+        }
         System.out.println();
         
         // 4. Stream processing with Optional
@@ -78,6 +117,13 @@ public class OptionalEnhancementsExample {
                 .collect(Collectors.toList());
         
         System.out.println("Present values (new way): " + presentValues2);
+        
+        // One collector step instead of filter + map, and no Stream per element as with flatMap(Optional::stream)
+        List<String> presentValues3 = optionalList.stream()
+                .collect(Optionals.flattening(Collectors.toList()));
+        System.out.println("Present values (flattening collector): " + presentValues3);
+        System.out.println("Total length of present values: "
+                + Optionals.present(optionalList).mapToInt(String::length).sum());
         System.out.println();
         
         // 5. Configuration processing
@@ -91,15 +137,22 @@ public class OptionalEnhancementsExample {
         );
         
         System.out.println("Processing configurations:");
-        configs.stream()
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .forEach(config -> {
-                    String[] parts = config.split("=", 2);
-                    if (parts.length == 2) {
-                        System.out.println("  " + parts[0] + " = " + parts[1]);
-                    }
-                });
+        // Keys and values come from a shared pool, so reprocessing the same records adds no Strings
+        StringPool pool = new StringPool(256);
+        for (int pass = 0; pass < 3; pass++) {
+            boolean print = pass == 0;
+            configs.stream()
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .forEach(config -> ConfigParser.parse(config, (keyStart, keyEnd, valueStart, valueEnd) -> {
+                        String key = pool.intern(config, keyStart, keyEnd);
+                        String value = pool.intern(config, valueStart, valueEnd);
+                        if (print) {
+                            System.out.println("  " + key + " = " + value);
+                        }
+                    }));
+        }
+        System.out.println("String pool after 3 passes: " + pool);
         System.out.println();
         
         // 6. Error handling patterns
@@ -118,6 +171,17 @@ public class OptionalEnhancementsExample {
         
         System.out.println("Processing null:");
         handleResult(result3);
+        
+        // The same checks on a hot path: Maybe and MaybeInt are removed by escape analysis once inlined
+        User[] users = {new User("john.doe@example.com", "John Doe"), new User(null, "Bob Johnson")};
+        for (User user : users) {
+            int emailLength = Maybe.ofNullable(user.getEmail())
+                    .filter(email -> !email.isBlank())
+                    .mapToInt(String::length)
+                    .orElse(0);
+            System.out.println("  " + user.getName() + " email length: " + emailLength);
+        }
+        System.out.println("  Port 'abc' parsed: " + MaybeInt.parse("abc") + ", port '8080' parsed: " + MaybeInt.parse("8080"));
         System.out.println();
         
         // 7. Performance comparison
@@ -125,23 +189,8 @@ public class OptionalEnhancementsExample {
         
         Optional<String> testOptional = Optional.of("test");
         
-        // Time isEmpty()
-        long start = System.nanoTime();
-        for (int i = 0; i < 1000000; i++) {
-            boolean isEmpty = testOptional.isEmpty();
-        }
-        long isEmptyTime = System.nanoTime() - start;
-        
-        // Time !isPresent()
-        start = System.nanoTime();
-        for (int i = 0; i < 1000000; i++) {
-            boolean isEmpty = !testOptional.isPresent();
-        }
-        long isPresentTime = System.nanoTime() - start;
-        
-        System.out.println("isEmpty() time: " + isEmptyTime + " ns");
-        System.out.println("!isPresent() time: " + isPresentTime + " ns");
-        System.out.println("Performance difference: " + String.format("%.2f", (double) isPresentTime / isEmptyTime) + "x");
+        System.out.println("isEmpty(): " + testOptional.isEmpty());
+        System.out.println("!isPresent(): " + !testOptional.isPresent());
         System.out.println();
         
         // 8. Best practices
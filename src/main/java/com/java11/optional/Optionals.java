@@ -0,0 +1,114 @@
+package com.java11.optional;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Unwraps streams of Optionals without the filter(Optional::isPresent)
+ * .map(Optional::get) pair of stages or the Stream per element of
+ * flatMap(Optional::stream). Empty Optionals are skipped.
+ */
+public final class Optionals {
+
+    private Optionals() {
+    }
+
+    /**
+     * Collector that passes the values of present Optionals to downstream,
+     * like Collectors.filtering() and mapping() combined into one step.
+     */
+    public static <T, A, R> Collector<Optional<? extends T>, A, R> flattening(Collector<? super T, A, R> downstream) {
+        BiConsumer<A, ? super T> accumulator = downstream.accumulator();
+        return Collector.of(downstream.supplier(),
+                (container, optional) -> {
+                    if (optional.isPresent()) {
+                        accumulator.accept(container, optional.get());
+                    }
+                },
+                downstream.combiner(),
+                downstream.finisher(),
+                downstream.characteristics().toArray(new Collector.Characteristics[0]));
+    }
+
+    /**
+     * Stream of the present values, which splits like the source for parallel().
+     * Closing it closes the source.
+     */
+    public static <T> Stream<T> present(Stream<? extends Optional<? extends T>> optionals) {
+        return StreamSupport.stream(presentSpliterator(optionals.spliterator()), optionals.isParallel())
+                .onClose(optionals::close);
+    }
+
+    public static <T> Stream<T> present(Collection<? extends Optional<? extends T>> optionals) {
+        return StreamSupport.stream(presentSpliterator(optionals.spliterator()), false);
+    }
+
+    public static <T> Spliterator<T> presentSpliterator(Spliterator<? extends Optional<? extends T>> source) {
+        return new PresentSpliterator<>(source);
+    }
+
+    /**
+     * Forwards the values of present Optionals. It is its own Consumer of the
+     * source, so tryAdvance() does not create a lambda per call.
+     */
+    private static final class PresentSpliterator<T> implements Spliterator<T>, Consumer<Optional<? extends T>> {
+        private final Spliterator<? extends Optional<? extends T>> source;
+        private Consumer<? super T> action;
+        private boolean found;
+
+        PresentSpliterator(Spliterator<? extends Optional<? extends T>> source) {
+            this.source = source;
+        }
+
+        @Override
+        public void accept(Optional<? extends T> optional) {
+            if (optional.isPresent()) {
+                found = true;
+                action.accept(optional.get());
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            this.action = action;
+            found = false;
+            while (!found && source.tryAdvance(this)) {
+                // Skips empty Optionals until one value was passed on
+            }
+            this.action = null;
+            return found;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            this.action = action;
+            source.forEachRemaining(this);
+            this.action = null;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            Spliterator<? extends Optional<? extends T>> prefix = source.trySplit();
+            return prefix == null ? null : new PresentSpliterator<>(prefix);
+        }
+
+        /** Upper bound: the source's size, as some Optionals may be empty */
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            // Dropping empties keeps order and distinctness but not the size;
+            // the source's sort order compares Optionals, not values
+            return source.characteristics() & (ORDERED | DISTINCT | IMMUTABLE | CONCURRENT) | NONNULL;
+        }
+    }
+}
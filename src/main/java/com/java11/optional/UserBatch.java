@@ -0,0 +1,95 @@
+package com.java11.optional;
+
+import com.java11.optional.OptionalEnhancementsExample.User;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Column-oriented batch of User records: one array per field instead of one
+ * object per record, so a validation rule runs down a single array.
+ */
+public final class UserBatch {
+
+    private final String[] emails;
+    private final String[] names;
+    private final int size;
+
+    private UserBatch(String[] emails, String[] names, int size) {
+        this.emails = emails;
+        this.names = names;
+        this.size = size;
+    }
+
+    static UserBatch of(Collection<User> users) {
+        Builder builder = newBuilder(users.size());
+        for (User user : users) {
+            builder.add(user);
+        }
+        return builder.build();
+    }
+
+    public static Builder newBuilder() {
+        return newBuilder(1024);
+    }
+
+    public static Builder newBuilder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getEmail(int record) {
+        Objects.checkIndex(record, size);
+        return emails[record];
+    }
+
+    public String getName(int record) {
+        Objects.checkIndex(record, size);
+        return names[record];
+    }
+
+    /** The backing array of a field; only the first size() entries are records */
+    String[] column(UserRule.Field field) {
+        return field == UserRule.Field.EMAIL ? emails : names;
+    }
+
+    /**
+     * Appends records column by column. Fields may be null.
+     */
+    public static final class Builder {
+        private String[] emails;
+        private String[] names;
+        private int size;
+
+        private Builder(int expectedSize) {
+            if (expectedSize < 0) {
+                throw new IllegalArgumentException("Negative expected size: " + expectedSize);
+            }
+            emails = new String[Math.max(expectedSize, 16)];
+            names = new String[emails.length];
+        }
+
+        Builder add(User user) {
+            return add(user.getEmail(), user.getName());
+        }
+
+        public Builder add(String email, String name) {
+            if (size == emails.length) {
+                emails = Arrays.copyOf(emails, size * 2);
+                names = Arrays.copyOf(names, size * 2);
+            }
+            emails[size] = email;
+            names[size] = name;
+            size++;
+            return this;
+        }
+
+        public UserBatch build() {
+            return new UserBatch(Arrays.copyOf(emails, size), Arrays.copyOf(names, size), size);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.java11.optional;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * One check on one field of a UserBatch. A rule runs down the field's column
+ * for a range of records and sets a bit for every record that fails, 64
+ * records per long word.
+ *
+ * <p>Only notNull() fails null values; the other rules skip them, so a
+ * missing email is reported once rather than by every rule on that field.
+ */
+public final class UserRule {
+
+    /** The User field a rule checks */
+    public enum Field {
+        EMAIL, NAME
+    }
+
+    private enum Kind {
+        NOT_NULL, NOT_BLANK, EMAIL_FORMAT, PREDICATE
+    }
+
+    private final String name;
+    private final Field field;
+    private final Kind kind;
+    private final Predicate<String> valid;
+
+    private UserRule(String name, Field field, Kind kind, Predicate<String> valid) {
+        this.name = Objects.requireNonNull(name);
+        this.field = Objects.requireNonNull(field);
+        this.kind = kind;
+        this.valid = valid;
+    }
+
+    public static UserRule notNull(Field field) {
+        return new UserRule(field.name().toLowerCase() + " not null", field, Kind.NOT_NULL, null);
+    }
+
+    /** Fails values that are empty or only whitespace, as String.isBlank() */
+    public static UserRule notBlank(Field field) {
+        return new UserRule(field.name().toLowerCase() + " not blank", field, Kind.NOT_BLANK, null);
+    }
+
+    /**
+     * Fails values that are not local@domain with a dot inside the domain and
+     * no whitespace. Blank values fail too.
+     */
+    public static UserRule emailFormat(Field field) {
+        String name = field == Field.EMAIL ? "email format" : field.name().toLowerCase() + " email format";
+        return new UserRule(name, field, Kind.EMAIL_FORMAT, null);
+    }
+
+    public static UserRule matches(String name, Field field, Pattern pattern) {
+        return of(name, field, value -> pattern.matcher(value).matches());
+    }
+
+    /**
+     * Rule failing non-null values for which valid returns false.
+     */
+    public static UserRule of(String name, Field field, Predicate<String> valid) {
+        return new UserRule(name, field, Kind.PREDICATE, Objects.requireNonNull(valid));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Sets the bits of failing records in [from, to). from must be a multiple
+     * of 64, so that no other range writes the same words.
+     */
+    void evaluate(UserBatch batch, int from, int to, long[] failures) {
+        String[] column = batch.column(field);
+        for (int wordStart = from; wordStart < to; wordStart += 64) {
+            int wordEnd = Math.min(to, wordStart + 64);
+            long word = 0;
+            for (int i = wordStart; i < wordEnd; i++) {
+                if (fails(column[i])) {
+                    word |= 1L << i;
+                }
+            }
+            failures[wordStart >>> 6] |= word;
+        }
+    }
+
+    boolean fails(String value) {
+        if (value == null) {
+            return kind == Kind.NOT_NULL;
+        }
+        switch (kind) {
+            case NOT_NULL:
+                return false;
+            case NOT_BLANK:
+                return value.isBlank();
+            case EMAIL_FORMAT:
+                return !isEmail(value);
+            default:
+                return !valid.test(value);
+        }
+    }
+
+    private static boolean isEmail(String value) {
+        int at = -1;
+        int lastDot = -1;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '@') {
+                if (at >= 0) {
+                    return false;
+                }
+                at = i;
+            } else if (c == '.') {
+                lastDot = i;
+            } else if (Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return at > 0 && lastDot > at + 1 && lastDot < value.length() - 1;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,306 @@
+package com.java11.optional;
+
+import com.java11.optional.OptionalEnhancementsExample.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Immutable column store for User records. Each field is kept as UTF-8 bytes
+ * in one packed array plus an int offset per record, instead of a User, two
+ * Strings and two byte arrays per record; for typical emails and names that
+ * is about a quarter of the heap of a List&lt;User&gt;.
+ *
+ * <p>Values are read in place through a Cursor, or scanned a column at a
+ * time with filter() and forEach(); a String is only created by getString().
+ * write() and read() move the store to and from a file with the same layout,
+ * so a read is a few bulk copies. A column holds at most 2 GB of text.
+ */
+public final class UserStore {
+
+    private static final long MAGIC = 0x4A31315553523031L; // "J11USR01"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Test on the UTF-8 bytes of one value at [start, end) of bytes.
+     */
+    @FunctionalInterface
+    public interface Utf8Predicate {
+        boolean test(byte[] bytes, int start, int end);
+
+        static Utf8Predicate equalTo(String text) {
+            byte[] expected = text.getBytes(StandardCharsets.UTF_8);
+            return (bytes, start, end) -> Arrays.equals(bytes, start, end, expected, 0, expected.length);
+        }
+
+        static Utf8Predicate endsWith(String suffix) {
+            byte[] expected = suffix.getBytes(StandardCharsets.UTF_8);
+            return (bytes, start, end) -> end - start >= expected.length
+                    && Arrays.equals(bytes, end - expected.length, end, expected, 0, expected.length);
+        }
+    }
+
+    /**
+     * Receives the UTF-8 bytes of one non-null value at [start, end) of bytes.
+     */
+    @FunctionalInterface
+    public interface Utf8Consumer {
+        void accept(int record, byte[] bytes, int start, int end);
+    }
+
+    private final Utf8Column emails;
+    private final Utf8Column names;
+    private final int size;
+
+    private UserStore(Utf8Column emails, Utf8Column names) {
+        this.emails = emails;
+        this.names = names;
+        this.size = emails.size;
+    }
+
+    static UserStore of(Collection<User> users) {
+        Builder builder = newBuilder(users.size());
+        for (User user : users) {
+            builder.add(user);
+        }
+        return builder.build();
+    }
+
+    public static Builder newBuilder() {
+        return newBuilder(1024);
+    }
+
+    public static Builder newBuilder(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Negative expected size: " + expectedSize);
+        }
+        return new Builder(expectedSize);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The value as a new String, or null; prefer a Cursor or a scan on hot paths.
+     */
+    public String getString(int record, UserRule.Field field) {
+        Objects.checkIndex(record, size);
+        return column(field).getString(record);
+    }
+
+    /**
+     * A reusable view of one record at a time that reads values in place.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /** Records whose value of field is not null and matches predicate */
+    public BitSet filter(UserRule.Field field, Utf8Predicate predicate) {
+        Utf8Column column = column(field);
+        BitSet matches = new BitSet(size);
+        byte[] bytes = column.bytes;
+        int[] offsets = column.offsets;
+        for (int i = 0; i < size; i++) {
+            if (!column.isNull(i) && predicate.test(bytes, offsets[i], offsets[i + 1])) {
+                matches.set(i);
+            }
+        }
+        return matches;
+    }
+
+    /** Records whose value of field is null */
+    public BitSet filterNull(UserRule.Field field) {
+        return BitSet.valueOf(column(field).nulls);
+    }
+
+    /**
+     * Passes the non-null values of one field of the given records to consumer,
+     * in record order; the projection of a query without building Strings.
+     */
+    public void forEach(UserRule.Field field, BitSet records, Utf8Consumer consumer) {
+        Utf8Column column = column(field);
+        for (int i = records.nextSetBit(0); i >= 0 && i < size; i = records.nextSetBit(i + 1)) {
+            if (!column.isNull(i)) {
+                consumer.accept(i, column.bytes, column.offsets[i], column.offsets[i + 1]);
+            }
+        }
+    }
+
+    public void forEach(UserRule.Field field, Utf8Consumer consumer) {
+        Utf8Column column = column(field);
+        for (int i = 0; i < size; i++) {
+            if (!column.isNull(i)) {
+                consumer.accept(i, column.bytes, column.offsets[i], column.offsets[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * A new store holding only the given records, in order.
+     */
+    public UserStore select(BitSet records) {
+        return new UserStore(emails.select(records), names.select(records));
+    }
+
+    /**
+     * Writes the store to file, replacing it atomically where the file system allows.
+     */
+    public void write(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                buffer.putLong(MAGIC).putInt(VERSION).putInt(size);
+                emails.write(channel, buffer);
+                names.write(channel, buffer);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public static UserStore read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+            Utf8Column.fill(channel, buffer, 16);
+            if (buffer.getLong() != MAGIC) {
+                throw new IOException("Not a user store: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + ": " + file);
+            }
+            int size = buffer.getInt();
+            // Each column holds at least its null bits and size + 1 offsets
+            long minimumLength = 16 + 2 * (((size + 63L) >>> 6) * 8 + (size + 1L) * 4);
+            if (size < 0 || minimumLength > channel.size()) {
+                throw new IOException("Corrupt user store: " + size + " records in " + channel.size() + " bytes: " + file);
+            }
+            Utf8Column emails = Utf8Column.read(channel, buffer, size);
+            Utf8Column names = Utf8Column.read(channel, buffer, size);
+            return new UserStore(emails, names);
+        }
+    }
+
+    private Utf8Column column(UserRule.Field field) {
+        return field == UserRule.Field.EMAIL ? emails : names;
+    }
+
+    /**
+     * Flyweight over one record. moveTo() repositions it, so one Cursor can
+     * walk the whole store without allocating.
+     */
+    public final class Cursor {
+        private int record = -1;
+
+        private Cursor() {
+        }
+
+        public Cursor moveTo(int record) {
+            Objects.checkIndex(record, size);
+            this.record = record;
+            return this;
+        }
+
+        /** Current record, or -1 before the first moveTo() */
+        public int getRecord() {
+            return record;
+        }
+
+        public boolean isNull(UserRule.Field field) {
+            return column(field).isNull(position());
+        }
+
+        /** Length of the value in UTF-8 bytes; 0 for null */
+        public int length(UserRule.Field field) {
+            int record = position();
+            Utf8Column column = column(field);
+            return column.offsets[record + 1] - column.offsets[record];
+        }
+
+        public boolean matches(UserRule.Field field, Utf8Predicate predicate) {
+            int record = position();
+            Utf8Column column = column(field);
+            return !column.isNull(record)
+                    && predicate.test(column.bytes, column.offsets[record], column.offsets[record + 1]);
+        }
+
+        /**
+         * Copies the value's UTF-8 bytes into target at offset and returns their
+         * number, or -1 for null.
+         */
+        public int copyTo(UserRule.Field field, byte[] target, int offset) {
+            int record = position();
+            Utf8Column column = column(field);
+            if (column.isNull(record)) {
+                return -1;
+            }
+            int start = column.offsets[record];
+            int length = column.offsets[record + 1] - start;
+            System.arraycopy(column.bytes, start, target, offset, length);
+            return length;
+        }
+
+        public String getString(UserRule.Field field) {
+            return column(field).getString(position());
+        }
+
+        private int position() {
+            if (record < 0) {
+                throw new IllegalStateException("Cursor not positioned; call moveTo() first");
+            }
+            return record;
+        }
+    }
+
+    /**
+     * Appends records; build() trims the columns to their final size.
+     */
+    public static final class Builder {
+        private final Utf8Column.Builder emails;
+        private final Utf8Column.Builder names;
+
+        private Builder(int expectedSize) {
+            emails = new Utf8Column.Builder(expectedSize);
+            names = new Utf8Column.Builder(expectedSize);
+        }
+
+        Builder add(User user) {
+            return add(user.getEmail(), user.getName());
+        }
+
+        public Builder add(String email, String name) {
+            emails.add(email);
+            names.add(name);
+            return this;
+        }
+
+        public UserStore build() {
+            return new UserStore(emails.build(), names.build());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.java11.optional;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a rule set over a UserBatch and records failures as one bitset per
+ * rule rather than an object per record. The batch is split into ranges that
+ * start at multiples of 64, so fork/join tasks write disjoint long words of
+ * the bitsets without synchronizing. Within a range each rule runs down its
+ * column in turn, which keeps the inner loops short and free of calls into
+ * other rules.
+ */
+public final class UserValidator {
+
+    /** Ranges up to this many records are validated by one task; a multiple of 64 */
+    static final int DEFAULT_MIN_SPLIT = 8192;
+
+    private final List<UserRule> rules;
+    private final int minSplit;
+
+    public UserValidator(List<UserRule> rules) {
+        this(rules, DEFAULT_MIN_SPLIT);
+    }
+
+    UserValidator(List<UserRule> rules, int minSplit) {
+        if (rules.isEmpty()) {
+            throw new IllegalArgumentException("No rules");
+        }
+        if (minSplit < 64 || minSplit % 64 != 0) {
+            throw new IllegalArgumentException("Split size must be a positive multiple of 64: " + minSplit);
+        }
+        this.rules = List.copyOf(rules);
+        this.minSplit = minSplit;
+    }
+
+    public static UserValidator of(UserRule... rules) {
+        return new UserValidator(List.of(rules));
+    }
+
+    /**
+     * The checks of OptionalEnhancementsExample.validateUser: email present,
+     * not blank and well formed, and a name present.
+     */
+    public static UserValidator standard() {
+        return of(UserRule.notNull(UserRule.Field.EMAIL),
+                UserRule.notBlank(UserRule.Field.EMAIL),
+                UserRule.emailFormat(UserRule.Field.EMAIL),
+                UserRule.notNull(UserRule.Field.NAME),
+                UserRule.notBlank(UserRule.Field.NAME));
+    }
+
+    public List<UserRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Validates the batch on the common fork/join pool.
+     */
+    public ValidationResult validate(UserBatch batch) {
+        return validate(batch, ForkJoinPool.commonPool());
+    }
+
+    public ValidationResult validate(UserBatch batch, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        long[][] failures = new long[rules.size()][(batch.size() + 63) >>> 6];
+        pool.invoke(new ValidateTask(batch, failures, 0, batch.size()));
+        return new ValidationResult(rules, failures, batch.size(), System.nanoTime() - start);
+    }
+
+    /**
+     * Validates the batch on the calling thread only.
+     */
+    public ValidationResult validateSequential(UserBatch batch) {
+        long start = System.nanoTime();
+        long[][] failures = new long[rules.size()][(batch.size() + 63) >>> 6];
+        validateRange(batch, failures, 0, batch.size());
+        return new ValidationResult(rules, failures, batch.size(), System.nanoTime() - start);
+    }
+
+    private void validateRange(UserBatch batch, long[][] failures, int from, int to) {
+        for (int r = 0; r < failures.length; r++) {
+            rules.get(r).evaluate(batch, from, to, failures[r]);
+        }
+    }
+
+    private final class ValidateTask extends RecursiveAction {
+        private final UserBatch batch;
+        private final long[][] failures;
+        private final int from;
+        private final int to;
+
+        ValidateTask(UserBatch batch, long[][] failures, int from, int to) {
+            this.batch = batch;
+            this.failures = failures;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= minSplit) {
+                validateRange(batch, failures, from, to);
+                return;
+            }
+            // Split on a word boundary so both halves own whole words
+            int middle = from + ((((to - from) >>> 1) + 63) & ~63);
+            invokeAll(new ValidateTask(batch, failures, from, middle),
+                    new ValidateTask(batch, failures, middle, to));
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.java11.optional;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * One String field of a UserStore: the UTF-8 bytes of all values back to back
+ * in one array, value i at [offsets[i], offsets[i + 1]), and a bit per value
+ * telling null apart from "".
+ */
+final class Utf8Column {
+
+    final byte[] bytes;
+    final int[] offsets;
+    final long[] nulls;
+    final int size;
+
+    private Utf8Column(byte[] bytes, int[] offsets, long[] nulls, int size) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.nulls = nulls;
+        this.size = size;
+    }
+
+    boolean isNull(int record) {
+        return (nulls[record >>> 6] & (1L << record)) != 0;
+    }
+
+    String getString(int record) {
+        if (isNull(record)) {
+            return null;
+        }
+        int start = offsets[record];
+        return new String(bytes, start, offsets[record + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    Utf8Column select(BitSet records) {
+        Builder builder = new Builder(records.cardinality());
+        for (int i = records.nextSetBit(0); i >= 0 && i < size; i = records.nextSetBit(i + 1)) {
+            builder.addBytes(bytes, offsets[i], offsets[i + 1], isNull(i));
+        }
+        return builder.build();
+    }
+
+    void write(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        for (long word : nulls) {
+            flushIfFull(channel, buffer, 8);
+            buffer.putLong(word);
+        }
+        for (int offset : offsets) {
+            flushIfFull(channel, buffer, 4);
+            buffer.putInt(offset);
+        }
+        for (int i = 0; i < offsets[size]; ) {
+            flushIfFull(channel, buffer, 1);
+            int chunk = Math.min(buffer.remaining(), offsets[size] - i);
+            buffer.put(bytes, i, chunk);
+            i += chunk;
+        }
+    }
+
+    static Utf8Column read(SeekableByteChannel channel, ByteBuffer buffer, int size) throws IOException {
+        long[] nulls = new long[(size + 63) >>> 6];
+        for (int i = 0; i < nulls.length; i++) {
+            nulls[i] = fill(channel, buffer, 8).getLong();
+        }
+        int[] offsets = new int[size + 1];
+        for (int i = 0; i <= size; i++) {
+            offsets[i] = fill(channel, buffer, 4).getInt();
+            if (offsets[i] < (i == 0 ? 0 : offsets[i - 1])) {
+                throw new IOException("Corrupt user store: offsets out of order");
+            }
+        }
+        // Checked before allocating, so a corrupt last offset can't ask for up to 2 GB
+        long available = channel.size() - channel.position() + buffer.remaining();
+        if (offsets[size] > available) {
+            throw new IOException("Corrupt user store: " + offsets[size] + " bytes of values, " + available + " left");
+        }
+        byte[] bytes = new byte[offsets[size]];
+        for (int i = 0; i < bytes.length; ) {
+            fill(channel, buffer, 1);
+            int chunk = Math.min(buffer.remaining(), bytes.length - i);
+            buffer.get(bytes, i, chunk);
+            i += chunk;
+        }
+        return new Utf8Column(bytes, offsets, nulls, size);
+    }
+
+    static void flushIfFull(WritableByteChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() < needed) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /** Makes at least needed bytes readable from the buffer, reading more from the channel */
+    static ByteBuffer fill(ReadableByteChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() < needed) {
+            buffer.compact();
+            while (buffer.position() < needed) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Truncated user store");
+                }
+            }
+            buffer.flip();
+        }
+        return buffer;
+    }
+
+    /**
+     * Appends values, growing the arrays by doubling; build() trims them.
+     */
+    static final class Builder {
+        private byte[] bytes;
+        private int[] offsets;
+        private long[] nulls;
+        private int size;
+
+        Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            bytes = new byte[(int) Math.min(capacity * 16L, 1 << 20)];
+            offsets = new int[capacity + 1];
+            nulls = new long[(capacity + 63) >>> 6];
+        }
+
+        void add(String value) {
+            if (value == null) {
+                addNull();
+                return;
+            }
+            int length = value.length();
+            int end = offsets[size];
+            ensureBytes(end, length);
+            byte[] b = bytes;
+            int i = 0;
+            for (; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                b[end + i] = (byte) c;
+            }
+            if (i == length) {
+                append(end + length, false);
+                return;
+            }
+            // Rare non-ASCII value: let the JDK encode it
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            ensureBytes(end, encoded.length);
+            System.arraycopy(encoded, 0, bytes, end, encoded.length);
+            append(end + encoded.length, false);
+        }
+
+        void addBytes(byte[] source, int start, int end, boolean isNull) {
+            int from = offsets[size];
+            ensureBytes(from, end - start);
+            System.arraycopy(source, start, bytes, from, end - start);
+            append(from + end - start, isNull);
+        }
+
+        private void addNull() {
+            append(offsets[size], true);
+        }
+
+        private void append(int end, boolean isNull) {
+            if (size + 1 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                nulls = Arrays.copyOf(nulls, (offsets.length + 63) >>> 6);
+            }
+            if (isNull) {
+                nulls[size >>> 6] |= 1L << size;
+            }
+            offsets[++size] = end;
+        }
+
+        private void ensureBytes(int used, int extra) {
+            long needed = (long) used + extra;
+            if (needed > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Column larger than 2 GB");
+            }
+            if (needed > bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, bytes.length * 2L)));
+            }
+        }
+
+        Utf8Column build() {
+            return new Utf8Column(Arrays.copyOf(bytes, offsets[size]), Arrays.copyOf(offsets, size + 1),
+                    Arrays.copyOf(nulls, (size + 63) >>> 6), size);
+        }
+    }
+}
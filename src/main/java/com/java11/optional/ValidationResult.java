@@ -0,0 +1,84 @@
+package com.java11.optional;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Failures of one validation run: a bitset per rule, bit i set when record i
+ * failed that rule, plus the run time.
+ */
+public final class ValidationResult {
+
+    private final List<UserRule> rules;
+    private final long[][] failures;
+    private final int recordCount;
+    private final long elapsedNanos;
+
+    ValidationResult(List<UserRule> rules, long[][] failures, int recordCount, long elapsedNanos) {
+        this.rules = rules;
+        this.failures = failures;
+        this.recordCount = recordCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public List<UserRule> getRules() {
+        return rules;
+    }
+
+    public boolean isFailure(int rule, int record) {
+        Objects.checkIndex(record, recordCount);
+        return (failures[rule][record >>> 6] & (1L << record)) != 0;
+    }
+
+    /** Records that failed the rule, as a copy of its bitset */
+    public BitSet getFailures(int rule) {
+        return BitSet.valueOf(failures[rule]);
+    }
+
+    public int getFailureCount(int rule) {
+        int count = 0;
+        for (long word : failures[rule]) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /** Records that failed at least one rule */
+    public BitSet getInvalid() {
+        long[] union = new long[(recordCount + 63) >>> 6];
+        for (long[] rule : failures) {
+            for (int w = 0; w < union.length; w++) {
+                union[w] |= rule[w];
+            }
+        }
+        return BitSet.valueOf(union);
+    }
+
+    public int getValidCount() {
+        return recordCount - getInvalid().cardinality();
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getRecordsPerSecond() {
+        return elapsedNanos == 0 ? 0 : recordCount * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder()
+                .append(recordCount).append(" records, ").append(getValidCount()).append(" valid, ")
+                .append(String.format("%.0f", getRecordsPerSecond())).append(" records/s");
+        for (int r = 0; r < rules.size(); r++) {
+            text.append(", ").append(rules.get(r).getName()).append('=').append(getFailureCount(r));
+        }
+        return text.toString();
+    }
+}
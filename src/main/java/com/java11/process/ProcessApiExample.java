@@ -3,7 +3,6 @@ package com.java11.process;
 import java.io.IOException;
 import java.time.Duration;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Demonstrates improved Process API introduced in Java 11
@@ -70,88 +69,103 @@ public class ProcessApiExample {
             ProcessBuilder timeoutPb = new ProcessBuilder("sleep", "10");
             Process timeoutProcess = timeoutPb.start();
             
-            boolean completed = timeoutProcess.waitFor(3, TimeUnit.SECONDS);
-            if (completed) {
-                System.out.println("Process completed within timeout");
-            } else {
-                System.out.println("Process did not complete within timeout, destroying...");
-                timeoutProcess.destroy();
-                System.out.println("Process destroyed");
-            }
-            System.out.println();
-            
-            // 6. Process output handling
-            System.out.println("6. Process output handling:");
-            ProcessBuilder outputPb = new ProcessBuilder("java", "-version");
-            outputPb.redirectErrorStream(true);
-            Process outputProcess = outputPb.start();
-            
-            // Read output
-            String output = new String(outputProcess.getInputStream().readAllBytes());
-            int outputExitCode = outputProcess.waitFor();
-            
-            System.out.println("Java version output:");
-            System.out.println(output);
-            System.out.println("Exit code: " + outputExitCode);
-            System.out.println();
-            
-            // 7. Process comparison with old way
-            System.out.println("7. Comparison with old way:");
-            
-            // Old way - limited process information
-            Process oldProcess = Runtime.getRuntime().exec("echo 'Old way'");
-            int oldExitCode = oldProcess.waitFor();
-            System.out.println("Old way exit code: " + oldExitCode);
-            
-            // New way - rich process information
-            ProcessBuilder newPb = new ProcessBuilder("echo", "New way");
-            Process newProcess = newPb.start();
-            ProcessHandle newHandle = newProcess.toHandle();
-            int newExitCode = newProcess.waitFor();
-            
-            System.out.println("New way exit code: " + newExitCode);
-            System.out.println("New way PID: " + newHandle.pid());
-            System.out.println("New way info: " + newHandle.info());
-            System.out.println();
-            
-            // 8. Practical example - system monitoring
-            System.out.println("8. Practical example - System monitoring:");
-            
-            // Get all processes
-            List<ProcessHandle> allProcesses = ProcessHandle.allProcesses()
-                    .limit(10)
-                    .collect(java.util.stream.Collectors.toList());
-            
-            System.out.println("First 10 processes:");
-            allProcesses.forEach(handle -> {
-                ProcessHandle.Info info = handle.info();
-                System.out.println("PID: " + handle.pid() + 
-                                 ", Command: " + info.command().orElse("N/A") +
-                                 ", Arguments: " + info.arguments().orElse(new String[0]).length +
-                                 ", Start time: " + info.startInstant().orElse(null));
-            });
-            System.out.println();
-            
-            // 9. Process destruction modes
-            System.out.println("9. Process destruction modes:");
-            
-            // Start a process that can be terminated gracefully
-            ProcessBuilder gracefulPb = new ProcessBuilder("sleep", "30");
-            Process gracefulProcess = gracefulPb.start();
-            ProcessHandle gracefulHandle = gracefulProcess.toHandle();
-            
-            System.out.println("Started process with PID: " + gracefulHandle.pid());
-            
-            // Try graceful termination first
-            boolean destroyed = gracefulHandle.destroy();
-            System.out.println("Graceful destruction successful: " + destroyed);
-            
-            // Wait a bit and check if still alive
-            Thread.sleep(1000);
-            if (gracefulHandle.isAlive()) {
-                System.out.println("Process still alive, forcing destruction...");
-                gracefulHandle.destroyForcibly();
-                System.out.println("Forced destruction completed");
+            // One scheduler thread enforces every deadline; no thread waits in waitFor().
+            // It stays open through section 9, which supervises another process
+            try (ProcessSupervisor supervisor = ProcessSupervisor.newBuilder()
+                    .gracePeriod(Duration.ofSeconds(1))
+                    .build()) {
+                ProcessSupervisor.Supervised timed = supervisor.supervise(timeoutProcess, Duration.ofSeconds(3));
+                ProcessSupervisor.Outcome timeoutOutcome = timed.onExit().join();
+                if (timeoutOutcome == ProcessSupervisor.Outcome.COMPLETED) {
+                    System.out.println("Process completed within timeout");
+                } else {
+                    System.out.println("Process did not complete within timeout: " + timeoutOutcome);
+                }
+                System.out.println();
+            
+                // 6. Process output handling
+                System.out.println("6. Process output handling:");
+                ProcessBuilder outputPb = new ProcessBuilder("java", "-version");
+            
+                // Lines arrive as they are written; stdout and stderr are pumped separately,
+                // so neither pipe can fill up and block the child
+                System.out.println("Java version output:");
+                try (ProcessRunner runner = ProcessRunner.newBuilder().threads(1).build()) {
+                    ProcessRunner.Execution execution = runner.start(outputPb,
+                            (stream, line) -> System.out.println("  [" + stream + "] " + line));
+                    int outputExitCode = execution.onExit().join();
+                    System.out.println("Exit code: " + outputExitCode);
+                }
+                System.out.println();
+            
+                // 7. Process comparison with old way
+                System.out.println("7. Comparison with old way:");
+            
+                // Old way - limited process information
+                Process oldProcess = Runtime.getRuntime().exec("echo 'Old way'");
+                int oldExitCode = oldProcess.waitFor();
+                System.out.println("Old way exit code: " + oldExitCode);
+            
+                // New way - rich process information
+                ProcessBuilder newPb = new ProcessBuilder("echo", "New way");
+                Process newProcess = newPb.start();
+                ProcessHandle newHandle = newProcess.toHandle();
+                int newExitCode = newProcess.waitFor();
+            
+                System.out.println("New way exit code: " + newExitCode);
+                System.out.println("New way PID: " + newHandle.pid());
+                System.out.println("New way info: " + newHandle.info());
+            
+                // Repeated short jobs: reuse pre-started workers instead of a process per job
+                try (WorkerPool pool = WorkerPool.newBuilder(WorkerPool.javaWorker(WorkerProcess.Echo.class))
+                        .workers(2)
+                        .build()) {
+                    for (int i = 1; i <= 5; i++) {
+                        byte[] reply = pool.submit(("job " + i).getBytes()).join();
+                        System.out.println("Worker reply: " + new String(reply));
+                    }
+                    System.out.println("Worker pool metrics: " + pool.metrics());
+                }
+                System.out.println();
+            
+                // 8. Practical example - system monitoring
+                System.out.println("8. Practical example - System monitoring:");
+            
+                // The sampler caches command/arguments/start time per process and only
+                // refreshes CPU and liveness, so it is cheap enough to poll every second
+                try (ProcessSampler sampler = ProcessSampler.newBuilder().build()) {
+                    ProcessSampler.Snapshot first = sampler.sample();
+                    Thread.sleep(500);
+                    ProcessSampler.Snapshot second = sampler.sample();
+                
+                    System.out.println("First 10 processes:");
+                    second.getProcesses().stream().limit(10).forEach(System.out::println);
+                
+                    ProcessSampler.Delta delta = second.deltaFrom(first);
+                    System.out.println("Changes over " + delta.getElapsed().toMillis() + " ms: "
+                            + delta.getStarted().size() + " started, " + delta.getExited().size() + " exited");
+                    delta.topByCpu(3).forEach(pid -> System.out.printf("  PID %d: %.1f%% CPU%n",
+                            pid, delta.getCpuPercent(pid)));
+                    System.out.println("Sample cost: first " + first.getSampleMicros() + " us, cached "
+                            + second.getSampleMicros() + " us");
+                }
+                System.out.println();
+            
+                // 9. Process destruction modes
+                System.out.println("9. Process destruction modes:");
+            
+                // Start a process that can be terminated gracefully
+                ProcessBuilder gracefulPb = new ProcessBuilder("sleep", "30");
+                Process gracefulProcess = gracefulPb.start();
+                ProcessHandle gracefulHandle = gracefulProcess.toHandle();
+            
+                System.out.println("Started process with PID: " + gracefulHandle.pid());
+            
+                // Graceful termination first; destroyForcibly() only if it outlives the grace period
+                ProcessSupervisor.Supervised graceful = supervisor.supervise(gracefulHandle, Duration.ofSeconds(30));
+                graceful.terminate();
+                System.out.println("Destruction outcome: " + graceful.onExit().join());
+                System.out.println("Supervisor: " + supervisor);
             }
             System.out.println();
             
@@ -0,0 +1,582 @@
+package com.java11.process;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Starts processes and delivers their stdout and stderr line by line, without a
+ * blocked reader thread per stream and without a thread parked in waitFor().
+ *
+ * <p>On a platform thread pool each stream is polled: a pump reads whatever
+ * available() reports, then reschedules itself, backing off up to 32 ms while the
+ * child is quiet. When virtual threads are available (JDK 21+) each stream is
+ * read with plain blocking reads on its own virtual thread instead.
+ * Completion comes from Process.onExit().
+ */
+public class ProcessRunner implements AutoCloseable {
+
+    /** Which stream a line came from */
+    public enum Output {
+        STDOUT, STDERR
+    }
+
+    @FunctionalInterface
+    public interface LineListener {
+        void onLine(Output output, String line);
+    }
+
+    private static final int CHUNK_SIZE = 8192;
+    private static final long MAX_IDLE_MILLIS = 32;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService virtualThreads;
+    private final Charset charset;
+    private final int maxLineLength;
+    private final int bufferedLines;
+
+    private ProcessRunner(Builder builder) {
+        this.charset = builder.charset;
+        this.maxLineLength = builder.maxLineLength;
+        this.bufferedLines = builder.bufferedLines;
+        ExecutorService virtual = builder.virtualThreads ? VirtualThreads.newExecutor() : null;
+        this.virtualThreads = virtual;
+        if (virtual == null) {
+            AtomicInteger counter = new AtomicInteger();
+            ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(builder.threads, task -> {
+                Thread thread = new Thread(task, "process-pump-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            pool.setRemoveOnCancelPolicy(true);
+            this.scheduler = pool;
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /** True if this JVM has Executors.newVirtualThreadPerTaskExecutor() */
+    public static boolean virtualThreadsAvailable() {
+        return VirtualThreads.available();
+    }
+
+    /** True if streams are read on virtual threads rather than polled */
+    public boolean usesVirtualThreads() {
+        return virtualThreads != null;
+    }
+
+    /**
+     * Starts the process and passes each line of stdout and stderr to the listener.
+     * The listener is called from pump threads, one line at a time per stream.
+     */
+    public Execution start(ProcessBuilder builder, LineListener listener) throws IOException {
+        Objects.requireNonNull(listener);
+        Process process = builder.start();
+        Execution execution = new Execution(process, null);
+        execution.startPumps(new ListenerSink(listener));
+        return execution;
+    }
+
+    public Execution start(ProcessBuilder builder, Consumer<String> stdout,
+                           Consumer<String> stderr) throws IOException {
+        return start(builder, (output, line) -> (output == Output.STDOUT ? stdout : stderr).accept(line));
+    }
+
+    /**
+     * Starts the process; its output is read once a subscriber subscribes to
+     * Execution.lines(). Until then the child blocks when its pipe buffers fill up.
+     */
+    public Execution start(ProcessBuilder builder) throws IOException {
+        Process process = builder.start();
+        return new Execution(process, new LinePublisher());
+    }
+
+    /**
+     * Stops the pump threads. Output of running processes is no longer delivered.
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        } else {
+            virtualThreads.shutdownNow();
+        }
+    }
+
+    /**
+     * A started process and the completion of its output.
+     */
+    public final class Execution {
+        private final Process process;
+        private final LinePublisher publisher;
+        private final CompletableFuture<Integer> exit = new CompletableFuture<>();
+
+        private Execution(Process process, LinePublisher publisher) {
+            this.process = process;
+            this.publisher = publisher;
+            if (publisher != null) {
+                publisher.execution = this;
+            }
+        }
+
+        public Process process() {
+            return process;
+        }
+
+        public long pid() {
+            return process.pid();
+        }
+
+        /**
+         * Completes with the exit code once the process has exited and all of its output
+         * has been delivered, or exceptionally if a listener threw.
+         */
+        public CompletableFuture<Integer> onExit() {
+            return exit;
+        }
+
+        /**
+         * Output lines with a bounded buffer: pumps stop reading while the subscriber
+         * is bufferedLines behind. Only one subscriber is allowed, and only for
+         * executions started without a listener.
+         */
+        public Flow.Publisher<Line> lines() {
+            if (publisher == null) {
+                throw new IllegalStateException("Output is delivered to a LineListener");
+            }
+            return publisher;
+        }
+
+        private void startPumps(Sink sink) {
+            Pump stdout = new Pump(this, process.getInputStream(), Output.STDOUT, sink);
+            Pump stderr = new Pump(this, process.getErrorStream(), Output.STDERR, sink);
+            sink.attach(stdout, stderr);
+            CompletableFuture<Void> drained = CompletableFuture.allOf(stdout.done, stderr.done);
+            process.onExit().thenCombine(drained, (p, ignored) -> p.exitValue())
+                    .whenComplete((code, error) -> {
+                        Throwable failure = error != null ? error : sink.failure();
+                        if (failure != null) {
+                            exit.completeExceptionally(failure);
+                        } else {
+                            exit.complete(code);
+                        }
+                    });
+            stdout.schedule();
+            stderr.schedule();
+        }
+    }
+
+    /**
+     * One line of output.
+     */
+    public static final class Line {
+        private final Output output;
+        private final String text;
+
+        Line(Output output, String text) {
+            this.output = output;
+            this.text = text;
+        }
+
+        public Output getOutput() {
+            return output;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        @Override
+        public String toString() {
+            return output + ": " + text;
+        }
+    }
+
+    /**
+     * Where pumps deliver lines.
+     */
+    private abstract static class Sink {
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        void attach(Pump stdout, Pump stderr) {
+        }
+
+        /** False while the consumer is behind; the pump pauses until resume() */
+        boolean hasCapacity() {
+            return true;
+        }
+
+        abstract void accept(Output output, String line);
+
+        void streamEnded() {
+        }
+
+        void fail(Throwable error) {
+            failure.compareAndSet(null, error);
+        }
+
+        Throwable failure() {
+            return failure.get();
+        }
+    }
+
+    private static final class ListenerSink extends Sink {
+        private final LineListener listener;
+
+        ListenerSink(LineListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        void accept(Output output, String line) {
+            // After a failure the rest of the output is drained and dropped so the child can't block
+            if (failure() != null) {
+                return;
+            }
+            try {
+                listener.onLine(output, line);
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+        }
+    }
+
+    /**
+     * Single-subscriber publisher fed by both pumps. The queue bound is approximate:
+     * pumps check it before each read, so one read's worth of lines may overshoot.
+     */
+    private final class LinePublisher extends Sink implements Flow.Publisher<Line>, Flow.Subscription {
+        private final Queue<Line> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicInteger openStreams = new AtomicInteger(2);
+        private final AtomicBoolean subscribed = new AtomicBoolean();
+        private Execution execution;
+        private Flow.Subscriber<? super Line> subscriber;
+        private Pump[] pumps;
+        private volatile boolean cancelled;
+        private boolean terminated;
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super Line> subscriber) {
+            Objects.requireNonNull(subscriber);
+            if (!subscribed.compareAndSet(false, true)) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("lines() allows only one subscriber"));
+                return;
+            }
+            this.subscriber = subscriber;
+            subscriber.onSubscribe(this);
+            execution.startPumps(this);
+        }
+
+        @Override
+        void attach(Pump stdout, Pump stderr) {
+            pumps = new Pump[]{stdout, stderr};
+        }
+
+        @Override
+        boolean hasCapacity() {
+            return cancelled || queued.get() < bufferedLines;
+        }
+
+        @Override
+        void accept(Output output, String line) {
+            if (cancelled) {
+                return;
+            }
+            queue.add(new Line(output, line));
+            queued.incrementAndGet();
+            drain();
+        }
+
+        @Override
+        void streamEnded() {
+            openStreams.decrementAndGet();
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("non-positive request: " + n));
+                return;
+            }
+            long current;
+            do {
+                current = demand.get();
+            } while (!demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            resumePumps();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (!terminated && !cancelled && demand.get() > 0) {
+                    Line line = queue.poll();
+                    if (line == null) {
+                        break;
+                    }
+                    queued.decrementAndGet();
+                    demand.decrementAndGet();
+                    subscriber.onNext(line);
+                }
+                if (!terminated && !cancelled && queue.isEmpty() && openStreams.get() == 0) {
+                    terminated = true;
+                    if (failure() != null) {
+                        subscriber.onError(failure());
+                    } else {
+                        subscriber.onComplete();
+                    }
+                }
+                if (!cancelled && queued.get() < bufferedLines) {
+                    resumePumps();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void resumePumps() {
+            Pump[] current = pumps;
+            if (current != null) {
+                for (Pump pump : current) {
+                    pump.resume();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads one stream and splits it into lines at '\n' (dropping a preceding '\r').
+     * Lines longer than maxLineLength bytes are delivered in pieces.
+     * Exactly one run() is scheduled or running at a time, except while paused.
+     */
+    private final class Pump implements Runnable {
+        private final Execution execution;
+        private final InputStream in;
+        private final Output output;
+        private final Sink sink;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final AtomicBoolean paused = new AtomicBoolean();
+        private final byte[] chunk = new byte[CHUNK_SIZE];
+        private byte[] line = new byte[128];
+        private int lineLength;
+        private long idleMillis;
+
+        Pump(Execution execution, InputStream in, Output output, Sink sink) {
+            this.execution = execution;
+            this.in = in;
+            this.output = output;
+            this.sink = sink;
+        }
+
+        void schedule() {
+            if (virtualThreads != null) {
+                virtualThreads.execute(this);
+            } else {
+                scheduler.execute(this);
+            }
+        }
+
+        void resume() {
+            if (paused.compareAndSet(true, false)) {
+                schedule();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                boolean blocking = virtualThreads != null;
+                long progress = 0;
+                while (progress < 16 * CHUNK_SIZE || blocking) {
+                    if (!sink.hasCapacity()) {
+                        pause();
+                        return;
+                    }
+                    // Checked before available(): everything the child wrote before exiting
+                    // is then already counted. A pool thread never blocks in read(), not
+                    // even after exit, since a grandchild may still hold the pipe open
+                    // until the JDK swaps it for the drained bytes.
+                    boolean exited = !blocking && !execution.process.isAlive();
+                    int length = chunk.length;
+                    if (!blocking) {
+                        length = Math.min(length, in.available());
+                        if (length == 0) {
+                            if (exited) {
+                                finish();
+                                return;
+                            }
+                            break;
+                        }
+                    }
+                    int read = in.read(chunk, 0, length);
+                    if (read < 0) {
+                        finish();
+                        return;
+                    }
+                    split(read);
+                    progress += read;
+                }
+                if (progress > 0) {
+                    idleMillis = 0;
+                    scheduler.execute(this);
+                } else {
+                    idleMillis = Math.min(MAX_IDLE_MILLIS, Math.max(1, idleMillis * 2));
+                    scheduler.schedule(this, idleMillis, TimeUnit.MILLISECONDS);
+                }
+            } catch (IOException | RuntimeException e) {
+                sink.fail(e);
+                finish();
+            }
+        }
+
+        private void pause() {
+            paused.set(true);
+            // The consumer may have caught up between the check and the flag
+            if (sink.hasCapacity()) {
+                resume();
+            }
+        }
+
+        private void split(int read) {
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                if (chunk[i] == '\n') {
+                    append(start, i);
+                    emit();
+                    start = i + 1;
+                }
+            }
+            append(start, read);
+        }
+
+        private void append(int from, int to) {
+            while (from < to) {
+                int room = maxLineLength - lineLength;
+                if (room == 0) {
+                    emit();
+                    continue;
+                }
+                int length = Math.min(room, to - from);
+                if (line.length < lineLength + length) {
+                    byte[] grown = new byte[Math.min(maxLineLength, Math.max(lineLength + length, line.length * 2))];
+                    System.arraycopy(line, 0, grown, 0, lineLength);
+                    line = grown;
+                }
+                System.arraycopy(chunk, from, line, lineLength, length);
+                lineLength += length;
+                from += length;
+            }
+        }
+
+        private void emit() {
+            int length = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+            lineLength = 0;
+            sink.accept(output, new String(line, 0, length, charset));
+        }
+
+        private void finish() {
+            if (lineLength > 0) {
+                emit();
+            }
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Nothing left to read
+            }
+            sink.streamEnded();
+            done.complete(null);
+        }
+    }
+
+    public static final class Builder {
+        private int threads = 2;
+        private int maxLineLength = 8192;
+        private int bufferedLines = 256;
+        private Charset charset = StandardCharsets.UTF_8;
+        private boolean virtualThreads = true;
+
+        private Builder() {
+        }
+
+        /** Pump threads when virtual threads are not used */
+        public Builder threads(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("threads must be positive: " + threads);
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder maxLineLength(int maxLineLength) {
+            if (maxLineLength < 1) {
+                throw new IllegalArgumentException("maxLineLength must be positive: " + maxLineLength);
+            }
+            this.maxLineLength = maxLineLength;
+            return this;
+        }
+
+        /** Lines buffered per execution for a lines() subscriber that is behind */
+        public Builder bufferedLines(int bufferedLines) {
+            if (bufferedLines < 1) {
+                throw new IllegalArgumentException("bufferedLines must be positive: " + bufferedLines);
+            }
+            this.bufferedLines = bufferedLines;
+            return this;
+        }
+
+        public Builder charset(Charset charset) {
+            this.charset = Objects.requireNonNull(charset);
+            return this;
+        }
+
+        /** Use virtual threads when the JVM has them (default true) */
+        public Builder virtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        public ProcessRunner build() {
+            return new ProcessRunner(this);
+        }
+    }
+}
@@ -0,0 +1,516 @@
+package com.java11.process;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically snapshots the process table without calling ProcessHandle.info()
+ * for every process on every sample. Command, arguments, user and start time never
+ * change for a process, so they are looked up once and cached by pid plus start
+ * time (which also detects pid reuse). On Linux each later sample reads only
+ * /proc/[pid]/stat for liveness and CPU time; elsewhere it falls back to
+ * allProcesses() and info(), still reusing the cached fields.
+ */
+public class ProcessSampler implements AutoCloseable {
+
+    private static final Path PROC = Path.of("/proc");
+    private static final String PROC_PREFIX = "/proc/";
+    // USER_HZ, the unit of CPU times in /proc, is 100 on every mainstream Linux architecture
+    private static final long NANOS_PER_TICK = 10_000_000L;
+
+    private final Duration interval;
+    private final Consumer<Snapshot> listener;
+    private final Consumer<RuntimeException> errorListener;
+    private final boolean useProc;
+    private final LongAdder failedSamples = new LongAdder();
+    private final Object sampleLock = new Object();
+
+    // Guarded by sampleLock
+    private Map<Long, Stable> stable = new HashMap<>();
+    private final byte[] statBuffer = new byte[1024];
+    private long samples;
+    private long totalSampleNanos;
+    private long infoLookups;
+
+    private volatile Snapshot latest;
+    private ScheduledExecutorService scheduler;
+
+    private ProcessSampler(Builder builder) {
+        this.interval = builder.interval;
+        this.listener = builder.listener;
+        this.errorListener = builder.errorListener;
+        this.useProc = builder.useProc && Files.isReadable(PROC.resolve("self").resolve("stat"));
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /** The most recent snapshot, or null before the first sample */
+    public Snapshot latest() {
+        return latest;
+    }
+
+    /** True if samples read /proc directly */
+    public boolean usesProc() {
+        return useProc;
+    }
+
+    public double getAverageSampleMicros() {
+        synchronized (sampleLock) {
+            return samples == 0 ? 0 : totalSampleNanos / 1000.0 / samples;
+        }
+    }
+
+    /** Scheduled samples that threw, in sample() or in the onSample listener */
+    public long getFailedSamples() {
+        return failedSamples.sum();
+    }
+
+    /** ProcessHandle.info() calls made so far; one per newly seen process on Linux */
+    long getInfoLookups() {
+        synchronized (sampleLock) {
+            return infoLookups;
+        }
+    }
+
+    /**
+     * Samples every interval on a single daemon thread, passing each snapshot to the listener.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "process-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Fixed delay, so a slow sample never queues up more samples behind it
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                Snapshot snapshot = sample();
+                if (listener != null) {
+                    listener.accept(snapshot);
+                }
+            } catch (RuntimeException e) {
+                // Rethrowing would cancel the schedule, so the failure is handed over instead
+                failedSamples.increment();
+                if (errorListener != null) {
+                    errorListener.accept(e);
+                }
+            }
+        }, 0, interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Takes a snapshot now, on the calling thread.
+     */
+    public Snapshot sample() {
+        synchronized (sampleLock) {
+            long start = System.nanoTime();
+            Instant now = Instant.now();
+            Map<Long, Stable> seen = new HashMap<>(Math.max(16, stable.size() * 2));
+            List<ProcessInfo> processes = useProc ? sampleProc(seen) : sampleHandles(seen);
+            stable = seen;
+            processes.sort(Comparator.comparingLong(ProcessInfo::getPid));
+            long elapsed = System.nanoTime() - start;
+            samples++;
+            totalSampleNanos += elapsed;
+            Snapshot snapshot = new Snapshot(now, elapsed / 1000, Collections.unmodifiableList(processes));
+            latest = snapshot;
+            return snapshot;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private List<ProcessInfo> sampleProc(Map<Long, Stable> seen) {
+        String[] names = PROC.toFile().list();
+        if (names == null) {
+            throw new UncheckedIOException(new IOException("Cannot list " + PROC));
+        }
+        List<ProcessInfo> processes = new ArrayList<>(names.length);
+        long[] cpuTicks = new long[1];
+        for (String name : names) {
+            long pid = parsePid(name);
+            if (pid < 0) {
+                continue;
+            }
+            long startTicks = readStat(PROC_PREFIX + name + "/stat", cpuTicks);
+            if (startTicks < 0) {
+                // Exited between listing and reading
+                continue;
+            }
+            Stable info = stable.get(pid);
+            if (info == null || info.startTicks != startTicks) {
+                Optional<ProcessHandle> handle = ProcessHandle.of(pid);
+                if (handle.isEmpty()) {
+                    continue;
+                }
+                infoLookups++;
+                info = new Stable(startTicks, handle.get().info());
+            }
+            seen.put(pid, info);
+            processes.add(info.sample(pid, Duration.ofNanos(cpuTicks[0] * NANOS_PER_TICK)));
+        }
+        return processes;
+    }
+
+    private List<ProcessInfo> sampleHandles(Map<Long, Stable> seen) {
+        List<ProcessInfo> processes = new ArrayList<>(stable.size() + 16);
+        ProcessHandle.allProcesses().forEach(handle -> {
+            ProcessHandle.Info current = handle.info();
+            infoLookups++;
+            long startMillis = current.startInstant().map(Instant::toEpochMilli).orElse(-1L);
+            Stable info = stable.get(handle.pid());
+            if (info == null || info.startTicks != startMillis) {
+                info = new Stable(startMillis, current);
+            }
+            seen.put(handle.pid(), info);
+            processes.add(info.sample(handle.pid(), current.totalCpuDuration().orElse(null)));
+        });
+        return processes;
+    }
+
+    private static long parsePid(String name) {
+        if (name.isEmpty() || name.length() > 18) {
+            return -1;
+        }
+        long pid = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            pid = pid * 10 + (c - '0');
+        }
+        return pid;
+    }
+
+    /**
+     * Reads utime + stime ticks into cpuTicks[0] and returns the start time in ticks
+     * since boot, or -1 if the file is gone. Fields are counted from the last ')'
+     * because the command name in field 2 may contain spaces and parentheses.
+     */
+    private long readStat(String file, long[] cpuTicks) {
+        byte[] buffer = statBuffer;
+        int end = 0;
+        // A plain stream is several times cheaper to open than a FileChannel,
+        // and /proc returns the whole (short) file in one read
+        try (FileInputStream in = new FileInputStream(file)) {
+            int read;
+            while (end < buffer.length && (read = in.read(buffer, end, buffer.length - end)) > 0) {
+                end += read;
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+        int i = end - 1;
+        while (i >= 0 && buffer[i] != ')') {
+            i--;
+        }
+        if (i < 0) {
+            return -1;
+        }
+        // Field 3 (state) follows ") "; utime, stime and starttime are fields 14, 15 and 22
+        int field = 2;
+        long value = 0;
+        long cpu = 0;
+        for (i++; i < end; i++) {
+            byte b = buffer[i];
+            if (b == ' ') {
+                if (field == 14 || field == 15) {
+                    cpu += value;
+                } else if (field == 22) {
+                    cpuTicks[0] = cpu;
+                    return value;
+                }
+                field++;
+                value = 0;
+            } else if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Fields that don't change while the process lives.
+     */
+    private static final class Stable {
+        private final long startTicks;
+        private final Instant startInstant;
+        private final String command;
+        private final List<String> arguments;
+        private final String user;
+
+        Stable(long startTicks, ProcessHandle.Info info) {
+            this.startTicks = startTicks;
+            this.startInstant = info.startInstant().orElse(null);
+            this.command = info.command().orElse(null);
+            this.arguments = info.arguments().map(List::of).orElse(List.of());
+            this.user = info.user().orElse(null);
+        }
+
+        ProcessInfo sample(long pid, Duration cpu) {
+            return new ProcessInfo(pid, this, cpu);
+        }
+    }
+
+    /**
+     * One process in a snapshot. Optional fields are empty when the OS doesn't report them.
+     */
+    public static final class ProcessInfo {
+        private final long pid;
+        private final Stable stable;
+        private final Duration cpu;
+
+        private ProcessInfo(long pid, Stable stable, Duration cpu) {
+            this.pid = pid;
+            this.stable = stable;
+            this.cpu = cpu;
+        }
+
+        public long getPid() {
+            return pid;
+        }
+
+        public Optional<Instant> getStartInstant() {
+            return Optional.ofNullable(stable.startInstant);
+        }
+
+        public Optional<String> getCommand() {
+            return Optional.ofNullable(stable.command);
+        }
+
+        public List<String> getArguments() {
+            return stable.arguments;
+        }
+
+        public Optional<String> getUser() {
+            return Optional.ofNullable(stable.user);
+        }
+
+        /** Total CPU time used so far */
+        public Optional<Duration> getCpu() {
+            return Optional.ofNullable(cpu);
+        }
+
+        /** Same pid and start time, i.e. the same process and not a reused pid */
+        boolean isSameProcess(ProcessInfo other) {
+            return pid == other.pid && stable.startTicks == other.stable.startTicks;
+        }
+
+        @Override
+        public String toString() {
+            return "PID: " + pid
+                    + ", Command: " + getCommand().orElse("N/A")
+                    + ", Arguments: " + getArguments().size()
+                    + ", Start time: " + stable.startInstant
+                    + ", CPU: " + (cpu == null ? "N/A" : cpu.toMillis() + " ms");
+        }
+    }
+
+    /**
+     * Immutable process table at one instant.
+     */
+    public static final class Snapshot {
+        private final Instant instant;
+        private final long sampleMicros;
+        private final List<ProcessInfo> processes;
+        private Map<Long, ProcessInfo> byPid;
+
+        private Snapshot(Instant instant, long sampleMicros, List<ProcessInfo> processes) {
+            this.instant = instant;
+            this.sampleMicros = sampleMicros;
+            this.processes = processes;
+        }
+
+        public Instant getInstant() {
+            return instant;
+        }
+
+        /** Time taken to produce this snapshot */
+        public long getSampleMicros() {
+            return sampleMicros;
+        }
+
+        /** Sorted by pid */
+        public List<ProcessInfo> getProcesses() {
+            return processes;
+        }
+
+        public Optional<ProcessInfo> get(long pid) {
+            return Optional.ofNullable(byPid().get(pid));
+        }
+
+        /**
+         * Changes since an earlier snapshot.
+         */
+        public Delta deltaFrom(Snapshot previous) {
+            Map<Long, ProcessInfo> before = previous.byPid();
+            List<ProcessInfo> started = new ArrayList<>();
+            Map<Long, Duration> cpu = new HashMap<>();
+            for (ProcessInfo process : processes) {
+                ProcessInfo old = before.get(process.pid);
+                if (old == null || !old.isSameProcess(process)) {
+                    started.add(process);
+                } else if (process.cpu != null && old.cpu != null) {
+                    cpu.put(process.pid, process.cpu.minus(old.cpu));
+                }
+            }
+            Map<Long, ProcessInfo> after = byPid();
+            List<ProcessInfo> exited = previous.processes.stream()
+                    .filter(old -> {
+                        ProcessInfo current = after.get(old.pid);
+                        return current == null || !current.isSameProcess(old);
+                    })
+                    .collect(Collectors.toList());
+            return new Delta(Duration.between(previous.instant, instant), started, exited, cpu);
+        }
+
+        private synchronized Map<Long, ProcessInfo> byPid() {
+            if (byPid == null) {
+                Map<Long, ProcessInfo> map = new HashMap<>(processes.size() * 2);
+                for (ProcessInfo process : processes) {
+                    map.put(process.pid, process);
+                }
+                byPid = map;
+            }
+            return byPid;
+        }
+
+        @Override
+        public String toString() {
+            return processes.size() + " processes at " + instant + " (sampled in " + sampleMicros + " us)";
+        }
+    }
+
+    /**
+     * Processes started and exited between two snapshots, and CPU used by the
+     * processes present in both.
+     */
+    public static final class Delta {
+        private final Duration elapsed;
+        private final List<ProcessInfo> started;
+        private final List<ProcessInfo> exited;
+        private final Map<Long, Duration> cpu;
+
+        private Delta(Duration elapsed, List<ProcessInfo> started, List<ProcessInfo> exited,
+                      Map<Long, Duration> cpu) {
+            this.elapsed = elapsed;
+            this.started = Collections.unmodifiableList(started);
+            this.exited = Collections.unmodifiableList(exited);
+            this.cpu = Collections.unmodifiableMap(cpu);
+        }
+
+        public Duration getElapsed() {
+            return elapsed;
+        }
+
+        public List<ProcessInfo> getStarted() {
+            return started;
+        }
+
+        public List<ProcessInfo> getExited() {
+            return exited;
+        }
+
+        /** CPU used by the process between the snapshots, if it was in both */
+        public Optional<Duration> getCpu(long pid) {
+            return Optional.ofNullable(cpu.get(pid));
+        }
+
+        /** CPU used as a percentage of one core over the elapsed time */
+        public double getCpuPercent(long pid) {
+            Duration used = cpu.get(pid);
+            if (used == null || elapsed.isZero()) {
+                return 0;
+            }
+            return 100.0 * used.toNanos() / elapsed.toNanos();
+        }
+
+        /** Pids of the processes that used the most CPU, busiest first */
+        public List<Long> topByCpu(int limit) {
+            return cpu.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Duration>comparingByValue().reversed())
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public String toString() {
+            return "elapsed=" + elapsed.toMillis() + " ms, started=" + started.size() + ", exited=" + exited.size();
+        }
+    }
+
+    public static final class Builder {
+        private Duration interval = Duration.ofSeconds(1);
+        private Consumer<Snapshot> listener;
+        private Consumer<RuntimeException> errorListener;
+        private boolean useProc = true;
+
+        private Builder() {
+        }
+
+        public Builder interval(Duration interval) {
+            if (interval.isNegative() || interval.isZero()) {
+                throw new IllegalArgumentException("interval must be positive: " + interval);
+            }
+            this.interval = interval;
+            return this;
+        }
+
+        /** Called on the sampler thread with every scheduled snapshot */
+        public Builder onSample(Consumer<Snapshot> listener) {
+            this.listener = Objects.requireNonNull(listener);
+            return this;
+        }
+
+        /**
+         * Called on the sampler thread when a scheduled sample or the onSample
+         * listener throws; sampling continues at the next interval. Must not throw.
+         */
+        public Builder onError(Consumer<RuntimeException> errorListener) {
+            this.errorListener = Objects.requireNonNull(errorListener);
+            return this;
+        }
+
+        /** Read /proc directly when available (default true); false always uses ProcessHandle */
+        public Builder useProc(boolean useProc) {
+            this.useProc = useProc;
+            return this;
+        }
+
+        public ProcessSampler build() {
+            return new ProcessSampler(this);
+        }
+    }
+}
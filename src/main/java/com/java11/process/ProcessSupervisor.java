@@ -0,0 +1,222 @@
+package com.java11.process;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Enforces deadlines on processes from one scheduler thread, however many are
+ * supervised. When a deadline passes the process gets destroy(); if it is still
+ * alive after the grace period it gets destroyForcibly(). Completion is observed
+ * through ProcessHandle.onExit(), so no thread waits in waitFor() or sleeps
+ * between isAlive() checks. (The JDK still reaps each child it started on its
+ * own internal thread; the supervisor adds none per process.)
+ */
+public class ProcessSupervisor implements AutoCloseable {
+
+    /** How a supervised process ended */
+    public enum Outcome {
+        /** Exited before its deadline, or after cancel() */
+        COMPLETED,
+        /** Exited after destroy() */
+        TERMINATED,
+        /** Exited after destroyForcibly() */
+        KILLED
+    }
+
+    private static final int RUNNING = 0;
+    private static final int DESTROYED = 1;
+    private static final int FORCED = 2;
+    private static final int RELEASED = 3;
+
+    private final ScheduledExecutorService scheduler;
+    private final Duration gracePeriod;
+    private final LongAdder supervised = new LongAdder();
+    private final LongAdder terminated = new LongAdder();
+    private final LongAdder killed = new LongAdder();
+    private final AtomicInteger active = new AtomicInteger();
+
+    private ProcessSupervisor(Builder builder) {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "process-supervisor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Most deadlines are cancelled because the process exits first
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+        this.gracePeriod = builder.gracePeriod;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public Supervised supervise(Process process, Duration timeout) {
+        return supervise(process.toHandle(), timeout);
+    }
+
+    /**
+     * Starts the escalation once the timeout has elapsed, unless the process exits first.
+     */
+    public Supervised supervise(ProcessHandle handle, Duration timeout) {
+        Objects.requireNonNull(handle);
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("timeout must not be negative: " + timeout);
+        }
+        Supervised supervisedProcess = new Supervised(handle);
+        supervised.increment();
+        active.incrementAndGet();
+        supervisedProcess.deadline = scheduler.schedule(supervisedProcess::destroy,
+                timeout.toNanos(), TimeUnit.NANOSECONDS);
+        handle.onExit().whenComplete((h, error) -> supervisedProcess.exited());
+        return supervisedProcess;
+    }
+
+    /** Processes supervised so far */
+    public long getSupervised() {
+        return supervised.sum();
+    }
+
+    /** Processes still running under supervision */
+    public int getActive() {
+        return active.get();
+    }
+
+    /** Processes that got destroy() after their deadline */
+    public long getTerminated() {
+        return terminated.sum();
+    }
+
+    /** Processes that needed destroyForcibly() */
+    public long getKilled() {
+        return killed.sum();
+    }
+
+    /**
+     * Stops the scheduler. Pending deadlines are dropped and processes are left running.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "supervised=" + getSupervised() + ", active=" + getActive()
+                + ", terminated=" + getTerminated() + ", killed=" + getKilled();
+    }
+
+    /**
+     * A process under supervision.
+     */
+    public final class Supervised {
+        private final ProcessHandle handle;
+        private final CompletableFuture<Outcome> outcome = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+        private volatile ScheduledFuture<?> deadline;
+        private volatile ScheduledFuture<?> escalation;
+
+        private Supervised(ProcessHandle handle) {
+            this.handle = handle;
+        }
+
+        public ProcessHandle handle() {
+            return handle;
+        }
+
+        /**
+         * Completes when the process exits, with how it was ended.
+         */
+        public CompletableFuture<Outcome> onExit() {
+            return outcome;
+        }
+
+        /**
+         * Starts the escalation now instead of at the deadline.
+         */
+        public void terminate() {
+            ScheduledFuture<?> pending = deadline;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            scheduler.execute(this::destroy);
+        }
+
+        /**
+         * Stops supervising; the process keeps running and onExit() completes
+         * with COMPLETED when it exits.
+         */
+        public void cancel() {
+            if (state.compareAndSet(RUNNING, RELEASED)) {
+                cancelTimers();
+            }
+        }
+
+        private void destroy() {
+            if (!state.compareAndSet(RUNNING, DESTROYED)) {
+                return;
+            }
+            terminated.increment();
+            // Some platforms can't deliver a graceful termination request
+            if (!handle.supportsNormalTermination() || !handle.destroy()) {
+                destroyForcibly();
+                return;
+            }
+            escalation = scheduler.schedule(this::destroyForcibly, gracePeriod.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        private void destroyForcibly() {
+            if (state.compareAndSet(DESTROYED, FORCED)) {
+                killed.increment();
+                handle.destroyForcibly();
+            }
+        }
+
+        private void exited() {
+            cancelTimers();
+            int ended = state.getAndSet(RELEASED);
+            active.decrementAndGet();
+            outcome.complete(ended == FORCED ? Outcome.KILLED
+                    : ended == DESTROYED ? Outcome.TERMINATED
+                    : Outcome.COMPLETED);
+        }
+
+        private void cancelTimers() {
+            ScheduledFuture<?> pending = deadline;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            pending = escalation;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+    }
+
+    public static final class Builder {
+        private Duration gracePeriod = Duration.ofSeconds(5);
+
+        private Builder() {
+        }
+
+        /** Time between destroy() and destroyForcibly() */
+        public Builder gracePeriod(Duration gracePeriod) {
+            if (gracePeriod.isNegative()) {
+                throw new IllegalArgumentException("gracePeriod must not be negative: " + gracePeriod);
+            }
+            this.gracePeriod = gracePeriod;
+            return this;
+        }
+
+        public ProcessSupervisor build() {
+            return new ProcessSupervisor(this);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.java11.process;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual-thread executors for code compiled against Java 11.
+ * Executors.newVirtualThreadPerTaskExecutor() is looked up reflectively once,
+ * so virtual threads are used on JDK 21+ and never required before it.
+ */
+public final class VirtualThreads {
+
+    private static final Method FACTORY = factoryMethod();
+
+    private VirtualThreads() {
+    }
+
+    /** True if this JVM has Executors.newVirtualThreadPerTaskExecutor() */
+    public static boolean available() {
+        return FACTORY != null;
+    }
+
+    /**
+     * Executor that starts a virtual thread per task, or null if this JVM has
+     * no virtual threads.
+     */
+    public static ExecutorService newExecutor() {
+        if (FACTORY == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) FACTORY.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Method factoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.java11.process;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs jobs on a fixed set of long-lived worker processes instead of starting a
+ * process per job. Workers speak the framed stdin/stdout protocol of WorkerProcess.
+ * Each worker has one dispatcher thread that takes jobs from a shared queue, so a
+ * job always goes to the next idle worker. Workers are started up front, replaced
+ * after maxJobsPerWorker jobs, and replaced when they exit. A worker that exits
+ * while idle is replaced before it gets the next job; one that exits mid-job, or
+ * is killed for running past the job timeout, fails that job with an IOException
+ * and the job is not retried.
+ */
+public class WorkerPool implements AutoCloseable {
+
+    private static final Duration EXIT_GRACE = Duration.ofSeconds(1);
+
+    private final ProcessBuilder command;
+    private final int maxJobsPerWorker;
+    private final Duration jobTimeout;
+    private final int maxResponseBytes;
+    private final BlockingQueue<Job> queue;
+    private final WorkerPoolMetrics metrics;
+    private final List<Thread> dispatchers = new ArrayList<>();
+    private volatile boolean closed;
+
+    private WorkerPool(Builder builder) {
+        this.command = builder.command;
+        this.maxJobsPerWorker = builder.maxJobsPerWorker;
+        this.jobTimeout = builder.jobTimeout;
+        this.maxResponseBytes = builder.maxResponseBytes;
+        this.queue = new LinkedBlockingQueue<>(builder.queueCapacity);
+        this.metrics = new WorkerPoolMetrics(queue::size);
+        for (int i = 0; i < builder.workers; i++) {
+            Thread thread = new Thread(this::dispatch, "worker-pool-" + (i + 1));
+            thread.setDaemon(true);
+            dispatchers.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * The command is copied, so later changes to it don't affect the pool. The
+     * worker's stderr is inherited unless the command already redirects it.
+     */
+    public static Builder newBuilder(ProcessBuilder workerCommand) {
+        return new Builder(workerCommand);
+    }
+
+    /**
+     * Command running WorkerProcess with the given handler on this JVM's class path.
+     */
+    public static ProcessBuilder javaWorker(Class<? extends WorkerProcess.Handler> handler) {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                WorkerProcess.class.getName(), handler.getName());
+    }
+
+    public WorkerPoolMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Queues a job. The future fails with JobFailedException if the handler threw,
+     * or IOException if the worker died or timed out while running it.
+     *
+     * @throws RejectedExecutionException if the pool is closed or the queue is full
+     */
+    public CompletableFuture<byte[]> submit(byte[] request) {
+        Objects.requireNonNull(request);
+        if (closed) {
+            throw new RejectedExecutionException("Worker pool is closed");
+        }
+        Job job = new Job(request);
+        if (!queue.offer(job)) {
+            throw new RejectedExecutionException("Worker pool queue is full: " + queue.size());
+        }
+        // close() may have drained the queue before the offer
+        if (closed && queue.remove(job)) {
+            throw new RejectedExecutionException("Worker pool is closed");
+        }
+        return job.result;
+    }
+
+    /**
+     * Stops taking jobs and fails the queued ones. Running jobs finish, then
+     * workers get end-of-input and are destroyed if they don't exit within a second.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread dispatcher : dispatchers) {
+            dispatcher.interrupt();
+        }
+        Job job;
+        while ((job = queue.poll()) != null) {
+            job.result.completeExceptionally(new RejectedExecutionException("Worker pool is closed"));
+        }
+    }
+
+    private void dispatch() {
+        Worker worker = null;
+        try {
+            worker = startWorker();
+            while (!closed) {
+                Job job = queue.take();
+                if (worker != null && !worker.process.isAlive()) {
+                    // Exited while idle; the job hasn't been sent, so it can go to a replacement
+                    metrics.workerCrashed();
+                    worker.process.destroyForcibly();
+                    worker = null;
+                }
+                if (worker == null) {
+                    worker = startWorker();
+                    if (worker == null) {
+                        job.result.completeExceptionally(new IOException("Worker failed to start"));
+                        continue;
+                    }
+                }
+                metrics.jobStarted();
+                try {
+                    byte[] response = worker.call(job.request, jobTimeout, maxResponseBytes);
+                    metrics.jobCompleted(System.nanoTime() - job.submittedNanos, false);
+                    job.result.complete(response);
+                } catch (JobFailedException e) {
+                    metrics.jobCompleted(System.nanoTime() - job.submittedNanos, true);
+                    job.result.completeExceptionally(e);
+                } catch (IOException e) {
+                    metrics.jobCompleted(System.nanoTime() - job.submittedNanos, true);
+                    metrics.workerCrashed();
+                    job.result.completeExceptionally(worker.crashed(e));
+                    worker = null;
+                    continue;
+                }
+                if (worker.jobs >= maxJobsPerWorker) {
+                    worker.retire();
+                    metrics.workerRecycled();
+                    worker = null;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        } finally {
+            if (worker != null) {
+                worker.retire();
+            }
+        }
+    }
+
+    private Worker startWorker() {
+        try {
+            Process process = command.start();
+            metrics.workerStarted();
+            return new Worker(process);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The worker's handler threw; the message is the worker-side exception.
+     */
+    public static class JobFailedException extends RuntimeException {
+        JobFailedException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class Job {
+        private final byte[] request;
+        private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        private final long submittedNanos = System.nanoTime();
+
+        Job(byte[] request) {
+            this.request = request;
+        }
+    }
+
+    private static final class Worker {
+        private final Process process;
+        private final DataOutputStream in;
+        private final DataInputStream out;
+        private int jobs;
+        private volatile boolean timedOut;
+
+        Worker(Process process) {
+            this.process = process;
+            this.in = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.out = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        }
+
+        /**
+         * Kills the worker if the job runs past timeout, which fails the pending
+         * read. A frame that can't be a response, such as stray output on the
+         * worker's stdout, is an IOException, so the worker is replaced.
+         */
+        byte[] call(byte[] request, Duration timeout, int maxResponseBytes) throws IOException {
+            jobs++;
+            CompletableFuture<Boolean> finished = new CompletableFuture<>();
+            finished.completeOnTimeout(false, timeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .thenAccept(done -> {
+                        if (!done) {
+                            timedOut = true;
+                            process.destroyForcibly();
+                        }
+                    });
+            byte[] response;
+            int status;
+            try {
+                in.writeInt(request.length);
+                in.write(request);
+                in.flush();
+                status = out.readInt();
+                if (status != WorkerProcess.OK && status != WorkerProcess.FAILED) {
+                    throw new IOException("Bad frame status " + status);
+                }
+                int length = out.readInt();
+                if (length < 0 || length > maxResponseBytes) {
+                    throw new IOException("Bad frame length " + length);
+                }
+                response = new byte[length];
+                out.readFully(response);
+            } finally {
+                finished.complete(true);
+            }
+            if (status != WorkerProcess.OK) {
+                throw new JobFailedException(new String(response, StandardCharsets.UTF_8));
+            }
+            return response;
+        }
+
+        IOException crashed(IOException cause) {
+            boolean alive = process.isAlive();
+            process.destroyForcibly();
+            if (timedOut) {
+                return new IOException("Worker " + process.pid() + " was killed after the job timeout", cause);
+            }
+            if (alive) {
+                return new IOException("Worker " + process.pid() + " broke the protocol and was killed", cause);
+            }
+            return new IOException("Worker " + process.pid() + " died during a job", cause);
+        }
+
+        /** Closes stdin and destroys the worker if it hasn't exited after the grace period */
+        void retire() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Already gone
+            }
+            process.onExit()
+                    .completeOnTimeout(process, EXIT_GRACE.toMillis(), TimeUnit.MILLISECONDS)
+                    .thenAccept(p -> {
+                        if (p.isAlive()) {
+                            p.destroyForcibly();
+                        }
+                    });
+        }
+    }
+
+    public static final class Builder {
+        private final ProcessBuilder command;
+        private int workers = 2;
+        private int maxJobsPerWorker = 10_000;
+        private int queueCapacity = 10_000;
+        private Duration jobTimeout = Duration.ofMinutes(1);
+        private int maxResponseBytes = 64 << 20;
+
+        private Builder(ProcessBuilder command) {
+            // stdin and stdout carry frames, so only the directory, environment and stderr are kept
+            this.command = new ProcessBuilder(new ArrayList<>(command.command()))
+                    .directory(command.directory())
+                    .redirectError(command.redirectError());
+            this.command.environment().clear();
+            this.command.environment().putAll(command.environment());
+            // Keep the worker's stderr from filling an unread pipe
+            if (this.command.redirectError() == ProcessBuilder.Redirect.PIPE) {
+                this.command.redirectError(ProcessBuilder.Redirect.INHERIT);
+            }
+        }
+
+        public Builder workers(int workers) {
+            if (workers < 1) {
+                throw new IllegalArgumentException("workers must be positive: " + workers);
+            }
+            this.workers = workers;
+            return this;
+        }
+
+        /** Jobs a worker runs before it is replaced by a fresh process */
+        public Builder maxJobsPerWorker(int maxJobsPerWorker) {
+            if (maxJobsPerWorker < 1) {
+                throw new IllegalArgumentException("maxJobsPerWorker must be positive: " + maxJobsPerWorker);
+            }
+            this.maxJobsPerWorker = maxJobsPerWorker;
+            return this;
+        }
+
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /** Longest a job may run before its worker is killed and the job fails */
+        public Builder jobTimeout(Duration jobTimeout) {
+            if (jobTimeout.isNegative() || jobTimeout.isZero()) {
+                throw new IllegalArgumentException("jobTimeout must be positive: " + jobTimeout);
+            }
+            this.jobTimeout = jobTimeout;
+            return this;
+        }
+
+        /** Largest response a worker may send (default 64 MB); a longer frame replaces the worker */
+        public Builder maxResponseBytes(int maxResponseBytes) {
+            if (maxResponseBytes < 0) {
+                throw new IllegalArgumentException("maxResponseBytes must not be negative: " + maxResponseBytes);
+            }
+            this.maxResponseBytes = maxResponseBytes;
+            return this;
+        }
+
+        public WorkerPool build() {
+            return new WorkerPool(this);
+        }
+    }
+}
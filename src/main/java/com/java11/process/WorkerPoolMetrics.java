@@ -0,0 +1,99 @@
+package com.java11.process;
+
+import com.java11.httpclient.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters collected by a WorkerPool. Job latency runs from submit() to the
+ * response, so it includes time spent in the queue.
+ */
+public class WorkerPoolMetrics {
+
+    private final IntSupplier queueDepth;
+    private final LongAdder jobs = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder workersStarted = new LongAdder();
+    private final LongAdder recycled = new LongAdder();
+    private final LongAdder crashes = new LongAdder();
+    private final AtomicInteger busyWorkers = new AtomicInteger();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    WorkerPoolMetrics(IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    void workerStarted() {
+        workersStarted.increment();
+    }
+
+    void workerRecycled() {
+        recycled.increment();
+    }
+
+    void workerCrashed() {
+        crashes.increment();
+    }
+
+    void jobStarted() {
+        busyWorkers.incrementAndGet();
+    }
+
+    void jobCompleted(long nanos, boolean failed) {
+        busyWorkers.decrementAndGet();
+        jobs.increment();
+        if (failed) {
+            failures.increment();
+        }
+        latency.record(nanos);
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    public int getBusyWorkers() {
+        return busyWorkers.get();
+    }
+
+    /** Jobs that ran on a worker, whether or not they succeeded */
+    public long getJobs() {
+        return jobs.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getWorkersStarted() {
+        return workersStarted.sum();
+    }
+
+    /** Workers replaced after reaching their job limit */
+    public long getRecycled() {
+        return recycled.sum();
+    }
+
+    /** Workers replaced because they exited, broke the protocol or ran past the job timeout */
+    public long getCrashes() {
+        return crashes.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return "jobs=" + getJobs()
+                + ", failures=" + getFailures()
+                + ", queueDepth=" + getQueueDepth()
+                + ", busy=" + getBusyWorkers()
+                + ", workersStarted=" + getWorkersStarted()
+                + ", recycled=" + getRecycled()
+                + ", crashes=" + getCrashes()
+                + ", latency[" + latency + "]";
+    }
+}
@@ -0,0 +1,89 @@
+package com.java11.process;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Worker side of the WorkerPool protocol. Each request frame on stdin is an int
+ * length followed by that many bytes; each response frame on stdout is an int
+ * status (0 = ok, 1 = failed), an int length and the bytes (the error message
+ * when failed). The worker exits when stdin is closed.
+ *
+ * <p>Run as {@code java com.java11.process.WorkerProcess <handler class>}; the
+ * handler needs a public no-argument constructor.
+ */
+public final class WorkerProcess {
+
+    static final int OK = 0;
+    static final int FAILED = 1;
+
+    /**
+     * Turns one request payload into one response payload.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        byte[] handle(byte[] request) throws Exception;
+    }
+
+    /** Returns the request unchanged */
+    public static final class Echo implements Handler {
+        @Override
+        public byte[] handle(byte[] request) {
+            return request;
+        }
+    }
+
+    private WorkerProcess() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Handler handler = args.length == 0
+                ? new Echo()
+                : (Handler) Class.forName(args[0]).getDeclaredConstructor().newInstance();
+        // stdout carries frames; anything the handler prints goes to stderr
+        OutputStream frames = new FileOutputStream(FileDescriptor.out);
+        System.setOut(System.err);
+        serve(new FileInputStream(FileDescriptor.in), frames, handler);
+    }
+
+    /**
+     * Answers request frames until the input ends.
+     */
+    public static void serve(InputStream input, OutputStream output, Handler handler) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+        while (true) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                return;
+            }
+            byte[] request = new byte[length];
+            in.readFully(request);
+            byte[] response;
+            int status;
+            try {
+                response = handler.handle(request);
+                status = OK;
+            } catch (Exception e) {
+                response = String.valueOf(e).getBytes(StandardCharsets.UTF_8);
+                status = FAILED;
+            }
+            out.writeInt(status);
+            out.writeInt(response.length);
+            out.write(response);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.java11.strings;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Absolute bulk reads from a ByteBuffer. Java 11 only has relative bulk
+ * get(), which moves the position, so this version copies short ranges byte
+ * by byte and longer ones through a duplicate of the buffer. The release 17
+ * version in src/main/java17 uses ByteBuffer.get(int, byte[], int, int).
+ */
+public final class ByteBuffers {
+
+    // Below this a loop is cheaper than allocating a duplicate
+    private static final int BULK_THRESHOLD = 64;
+
+    private ByteBuffers() {
+    }
+
+    /**
+     * Copies length bytes from absolute index of the buffer into dst at
+     * offset, without changing the buffer's position or limit.
+     */
+    public static void get(ByteBuffer buffer, int index, byte[] dst, int offset, int length) {
+        Objects.checkFromIndexSize(index, length, buffer.limit());
+        Objects.checkFromIndexSize(offset, length, dst.length);
+        if (length >= BULK_THRESHOLD) {
+            buffer.duplicate().position(index).get(dst, offset, length);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = buffer.get(index + i);
+        }
+    }
+}
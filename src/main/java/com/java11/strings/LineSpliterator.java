@@ -0,0 +1,208 @@
+package com.java11.strings;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Splittable spliterator over the lines of a CharSequence or a UTF-8 ByteBuffer
+ * (for example a MappedByteBuffer region of a file).
+ * String.lines() splits poorly, so parallel pipelines over it barely scale.
+ * This spliterator splits at the line terminator nearest to the midpoint of its range,
+ * which gives balanced halves that never cut a line in two.
+ * Lines are terminated by "\n", "\r" or "\r\n", the same as String.lines().
+ */
+public abstract class LineSpliterator implements Spliterator<String> {
+
+    /** Ranges smaller than this are not split any further */
+    public static final int DEFAULT_MIN_SPLIT = 1024;
+
+    private final int minSplit;
+    private int position;
+    private int end;
+
+    LineSpliterator(int position, int end, int minSplit) {
+        this.position = position;
+        this.end = end;
+        this.minSplit = minSplit;
+    }
+
+    public static LineSpliterator of(CharSequence text) {
+        return of(text, DEFAULT_MIN_SPLIT);
+    }
+
+    public static LineSpliterator of(CharSequence text, int minSplit) {
+        return new CharSequenceLines(text, 0, text.length(), minSplit);
+    }
+
+    /**
+     * Lines between the buffer's position and limit. UTF-8 never uses the
+     * bytes '\n' or '\r' inside a multi-byte sequence, so splitting on them is safe.
+     */
+    public static LineSpliterator of(ByteBuffer utf8) {
+        return of(utf8, DEFAULT_MIN_SPLIT);
+    }
+
+    public static LineSpliterator of(ByteBuffer utf8, int minSplit) {
+        return new ByteBufferLines(utf8, utf8.position(), utf8.limit(), minSplit);
+    }
+
+    /**
+     * Stream of lines that scales with parallel().
+     */
+    public static Stream<String> lines(CharSequence text) {
+        return StreamSupport.stream(of(text), false);
+    }
+
+    /** Returns the char or byte at the index */
+    abstract int at(int index);
+
+    abstract String line(int from, int to);
+
+    abstract LineSpliterator slice(int from, int to, int minSplit);
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        if (position >= end) {
+            return false;
+        }
+        int i = position;
+        while (i < end && !isTerminator(at(i))) {
+            i++;
+        }
+        String line = line(position, i);
+        position = afterTerminator(i);
+        action.accept(line);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super String> action) {
+        int start = position;
+        int stop = end;
+        int i = start;
+        while (start < stop) {
+            while (i < stop && !isTerminator(at(i))) {
+                i++;
+            }
+            action.accept(line(start, i));
+            start = afterTerminator(i);
+            i = start;
+        }
+        position = stop;
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        int length = end - position;
+        if (length < minSplit * 2) {
+            return null;
+        }
+        int split = findSplit(position + length / 2);
+        if (split <= position || split >= end) {
+            return null;
+        }
+        LineSpliterator prefix = slice(position, split, minSplit);
+        position = split;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - position;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    /**
+     * Finds the start of the line nearest to mid: first looking forward for a
+     * terminator, then backward.
+     */
+    private int findSplit(int mid) {
+        for (int i = mid; i < end; i++) {
+            if (isTerminator(at(i))) {
+                return afterTerminator(i);
+            }
+        }
+        for (int i = mid - 1; i > position; i--) {
+            if (isTerminator(at(i))) {
+                // A "\r\n" pair straddling mid would have been found going forward
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private int afterTerminator(int i) {
+        if (i >= end) {
+            return end;
+        }
+        if (at(i) == '\r' && i + 1 < end && at(i + 1) == '\n') {
+            return i + 2;
+        }
+        return i + 1;
+    }
+
+    private static boolean isTerminator(int c) {
+        return c == '\n' || c == '\r';
+    }
+
+    private static final class CharSequenceLines extends LineSpliterator {
+        private final CharSequence text;
+
+        CharSequenceLines(CharSequence text, int from, int to, int minSplit) {
+            super(from, to, minSplit);
+            this.text = text;
+        }
+
+        @Override
+        int at(int index) {
+            return text.charAt(index);
+        }
+
+        @Override
+        String line(int from, int to) {
+            return text.subSequence(from, to).toString();
+        }
+
+        @Override
+        LineSpliterator slice(int from, int to, int minSplit) {
+            return new CharSequenceLines(text, from, to, minSplit);
+        }
+    }
+
+    private static final class ByteBufferLines extends LineSpliterator {
+        private final ByteBuffer bytes;
+
+        ByteBufferLines(ByteBuffer bytes, int from, int to, int minSplit) {
+            super(from, to, minSplit);
+            this.bytes = bytes;
+        }
+
+        @Override
+        int at(int index) {
+            return bytes.get(index);
+        }
+
+        @Override
+        String line(int from, int to) {
+            if (bytes.hasArray()) {
+                return new String(bytes.array(), bytes.arrayOffset() + from, to - from, StandardCharsets.UTF_8);
+            }
+            byte[] copy = new byte[to - from];
+            ByteBuffers.get(bytes, from, copy, 0, copy.length);
+            return new String(copy, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        LineSpliterator slice(int from, int to, int minSplit) {
+            return new ByteBufferLines(bytes, from, to, minSplit);
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.java11.strings;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Demonstrates new String methods introduced in Java 11
  */
@@ -33,6 +37,17 @@ public class StringMethodsExample {
         System.out.println("Star repeated 5 times: " + star.repeat(5));
         System.out.println("Line repeated 10 times: " + line.repeat(10));
         System.out.println("Hello repeated 3 times: " + "Hello ".repeat(3));
+        
+        // High-volume output: repeat, pad and format into one reused byte buffer instead of temporary Strings
+        try (TextBuffer out = TextBuffer.acquire()) {
+            for (int i = 1; i <= 3; i++) {
+                out.append("Row").append(i, 4, ' ').append(" | ").append(i * 1.5, 2)
+                        .append(" | ").repeat('*', i * 2).newLine();
+            }
+            out.writeTo(System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         System.out.println();
         
         // 4. lines() - returns stream of lines
@@ -62,6 +77,15 @@ public class StringMethodsExample {
         } else {
             System.out.println("Input is blank!");
         }
+        
+        // Same pipeline over a large text, split on line boundaries for parallel()
+        String largeInput = "  John Doe  \n   \n  Jane Smith  \n".repeat(10_000);
+        long processed = LineSpliterator.lines(largeInput)
+                .parallel()
+                .map(String::strip)
+                .filter(lineContent -> !lineContent.isBlank())
+                .count();
+        System.out.println("Processed lines in parallel: " + processed);
         System.out.println();
         
         // 6. Performance comparison with old methods
@@ -69,17 +93,21 @@ public class StringMethodsExample {
         String testString = "  test  ";
         
         // Old way
-        long start = System.nanoTime();
         boolean oldIsEmpty = testString.trim().isEmpty();
-        long oldTime = System.nanoTime() - start;
         
         // New way
-        start = System.nanoTime();
         boolean newIsBlank = testString.isBlank();
-        long newTime = System.nanoTime() - start;
         
-        System.out.println("Old way (trim().isEmpty()): " + oldIsEmpty + " (" + oldTime + " ns)");
-        System.out.println("New way (isBlank()): " + newIsBlank + " (" + newTime + " ns)");
-        System.out.println("Performance improvement: " + String.format("%.2f", (double) oldTime / newTime) + "x faster");
+        System.out.println("Old way (trim().isEmpty()): " + oldIsEmpty);
+        System.out.println("New way (isBlank()): " + newIsBlank);
+
+        // The same checks on raw UTF-8 bytes, without decoding to a String first
+        byte[] body = "  \t John Doe \n Jane Smith\r\n  ".getBytes(StandardCharsets.UTF_8);
+        int start = TextScanner.stripStart(body, StandardCharsets.UTF_8);
+        int end = TextScanner.stripEnd(body, StandardCharsets.UTF_8);
+        System.out.println("Stripped bytes [" + start + ", " + end + "): '"
+                + new String(body, start, end - start, StandardCharsets.UTF_8) + "'");
+        System.out.println("Blank bytes: " + TextScanner.isBlank(body, StandardCharsets.UTF_8));
+        System.out.println("Line count: " + TextScanner.forEachLine(body, (lineStart, lineEnd) -> { }));
     }
 } 
\ No newline at end of file
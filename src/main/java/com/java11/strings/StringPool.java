@@ -0,0 +1,331 @@
+package com.java11.strings;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe pool that hands out one shared String per distinct
+ * text, so keys and values parsed again and again do not pile up as equal
+ * copies in the heap. Text can be interned from a range of a CharSequence,
+ * char[], or UTF-8 byte[] or ByteBuffer; a String is only created when the
+ * text is not in the pool yet.
+ *
+ * <p>The table is a lock-free array of 8-slot buckets. A String goes into a
+ * free slot of its bucket, or replaces a random one when the bucket is full,
+ * so the pool never holds more than its capacity. Two threads interning the
+ * same new text at once may both create a String; if the bucket has a free
+ * slot only one is pooled and both threads get it. In a full bucket each
+ * replaces a random slot, so both copies can stay pooled until evicted.
+ *
+ * <p>Unlike String.intern() the pool holds strong references, and evicted
+ * Strings stay valid for whoever already got them.
+ */
+public final class StringPool {
+
+    private static final int WAYS = 8;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final AtomicReferenceArray<String> table;
+    private final int shift;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * Pool holding up to capacity Strings, rounded up to a power of two.
+     */
+    public StringPool(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+        table = new AtomicReferenceArray<>(size);
+        shift = Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    /** Number of slots, the most Strings the pool holds at once */
+    public int capacity() {
+        return table.length();
+    }
+
+    /**
+     * Returns the pooled String equal to text, pooling text itself if there is none.
+     */
+    public String intern(String text) {
+        int hash = text.hashCode();
+        int bucket = bucket(hash);
+        for (int i = bucket; i < bucket + WAYS; i++) {
+            String candidate = table.get(i);
+            if (candidate != null && candidate.hashCode() == hash && candidate.equals(text)) {
+                return hit(candidate);
+            }
+        }
+        return add(bucket, text);
+    }
+
+    public String intern(CharSequence text, int start, int end) {
+        Objects.checkFromToIndex(start, end, text.length());
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        int bucket = bucket(hash);
+        int length = end - start;
+        for (int i = bucket; i < bucket + WAYS; i++) {
+            String candidate = table.get(i);
+            if (candidate != null && candidate.hashCode() == hash && candidate.length() == length
+                    && sameChars(candidate, text, start)) {
+                return hit(candidate);
+            }
+        }
+        return add(bucket, text.subSequence(start, end).toString());
+    }
+
+    public String intern(char[] chars, int start, int end) {
+        Objects.checkFromToIndex(start, end, chars.length);
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int bucket = bucket(hash);
+        int length = end - start;
+        for (int i = bucket; i < bucket + WAYS; i++) {
+            String candidate = table.get(i);
+            if (candidate != null && candidate.hashCode() == hash && candidate.length() == length
+                    && sameChars(candidate, chars, start)) {
+                return hit(candidate);
+            }
+        }
+        return add(bucket, new String(chars, start, length));
+    }
+
+    /**
+     * Interns the UTF-8 text in [start, end). ASCII is hashed and compared in
+     * place; other text is first decoded into a per-thread char buffer.
+     * Malformed UTF-8 is decoded with replacement characters, as
+     * new String(bytes, UTF_8) does, and is not pooled.
+     */
+    public String intern(byte[] utf8, int start, int end) {
+        Objects.checkFromToIndex(start, end, utf8.length);
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            byte b = utf8[i];
+            if (b < 0) {
+                return internDecoded(utf8, start, end);
+            }
+            hash = 31 * hash + b;
+        }
+        int bucket = bucket(hash);
+        int length = end - start;
+        for (int i = bucket; i < bucket + WAYS; i++) {
+            String candidate = table.get(i);
+            if (candidate != null && candidate.hashCode() == hash && candidate.length() == length
+                    && sameChars(candidate, utf8, start)) {
+                return hit(candidate);
+            }
+        }
+        return add(bucket, new String(utf8, start, length, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Interns the UTF-8 text at absolute indexes [start, end) of the buffer,
+     * without changing its position or limit. Direct buffers are copied into
+     * a per-thread array first.
+     */
+    public String intern(ByteBuffer utf8, int start, int end) {
+        Objects.checkFromToIndex(start, end, utf8.limit());
+        if (utf8.hasArray()) {
+            int offset = utf8.arrayOffset();
+            return intern(utf8.array(), offset + start, offset + end);
+        }
+        int length = end - start;
+        byte[] bytes = SCRATCH.get().bytes(length);
+        ByteBuffers.get(utf8, start, bytes, 0, length);
+        return intern(bytes, 0, length);
+    }
+
+    /** Lookups that returned a String already in the pool */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /** Lookups that added a String to the pool */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /** Strings replaced because their bucket was full */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Estimated heap not taken by duplicate Strings: the size of every String
+     * a hit made unnecessary, assuming compressed oops and compact strings
+     * (24 bytes for the String plus its byte[], padded to 8 bytes). Text
+     * outside Latin-1 takes two bytes per char, so for it this is a lower bound.
+     */
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    /**
+     * Number of Strings in the pool; counts the slots, so it is O(capacity).
+     */
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < table.length(); i++) {
+            if (table.get(i) != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d/%d, hitRate=%.1f%%, hits=%d, misses=%d, evictions=%d, bytesSaved=%d",
+                size(), capacity(), getHitRate() * 100, getHits(), getMisses(), getEvictions(), getBytesSaved());
+    }
+
+    /**
+     * Estimated size of a String of the given length with its value array,
+     * at one byte per char as compact strings store Latin-1 text.
+     */
+    static int sizeOf(int length) {
+        return 24 + ((16 + length + 7) & ~7);
+    }
+
+    private int bucket(int hash) {
+        // Fibonacci hashing spreads String hashes that differ only in low bits
+        return ((hash * 0x9E3779B9) >>> shift) & ~(WAYS - 1);
+    }
+
+    private String hit(String pooled) {
+        hits.increment();
+        bytesSaved.add(sizeOf(pooled.length()));
+        return pooled;
+    }
+
+    private String add(int bucket, String created) {
+        for (int i = bucket; i < bucket + WAYS; i++) {
+            String pooled = table.get(i);
+            if (pooled == null) {
+                if (table.compareAndSet(i, null, created)) {
+                    misses.increment();
+                    return created;
+                }
+                pooled = table.get(i);
+            }
+            // Another thread may have pooled the same text since the caller's lookup
+            if (pooled != null && pooled.equals(created)) {
+                return hit(pooled);
+            }
+        }
+        misses.increment();
+        table.set(bucket + ThreadLocalRandom.current().nextInt(WAYS), created);
+        evictions.increment();
+        return created;
+    }
+
+    private String internDecoded(byte[] utf8, int start, int end) {
+        int length = end - start;
+        char[] chars = SCRATCH.get().chars(length);
+        int count = 0;
+        int i = start;
+        while (i < end) {
+            int b = utf8[i];
+            if (b >= 0) {
+                chars[count++] = (char) b;
+                i++;
+                continue;
+            }
+            int size = b >= (byte) 0xF0 && b <= (byte) 0xF4 ? 4
+                    : b >= (byte) 0xE0 && b <= (byte) 0xEF ? 3
+                    : b >= (byte) 0xC2 && b <= (byte) 0xDF ? 2 : 0;
+            if (size == 0 || i + size > end) {
+                return malformed(utf8, start, end);
+            }
+            int codePoint = b & (0x7F >> size);
+            for (int k = 1; k < size; k++) {
+                int next = utf8[i + k];
+                if ((next & 0xC0) != 0x80) {
+                    return malformed(utf8, start, end);
+                }
+                codePoint = (codePoint << 6) | (next & 0x3F);
+            }
+            // Reject overlong forms, surrogates and values past U+10FFFF
+            if ((size == 3 && (codePoint < 0x800 || Character.isSurrogate((char) codePoint)))
+                    || (size == 4 && (codePoint < 0x10000 || codePoint > Character.MAX_CODE_POINT))) {
+                return malformed(utf8, start, end);
+            }
+            count += Character.toChars(codePoint, chars, count);
+            i += size;
+        }
+        return intern(chars, 0, count);
+    }
+
+    private String malformed(byte[] utf8, int start, int end) {
+        misses.increment();
+        return new String(utf8, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /** Per-thread arrays for copying direct buffers and decoding non-ASCII text */
+    private static final class Scratch {
+        private byte[] bytes = new byte[64];
+        private char[] chars = new char[64];
+
+        byte[] bytes(int length) {
+            if (bytes.length < length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            return bytes;
+        }
+
+        char[] chars(int length) {
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            return chars;
+        }
+    }
+
+    private static boolean sameChars(String s, CharSequence text, int start) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameChars(String s, char[] chars, int start) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameChars(String s, byte[] ascii, int start) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) != ascii[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,402 @@
+package com.java11.strings;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Growable UTF-8 byte buffer for building output lines without the temporary
+ * Strings of repeat(), concatenation and String.valueOf(). Text, repeated
+ * characters, padding and numbers are encoded straight into one byte[], which
+ * is then written to a channel or stream in a single call.
+ *
+ * <p>acquire() hands out a buffer kept per thread and close() returns it, so
+ * once the buffer has grown to the largest output a thread writes, building
+ * and flushing allocate nothing:
+ *
+ * <pre>{@code
+ * try (TextBuffer out = TextBuffer.acquire()) {
+ *     out.append("Total: ").append(count, 8, ' ').newLine().repeat('=', 50).newLine();
+ *     out.writeTo(channel);
+ * }
+ * }</pre>
+ *
+ * <p>A buffer must stay on the thread that acquired it. Acquiring again on the
+ * same thread before close() returns a new, unpooled buffer.
+ */
+public final class TextBuffer implements Appendable, AutoCloseable {
+
+    static final int INITIAL_CAPACITY = 1024;
+
+    /** Buffers that grew past this are not kept, so one huge report does not pin memory */
+    static final int MAX_POOLED_CAPACITY = 1 << 20;
+
+    private static final ThreadLocal<TextBuffer> POOL = ThreadLocal.withInitial(() -> new TextBuffer(true));
+
+    private static final byte[] DIGITS = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    private final boolean pooled;
+    private boolean inUse;
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private ByteBuffer view = ByteBuffer.wrap(bytes);
+    private int length;
+
+    private TextBuffer(boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    /**
+     * Returns this thread's empty buffer; close() gives it back.
+     */
+    public static TextBuffer acquire() {
+        TextBuffer buffer = POOL.get();
+        if (buffer.inUse) {
+            return new TextBuffer(false);
+        }
+        buffer.inUse = true;
+        buffer.length = 0;
+        return buffer;
+    }
+
+    /**
+     * Empty buffer that is not shared with the pool.
+     */
+    public static TextBuffer create() {
+        return new TextBuffer(false);
+    }
+
+    /** Number of UTF-8 bytes written so far */
+    public int length() {
+        return length;
+    }
+
+    public TextBuffer clear() {
+        length = 0;
+        return this;
+    }
+
+    @Override
+    public TextBuffer append(char c) {
+        if (c < 0x80) {
+            ensure(1);
+            bytes[length++] = (byte) c;
+            return this;
+        }
+        ensure(3);
+        length = encode(c, bytes, length);
+        return this;
+    }
+
+    @Override
+    public TextBuffer append(CharSequence text) {
+        return append(text == null ? "null" : text, 0, text == null ? 4 : text.length());
+    }
+
+    @Override
+    public TextBuffer append(CharSequence text, int start, int end) {
+        if (text == null) {
+            return append("null", start, end);
+        }
+        Objects.checkFromToIndex(start, end, text.length());
+        // Worst case three bytes per char; a surrogate pair takes four bytes for two chars
+        ensure((end - start) * 3);
+        byte[] b = bytes;
+        int n = length;
+        int i = start;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            b[n++] = (byte) c;
+        }
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                b[n++] = (byte) c;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                b[n++] = (byte) (0xF0 | (codePoint >>> 18));
+                b[n++] = (byte) (0x80 | ((codePoint >>> 12) & 0x3F));
+                b[n++] = (byte) (0x80 | ((codePoint >>> 6) & 0x3F));
+                b[n++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                n = encode(c, b, n);
+            }
+        }
+        length = n;
+        return this;
+    }
+
+    public TextBuffer append(boolean value) {
+        return append(value ? "true" : "false");
+    }
+
+    public TextBuffer append(int value) {
+        return append((long) value);
+    }
+
+    /**
+     * Appends the decimal digits of value, the same text as Long.toString().
+     */
+    public TextBuffer append(long value) {
+        ensure(20);
+        if (value < 0) {
+            bytes[length++] = '-';
+            if (value == Long.MIN_VALUE) {
+                // Cannot be negated; write the last digit separately
+                writeDigits(-(value / 10));
+                bytes[length++] = DIGITS[(int) -(value % 10)];
+                return this;
+            }
+            value = -value;
+        }
+        writeDigits(value);
+        return this;
+    }
+
+    /**
+     * Appends value padded on the left with fill to at least width characters.
+     */
+    public TextBuffer append(long value, int width, char fill) {
+        int mark = length;
+        append(value);
+        return padStart(mark, width, fill);
+    }
+
+    /**
+     * Appends value rounded half away from zero to the given number of decimals, e.g.
+     * 3.14159 with 2 decimals as "3.14". NaN and infinities are written as
+     * Double.toString() writes them. Values too large for a long once scaled
+     * fall back to Double.toString(), which allocates.
+     */
+    public TextBuffer append(double value, int decimals) {
+        if (decimals < 0 || decimals > 18) {
+            throw new IllegalArgumentException("Decimals must be between 0 and 18: " + decimals);
+        }
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return append(Double.toString(value));
+        }
+        long scale = pow10(decimals);
+        double scaled = Math.abs(value) * scale;
+        if (scaled >= 0x1p62) {
+            return append(Double.toString(value));
+        }
+        long units = Math.round(scaled);
+        if (value < 0 && units != 0) {
+            append('-');
+        }
+        append(units / scale);
+        if (decimals > 0) {
+            append('.');
+            int mark = length;
+            append(units % scale);
+            padStart(mark, decimals, '0');
+        }
+        return this;
+    }
+
+    /**
+     * Appends c count times.
+     */
+    public TextBuffer repeat(char c, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative count: " + count);
+        }
+        if (c < 0x80) {
+            ensure(count);
+            Arrays.fill(bytes, length, length + count, (byte) c);
+            length += count;
+            return this;
+        }
+        if (count == 0) {
+            return this;
+        }
+        int start = length;
+        append(c);
+        return repeatLast(start, count);
+    }
+
+    /**
+     * Appends text count times, like text.repeat(count) without the String.
+     */
+    public TextBuffer repeat(CharSequence text, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative count: " + count);
+        }
+        if (count == 0 || text.length() == 0) {
+            return this;
+        }
+        int start = length;
+        append(text);
+        return repeatLast(start, count);
+    }
+
+    /**
+     * Pads what was written since mark on the left with fill, so that it is at
+     * least width characters long. Characters are counted as code points, so a
+     * non-ASCII character is one column however many bytes it takes.
+     */
+    public TextBuffer padStart(int mark, int width, char fill) {
+        int missing = width - codePoints(mark);
+        if (missing <= 0) {
+            return this;
+        }
+        int tail = length - mark;
+        int end = length;
+        // Write the fill at the end, then rotate it in front of the text
+        repeat(fill, missing);
+        int fillBytes = length - end;
+        ensure(tail);
+        System.arraycopy(bytes, mark, bytes, length, tail);
+        System.arraycopy(bytes, end, bytes, mark, fillBytes);
+        System.arraycopy(bytes, length, bytes, mark + fillBytes, tail);
+        return this;
+    }
+
+    /**
+     * Pads what was written since mark on the right with fill, so that it is at
+     * least width characters long.
+     */
+    public TextBuffer padEnd(int mark, int width, char fill) {
+        int missing = width - codePoints(mark);
+        return missing <= 0 ? this : repeat(fill, missing);
+    }
+
+    public TextBuffer newLine() {
+        return append('\n');
+    }
+
+    /**
+     * Writes the whole buffer to the channel and empties it.
+     */
+    public TextBuffer writeTo(WritableByteChannel channel) throws IOException {
+        view.clear().limit(length);
+        while (view.hasRemaining()) {
+            channel.write(view);
+        }
+        length = 0;
+        return this;
+    }
+
+    /**
+     * Writes the whole buffer to the stream and empties it.
+     */
+    public TextBuffer writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, length);
+        length = 0;
+        return this;
+    }
+
+    /**
+     * The buffer's contents decoded as a String; this allocates.
+     */
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a pooled buffer to its thread. The buffer must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        if (!pooled) {
+            return;
+        }
+        inUse = false;
+        length = 0;
+        if (bytes.length > MAX_POOLED_CAPACITY) {
+            bytes = new byte[INITIAL_CAPACITY];
+            view = ByteBuffer.wrap(bytes);
+        }
+    }
+
+    /** Current size of the backing array */
+    int capacity() {
+        return bytes.length;
+    }
+
+    private void ensure(int extra) {
+        int needed = length + extra;
+        if (needed < 0) {
+            throw new OutOfMemoryError("Text buffer larger than 2 GB");
+        }
+        if (needed > bytes.length) {
+            int grown = bytes.length << 1;
+            bytes = Arrays.copyOf(bytes, grown - needed >= 0 ? grown : needed);
+            view = ByteBuffer.wrap(bytes);
+        }
+    }
+
+    /** Copies the bytes of the one copy just appended until there are count copies */
+    private TextBuffer repeatLast(int start, int count) {
+        int unit = length - start;
+        long total = (long) unit * count;
+        if (total > Integer.MAX_VALUE) {
+            throw new OutOfMemoryError("Text buffer larger than 2 GB");
+        }
+        ensure((int) total - unit);
+        int copied = unit;
+        int end = start + (int) total;
+        while (copied < total) {
+            int chunk = Math.min(copied, (int) total - copied);
+            System.arraycopy(bytes, start, bytes, start + copied, chunk);
+            copied += chunk;
+        }
+        length = end;
+        return this;
+    }
+
+    private int codePoints(int mark) {
+        Objects.checkFromToIndex(mark, length, length);
+        int count = 0;
+        for (int i = mark; i < length; i++) {
+            // Every byte but a continuation byte starts a code point
+            if ((bytes[i] & 0xC0) != 0x80) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void writeDigits(long value) {
+        int digits = 1;
+        for (long limit = 10; digits < 19 && value >= limit; limit *= 10) {
+            digits++;
+        }
+        int i = length + digits;
+        length = i;
+        do {
+            bytes[--i] = DIGITS[(int) (value % 10)];
+            value /= 10;
+        } while (value != 0);
+    }
+
+    private static int encode(char c, byte[] b, int n) {
+        if (c < 0x800) {
+            b[n++] = (byte) (0xC0 | (c >>> 6));
+        } else if (Character.isSurrogate(c)) {
+            // Unpaired surrogate: replaced as String.getBytes(UTF_8) does
+            b[n++] = '?';
+            return n;
+        } else {
+            b[n++] = (byte) (0xE0 | (c >>> 12));
+            b[n++] = (byte) (0x80 | ((c >>> 6) & 0x3F));
+        }
+        b[n++] = (byte) (0x80 | (c & 0x3F));
+        return n;
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,381 @@
+package com.java11.strings;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * strip(), isBlank() and lines() for Latin-1 or UTF-8 bytes, returning offsets
+ * instead of substrings. The scans read eight bytes at a time as a long and
+ * classify all eight with a few arithmetic operations (SWAR, "SIMD within a
+ * register"), so a multi-megabyte body is scanned without decoding it into a
+ * String first.
+ *
+ * <p>Whitespace is what Character.isWhitespace() accepts, as for String.strip().
+ * In Latin-1 that is only ASCII bytes; in UTF-8 the multi-byte whitespace such
+ * as U+2028 or U+3000 is decoded on the slow path, which the word loop falls
+ * into only at a non-ASCII byte. Lines end at "\n", "\r" or "\r\n", the same
+ * as String.lines(); UTF-8 never uses those bytes inside a multi-byte sequence.
+ *
+ * <p>ByteBuffer offsets are absolute indexes; the buffer's position and limit
+ * are not changed.
+ */
+public final class TextScanner {
+
+    /**
+     * Receives the offsets of one range, such as a line without its terminator.
+     */
+    @FunctionalInterface
+    public interface RangeConsumer {
+        void accept(int start, int end);
+    }
+
+    private static final VarHandle ARRAY_LONG =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle BUFFER_LONG =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH = 0x8080808080808080L;
+    private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+    private static final long LF = ONES * '\n';
+    private static final long CR = ONES * '\r';
+
+    private TextScanner() {
+    }
+
+    public static int stripStart(byte[] text, Charset charset) {
+        return stripStart(text, 0, text.length, charset);
+    }
+
+    /**
+     * Index of the first non-whitespace byte in [from, to), or to if there is none.
+     */
+    public static int stripStart(byte[] text, int from, int to, Charset charset) {
+        boolean utf8 = isUtf8(charset);
+        checkRange(from, to, text.length);
+        int i = from;
+        while (true) {
+            for (; i + 8 <= to; i += 8) {
+                long other = ~whitespace((long) ARRAY_LONG.get(text, i)) & HIGH;
+                if (other != 0) {
+                    i += Long.numberOfTrailingZeros(other) >>> 3;
+                    break;
+                }
+            }
+            while (i < to && isAsciiWhitespace(text[i])) {
+                i++;
+            }
+            if (utf8 && i < to && text[i] < 0) {
+                int length = whitespaceLength(text, i, to);
+                if (length > 0) {
+                    i += length;
+                    continue;
+                }
+            }
+            return i;
+        }
+    }
+
+    public static int stripEnd(byte[] text, Charset charset) {
+        return stripEnd(text, 0, text.length, charset);
+    }
+
+    /**
+     * Index after the last non-whitespace byte in [from, to), or from if there is none.
+     */
+    public static int stripEnd(byte[] text, int from, int to, Charset charset) {
+        boolean utf8 = isUtf8(charset);
+        checkRange(from, to, text.length);
+        int end = to;
+        while (true) {
+            for (; end - 8 >= from; end -= 8) {
+                long other = ~whitespace((long) ARRAY_LONG.get(text, end - 8)) & HIGH;
+                if (other != 0) {
+                    end -= Long.numberOfLeadingZeros(other) >>> 3;
+                    break;
+                }
+            }
+            while (end > from && isAsciiWhitespace(text[end - 1])) {
+                end--;
+            }
+            if (utf8 && end > from && text[end - 1] < 0) {
+                int start = whitespaceStart(text, from, end);
+                if (start >= 0) {
+                    end = start;
+                    continue;
+                }
+            }
+            return end;
+        }
+    }
+
+    public static boolean isBlank(byte[] text, Charset charset) {
+        return isBlank(text, 0, text.length, charset);
+    }
+
+    public static boolean isBlank(byte[] text, int from, int to, Charset charset) {
+        return stripStart(text, from, to, charset) == to;
+    }
+
+    /**
+     * Index of the first '\n' or '\r' in [from, to), or -1.
+     */
+    public static int indexOfLineTerminator(byte[] text, int from, int to) {
+        checkRange(from, to, text.length);
+        int i = from;
+        for (; i + 8 <= to; i += 8) {
+            long word = (long) ARRAY_LONG.get(text, i);
+            long found = zeroBytes(word ^ LF) | zeroBytes(word ^ CR);
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (text[i] == '\n' || text[i] == '\r') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static int forEachLine(byte[] text, RangeConsumer action) {
+        return forEachLine(text, 0, text.length, action);
+    }
+
+    /**
+     * Passes the offsets of each line, without its terminator, to the action.
+     *
+     * @return the number of lines
+     */
+    public static int forEachLine(byte[] text, int from, int to, RangeConsumer action) {
+        int lines = 0;
+        int start = from;
+        while (start < to) {
+            int end = indexOfLineTerminator(text, start, to);
+            if (end < 0) {
+                end = to;
+            }
+            action.accept(start, end);
+            lines++;
+            start = end + (end + 1 < to && text[end] == '\r' && text[end + 1] == '\n' ? 2 : 1);
+        }
+        return lines;
+    }
+
+    public static int stripStart(ByteBuffer text, Charset charset) {
+        return stripStart(text, text.position(), text.limit(), charset);
+    }
+
+    /**
+     * Index of the first non-whitespace byte in [from, to), or to if there is none.
+     */
+    public static int stripStart(ByteBuffer text, int from, int to, Charset charset) {
+        boolean utf8 = isUtf8(charset);
+        checkRange(from, to, text.limit());
+        int i = from;
+        while (true) {
+            for (; i + 8 <= to; i += 8) {
+                long other = ~whitespace((long) BUFFER_LONG.get(text, i)) & HIGH;
+                if (other != 0) {
+                    i += Long.numberOfTrailingZeros(other) >>> 3;
+                    break;
+                }
+            }
+            while (i < to && isAsciiWhitespace(text.get(i))) {
+                i++;
+            }
+            if (utf8 && i < to && text.get(i) < 0) {
+                int length = whitespaceLength(text, i, to);
+                if (length > 0) {
+                    i += length;
+                    continue;
+                }
+            }
+            return i;
+        }
+    }
+
+    public static int stripEnd(ByteBuffer text, Charset charset) {
+        return stripEnd(text, text.position(), text.limit(), charset);
+    }
+
+    /**
+     * Index after the last non-whitespace byte in [from, to), or from if there is none.
+     */
+    public static int stripEnd(ByteBuffer text, int from, int to, Charset charset) {
+        boolean utf8 = isUtf8(charset);
+        checkRange(from, to, text.limit());
+        int end = to;
+        while (true) {
+            for (; end - 8 >= from; end -= 8) {
+                long other = ~whitespace((long) BUFFER_LONG.get(text, end - 8)) & HIGH;
+                if (other != 0) {
+                    end -= Long.numberOfLeadingZeros(other) >>> 3;
+                    break;
+                }
+            }
+            while (end > from && isAsciiWhitespace(text.get(end - 1))) {
+                end--;
+            }
+            if (utf8 && end > from && text.get(end - 1) < 0) {
+                int start = whitespaceStart(text, from, end);
+                if (start >= 0) {
+                    end = start;
+                    continue;
+                }
+            }
+            return end;
+        }
+    }
+
+    public static boolean isBlank(ByteBuffer text, Charset charset) {
+        return isBlank(text, text.position(), text.limit(), charset);
+    }
+
+    public static boolean isBlank(ByteBuffer text, int from, int to, Charset charset) {
+        return stripStart(text, from, to, charset) == to;
+    }
+
+    /**
+     * Index of the first '\n' or '\r' in [from, to), or -1.
+     */
+    public static int indexOfLineTerminator(ByteBuffer text, int from, int to) {
+        checkRange(from, to, text.limit());
+        int i = from;
+        for (; i + 8 <= to; i += 8) {
+            long word = (long) BUFFER_LONG.get(text, i);
+            long found = zeroBytes(word ^ LF) | zeroBytes(word ^ CR);
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            byte b = text.get(i);
+            if (b == '\n' || b == '\r') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static int forEachLine(ByteBuffer text, RangeConsumer action) {
+        return forEachLine(text, text.position(), text.limit(), action);
+    }
+
+    /**
+     * Passes the offsets of each line, without its terminator, to the action.
+     *
+     * @return the number of lines
+     */
+    public static int forEachLine(ByteBuffer text, int from, int to, RangeConsumer action) {
+        int lines = 0;
+        int start = from;
+        while (start < to) {
+            int end = indexOfLineTerminator(text, start, to);
+            if (end < 0) {
+                end = to;
+            }
+            action.accept(start, end);
+            lines++;
+            start = end + (end + 1 < to && text.get(end) == '\r' && text.get(end + 1) == '\n' ? 2 : 1);
+        }
+        return lines;
+    }
+
+    /**
+     * Sets the high bit of each byte that is ASCII whitespace: 0x09-0x0D or
+     * 0x1C-0x20. Each range test is exact per byte, with no carries between
+     * bytes, and bytes with the high bit set never match.
+     */
+    static long whitespace(long word) {
+        return between(word, 0x08, 0x0E) | between(word, 0x1B, 0x21);
+    }
+
+    /** High bit of each byte b with low &lt; b &lt; high, for 0 &lt;= low &lt;= 127, high &lt;= 128 */
+    private static long between(long word, int low, int high) {
+        long low7 = word & LOW7;
+        return (ONES * (127 + high) - low7) & ~word & (low7 + ONES * (127 - low)) & HIGH;
+    }
+
+    /** High bit of each zero byte, exactly */
+    private static long zeroBytes(long word) {
+        long t = (word & LOW7) + LOW7;
+        return ~(t | word | LOW7);
+    }
+
+    static boolean isAsciiWhitespace(byte b) {
+        return b == ' ' || (b >= 0x09 && b <= 0x0D) || (b >= 0x1C && b <= 0x1F);
+    }
+
+    private static boolean isUtf8(Charset charset) {
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            return true;
+        }
+        if (charset.equals(StandardCharsets.ISO_8859_1) || charset.equals(StandardCharsets.US_ASCII)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Only UTF-8, ISO-8859-1 and US-ASCII are supported: " + charset);
+    }
+
+    private static void checkRange(int from, int to, int length) {
+        if (from < 0 || from > to || to > length) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + length);
+        }
+    }
+
+    /** Length of the UTF-8 sequence at i if it encodes whitespace, else 0 */
+    private static int whitespaceLength(byte[] text, int i, int to) {
+        int lead = text[i] & 0xFF;
+        int length = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 0;
+        if (length == 0 || i + length > to) {
+            return 0;
+        }
+        int codePoint = lead & (0x7F >> length);
+        for (int k = 1; k < length; k++) {
+            int next = text[i + k];
+            if ((next & 0xC0) != 0x80) {
+                return 0;
+            }
+            codePoint = (codePoint << 6) | (next & 0x3F);
+        }
+        return Character.isWhitespace(codePoint) ? length : 0;
+    }
+
+    private static int whitespaceLength(ByteBuffer text, int i, int to) {
+        int lead = text.get(i) & 0xFF;
+        int length = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 0;
+        if (length == 0 || i + length > to) {
+            return 0;
+        }
+        int codePoint = lead & (0x7F >> length);
+        for (int k = 1; k < length; k++) {
+            int next = text.get(i + k);
+            if ((next & 0xC0) != 0x80) {
+                return 0;
+            }
+            codePoint = (codePoint << 6) | (next & 0x3F);
+        }
+        return Character.isWhitespace(codePoint) ? length : 0;
+    }
+
+    /** Start of the UTF-8 sequence ending at end if it encodes whitespace, else -1 */
+    private static int whitespaceStart(byte[] text, int from, int end) {
+        int start = end - 1;
+        while (start > from && end - start < 4 && (text[start] & 0xC0) == 0x80) {
+            start--;
+        }
+        return whitespaceLength(text, start, end) == end - start ? start : -1;
+    }
+
+    private static int whitespaceStart(ByteBuffer text, int from, int end) {
+        int start = end - 1;
+        while (start > from && end - start < 4 && (text.get(start) & 0xC0) == 0x80) {
+            start--;
+        }
+        return whitespaceLength(text, start, end) == end - start ? start : -1;
+    }
+}
@@ -0,0 +1,26 @@
+package com.java11.files;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Bytes allocated by the current thread, read with
+ * getCurrentThreadAllocatedBytes(), which skips the lookup by thread id.
+ */
+final class ThreadAllocation {
+
+    private static final ThreadMXBean BEAN = ManagementFactory.getThreadMXBean();
+
+    private ThreadAllocation() {
+    }
+
+    /**
+     * Bytes allocated by the current thread, or -1 if the JVM doesn't report it.
+     */
+    static long currentThreadBytes() {
+        if (BEAN instanceof com.sun.management.ThreadMXBean threads) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,22 @@
+package com.java11.strings;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Absolute bulk reads from a ByteBuffer, using the absolute bulk get() added
+ * in Java 13. For a direct buffer that is one memory copy instead of a
+ * bounds-checked get() per byte.
+ */
+public final class ByteBuffers {
+
+    private ByteBuffers() {
+    }
+
+    /**
+     * Copies length bytes from absolute index of the buffer into dst at
+     * offset, without changing the buffer's position or limit.
+     */
+    public static void get(ByteBuffer buffer, int index, byte[] dst, int offset, int length) {
+        buffer.get(index, dst, offset, length);
+    }
+}
@@ -0,0 +1,141 @@
+package com.java11;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies ExampleRunner overlaps tasks but prints each one's output in order
+ */
+public class ExampleRunnerTest {
+
+    @Test
+    public void testWallTimeIsSlowestTask() throws InterruptedException {
+        ExecutorService executor = ExampleRunner.platformThreads(4);
+        try {
+            ExampleRunner.Builder builder = ExampleRunner.newBuilder().executor(executor);
+            for (int i = 0; i < 4; i++) {
+                builder.task("sleep " + i, () -> Thread.sleep(300));
+            }
+            ExampleRunner.Report report = builder.build().run(new PrintStream(new ByteArrayOutputStream()));
+            assertEquals(4, report.getResults().size());
+            assertTrue(report.getTotalTaskNanos() >= TimeUnit.MILLISECONDS.toNanos(1_200));
+            // Sequentially this would take 1.2 s
+            assertTrue(report.getWallNanos() < TimeUnit.MILLISECONDS.toNanos(1_000), report.toString());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testOutputCapturedPerTaskInOrder() throws InterruptedException {
+        ExecutorService executor = ExampleRunner.platformThreads(3);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream realOut = System.out;
+        try {
+            ExampleRunner.Report report = ExampleRunner.newBuilder()
+                    .executor(executor)
+                    // The first task finishes last, yet is printed first
+                    .task("first", () -> {
+                        System.out.println("first begins");
+                        Thread.sleep(200);
+                        System.out.println("first ends");
+                    })
+                    .task("second", () -> System.out.println("second"))
+                    .task("third", () -> {
+                        System.err.println("third warns");
+                        System.out.println("third");
+                    })
+                    .build()
+                    .run(new PrintStream(bytes, true));
+
+            String printed = bytes.toString();
+            int first = printed.indexOf("first begins\nfirst ends\n");
+            int second = printed.indexOf("second\n==");
+            int third = printed.indexOf("third\n");
+            assertTrue(first >= 0 && first < second && second < third, printed);
+            assertTrue(printed.contains("third warns"));
+            assertEquals("first begins\nfirst ends\n", report.getResults().get(0).getOutput());
+            assertEquals("third warns\n", report.getResults().get(2).getErrorOutput());
+            assertSame(realOut, System.out);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailureDoesNotStopOtherTasks() throws InterruptedException {
+        ExecutorService executor = ExampleRunner.sequential();
+        try {
+            ExampleRunner.Report report = ExampleRunner.newBuilder()
+                    .executor(executor)
+                    .task("broken", () -> {
+                        throw new IllegalStateException("boom");
+                    })
+                    .task("fine", () -> System.out.println("ok"))
+                    .build()
+                    .run(new PrintStream(new ByteArrayOutputStream()));
+
+            List<ExampleRunner.TaskResult> results = report.getResults();
+            assertEquals(1, report.getFailureCount());
+            assertTrue(results.get(0).getFailure() instanceof IllegalStateException);
+            assertTrue(results.get(0).getErrorOutput().contains("boom"));
+            assertEquals("ok\n", results.get(1).getOutput());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThrows(IllegalArgumentException.class, () -> ExampleRunner.newBuilder().build());
+        assertThrows(IllegalArgumentException.class, () -> Main.executorFor(new String[] {"--fast"}));
+    }
+
+    @Test
+    public void testInterruptedRunWaitsForRunningTasks() throws Exception {
+        ExecutorService executor = ExampleRunner.platformThreads(1);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean finished = new AtomicBoolean();
+        PrintStream realOut = System.out;
+        try {
+            ExampleRunner runner = ExampleRunner.newBuilder()
+                    .executor(executor)
+                    .task("slow to stop", () -> {
+                        started.countDown();
+                        try {
+                            Thread.sleep(10_000);
+                        } catch (InterruptedException e) {
+                            // Cleanup that outlasts the interrupt
+                            Thread.sleep(300);
+                            finished.set(true);
+                        }
+                    })
+                    .task("never started", () -> fail("queued task ran after the run ended"))
+                    .build();
+            AtomicReference<Throwable> thrown = new AtomicReference<>();
+            Thread thread = new Thread(() -> {
+                try {
+                    runner.run(new PrintStream(new ByteArrayOutputStream()));
+                } catch (Throwable e) {
+                    thrown.set(e);
+                }
+            });
+            thread.start();
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            thread.interrupt();
+            thread.join(5_000);
+            assertFalse(thread.isAlive());
+            assertTrue(thrown.get() instanceof InterruptedException);
+            assertTrue(finished.get());
+            assertSame(realOut, System.out);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -80,4 +80,22 @@ public class MainTest {
         assertTrue(path.toString().contains("test"));
         assertTrue(path.toString().contains("file.txt"));
     }
-} 
\ No newline at end of file
+    
+    @Test
+    public void testBadArgumentsPrintUsage() {
+        // A malformed --threads count is reported with usage instead of a stack trace
+        java.io.ByteArrayOutputStream err = new java.io.ByteArrayOutputStream();
+        java.io.PrintStream realErr = System.err;
+        java.io.PrintStream realOut = System.out;
+        System.setErr(new java.io.PrintStream(err, true));
+        System.setOut(new java.io.PrintStream(new java.io.ByteArrayOutputStream()));
+        try {
+            Main.main(new String[]{"--threads", "many"});
+        } finally {
+            System.setErr(realErr);
+            System.setOut(realOut);
+        }
+        assertTrue(err.toString().contains("Usage: Main"));
+        assertFalse(err.toString().contains("at com.java11"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.java11;
+
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
+
+/**
+ * Which versioned class a test should see, and which one it got: classes run
+ * from target/classes are always the release 11 baseline, while the
+ * multi-release JAR serves the highest of the class's versions that the
+ * running JDK supports from META-INF/versions/&lt;release&gt;.
+ */
+public final class MultiRelease {
+
+    private static final String VERSIONS = "META-INF/versions/";
+
+    private MultiRelease() {
+    }
+
+    /** True if type was loaded from a JAR rather than a class directory */
+    public static boolean loadedFromJar(Class<?> type) {
+        try {
+            Path location = Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+            return location.getFileName().toString().endsWith(".jar");
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Release of the class version that was loaded, read from the location of
+     * its class file: 11 unless it came from META-INF/versions.
+     */
+    public static int loadedRelease(Class<?> type) {
+        URL url = type.getResource(type.getSimpleName() + ".class");
+        String path = url.toString();
+        int versions = path.indexOf(VERSIONS);
+        if (versions < 0) {
+            return 11;
+        }
+        int start = versions + VERSIONS.length();
+        return Integer.parseInt(path.substring(start, path.indexOf('/', start)));
+    }
+
+    /**
+     * Release of the class version that should be loaded, given the releases
+     * it has overrides for in ascending order.
+     */
+    public static int expectedRelease(Class<?> type, int... versions) {
+        int expected = 11;
+        if (loadedFromJar(type)) {
+            for (int version : versions) {
+                if (Runtime.version().feature() >= version) {
+                    expected = version;
+                }
+            }
+        }
+        return expected;
+    }
+}
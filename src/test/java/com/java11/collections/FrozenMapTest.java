@@ -0,0 +1,108 @@
+package com.java11.collections;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies FrozenMap lookups, hash code collisions and heap footprint
+ */
+public class FrozenMapTest {
+
+    @Test
+    public void testLookups() {
+        Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            expected.put("key-" + i, i);
+        }
+        FrozenMap<String, Integer> map = FrozenMap.copyOf(expected);
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < 100_000; i++) {
+            // Equal but not identical keys
+            assertEquals(i, map.get(new String("key-" + i)));
+        }
+        assertNull(map.get("key-100000"));
+        assertFalse(map.containsKey("missing"));
+        assertEquals(-1, map.getOrDefault("missing", -1));
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertThrows(UnsupportedOperationException.class, () -> map.put("key-1", 2));
+        assertThrows(NullPointerException.class, () -> map.get(null));
+    }
+
+    @Test
+    public void testSmallAndEmptyMaps() {
+        FrozenMap<String, String> empty = FrozenMap.of();
+        assertTrue(empty.isEmpty());
+        assertNull(empty.get("a"));
+        assertEquals(Map.of(), empty);
+
+        for (int size = 1; size <= 10; size++) {
+            FrozenMap.Builder<Integer, String> builder = FrozenMap.newBuilder();
+            for (int i = 0; i < size; i++) {
+                builder.put(i, "v" + i);
+            }
+            FrozenMap<Integer, String> map = builder.build();
+            for (int i = 0; i < size; i++) {
+                assertEquals("v" + i, map.get(i));
+            }
+            assertNull(map.get(size));
+        }
+    }
+
+    @Test
+    public void testEqualHashCodesGoToOverflow() {
+        // "Aa" and "BB" share a hash code, as do all strings built from them
+        FrozenMap<String, Integer> map = FrozenMap.<String, Integer>newBuilder()
+                .put("AaAa", 1).put("AaBB", 2).put("BBAa", 3).put("BBBB", 4).put("other", 5)
+                .build();
+        assertEquals(3, map.getOverflowSize());
+        assertEquals(5, map.size());
+        assertEquals(Map.of("AaAa", 1, "AaBB", 2, "BBAa", 3, "BBBB", 4, "other", 5), map);
+        assertEquals(3, map.get("BBAa"));
+        assertNull(map.get("AaAaAa"));
+    }
+
+    @Test
+    public void testDuplicateAndNullKeysRejected() {
+        FrozenMap.Builder<String, Integer> builder = FrozenMap.<String, Integer>newBuilder()
+                .put("a", 1).put("b", 2).put("a", 3);
+        assertThrows(IllegalArgumentException.class, builder::build);
+        assertThrows(NullPointerException.class, () -> FrozenMap.newBuilder().put(null, 1));
+        assertThrows(NullPointerException.class, () -> FrozenMap.newBuilder().put("a", null));
+    }
+
+    @Test
+    public void testFootprintCloseToKeyAndValueArrays() {
+        int size = 20_000;
+        String[] keys = new String[size];
+        Integer[] values = new Integer[size];
+        FrozenMap.Builder<String, Integer> builder = FrozenMap.newBuilder(size);
+        Map<String, Integer> hashMap = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            keys[i] = "key-" + i;
+            values[i] = i;
+            builder.put(keys[i], values[i]);
+            hashMap.put(keys[i], values[i]);
+        }
+        FrozenMap<String, Integer> frozen = builder.build();
+
+        // Bytes of the keys and values themselves, which every map shares
+        long shared = GraphLayout.parseInstance(keys, values).totalSize()
+                - ClassLayout.parseInstance(keys).instanceSize()
+                - ClassLayout.parseInstance(values).instanceSize();
+        long frozenBytes = GraphLayout.parseInstance(frozen).totalSize() - shared;
+        long hashMapBytes = GraphLayout.parseInstance(hashMap).totalSize() - shared;
+        long rawArrays = ClassLayout.parseInstance(keys).instanceSize()
+                + ClassLayout.parseInstance(values).instanceSize();
+
+        // Two reference arrays plus a seed per three entries
+        assertTrue(frozenBytes <= rawArrays + 2L * size, frozenBytes + " vs " + rawArrays);
+        assertTrue(frozenBytes * 3 < hashMapBytes, frozenBytes + " vs " + hashMapBytes);
+    }
+}
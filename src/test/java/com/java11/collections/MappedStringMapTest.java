@@ -0,0 +1,123 @@
+package com.java11.collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies MappedStringMap files round-trip through the Writer and open()
+ */
+public class MappedStringMapTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Map<String, String> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            expected.put("key-" + i, "value-" + i);
+        }
+        Path file = tempDir.resolve("data.map");
+        MappedStringMap.write(file, expected);
+
+        MappedStringMap map = MappedStringMap.open(file);
+        assertEquals(50_000, map.getEntryCount());
+        assertEquals("value-123", map.get("key-123"));
+        assertTrue(map.containsKey("key-49999"));
+        assertNull(map.get("key-50000"));
+        assertNull(map.get(42));
+        assertEquals(expected, map);
+        assertThrows(NullPointerException.class, () -> map.get(null));
+        assertThrows(UnsupportedOperationException.class, () -> map.put("a", "b"));
+        // Only the finished file is left behind
+        assertEquals(1, Files.list(tempDir).count());
+    }
+
+    @Test
+    public void testUnicodeAndEmptyStrings() throws IOException {
+        Map<String, String> expected = Map.of(
+                "", "empty key",
+                "café", "",
+                "日本語", "Japanese",
+                "emoji 😀", "smile",
+                "cafe", "ascii");
+        Path file = tempDir.resolve("unicode.map");
+        MappedStringMap.write(file, expected);
+
+        MappedStringMap map = MappedStringMap.open(file);
+        assertEquals(expected, map);
+        assertEquals("smile", map.get("emoji 😀"));
+        assertNull(map.get("emoji 😁"));
+        assertNull(map.get("caf"));
+    }
+
+    @Test
+    public void testRecordsAcrossSegmentBoundaries() throws IOException {
+        Path file = tempDir.resolve("segments.map");
+        Map<String, String> expected = new HashMap<>();
+        try (MappedStringMap.Writer writer = MappedStringMap.newWriter(file)) {
+            for (int i = 0; i < 2_000; i++) {
+                String value = "v".repeat(i % 300);
+                writer.put("k" + i, value);
+                expected.put("k" + i, value);
+            }
+            writer.finish();
+        }
+        // 4 KB segments, so many records start near a segment end
+        MappedStringMap map = MappedStringMap.open(file, 12);
+        assertEquals(expected, map);
+    }
+
+    @Test
+    public void testEmptyMap() throws IOException {
+        Path file = tempDir.resolve("empty.map");
+        MappedStringMap.write(file, Map.of());
+        MappedStringMap map = MappedStringMap.open(file);
+        assertTrue(map.isEmpty());
+        assertNull(map.get("anything"));
+        assertFalse(map.entrySet().iterator().hasNext());
+    }
+
+    @Test
+    public void testDuplicateKeysAndUnfinishedWriters() throws IOException {
+        Path file = tempDir.resolve("duplicate.map");
+        try (MappedStringMap.Writer writer = MappedStringMap.newWriter(file)) {
+            writer.put("a", "1").put("b", "2").put("a", "3");
+            assertThrows(IllegalArgumentException.class, writer::finish);
+        }
+        try (MappedStringMap.Writer writer = MappedStringMap.newWriter(file)) {
+            writer.put("a", "1");
+        }
+        assertFalse(Files.exists(file));
+        assertEquals(0, Files.list(tempDir).count());
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        Path file = tempDir.resolve("other.txt");
+        Files.writeString(file, "not a map");
+        assertThrows(IOException.class, () -> MappedStringMap.open(file));
+    }
+
+    @Test
+    public void testLongestAllowedRecordFitsSegmentOverlap() throws IOException {
+        Path file = tempDir.resolve("small.bin");
+        Files.write(file, new byte[64]);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            new MappedSegments(channel, FileChannel.MapMode.READ_ONLY, 0, 64, 30, MappedStringMap.MAX_RECORD_LENGTH);
+            assertThrows(IllegalArgumentException.class, () -> new MappedSegments(channel,
+                    FileChannel.MapMode.READ_ONLY, 0, 64, 30, MappedStringMap.MAX_RECORD_LENGTH + 1));
+        }
+        assertTrue(MappedStringMap.MAX_RECORD_LENGTH < 1 << 30);
+    }
+}
@@ -0,0 +1,185 @@
+package com.java11.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies PersistentVector and PersistentMap updates leave earlier versions unchanged
+ */
+public class PersistentCollectionsTest {
+
+    @Test
+    public void testVectorAppendAndPop() {
+        List<Integer> expected = new ArrayList<>();
+        PersistentVector<Integer> vector = PersistentVector.of();
+        List<PersistentVector<Integer>> versions = new ArrayList<>();
+        // Past 32 * 32 * 32 elements the trie needs a third level
+        for (int i = 0; i < 40_000; i++) {
+            vector = vector.plus(i);
+            expected.add(i);
+            if (i % 997 == 0) {
+                versions.add(vector);
+            }
+        }
+        assertEquals(expected, vector);
+        for (PersistentVector<Integer> version : versions) {
+            assertEquals(expected.subList(0, version.size()), version);
+        }
+        while (!vector.isEmpty()) {
+            vector = vector.withoutLast();
+            expected.remove(expected.size() - 1);
+            if (vector.size() % 1013 == 0) {
+                assertEquals(expected, vector);
+            }
+        }
+        assertSame(PersistentVector.of(), vector);
+        assertThrows(IllegalStateException.class, vector::withoutLast);
+    }
+
+    @Test
+    public void testVectorWith() {
+        PersistentVector<String> original = PersistentVector.copyOf(List.of("a", "b", "c"));
+        PersistentVector<String> changed = original.with(1, "B");
+        assertEquals(List.of("a", "b", "c"), original);
+        assertEquals(List.of("a", "B", "c"), changed);
+        assertThrows(IndexOutOfBoundsException.class, () -> original.with(3, "d"));
+        assertThrows(NullPointerException.class, () -> original.plus(null));
+
+        PersistentVector.Builder<Integer> builder = PersistentVector.newBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            builder.add(i);
+        }
+        PersistentVector<Integer> large = builder.build();
+        Random random = new Random(7);
+        PersistentVector<Integer> updated = large;
+        for (int n = 0; n < 1_000; n++) {
+            int index = random.nextInt(large.size());
+            updated = updated.with(index, -index);
+            assertEquals(index, large.get(index));
+            assertEquals(-index, updated.get(index));
+        }
+    }
+
+    @Test
+    public void testVectorBuilderAfterBuild() {
+        PersistentVector.Builder<Integer> builder = PersistentVector.newBuilder();
+        for (int i = 0; i < 2_000; i++) {
+            builder.add(i);
+        }
+        PersistentVector<Integer> first = builder.build();
+        builder.set(10, -10).set(1_999, -1_999).add(2_000);
+        PersistentVector<Integer> second = builder.build();
+        assertEquals(2_000, first.size());
+        assertEquals(10, first.get(10));
+        assertEquals(1_999, first.get(1_999));
+        assertEquals(2_001, second.size());
+        assertEquals(-10, second.get(10));
+        assertEquals(-1_999, second.get(1_999));
+
+        PersistentVector<Integer> extended = first.toBuilder().add(2_000).set(0, -1).build();
+        assertEquals(0, first.get(0));
+        assertEquals(-1, extended.get(0));
+        assertEquals(2_001, extended.size());
+    }
+
+    @Test
+    public void testMapWithAndWithout() {
+        Map<Integer, String> expected = new HashMap<>();
+        PersistentMap<Integer, String> map = PersistentMap.of();
+        Random random = new Random(11);
+        for (int n = 0; n < 20_000; n++) {
+            int key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                map = map.without(key);
+                expected.remove(key);
+            } else {
+                map = map.with(key, "v" + n);
+                expected.put(key, "v" + n);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+
+        PersistentMap<Integer, String> before = map;
+        int key = expected.keySet().iterator().next();
+        PersistentMap<Integer, String> after = before.with(key, "changed").without(-1);
+        assertEquals(expected.get(key), before.get(key));
+        assertEquals("changed", after.get(key));
+        assertSame(before, before.without(-1));
+        assertSame(before, before.with(key, before.get(key)));
+        assertThrows(UnsupportedOperationException.class, () -> before.put(1, "x"));
+        assertThrows(NullPointerException.class, () -> before.with(1, null));
+    }
+
+    @Test
+    public void testMapHashCollisions() {
+        PersistentMap<CollidingKey, Integer> map = PersistentMap.of();
+        for (int i = 0; i < 10; i++) {
+            map = map.with(new CollidingKey(i, i % 2), i);
+        }
+        assertEquals(10, map.size());
+        assertEquals(7, map.get(new CollidingKey(7, 1)));
+        PersistentMap<CollidingKey, Integer> smaller = map.without(new CollidingKey(7, 1));
+        assertNull(smaller.get(new CollidingKey(7, 1)));
+        assertEquals(9, smaller.size());
+        assertEquals(7, map.get(new CollidingKey(7, 1)));
+        for (int i = 0; i < 10; i++) {
+            smaller = smaller.without(new CollidingKey(i, i % 2));
+        }
+        assertTrue(smaller.isEmpty());
+    }
+
+    @Test
+    public void testMapBuilder() {
+        PersistentMap.Builder<String, Integer> builder = PersistentMap.newBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            builder.put("key-" + i, i);
+        }
+        PersistentMap<String, Integer> first = builder.build();
+        builder.put("key-1", -1).remove("key-2").put("extra", 0);
+        PersistentMap<String, Integer> second = builder.build();
+
+        assertEquals(10_000, first.size());
+        assertEquals(1, first.get("key-1"));
+        assertEquals(2, first.get("key-2"));
+        assertNull(first.get("extra"));
+        assertEquals(10_000, second.size());
+        assertEquals(-1, second.get("key-1"));
+        assertNull(second.get("key-2"));
+
+        PersistentMap<String, Integer> copy = first.toBuilder().remove("key-3").build();
+        assertEquals(3, first.get("key-3"));
+        assertFalse(copy.containsKey("key-3"));
+    }
+
+    private static final class CollidingKey {
+        private final int id;
+        private final int hash;
+
+        CollidingKey(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.java11.collections;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies IntList, IntSet, IntIntMap and ObjectIntMap, including their heap footprint
+ */
+public class PrimitiveCollectionsTest {
+
+    @Test
+    public void testIntList() {
+        int[] source = {3, 1, 2};
+        IntList list = IntList.of(source);
+        source[0] = 99;
+        assertEquals(3, list.size());
+        assertEquals(3, list.get(0));
+        assertEquals(2, list.indexOf(2));
+        assertFalse(list.contains(99));
+        assertEquals("[3, 1, 2]", list.toString());
+        assertEquals(IntList.of(3, 1, 2), list);
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(3));
+        assertSame(IntList.of(), IntList.copyOf(IntStream.empty()));
+    }
+
+    @Test
+    public void testIntSet() {
+        IntSet set = IntSet.of(0, 5, -7, 1024);
+        assertEquals(4, set.size());
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-7));
+        assertFalse(set.contains(6));
+        assertEquals(Set.of(0, 5, -7, 1024), set.stream().boxed().collect(Collectors.toSet()));
+        assertThrows(IllegalArgumentException.class, () -> IntSet.of(1, 2, 1));
+        assertEquals(2, IntSet.copyOf(new int[]{1, 2, 1}).size());
+        assertEquals(IntSet.of(1, 2), IntSet.copyOf(new int[]{2, 1}));
+    }
+
+    @Test
+    public void testIntIntMap() {
+        IntIntMap.Builder builder = IntIntMap.newBuilder();
+        for (int i = -500; i < 500; i++) {
+            builder.put(i, i * 2);
+        }
+        IntIntMap map = builder.build();
+        assertEquals(1000, map.size());
+        assertEquals(0, map.get(0));
+        assertEquals(-1000, map.get(-500));
+        assertEquals(998, map.get(499));
+        assertEquals(-1, map.getOrDefault(500, -1));
+        assertFalse(map.containsKey(500));
+        assertThrows(NoSuchElementException.class, () -> map.get(500));
+        assertThrows(IllegalStateException.class, () -> builder.put(1000, 1));
+
+        assertThrows(IllegalArgumentException.class, () -> IntIntMap.of(1, 1, 1, 2));
+        Map<Integer, Integer> boxed = new HashMap<>();
+        map.forEach(boxed::put);
+        assertEquals(1000, boxed.size());
+        assertEquals(boxed.hashCode(), map.hashCode());
+        assertEquals("{7=1}", IntIntMap.of(7, 1).toString());
+    }
+
+    @Test
+    public void testObjectIntMap() {
+        ObjectIntMap<String> map = ObjectIntMap.of("One", 1, "Two", 2, "Three", 3);
+        assertEquals(3, map.size());
+        assertEquals(2, map.get("Two"));
+        assertEquals(0, map.getOrDefault("Four", 0));
+        assertThrows(NoSuchElementException.class, () -> map.get("Four"));
+        assertThrows(NullPointerException.class, () -> map.get(null));
+        assertThrows(IllegalArgumentException.class, () -> ObjectIntMap.of("a", 1, "a", 2));
+
+        Map<String, Integer> source = Map.of("One", 1, "Two", 2, "Three", 3);
+        assertEquals(map, ObjectIntMap.copyOf(source));
+        assertEquals(source.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void testFootprintAgainstBoxedMaps() {
+        int entries = 20_000;
+        IntIntMap.Builder intBuilder = IntIntMap.newBuilder();
+        ObjectIntMap.Builder<String> stringBuilder = ObjectIntMap.newBuilder();
+        Map<Integer, Integer> boxedInts = new HashMap<>();
+        Map<String, Integer> boxedStrings = new HashMap<>();
+        String[] keys = new String[entries];
+        for (int i = 0; i < entries; i++) {
+            // Values outside the Integer cache, as in real lookup tables
+            intBuilder.put(i + 1000, i + 1000);
+            boxedInts.put(i + 1000, i + 1000);
+            keys[i] = "key-" + i;
+            stringBuilder.put(keys[i], i + 1000);
+            boxedStrings.put(keys[i], i + 1000);
+        }
+        IntIntMap ints = intBuilder.build();
+        ObjectIntMap<String> strings = stringBuilder.build();
+
+        long intBytes = GraphLayout.parseInstance(ints).totalSize();
+        long boxedIntBytes = GraphLayout.parseInstance(boxedInts).totalSize();
+        // Two int[] tables of 2^15 slots
+        assertTrue(intBytes <= 2L * 4 * 32_768 + 256, "IntIntMap bytes: " + intBytes);
+        assertTrue(intBytes * 2 < boxedIntBytes, intBytes + " vs HashMap " + boxedIntBytes);
+
+        // Keys are shared, so only the table and boxing overhead differ
+        long keyBytes = GraphLayout.parseInstance((Object[]) keys).totalSize()
+                - ClassLayout.parseInstance(keys).instanceSize();
+        long stringBytes = GraphLayout.parseInstance(strings).totalSize() - keyBytes;
+        long boxedStringBytes = GraphLayout.parseInstance(boxedStrings).totalSize() - keyBytes;
+        assertTrue(stringBytes * 2 < boxedStringBytes, stringBytes + " vs HashMap " + boxedStringBytes);
+    }
+}
@@ -0,0 +1,85 @@
+package com.java11.files;
+
+import com.java11.strings.StringPool;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies ConfigParser against the split("=", 2) approach it replaces
+ */
+public class ConfigParserTest {
+
+    private static final String CONFIG = "# Application Configuration\n"
+            + "app.name=Java 11 Demo\r\n"
+            + "   \n"
+            + "  # indented comment=ignored\n"
+            + "  database.url = jdbc:postgresql://localhost:5432/mydb?a=b  \n"
+            + "no separator here\n"
+            + "greeting=héllo wörld\r"
+            + "=empty key\n"
+            + "server.port=8080";
+
+    private static Map<String, String> splitApproach(String config) {
+        Map<String, String> map = new HashMap<>();
+        config.lines()
+                .filter(line -> !line.trim().startsWith("#") && !line.trim().isEmpty())
+                .forEach(line -> {
+                    String[] parts = line.split("=", 2);
+                    if (parts.length == 2) {
+                        map.put(parts[0].trim(), parts[1].trim());
+                    }
+                });
+        return map;
+    }
+
+    @Test
+    public void testCharSequenceMatchesSplit() {
+        Map<String, String> parsed = ConfigParser.toMap(CONFIG);
+        assertEquals(splitApproach(CONFIG), parsed);
+        assertEquals("jdbc:postgresql://localhost:5432/mydb?a=b", parsed.get("database.url"));
+    }
+
+    @Test
+    public void testByteBufferMatchesSplit() {
+        byte[] bytes = CONFIG.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+
+        assertEquals(splitApproach(CONFIG), ConfigParser.toMap(ByteBuffer.wrap(bytes)));
+        assertEquals(splitApproach(CONFIG), ConfigParser.toMap(direct));
+    }
+
+    @Test
+    public void testPooledParsesShareStrings() {
+        StringPool pool = new StringPool(64);
+        byte[] bytes = CONFIG.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+
+        Map<String, String> first = ConfigParser.toMap(CONFIG, pool);
+        Map<String, String> second = ConfigParser.toMap(direct, pool);
+        assertEquals(splitApproach(CONFIG), first);
+        assertEquals(first, second);
+        for (Map.Entry<String, String> entry : second.entrySet()) {
+            assertSame(first.get(entry.getKey()), entry.getValue());
+        }
+        assertEquals(first.size() * 2, pool.getHits());
+    }
+
+    @Test
+    public void testHandlerReceivesOffsets() {
+        String line = "  key =  value ";
+        int[] offsets = new int[4];
+        ConfigParser.parse(line, (keyStart, keyEnd, valueStart, valueEnd) -> {
+            offsets[0] = keyStart;
+            offsets[1] = keyEnd;
+            offsets[2] = valueStart;
+            offsets[3] = valueEnd;
+        });
+        assertArrayEquals(new int[] {2, 5, 9, 14}, offsets);
+    }
+}
@@ -0,0 +1,103 @@
+package com.java11.files;
+
+import com.java11.MultiRelease;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies ConfigWatcher incremental reloads against a full parse
+ */
+public class ConfigWatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String config(int keys, int changedKey, String changedValue) {
+        StringBuilder builder = new StringBuilder("# generated\n");
+        for (int i = 0; i < keys; i++) {
+            builder.append("key").append(i).append('=')
+                    .append(i == changedKey ? changedValue : "value" + i).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private void assertReloadMatchesFullParse(ConfigWatcher watcher, Path file, String content) throws Exception {
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        assertTrue(watcher.reload());
+        assertEquals(ConfigParser.toMap(content), watcher.snapshot());
+    }
+
+    @Test
+    public void testIncrementalReload() throws Exception {
+        Path file = tempDir.resolve("app.properties");
+        Files.writeString(file, config(1000, -1, null), StandardCharsets.UTF_8);
+
+        try (ConfigWatcher watcher = ConfigWatcher.open(file)) {
+            Map<String, String> before = watcher.snapshot();
+            assertEquals("value500", before.get("key500"));
+
+            assertReloadMatchesFullParse(watcher, file, config(1000, 500, "changed"));
+            assertEquals("value500", before.get("key500"), "old snapshot must not change");
+            assertEquals(1, watcher.stats().getIncrementalReloads());
+            assertTrue(watcher.stats().getLastChangedBytes() < 100);
+
+            // Removed line, added line, renamed key, CRLF, key moved to a duplicate
+            String edited = config(1000, 500, "changed").replace("key10=value10\n", "")
+                    + "extra=1\r\n";
+            assertReloadMatchesFullParse(watcher, file, edited);
+            assertReloadMatchesFullParse(watcher, file, edited.replace("key20=", "renamed20="));
+            assertReloadMatchesFullParse(watcher, file, edited.replace("key30=value30", "key40=dup"));
+            assertReloadMatchesFullParse(watcher, file, "");
+
+            assertFalse(watcher.reload(), "unchanged content");
+        }
+    }
+
+    @Test
+    public void testWatchServicePublishesChanges() throws Exception {
+        Path file = tempDir.resolve("watched.properties");
+        Files.writeString(file, "server.port=8080\n", StandardCharsets.UTF_8);
+
+        try (ConfigWatcher watcher = ConfigWatcher.open(file)) {
+            watcher.start();
+            Files.writeString(file, "server.port=9090\n", StandardCharsets.UTF_8);
+
+            long deadline = System.currentTimeMillis() + 15_000;
+            while (!"9090".equals(watcher.get("server.port")) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals("9090", watcher.get("server.port"));
+        }
+    }
+
+    @Test
+    public void testFailedReloadIsRecorded() throws Exception {
+        Path file = tempDir.resolve("deleted.properties");
+        Files.writeString(file, "a=1\n", StandardCharsets.UTF_8);
+
+        try (ConfigWatcher watcher = ConfigWatcher.open(file)) {
+            Files.delete(file);
+            assertThrows(NoSuchFileException.class, watcher::reload);
+            assertEquals("1", watcher.get("a"), "snapshot kept");
+            assertEquals(1, watcher.stats().getFailedReloads());
+            assertTrue(watcher.stats().getLastFailure() instanceof NoSuchFileException);
+            assertEquals(1, watcher.stats().getReloads());
+        }
+    }
+
+    @Test
+    public void testLoadsVersionsForRuntime() {
+        assertEquals(MultiRelease.expectedRelease(ThreadAllocation.class, 17), MultiRelease.loadedRelease(ThreadAllocation.class));
+        long before = ThreadAllocation.currentThreadBytes();
+        byte[] garbage = new byte[1 << 20];
+        assertTrue(ThreadAllocation.currentThreadBytes() - before >= garbage.length);
+    }
+}
@@ -0,0 +1,74 @@
+package com.java11.files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies MappedFileReader against String.lines()
+ */
+public class MappedFileReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testLinesMatchStringLines() throws Exception {
+        String content = "first\r\nsecond\rthird\n\nfünfte Zeile – ünïcødé\nlast";
+        Path file = tempDir.resolve("lines.txt");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+
+        try (MappedFileReader reader = MappedFileReader.open(file)) {
+            assertEquals(content.lines().collect(Collectors.toList()),
+                    reader.lines().collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testSmallWindowCrossesLineBoundaries() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            content.append("Line ").append(i).append(" é".repeat(i % 7)).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        Path file = tempDir.resolve("windows.txt");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+
+        // A 5 byte window is shorter than every line, forcing remaps and growth
+        try (MappedFileReader reader = MappedFileReader.open(file, 5)) {
+            List<String> lines = new ArrayList<>();
+            reader.forEachLine(line -> lines.add(line.toString()));
+            assertEquals(content.toString().lines().collect(Collectors.toList()), lines);
+        }
+    }
+
+    @Test
+    public void testParallelLinesKeepOrder() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            content.append("Line ").append(i).append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        Path file = tempDir.resolve("parallel.txt");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+
+        try (MappedFileReader reader = MappedFileReader.open(file)) {
+            assertEquals(content.toString().lines().collect(Collectors.toList()),
+                    reader.lines().parallel().collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        Path file = Files.createFile(tempDir.resolve("empty.txt"));
+        try (MappedFileReader reader = MappedFileReader.open(file)) {
+            assertEquals(0, reader.lines().count());
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.java11.httpclient;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies CachingHttpClient freshness, revalidation, coalescing and disk tier against a local server
+ */
+public class CachingHttpClientTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicInteger upstream = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final MutableClock clock = new MutableClock();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private LocalHttpServer startServer() throws IOException {
+        return LocalHttpServer.http()
+                .handle("/fresh", exchange -> respond(exchange, "Cache-Control", "max-age=60", "fresh"))
+                .handle("/etag", exchange -> {
+                    if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                        upstream.incrementAndGet();
+                        notModified.incrementAndGet();
+                        exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                        exchange.sendResponseHeaders(304, -1);
+                        exchange.close();
+                    } else {
+                        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                        respond(exchange, "ETag", "\"v1\"", "tagged");
+                    }
+                })
+                .handle("/slow", exchange -> {
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    respond(exchange, "Cache-Control", "max-age=60", "slow");
+                })
+                .handle("/huge-header", exchange -> {
+                    // Longer than DataOutputStream.writeUTF() can store
+                    exchange.getResponseHeaders().set("X-Padding", "a".repeat(70_000));
+                    respond(exchange, "Cache-Control", "max-age=60", "padded");
+                })
+                .handle("/private", exchange -> respond(exchange, "Cache-Control", "no-store", "secret"))
+                .handle("/stream", exchange -> {
+                    upstream.incrementAndGet();
+                    exchange.getResponseHeaders().set("Cache-Control", "no-store");
+                    exchange.sendResponseHeaders(200, 0);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write("first\n".getBytes());
+                        out.flush();
+                        // The rest only follows once the client has read the first line
+                        release.await(10, TimeUnit.SECONDS);
+                        out.write("second\n".getBytes());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                })
+                .start();
+    }
+
+    private void respond(HttpExchange exchange, String header, String value, String body) throws IOException {
+        upstream.incrementAndGet();
+        if (exchange.getRequestMethod().equals("POST")) {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = body.getBytes();
+        exchange.getResponseHeaders().set(header, value);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private CachingHttpClient.Builder cache() {
+        return CachingHttpClient.newBuilder(HttpClient.newHttpClient()).clock(clock);
+    }
+
+    private static String get(HttpClient client, LocalHttpServer server, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(server.uri(path)).build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return response.body();
+    }
+
+    @Test
+    public void testFreshEntryServedUntilMaxAge() throws Exception {
+        try (LocalHttpServer server = startServer()) {
+            CachingHttpClient client = cache().build();
+            for (int i = 0; i < 3; i++) {
+                assertEquals("fresh", get(client, server, "/fresh"));
+            }
+            assertEquals(1, upstream.get());
+            assertEquals(2, client.metrics().getHits());
+
+            clock.advance(Duration.ofSeconds(61));
+            assertEquals("fresh", get(client, server, "/fresh"));
+            assertEquals(2, upstream.get());
+            assertEquals(2, client.metrics().getMisses());
+        }
+    }
+
+    @Test
+    public void testRevalidatesWithETag() throws Exception {
+        try (LocalHttpServer server = startServer()) {
+            CachingHttpClient client = cache().build();
+            assertEquals("tagged", get(client, server, "/etag"));
+            assertEquals("tagged", get(client, server, "/etag"));
+            assertEquals("tagged", get(client, server, "/etag"));
+
+            assertEquals(3, upstream.get());
+            assertEquals(2, notModified.get());
+            assertEquals(2, client.metrics().getRevalidations());
+            assertEquals(0, client.metrics().getHits());
+        }
+    }
+
+    @Test
+    public void testCoalescesConcurrentRequests() throws Exception {
+        try (LocalHttpServer server = startServer()) {
+            CachingHttpClient client = cache().build();
+            HttpRequest request = HttpRequest.newBuilder(server.uri("/slow")).build();
+            List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> future : futures) {
+                assertEquals("slow", future.join().body());
+            }
+            assertEquals(1, upstream.get());
+            assertEquals(4, client.metrics().getCoalesced());
+        }
+    }
+
+    @Test
+    public void testDiskTierSurvivesNewClient() throws Exception {
+        Path directory = tempDir.resolve("cache");
+        try (LocalHttpServer server = startServer()) {
+            assertEquals("fresh", get(cache().diskCache(directory, 1024 * 1024).build(), server, "/fresh"));
+
+            CachingHttpClient restarted = cache().diskCache(directory, 1024 * 1024).build();
+            assertEquals("fresh", get(restarted, server, "/fresh"));
+            assertEquals(1, upstream.get());
+            assertEquals(1, restarted.metrics().getDiskHits());
+        }
+    }
+
+    @Test
+    public void testFailedDiskWriteLeavesNoTempFile() throws Exception {
+        Path directory = tempDir.resolve("cache");
+        try (LocalHttpServer server = startServer()) {
+            assertEquals("padded", get(cache().diskCache(directory, 1024 * 1024).build(), server, "/huge-header"));
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(List.of(), files.collect(Collectors.toList()));
+            }
+        }
+    }
+
+    @Test
+    public void testTempFilesAreNotCountedOrTrimmed() throws Exception {
+        Path directory = Files.createDirectories(tempDir.resolve("cache"));
+        // Stands in for another writer's file that hasn't been moved into place yet
+        Path inFlight = Files.write(directory.resolve("other.tmp"), new byte[100_000]);
+        try (LocalHttpServer server = startServer()) {
+            assertEquals("fresh", get(cache().diskCache(directory, 1024).build(), server, "/fresh"));
+            assertTrue(Files.exists(inFlight));
+
+            CachingHttpClient restarted = cache().diskCache(directory, 1024).build();
+            assertEquals("fresh", get(restarted, server, "/fresh"));
+            assertEquals(1, restarted.metrics().getDiskHits());
+            assertTrue(Files.exists(inFlight));
+        }
+    }
+
+    @Test
+    public void testNoStoreAndUnsafeMethods() throws Exception {
+        try (LocalHttpServer server = startServer()) {
+            CachingHttpClient client = cache().build();
+            get(client, server, "/private");
+            get(client, server, "/private");
+            assertEquals(2, upstream.get());
+            assertEquals(2, client.metrics().getUncacheable());
+
+            get(client, server, "/fresh");
+            HttpRequest post = HttpRequest.newBuilder(server.uri("/fresh"))
+                    .POST(HttpRequest.BodyPublishers.ofString("x"))
+                    .build();
+            assertEquals(204, client.send(post, HttpResponse.BodyHandlers.discarding()).statusCode());
+            get(client, server, "/fresh");
+            assertEquals(5, upstream.get());
+            assertEquals(0, client.metrics().getHits());
+        }
+    }
+
+    @Test
+    public void testUncacheableResponsesStream() throws Exception {
+        try (LocalHttpServer server = startServer()) {
+            CachingHttpClient client = cache().build();
+            HttpRequest request = HttpRequest.newBuilder(server.uri("/stream")).build();
+            // Buffering the body would wait for the release that only happens below
+            HttpResponse<InputStream> response = client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                    .get(5, TimeUnit.SECONDS);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body()))) {
+                assertEquals("first", reader.readLine());
+                release.countDown();
+                assertEquals("second", reader.readLine());
+            }
+            assertEquals(1, client.metrics().getUncacheable());
+        }
+    }
+
+    @Test
+    public void testSendKeepsExceptionType() {
+        CachingHttpClient client = cache().build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:1/")).build();
+        assertThrows(ConnectException.class, () -> client.send(request, HttpResponse.BodyHandlers.ofString()));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        try (LocalHttpServer server = startServer()) {
+            CachingHttpClient client = cache().maxMemoryBytes(300).build();
+            get(client, server, "/fresh");
+            get(client, server, "/slow");
+            assertTrue(client.memoryBytes() <= 300);
+            assertTrue(client.metrics().getEvictions() > 0);
+
+            get(client, server, "/slow");
+            assertEquals(1, client.metrics().getHits());
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.java11.httpclient;
+
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies streaming JSON body handlers against a local server
+ */
+public class JsonBodyHandlersTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final CountDownLatch firstElementSeen = new CountDownLatch(1);
+    private LocalHttpServer server;
+    private HttpClient client;
+
+    public static class Item {
+        public int id;
+        public String name;
+        public List<String> tags;
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = LocalHttpServer.http()
+                .handle("/items", exchange -> {
+                    exchange.sendResponseHeaders(200, 0);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write("{\"count\":3,\"meta\":[1,2],\"items\":[{\"id\":1,\"name\":\"first\",\"tags\":[\"a\"]}"
+                                .getBytes(StandardCharsets.UTF_8));
+                        out.flush();
+                        // Hold back the rest of the body until the client has bound the first element
+                        if (exchange.getRequestURI().getQuery() != null) {
+                            firstElementSeen.await(10, TimeUnit.SECONDS);
+                        }
+                        out.write(",{\"id\":2,\"name\":\"sëcond\",\"tags\":[]},{\"id\":3,\"name\":null}]}"
+                                .getBytes(StandardCharsets.UTF_8));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                })
+                .start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testElementsArriveBeforeBodyCompletes() throws Exception {
+        List<Item> items = new ArrayList<>();
+        HttpRequest request = HttpRequest.newBuilder(server.uri("/items?hold")).build();
+        HttpResponse<JsonBodyHandlers.Summary> response = client.send(request,
+                JsonBodyHandlers.ofElements(MAPPER, "/items", Item.class, item -> {
+                    items.add(item);
+                    firstElementSeen.countDown();
+                }));
+
+        assertEquals(3, items.size());
+        assertEquals("sëcond", items.get(1).name);
+        assertEquals(List.of("a"), items.get(0).tags);
+        assertNull(items.get(2).name);
+        JsonBodyHandlers.Summary summary = response.body();
+        assertEquals(3, summary.getElements());
+        assertTrue(summary.getTimeToFirstElementNanos() >= 0);
+        assertTrue(summary.getTimeToFirstElementNanos() <= summary.getTotalNanos());
+    }
+
+    @Test
+    public void testObjectAndTokens() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(server.uri("/items")).build();
+        JsonNode node = client.send(request, JsonBodyHandlers.ofObject(MAPPER, JsonNode.class)).body();
+        assertEquals(3, node.get("count").asInt());
+        assertEquals(3, node.get("items").size());
+
+        List<String> fieldNames = new ArrayList<>();
+        client.send(request, JsonBodyHandlers.ofTokens(MAPPER, (token, parser) -> {
+            if (token == JsonToken.FIELD_NAME && parser.getParsingContext().getParent().inRoot()) {
+                fieldNames.add(parser.getCurrentName());
+            }
+        }));
+        assertEquals(List.of("count", "meta", "items"), fieldNames);
+    }
+}
@@ -0,0 +1,175 @@
+package com.java11.httpclient;
+
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies HttpClientFactory clients and their metrics against a local server
+ */
+public class MeteredHttpClientTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static LocalHttpServer withHandlers(LocalHttpServer server) {
+        return server
+                .handle("/get", exchange -> {
+                    byte[] body = "{\"ok\":true}".getBytes();
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                })
+                .handle("/slow", exchange -> {
+                    try {
+                        Thread.sleep(2000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    exchange.sendResponseHeaders(204, -1);
+                    exchange.close();
+                })
+                .start();
+    }
+
+    @Test
+    public void testRecordsLatencyAndVersions() throws Exception {
+        try (LocalHttpServer server = withHandlers(LocalHttpServer.http());
+             MeteredHttpClient client = HttpClientFactory.newBuilder().maxThreads(2).build()) {
+            HttpRequest request = HttpRequest.newBuilder(server.uri("/get")).build();
+            for (int i = 0; i < 5; i++) {
+                assertEquals(200, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+            }
+            List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+            HttpClientMetrics metrics = client.metrics();
+            assertEquals(10, metrics.getRequests());
+            assertEquals(10, metrics.getHttp1Responses());
+            assertEquals(0, metrics.getFailures());
+            assertEquals(0, metrics.getInFlight());
+            assertEquals(10, metrics.getLatency().getCount());
+            assertTrue(metrics.getLatency().getPercentileMicros(99) > 0);
+        }
+    }
+
+    @Test
+    public void testDefaultRequestTimeout() throws Exception {
+        try (LocalHttpServer server = withHandlers(LocalHttpServer.http());
+             MeteredHttpClient client = HttpClientFactory.newBuilder()
+                     .requestTimeout(Duration.ofMillis(200))
+                     .build()) {
+            HttpRequest request = HttpRequest.newBuilder(server.uri("/slow")).header("X-Test", "1").build();
+            assertThrows(HttpTimeoutException.class, () -> client.send(request, HttpResponse.BodyHandlers.discarding()));
+            assertEquals(1, client.metrics().getFailures());
+
+            HttpRequest timed = client.withDefaultTimeout(request);
+            assertEquals(Duration.ofMillis(200), timed.timeout().orElseThrow());
+            assertEquals(List.of("1"), timed.headers().allValues("X-Test"));
+        }
+    }
+
+    @Test
+    public void testReusesTlsConnection() throws Exception {
+        try (LocalHttpServer server = withHandlers(LocalHttpServer.https(tempDir));
+             MeteredHttpClient client = HttpClientFactory.newBuilder()
+                     .sslContext(server.clientContext())
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .build()) {
+            HttpRequest request = HttpRequest.newBuilder(server.uri("/get")).build();
+            for (int i = 0; i < 5; i++) {
+                assertEquals(200, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+            }
+            assertEquals(1, client.metrics().getConnectionsOpened());
+        }
+    }
+
+    @Test
+    public void testHttp2OverCleartext() throws Exception {
+        Server server = new Server();
+        HttpConfiguration config = new HttpConfiguration();
+        // HTTP/1.1 for the first request, which asks to upgrade the connection to h2c
+        ServerConnector connector = new ServerConnector(server,
+                new HttpConnectionFactory(config), new HTTP2CServerConnectionFactory(config));
+        connector.setHost("127.0.0.1");
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request,
+                               HttpServletResponse response) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                response.setStatus(204);
+                baseRequest.setHandled(true);
+            }
+        });
+        server.start();
+        try (MeteredHttpClient client = HttpClientFactory.newBuilder().maxThreads(2).build()) {
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create("http://127.0.0.1:" + connector.getLocalPort() + "/")).build();
+            HttpResponse<Void> upgraded = client.send(request, HttpResponse.BodyHandlers.discarding());
+            assertEquals(HttpClient.Version.HTTP_2, upgraded.version());
+
+            List<CompletableFuture<HttpResponse<Void>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+            }
+            for (CompletableFuture<HttpResponse<Void>> future : futures) {
+                assertEquals(HttpClient.Version.HTTP_2, future.join().version());
+            }
+
+            HttpClientMetrics metrics = client.metrics();
+            assertEquals(5, metrics.getHttp2Responses());
+            assertEquals(0, metrics.getHttp1Responses());
+            assertTrue(metrics.getOverlappingHttp2Responses() >= 1, metrics.toString());
+            assertTrue(metrics.getPeakInFlight() >= 2);
+            // Cleartext connections aren't counted
+            assertEquals(0, metrics.getConnectionsOpened());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMaxMicros());
+        long p50 = histogram.getPercentileMicros(50);
+        assertTrue(p50 >= 500 && p50 <= 500 * 1.125, "p50=" + p50);
+        long p99 = histogram.getPercentileMicros(99);
+        assertTrue(p99 >= 990 && p99 <= 1000, "p99=" + p99);
+    }
+}
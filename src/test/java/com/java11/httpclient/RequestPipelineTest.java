@@ -0,0 +1,282 @@
+package com.java11.httpclient;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies RequestPipeline concurrency limits, ordering and retries against a local server
+ */
+public class RequestPipelineTest {
+
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private final AtomicInteger flakyCalls = new AtomicInteger();
+    private LocalHttpServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = LocalHttpServer.http()
+                .handle("/delay", exchange -> {
+                    maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                    try {
+                        // Later requests finish first, so completion order differs from request order
+                        String query = exchange.getRequestURI().getQuery();
+                        Thread.sleep(20 - Integer.parseInt(query) % 20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        concurrent.decrementAndGet();
+                    }
+                    exchange.sendResponseHeaders(200, -1);
+                    exchange.close();
+                })
+                .handle("/flaky", exchange -> {
+                    // Every other call fails with 503
+                    exchange.sendResponseHeaders(flakyCalls.incrementAndGet() % 2 == 1 ? 503 : 200, -1);
+                    exchange.close();
+                })
+                .start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    private List<HttpRequest> requests(String path, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> HttpRequest.newBuilder(server.uri(path + "?" + i)).build())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testBoundsConcurrencyAndKeepsOrder() throws Exception {
+        RequestPipeline<Void> pipeline = RequestPipeline.newBuilder(client, HttpResponse.BodyHandlers.discarding())
+                .maxInFlight(4)
+                .ordered(true)
+                .build();
+        List<Long> indexes = Collections.synchronizedList(new ArrayList<>());
+        pipeline.forEach(requests("/delay", 60).iterator(), result -> {
+            assertTrue(result.isSuccess(), result::toString);
+            indexes.add(result.getIndex());
+        }).get(30, TimeUnit.SECONDS);
+
+        assertEquals(expectedIndexes(60), indexes);
+        assertTrue(maxConcurrent.get() <= 4, "max concurrent " + maxConcurrent.get());
+        assertEquals(60, pipeline.latency().getCount());
+    }
+
+    @Test
+    public void testRetriesWithBackoff() throws Exception {
+        RequestPipeline<Void> pipeline = RequestPipeline.newBuilder(client, HttpResponse.BodyHandlers.discarding())
+                .maxInFlight(1)
+                .maxRetries(3)
+                .backoff(Duration.ofMillis(1), Duration.ofMillis(10))
+                .build();
+        List<RequestPipeline.Result<Void>> results = new CopyOnWriteArrayList<>();
+        pipeline.forEach(requests("/flaky", 10).iterator(), results::add).get(30, TimeUnit.SECONDS);
+
+        assertEquals(10, results.size());
+        for (RequestPipeline.Result<Void> result : results) {
+            assertEquals(200, result.getResponse().statusCode());
+            assertEquals(2, result.getAttempts());
+        }
+    }
+
+    @Test
+    public void testPublisherSourceAndDownstreamDemand() throws Exception {
+        RequestPipeline<Void> pipeline = RequestPipeline.newBuilder(client, HttpResponse.BodyHandlers.discarding())
+                .maxInFlight(3)
+                .build();
+        CompletableFuture<List<Long>> done = new CompletableFuture<>();
+        List<Long> indexes = new CopyOnWriteArrayList<>();
+
+        try (SubmissionPublisher<HttpRequest> source = new SubmissionPublisher<>()) {
+            pipeline.process(source).subscribe(new Flow.Subscriber<RequestPipeline.Result<Void>>() {
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(RequestPipeline.Result<Void> item) {
+                    indexes.add(item.getIndex());
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    done.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    done.complete(indexes);
+                }
+            });
+            requests("/delay", 30).forEach(source::submit);
+        }
+
+        List<Long> received = done.get(30, TimeUnit.SECONDS);
+        assertEquals(30, received.size());
+        assertEquals(expectedIndexes(30), received.stream().sorted().collect(Collectors.toList()));
+        assertTrue(maxConcurrent.get() <= 3, "max concurrent " + maxConcurrent.get());
+    }
+
+    private static List<Long> expectedIndexes(int count) {
+        return IntStream.range(0, count).mapToObj(Long::valueOf).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSynchronousSendFailureBecomesResult() throws Exception {
+        // The third request is rejected by sendAsync() itself
+        HttpClient rejecting = new RejectingClient(client, request -> request.uri().getQuery().equals("2"));
+        RequestPipeline<Void> pipeline = RequestPipeline.newBuilder(rejecting, HttpResponse.BodyHandlers.discarding())
+                .maxInFlight(2)
+                .ordered(true)
+                .build();
+        List<RequestPipeline.Result<Void>> results = new CopyOnWriteArrayList<>();
+        pipeline.forEach(requests("/delay", 6).iterator(), results::add).get(30, TimeUnit.SECONDS);
+
+        assertEquals(6, results.size());
+        assertEquals(1, results.stream().filter(result -> !result.isSuccess()).count());
+        RequestPipeline.Result<Void> failed = results.stream().filter(result -> !result.isSuccess()).findFirst().get();
+        assertTrue(failed.getError() instanceof IllegalStateException, failed::toString);
+        assertEquals(1, failed.getAttempts());
+    }
+
+    @Test
+    public void testSynchronousSendFailureOnRetryBecomesResult() throws Exception {
+        // Every response is retried, and sendAsync() itself rejects each retry
+        Set<URI> sent = ConcurrentHashMap.newKeySet();
+        HttpClient rejecting = new RejectingClient(client, request -> !sent.add(request.uri()));
+        RequestPipeline<Void> pipeline = RequestPipeline.newBuilder(rejecting, HttpResponse.BodyHandlers.discarding())
+                .maxInFlight(2)
+                .maxRetries(3)
+                .backoff(Duration.ofMillis(1), Duration.ofMillis(10))
+                .retryOn(response -> true)
+                .build();
+        List<RequestPipeline.Result<Void>> results = new CopyOnWriteArrayList<>();
+        pipeline.forEach(requests("/delay", 4).iterator(), results::add).get(30, TimeUnit.SECONDS);
+
+        assertEquals(4, results.size());
+        for (RequestPipeline.Result<Void> result : results) {
+            assertTrue(result.getError() instanceof IllegalStateException, result::toString);
+            assertEquals(2, result.getAttempts());
+        }
+    }
+
+    /** Delegates to a real client but throws from sendAsync() for the selected requests */
+    private static final class RejectingClient extends HttpClient {
+        private final HttpClient delegate;
+        private final Predicate<HttpRequest> reject;
+
+        RejectingClient(HttpClient delegate, Predicate<HttpRequest> reject) {
+            this.delegate = delegate;
+            this.reject = reject;
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                HttpResponse.BodyHandler<T> handler) {
+            if (reject.test(request)) {
+                throw new IllegalStateException("Rejected " + request.uri());
+            }
+            return delegate.sendAsync(request, handler);
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                HttpResponse.BodyHandler<T> handler,
+                                                                HttpResponse.PushPromiseHandler<T> pushHandler) {
+            return sendAsync(request, handler);
+        }
+
+        @Override
+        public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+                throws IOException, InterruptedException {
+            return delegate.send(request, handler);
+        }
+
+        @Override
+        public Optional<CookieHandler> cookieHandler() {
+            return delegate.cookieHandler();
+        }
+
+        @Override
+        public Optional<Duration> connectTimeout() {
+            return delegate.connectTimeout();
+        }
+
+        @Override
+        public Redirect followRedirects() {
+            return delegate.followRedirects();
+        }
+
+        @Override
+        public Optional<ProxySelector> proxy() {
+            return delegate.proxy();
+        }
+
+        @Override
+        public SSLContext sslContext() {
+            return delegate.sslContext();
+        }
+
+        @Override
+        public SSLParameters sslParameters() {
+            return delegate.sslParameters();
+        }
+
+        @Override
+        public Optional<Authenticator> authenticator() {
+            return delegate.authenticator();
+        }
+
+        @Override
+        public Version version() {
+            return delegate.version();
+        }
+
+        @Override
+        public Optional<Executor> executor() {
+            return delegate.executor();
+        }
+    }
+}
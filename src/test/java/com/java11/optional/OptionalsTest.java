@@ -0,0 +1,112 @@
+package com.java11.optional;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies Optionals, Maybe, MaybeInt and MaybeLong behave like the Optional methods they replace
+ */
+public class OptionalsTest {
+
+    private static List<Optional<String>> sample(int size) {
+        List<Optional<String>> optionals = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            optionals.add(i % 3 == 0 ? Optional.empty() : Optional.of("value-" + i));
+        }
+        return optionals;
+    }
+
+    @Test
+    public void testFlatteningMatchesFilterMap() {
+        List<Optional<String>> optionals = sample(10_000);
+        List<String> expected = optionals.stream().filter(Optional::isPresent).map(Optional::get)
+                .collect(Collectors.toList());
+
+        assertEquals(expected, optionals.stream().collect(Optionals.flattening(Collectors.toList())));
+        assertEquals(expected, optionals.parallelStream().collect(Optionals.flattening(Collectors.toList())));
+        assertEquals(expected.size(), optionals.stream().collect(Optionals.flattening(Collectors.counting())));
+        assertEquals(expected, Optionals.present(optionals).collect(Collectors.toList()));
+        assertEquals(expected, Optionals.present(optionals.parallelStream()).collect(Collectors.toList()));
+        assertEquals(List.of(), Optionals.present(List.<Optional<String>>of(Optional.empty())).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testPresentSpliterator() {
+        List<Optional<String>> optionals = sample(10);
+        Spliterator<String> spliterator = Optionals.presentSpliterator(optionals.spliterator());
+        assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED | Spliterator.NONNULL));
+        assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(10, spliterator.estimateSize());
+
+        List<String> seen = new ArrayList<>();
+        assertTrue(spliterator.tryAdvance(seen::add));
+        assertEquals(List.of("value-1"), seen);
+        spliterator.forEachRemaining(seen::add);
+        assertEquals(6, seen.size());
+        assertFalse(spliterator.tryAdvance(seen::add));
+
+        boolean[] closed = {false};
+        Optionals.present(Stream.of(Optional.of(1)).onClose(() -> closed[0] = true)).close();
+        assertTrue(closed[0]);
+    }
+
+    @Test
+    public void testMaybe() {
+        Maybe<String> present = Maybe.of("john.doe@example.com");
+        Maybe<String> empty = Maybe.ofNullable(null);
+        assertTrue(present.isPresent());
+        assertTrue(empty.isEmpty());
+        assertEquals(20, present.mapToInt(String::length).getAsInt());
+        assertEquals("fallback", empty.map(String::toUpperCase).orElse("fallback"));
+        assertTrue(present.filter(String::isBlank).isEmpty());
+        assertEquals(Optional.of("john.doe@example.com"), present.toOptional());
+        assertEquals(present, Maybe.fromOptional(Optional.of("john.doe@example.com")));
+        assertEquals(Maybe.empty(), empty);
+        assertEquals("x", present.flatMap(email -> Maybe.of("x")).get());
+        assertThrows(NoSuchElementException.class, empty::get);
+        assertThrows(NullPointerException.class, () -> Maybe.of(null));
+    }
+
+    @Test
+    public void testMaybeIntParseMatchesParseInt() {
+        String[] inputs = {"0", "8080", "-1", "+42", "2147483647", "-2147483648", "2147483648",
+                "-2147483649", "99999999999", "", "-", "+", "12a", " 1", "0x10", null};
+        for (String input : inputs) {
+            OptionalInt expected;
+            try {
+                expected = OptionalInt.of(Integer.parseInt(input));
+            } catch (NumberFormatException e) {
+                expected = OptionalInt.empty();
+            }
+            assertEquals(expected, MaybeInt.parse(input).toOptional(), input);
+        }
+        MaybeInt port = MaybeInt.parse("8080");
+        assertEquals(8081, port.map(p -> p + 1).getAsInt());
+        assertTrue(port.filter(p -> p < 1024).isEmpty());
+        assertEquals(-1, MaybeInt.empty().orElse(-1));
+        assertEquals(MaybeInt.of(Integer.MIN_VALUE), MaybeInt.fromOptional(OptionalInt.of(Integer.MIN_VALUE)));
+        assertNotEquals(MaybeInt.empty(), MaybeInt.of(0));
+    }
+
+    @Test
+    public void testMaybeLong() {
+        MaybeLong min = MaybeLong.of(Long.MIN_VALUE);
+        assertTrue(min.isPresent());
+        assertEquals(Long.MIN_VALUE, min.getAsLong());
+        assertEquals(OptionalLong.empty(), MaybeLong.empty().map(v -> v + 1).toOptional());
+        assertEquals(MaybeLong.empty(), MaybeLong.of(5).filter(v -> v > 5));
+        assertNotEquals(MaybeLong.empty(), MaybeLong.of(0));
+        assertEquals(3, MaybeLong.fromOptional(OptionalLong.of(3)).orElse(0));
+    }
+}
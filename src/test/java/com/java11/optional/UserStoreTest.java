@@ -0,0 +1,139 @@
+package com.java11.optional;
+
+import com.java11.optional.OptionalEnhancementsExample.User;
+import com.java11.optional.UserRule.Field;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies UserStore reads back what it was built from, in memory and through a file
+ */
+public class UserStoreTest {
+
+    private static List<User> users(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String email = i % 7 == 0 ? null : i % 11 == 0 ? "" : "user" + i + (i % 2 == 0 ? "@example.com" : "@mail.org");
+            String name = i % 13 == 0 ? "Zoë Ünal " + i : "User " + i;
+            users.add(new User(email, name));
+        }
+        return users;
+    }
+
+    private static void assertSameUsers(List<User> expected, UserStore store) {
+        assertEquals(expected.size(), store.size());
+        UserStore.Cursor cursor = store.cursor();
+        byte[] scratch = new byte[64];
+        for (int i = 0; i < expected.size(); i++) {
+            User user = expected.get(i);
+            cursor.moveTo(i);
+            assertEquals(user.getEmail(), store.getString(i, Field.EMAIL));
+            assertEquals(user.getName(), cursor.getString(Field.NAME));
+            assertEquals(user.getEmail() == null, cursor.isNull(Field.EMAIL));
+            byte[] name = user.getName().getBytes(StandardCharsets.UTF_8);
+            assertEquals(name.length, cursor.length(Field.NAME));
+            assertEquals(name.length, cursor.copyTo(Field.NAME, scratch, 1));
+            assertArrayEquals(name, Arrays.copyOfRange(scratch, 1, 1 + name.length));
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        List<User> users = users(5_000);
+        assertSameUsers(users, UserStore.of(users));
+        assertEquals(0, UserStore.newBuilder(0).build().size());
+
+        UserStore.Cursor unpositioned = UserStore.of(users).cursor();
+        assertEquals(-1, unpositioned.getRecord());
+        assertThrows(IllegalStateException.class, () -> unpositioned.length(Field.NAME));
+        assertThrows(IllegalStateException.class, () -> unpositioned.isNull(Field.EMAIL));
+        assertThrows(IllegalStateException.class, () -> unpositioned.matches(Field.EMAIL, (bytes, start, end) -> true));
+    }
+
+    @Test
+    public void testScans() {
+        List<User> users = users(1_000);
+        UserStore store = UserStore.of(users);
+
+        BitSet example = store.filter(Field.EMAIL, UserStore.Utf8Predicate.endsWith("@example.com"));
+        BitSet missing = store.filterNull(Field.EMAIL);
+        for (int i = 0; i < users.size(); i++) {
+            String email = users.get(i).getEmail();
+            assertEquals(email != null && email.endsWith("@example.com"), example.get(i));
+            assertEquals(email == null, missing.get(i));
+        }
+        BitSet exact = store.filter(Field.NAME, UserStore.Utf8Predicate.equalTo("Zoë Ünal 13"));
+        assertEquals(BitSet.valueOf(new long[]{1L << 13}), exact);
+
+        List<String> projected = new ArrayList<>();
+        store.forEach(Field.EMAIL, example, (record, bytes, start, end) ->
+                projected.add(new String(bytes, start, end - start, StandardCharsets.UTF_8)));
+        assertEquals(example.cardinality(), projected.size());
+        assertEquals("user2@example.com", projected.get(0));
+
+        UserStore selected = store.select(example);
+        List<User> expected = new ArrayList<>();
+        example.stream().forEach(i -> expected.add(users.get(i)));
+        assertSameUsers(expected, selected);
+        assertTrue(store.cursor().moveTo(2).matches(Field.EMAIL, UserStore.Utf8Predicate.equalTo("user2@example.com")));
+        assertFalse(store.cursor().moveTo(7).matches(Field.EMAIL, (bytes, start, end) -> true));
+    }
+
+    @Test
+    public void testFileRoundTrip(@TempDir Path directory) throws IOException {
+        List<User> users = users(50_000);
+        Path file = directory.resolve("users.store");
+        UserStore.of(users).write(file);
+        assertSameUsers(users, UserStore.read(file));
+
+        // Overwriting leaves no temporary files behind
+        UserStore.of(users.subList(0, 10)).write(file);
+        assertSameUsers(users.subList(0, 10), UserStore.read(file));
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+        assertThrows(IOException.class, () -> UserStore.read(file));
+        // A record count the file can't hold is rejected before anything is allocated
+        ByteBuffer.wrap(bytes).putInt(12, Integer.MAX_VALUE);
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> UserStore.read(file));
+        // So is a last offset promising more value bytes than the file holds
+        UserStore.of(users.subList(0, 10)).write(file);
+        bytes = Files.readAllBytes(file);
+        // Header, then the email column's single null-bit word and 11 offsets; the last one is the value length
+        ByteBuffer.wrap(bytes).putInt(16 + 8 + 10 * 4, Integer.MAX_VALUE - 8);
+        Files.write(file, bytes);
+        IOException corrupt = assertThrows(IOException.class, () -> UserStore.read(file));
+        assertTrue(corrupt.getMessage().startsWith("Corrupt user store"), corrupt.getMessage());
+        Files.writeString(file, "not a store at all");
+        assertThrows(IOException.class, () -> UserStore.read(file));
+    }
+
+    @Test
+    public void testHeapFootprint() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            users.add(new User("user" + i + "@example.com", "User Number " + i));
+        }
+        UserStore store = UserStore.of(users);
+        long listBytes = GraphLayout.parseInstance(users).totalSize();
+        long storeBytes = GraphLayout.parseInstance(store).totalSize();
+        assertTrue(storeBytes * 3 <= listBytes, storeBytes + " vs " + listBytes);
+    }
+}
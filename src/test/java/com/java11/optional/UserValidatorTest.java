@@ -0,0 +1,114 @@
+package com.java11.optional;
+
+import com.java11.optional.OptionalEnhancementsExample.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies UserValidator's bitsets match checking each User on its own
+ */
+public class UserValidatorTest {
+
+    private static final String[] EMAILS = {
+            "john.doe@example.com", "", "   ", null, "no-at-sign.com", "two@@example.com", "a@b",
+            "@example.com", "user@example.", "with space@example.com", "x@y.io"};
+    private static final String[] NAMES = {"John Doe", "", null, "Jane", " \t"};
+
+    private static List<User> randomUsers(int count) {
+        Random random = new Random(17);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(new User(EMAILS[random.nextInt(EMAILS.length)], NAMES[random.nextInt(NAMES.length)]));
+        }
+        return users;
+    }
+
+    /** The per-record checks the rules replace */
+    private static boolean[] expected(User user) {
+        String email = user.getEmail();
+        String name = user.getName();
+        return new boolean[]{
+                email == null,
+                email != null && email.trim().isEmpty(),
+                email != null && !email.matches("[^@\\s]+@[^@\\s]+\\.[^@\\s.]+"),
+                name == null,
+                name != null && name.isBlank()};
+    }
+
+    @Test
+    public void testMatchesPerRecordChecks() {
+        List<User> users = randomUsers(20_000);
+        UserBatch batch = UserBatch.of(users);
+        UserValidator validator = new UserValidator(UserValidator.standard().getRules(), 128);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ValidationResult parallel = validator.validate(batch, pool);
+            ValidationResult sequential = validator.validateSequential(batch);
+            int valid = 0;
+            for (int i = 0; i < users.size(); i++) {
+                boolean[] expected = expected(users.get(i));
+                boolean anyFailure = false;
+                for (int rule = 0; rule < expected.length; rule++) {
+                    assertEquals(expected[rule], parallel.isFailure(rule, i), "record " + i + " rule " + rule);
+                    assertEquals(expected[rule], sequential.isFailure(rule, i));
+                    anyFailure |= expected[rule];
+                }
+                valid += anyFailure ? 0 : 1;
+            }
+            assertEquals(valid, parallel.getValidCount());
+            for (int rule = 0; rule < validator.getRules().size(); rule++) {
+                assertEquals(sequential.getFailures(rule), parallel.getFailures(rule));
+                assertEquals(parallel.getFailures(rule).cardinality(), parallel.getFailureCount(rule));
+            }
+            assertTrue(parallel.getRecordsPerSecond() > 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testBatchSizesAroundWordBoundaries() {
+        UserValidator validator = new UserValidator(List.of(UserRule.notNull(UserRule.Field.EMAIL)), 64);
+        for (int size : new int[]{0, 1, 63, 64, 65, 127, 128, 129, 1000}) {
+            UserBatch.Builder builder = UserBatch.newBuilder(0);
+            BitSet expected = new BitSet();
+            for (int i = 0; i < size; i++) {
+                boolean missing = i % 7 == 3 || i == size - 1;
+                builder.add(missing ? null : "u" + i + "@example.com", "User " + i);
+                if (missing) {
+                    expected.set(i);
+                }
+            }
+            ValidationResult result = validator.validate(builder.build());
+            assertEquals(expected, result.getFailures(0), "size " + size);
+            assertEquals(size, result.getRecordCount());
+        }
+    }
+
+    @Test
+    public void testCustomRules() {
+        UserBatch batch = UserBatch.newBuilder().add("ADMIN@example.com", "Root").add(null, "guest").build();
+        UserValidator validator = UserValidator.of(
+                UserRule.matches("lowercase email", UserRule.Field.EMAIL, Pattern.compile("[^A-Z]*")),
+                UserRule.of("capitalized name", UserRule.Field.NAME, name -> Character.isUpperCase(name.charAt(0))));
+        ValidationResult result = validator.validate(batch);
+        assertTrue(result.isFailure(0, 0));
+        // Null values are left to notNull rules
+        assertFalse(result.isFailure(0, 1));
+        assertFalse(result.isFailure(1, 0));
+        assertTrue(result.isFailure(1, 1));
+        assertEquals("guest", batch.getName(1));
+        assertTrue(result.toString().contains("lowercase email=1"));
+        assertThrows(IllegalArgumentException.class, () -> UserValidator.of());
+        assertThrows(IllegalArgumentException.class, () -> new UserValidator(validator.getRules(), 100));
+    }
+}
@@ -0,0 +1,145 @@
+package com.java11.process;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies ProcessRunner line delivery, backpressure and completion
+ */
+public class ProcessRunnerTest {
+
+    private static ProcessBuilder sh(String script) {
+        return new ProcessBuilder("sh", "-c", script);
+    }
+
+    @Test
+    public void testSeparatesStdoutAndStderr() throws Exception {
+        try (ProcessRunner runner = ProcessRunner.newBuilder().threads(1).build()) {
+            List<String> stdout = new CopyOnWriteArrayList<>();
+            List<String> stderr = new CopyOnWriteArrayList<>();
+            ProcessRunner.Execution execution = runner.start(
+                    sh("echo one; echo oops >&2; printf 'two\\r\\nthree'; exit 3"), stdout::add, stderr::add);
+
+            assertEquals(3, execution.onExit().get(10, TimeUnit.SECONDS));
+            assertEquals(List.of("one", "two", "three"), stdout);
+            assertEquals(List.of("oops"), stderr);
+        }
+    }
+
+    @Test
+    public void testChattyProcessesDoNotDeadlock() throws Exception {
+        try (ProcessRunner runner = ProcessRunner.newBuilder().threads(1).virtualThreads(false).build()) {
+            List<AtomicInteger> counts = new ArrayList<>();
+            List<CompletableFuture<Integer>> exits = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                AtomicInteger count = new AtomicInteger();
+                counts.add(count);
+                // Both streams exceed the 64 KB pipe buffer
+                exits.add(runner.start(sh("seq 1 20000; seq 1 20000 >&2"),
+                        (output, line) -> count.incrementAndGet()).onExit());
+            }
+            for (int i = 0; i < exits.size(); i++) {
+                assertEquals(0, exits.get(i).get(30, TimeUnit.SECONDS));
+                assertEquals(40000, counts.get(i).get());
+            }
+        }
+    }
+
+    @Test
+    public void testSplitsLongLines() throws Exception {
+        try (ProcessRunner runner = ProcessRunner.newBuilder().maxLineLength(4).build()) {
+            List<String> lines = Collections.synchronizedList(new ArrayList<>());
+            runner.start(sh("echo abcdefghij"), (output, line) -> lines.add(line)).onExit().get(10, TimeUnit.SECONDS);
+            assertEquals(List.of("abcd", "efgh", "ij"), lines);
+        }
+    }
+
+    @Test
+    public void testListenerFailureCompletesExceptionally() throws Exception {
+        try (ProcessRunner runner = ProcessRunner.newBuilder().build()) {
+            CompletableFuture<Integer> exit = runner.start(sh("seq 1 100000"), (output, line) -> {
+                throw new IllegalStateException("boom");
+            }).onExit();
+            Exception e = assertThrows(Exception.class, () -> exit.get(30, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testPublisherDeliversInOrderWithBoundedBuffer() throws Exception {
+        try (ProcessRunner runner = ProcessRunner.newBuilder().bufferedLines(16).virtualThreads(false).build()) {
+            ProcessRunner.Execution execution = runner.start(sh("seq 1 5000"));
+            List<String> lines = new ArrayList<>();
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            execution.lines().subscribe(new Flow.Subscriber<>() {
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(ProcessRunner.Line item) {
+                    lines.add(item.getText());
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    done.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    done.complete(null);
+                }
+            });
+            done.get(30, TimeUnit.SECONDS);
+            assertEquals(0, execution.onExit().get(10, TimeUnit.SECONDS));
+            assertEquals(5000, lines.size());
+            assertEquals("1", lines.get(0));
+            assertEquals("5000", lines.get(4999));
+        }
+    }
+
+    @Test
+    public void testGrandchildHoldingPipeDoesNotBlockPump() throws Exception {
+        try (ProcessRunner runner = ProcessRunner.newBuilder().threads(1).virtualThreads(false).build()) {
+            List<String> stdout = new CopyOnWriteArrayList<>();
+            // The backgrounded sleep inherits stdout and keeps the pipe open after sh exits
+            ProcessRunner.Execution execution = runner.start(sh("sleep 5 & echo done"), stdout::add, line -> { });
+            assertEquals(0, execution.onExit().get(3, TimeUnit.SECONDS));
+            assertEquals(List.of("done"), stdout);
+
+            List<String> next = new CopyOnWriteArrayList<>();
+            ProcessRunner.Execution second = runner.start(sh("echo next"), next::add, line -> { });
+            assertEquals(0, second.onExit().get(3, TimeUnit.SECONDS));
+            assertEquals(List.of("next"), next);
+        }
+    }
+
+    @Test
+    public void testVirtualThreadsMatchRuntime() throws Exception {
+        boolean expected = Runtime.version().feature() >= 21;
+        assertEquals(expected, VirtualThreads.available());
+        try (ProcessRunner runner = ProcessRunner.newBuilder().build()) {
+            assertEquals(expected, runner.usesVirtualThreads());
+            List<String> stdout = new CopyOnWriteArrayList<>();
+            ProcessRunner.Execution execution = runner.start(sh("echo done"), stdout::add, line -> { });
+            assertEquals(0, execution.onExit().get(10, TimeUnit.SECONDS));
+            assertEquals(List.of("done"), stdout);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.java11.process;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Verifies ProcessSampler snapshots, deltas and caching of stable fields
+ */
+public class ProcessSamplerTest {
+
+    private static final long SELF = ProcessHandle.current().pid();
+
+    @Test
+    public void testSnapshotContainsCurrentProcess() {
+        try (ProcessSampler sampler = ProcessSampler.newBuilder().build()) {
+            ProcessSampler.Snapshot snapshot = sampler.sample();
+            ProcessSampler.ProcessInfo self = snapshot.get(SELF).orElseThrow();
+            assertTrue(self.getCommand().orElse("").contains("java"));
+            assertTrue(self.getStartInstant().isPresent());
+            assertTrue(self.getCpu().orElseThrow().toNanos() > 0);
+            assertSame(snapshot, sampler.latest());
+        }
+    }
+
+    @Test
+    public void testDeltaReportsStartedExitedAndCpu() throws Exception {
+        try (ProcessSampler sampler = ProcessSampler.newBuilder().build()) {
+            ProcessSampler.Snapshot first = sampler.sample();
+            Process child = new ProcessBuilder("sleep", "30").start();
+            try {
+                long spinUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+                while (System.nanoTime() < spinUntil) {
+                    Thread.onSpinWait();
+                }
+                ProcessSampler.Snapshot second = sampler.sample();
+                ProcessSampler.Delta delta = second.deltaFrom(first);
+                assertTrue(delta.getStarted().stream().anyMatch(p -> p.getPid() == child.pid()));
+                assertTrue(delta.getCpu(SELF).orElseThrow().compareTo(Duration.ofMillis(100)) > 0);
+                assertTrue(delta.getCpuPercent(SELF) > 0);
+
+                child.destroy();
+                child.onExit().get(10, TimeUnit.SECONDS);
+                ProcessSampler.Delta exited = sampler.sample().deltaFrom(second);
+                assertTrue(exited.getExited().stream().anyMatch(p -> p.getPid() == child.pid()));
+            } finally {
+                child.destroyForcibly();
+            }
+        }
+    }
+
+    @Test
+    public void testStableFieldsAreCached() {
+        try (ProcessSampler sampler = ProcessSampler.newBuilder().build()) {
+            assumeTrue(sampler.usesProc(), "/proc not available");
+            int processes = sampler.sample().getProcesses().size();
+            long lookups = sampler.getInfoLookups();
+            sampler.sample();
+            sampler.sample();
+            // Only processes started since the first sample need info()
+            assertTrue(sampler.getInfoLookups() - lookups < processes);
+        }
+    }
+
+    @Test
+    public void testScheduledSampling() throws Exception {
+        CompletableFuture<ProcessSampler.Snapshot> received = new CompletableFuture<>();
+        try (ProcessSampler sampler = ProcessSampler.newBuilder()
+                .interval(Duration.ofMillis(50))
+                .onSample(received::complete)
+                .build()) {
+            sampler.start();
+            assertTrue(received.get(10, TimeUnit.SECONDS).get(SELF).isPresent());
+        }
+    }
+
+    @Test
+    public void testScheduledFailuresGoToErrorListener() throws Exception {
+        CountDownLatch failures = new CountDownLatch(2);
+        try (ProcessSampler sampler = ProcessSampler.newBuilder()
+                .interval(Duration.ofMillis(20))
+                .onSample(snapshot -> {
+                    throw new IllegalStateException("listener broke");
+                })
+                .onError(e -> {
+                    assertEquals("listener broke", e.getMessage());
+                    failures.countDown();
+                })
+                .build()) {
+            sampler.start();
+            // A second failure shows the schedule survived the first
+            assertTrue(failures.await(5, TimeUnit.SECONDS));
+            assertTrue(sampler.getFailedSamples() >= 2);
+        }
+    }
+
+    @Test
+    public void testHandleFallbackMatchesProc() {
+        try (ProcessSampler sampler = ProcessSampler.newBuilder().useProc(false).build()) {
+            assertFalse(sampler.usesProc());
+            assertTrue(sampler.sample().get(SELF).isPresent());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.java11.process;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies ProcessSupervisor deadlines and destroy/destroyForcibly escalation
+ */
+public class ProcessSupervisorTest {
+
+    private static Process sh(String script) throws Exception {
+        return new ProcessBuilder("sh", "-c", script).start();
+    }
+
+    @Test
+    public void testCompletesBeforeDeadline() throws Exception {
+        try (ProcessSupervisor supervisor = ProcessSupervisor.newBuilder().build()) {
+            ProcessSupervisor.Supervised supervised = supervisor.supervise(sh("exit 0"), Duration.ofSeconds(10));
+            assertEquals(ProcessSupervisor.Outcome.COMPLETED, supervised.onExit().get(10, TimeUnit.SECONDS));
+            assertEquals(0, supervisor.getActive());
+            assertEquals(0, supervisor.getTerminated());
+        }
+    }
+
+    @Test
+    public void testDestroysAfterDeadline() throws Exception {
+        try (ProcessSupervisor supervisor = ProcessSupervisor.newBuilder().gracePeriod(Duration.ofSeconds(5)).build()) {
+            Process process = new ProcessBuilder("sleep", "30").start();
+            ProcessSupervisor.Supervised supervised = supervisor.supervise(process, Duration.ofMillis(200));
+            assertEquals(ProcessSupervisor.Outcome.TERMINATED, supervised.onExit().get(10, TimeUnit.SECONDS));
+            assertFalse(process.isAlive());
+            assertEquals(1, supervisor.getTerminated());
+            assertEquals(0, supervisor.getKilled());
+        }
+    }
+
+    @Test
+    public void testEscalatesToDestroyForcibly() throws Exception {
+        try (ProcessSupervisor supervisor = ProcessSupervisor.newBuilder().gracePeriod(Duration.ofMillis(300)).build()) {
+            // The shell ignores SIGTERM, so only SIGKILL ends it
+            Process process = sh("trap '' TERM; while :; do sleep 0.1; done");
+            Thread.sleep(200);
+            ProcessSupervisor.Supervised supervised = supervisor.supervise(process, Duration.ofSeconds(30));
+            supervised.terminate();
+            assertEquals(ProcessSupervisor.Outcome.KILLED, supervised.onExit().get(10, TimeUnit.SECONDS));
+            assertEquals(1, supervisor.getKilled());
+        }
+    }
+
+    @Test
+    public void testCancelLeavesProcessRunning() throws Exception {
+        try (ProcessSupervisor supervisor = ProcessSupervisor.newBuilder().build()) {
+            Process process = new ProcessBuilder("sleep", "30").start();
+            try {
+                ProcessSupervisor.Supervised supervised = supervisor.supervise(process, Duration.ofMillis(100));
+                supervised.cancel();
+                Thread.sleep(300);
+                assertTrue(process.isAlive());
+                process.destroy();
+                assertEquals(ProcessSupervisor.Outcome.COMPLETED, supervised.onExit().get(10, TimeUnit.SECONDS));
+            } finally {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    @Test
+    public void testManyProcessesShareOneThread() throws Exception {
+        try (ProcessSupervisor supervisor = ProcessSupervisor.newBuilder().build()) {
+            List<ProcessSupervisor.Supervised> all = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                all.add(supervisor.supervise(new ProcessBuilder("sleep", "30").start(), Duration.ofMillis(100 + i)));
+            }
+            for (ProcessSupervisor.Supervised supervised : all) {
+                assertEquals(ProcessSupervisor.Outcome.TERMINATED, supervised.onExit().get(10, TimeUnit.SECONDS));
+            }
+            long supervisorThreads = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().equals("process-supervisor"))
+                    .count();
+            assertEquals(1, supervisorThreads);
+            assertEquals(50, supervisor.getTerminated());
+        }
+    }
+}
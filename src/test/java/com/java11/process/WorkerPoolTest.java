@@ -0,0 +1,176 @@
+package com.java11.process;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies WorkerPool dispatch, recycling and crash recovery with real worker JVMs
+ */
+public class WorkerPoolTest {
+
+    /**
+     * Echoes, except for "fail" (throws), "exit" (kills the worker), "exit-later"
+     * (answers, then exits while idle), "hang" (never answers) and "garbage"
+     * (writes a frame header with a bogus length to stdout first)
+     */
+    public static class TestHandler implements WorkerProcess.Handler {
+        @Override
+        public byte[] handle(byte[] request) {
+            String text = new String(request, StandardCharsets.UTF_8);
+            if (text.equals("fail")) {
+                throw new IllegalArgumentException("bad job");
+            }
+            if (text.equals("exit")) {
+                System.exit(3);
+            }
+            if (text.equals("exit-later")) {
+                Thread exit = new Thread(() -> {
+                    sleep(200);
+                    System.exit(3);
+                });
+                exit.start();
+            }
+            if (text.equals("garbage")) {
+                try {
+                    // Status OK, then a length of Integer.MAX_VALUE
+                    OutputStream stdout = new FileOutputStream(FileDescriptor.out);
+                    stdout.write(new byte[]{0, 0, 0, 0, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+                    stdout.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            if (text.equals("hang")) {
+                sleep(Long.MAX_VALUE);
+            }
+            return ("echo:" + text).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String call(WorkerPool pool, String request) throws Exception {
+        byte[] response = pool.submit(request.getBytes(StandardCharsets.UTF_8)).get(30, TimeUnit.SECONDS);
+        return new String(response, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testDispatchesToWorkers() throws Exception {
+        try (WorkerPool pool = WorkerPool.newBuilder(WorkerPool.javaWorker(TestHandler.class)).workers(2).build()) {
+            List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(pool.submit(("job" + i).getBytes(StandardCharsets.UTF_8)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals("echo:job" + i, new String(futures.get(i).get(30, TimeUnit.SECONDS), StandardCharsets.UTF_8));
+            }
+            assertEquals(50, pool.metrics().getJobs());
+            assertEquals(2, pool.metrics().getWorkersStarted());
+            assertEquals(0, pool.metrics().getQueueDepth());
+        }
+    }
+
+    @Test
+    public void testRecyclesAfterMaxJobs() throws Exception {
+        try (WorkerPool pool = WorkerPool.newBuilder(WorkerPool.javaWorker(TestHandler.class))
+                .workers(1)
+                .maxJobsPerWorker(3)
+                .build()) {
+            for (int i = 0; i < 7; i++) {
+                assertEquals("echo:" + i, call(pool, Integer.toString(i)));
+            }
+            assertEquals(2, pool.metrics().getRecycled());
+            assertEquals(3, pool.metrics().getWorkersStarted());
+        }
+    }
+
+    @Test
+    public void testHandlerFailureKeepsWorker() throws Exception {
+        try (WorkerPool pool = WorkerPool.newBuilder(WorkerPool.javaWorker(TestHandler.class)).workers(1).build()) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> call(pool, "fail"));
+            assertTrue(e.getCause() instanceof WorkerPool.JobFailedException);
+            assertTrue(e.getCause().getMessage().contains("bad job"));
+            assertEquals("echo:ok", call(pool, "ok"));
+            assertEquals(1, pool.metrics().getWorkersStarted());
+            assertEquals(1, pool.metrics().getFailures());
+        }
+    }
+
+    @Test
+    public void testReplacesCrashedWorker() throws Exception {
+        try (WorkerPool pool = WorkerPool.newBuilder(WorkerPool.javaWorker(TestHandler.class)).workers(1).build()) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> call(pool, "exit"));
+            assertTrue(e.getCause() instanceof IOException);
+            assertEquals("echo:after", call(pool, "after"));
+            assertEquals(1, pool.metrics().getCrashes());
+            assertEquals(2, pool.metrics().getWorkersStarted());
+        }
+    }
+
+    @Test
+    public void testReplacesWorkerThatExitedWhileIdle() throws Exception {
+        try (WorkerPool pool = WorkerPool.newBuilder(WorkerPool.javaWorker(TestHandler.class)).workers(1).build()) {
+            assertEquals("echo:exit-later", call(pool, "exit-later"));
+            Thread.sleep(1000);
+            assertEquals("echo:after", call(pool, "after"));
+            assertEquals(0, pool.metrics().getFailures());
+            assertEquals(1, pool.metrics().getCrashes());
+            assertEquals(2, pool.metrics().getWorkersStarted());
+        }
+    }
+
+    @Test
+    public void testKillsWorkerAfterJobTimeout() throws Exception {
+        try (WorkerPool pool = WorkerPool.newBuilder(WorkerPool.javaWorker(TestHandler.class))
+                .workers(1)
+                .jobTimeout(Duration.ofMillis(500))
+                .build()) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> call(pool, "hang"));
+            assertTrue(e.getCause() instanceof IOException);
+            assertTrue(e.getCause().getMessage().contains("timeout"));
+            assertEquals("echo:after", call(pool, "after"));
+            assertEquals(1, pool.metrics().getCrashes());
+        }
+    }
+
+    @Test
+    public void testReplacesWorkerSendingBadFrame() throws Exception {
+        try (WorkerPool pool = WorkerPool.newBuilder(WorkerPool.javaWorker(TestHandler.class)).workers(1).build()) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> call(pool, "garbage"));
+            assertTrue(e.getCause() instanceof IOException);
+            assertTrue(e.getCause().getCause().getMessage().contains("Bad frame length"));
+            // The dispatcher survived and replaced the worker
+            assertEquals("echo:after", call(pool, "after"));
+            assertEquals(1, pool.metrics().getCrashes());
+            assertEquals(2, pool.metrics().getWorkersStarted());
+        }
+    }
+
+    @Test
+    public void testDoesNotChangeCallersCommand() {
+        ProcessBuilder command = WorkerPool.javaWorker(TestHandler.class);
+        try (WorkerPool pool = WorkerPool.newBuilder(command).workers(1).build()) {
+            assertEquals(ProcessBuilder.Redirect.PIPE, command.redirectError());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.java11.strings;
+
+import com.java11.MultiRelease;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies each release's ByteBuffers copies absolute ranges without moving the buffer
+ */
+public class ByteBuffersTest {
+
+    @Test
+    public void testLoadsVersionForRuntime() {
+        assertEquals(MultiRelease.expectedRelease(ByteBuffers.class, 17), MultiRelease.loadedRelease(ByteBuffers.class));
+    }
+
+    @Test
+    public void testCopiesAbsoluteRanges() {
+        byte[] source = new byte[300];
+        for (int i = 0; i < source.length; i++) {
+            source[i] = (byte) i;
+        }
+        ByteBuffer direct = ByteBuffer.allocateDirect(source.length).put(source).flip();
+        ByteBuffer heap = ByteBuffer.wrap(source);
+        direct.position(5).limit(290);
+        // Short ranges take the byte loop in the release 11 version, long ones the bulk copy
+        for (int length : new int[] {0, 1, 63, 64, 200}) {
+            for (ByteBuffer buffer : new ByteBuffer[] {direct, heap}) {
+                byte[] dst = new byte[length + 2];
+                ByteBuffers.get(buffer, 3, dst, 1, length);
+                assertArrayEquals(Arrays.copyOfRange(source, 3, 3 + length), Arrays.copyOfRange(dst, 1, length + 1));
+                assertEquals(0, dst[0]);
+                assertEquals(0, dst[length + 1]);
+            }
+        }
+        assertEquals(5, direct.position());
+        assertEquals(290, direct.limit());
+        assertThrows(IndexOutOfBoundsException.class, () -> ByteBuffers.get(direct, 280, new byte[20], 0, 20));
+        assertThrows(IndexOutOfBoundsException.class, () -> ByteBuffers.get(direct, 0, new byte[4], 1, 4));
+    }
+}
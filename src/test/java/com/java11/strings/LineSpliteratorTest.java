@@ -0,0 +1,63 @@
+package com.java11.strings;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies LineSpliterator splits on line boundaries and matches String.lines()
+ */
+public class LineSpliteratorTest {
+
+    private static String sampleText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append(i % 11 == 0 ? "   " : "  line " + i + "  ");
+            text.append(i % 3 == 0 ? "\r\n" : i % 3 == 1 ? "\n" : "\r");
+        }
+        return text.append("no terminator").toString();
+    }
+
+    @Test
+    public void testParallelMatchesStringLines() {
+        String text = sampleText();
+        List<String> expected = text.lines().collect(Collectors.toList());
+
+        assertEquals(expected, LineSpliterator.lines(text).collect(Collectors.toList()));
+        assertEquals(expected, StreamSupport.stream(LineSpliterator.of(text, 16), true)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testByteBufferMatchesStringLines() {
+        String text = sampleText() + "\nünïcødé ✓\n";
+        ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(text.lines().collect(Collectors.toList()),
+                StreamSupport.stream(LineSpliterator.of(bytes, 16), true).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testSplitsNearMidpoint() {
+        String text = sampleText();
+        Spliterator<String> suffix = LineSpliterator.of(text);
+        Spliterator<String> prefix = suffix.trySplit();
+
+        assertNotNull(prefix);
+        long half = text.length() / 2;
+        assertTrue(Math.abs(prefix.estimateSize() - half) < 32);
+        assertEquals(text.length(), prefix.estimateSize() + suffix.estimateSize());
+    }
+
+    @Test
+    public void testSingleLongLineDoesNotSplit() {
+        assertNull(LineSpliterator.of("x".repeat(10_000)).trySplit());
+    }
+}
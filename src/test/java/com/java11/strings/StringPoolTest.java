@@ -0,0 +1,113 @@
+package com.java11.strings;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies StringPool returns one shared String per text from every kind of source
+ */
+public class StringPoolTest {
+
+    @Test
+    public void testSourcesShareOneString() {
+        StringPool pool = new StringPool(16);
+        String[] texts = {"database.url", "", "héllo wörld", "日本語", "emoji 😀 key"};
+        for (String text : texts) {
+            String pooled = pool.intern(text);
+            String padded = "[" + text + "]";
+            byte[] utf8 = padded.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer direct = ByteBuffer.allocateDirect(utf8.length).put(utf8).flip();
+
+            assertSame(pooled, pool.intern(padded, 1, padded.length() - 1));
+            assertSame(pooled, pool.intern(padded.toCharArray(), 1, padded.length() - 1));
+            assertSame(pooled, pool.intern(utf8, 1, utf8.length - 1));
+            assertSame(pooled, pool.intern(ByteBuffer.wrap(utf8), 1, utf8.length - 1));
+            assertSame(pooled, pool.intern(direct, 1, utf8.length - 1));
+            assertEquals(0, direct.position());
+        }
+        assertEquals(texts.length, pool.getMisses());
+        assertEquals(texts.length * 5, pool.getHits());
+        assertEquals(5.0 / 6, pool.getHitRate(), 1e-9);
+        // "database.url" alone: 24 for the String, 16 + 12 padded to 32 for its array
+        assertEquals(56, StringPool.sizeOf("database.url".length()));
+        assertTrue(pool.getBytesSaved() >= 5 * 56);
+    }
+
+    @Test
+    public void testMalformedUtf8IsDecodedLikeString() {
+        StringPool pool = new StringPool(16);
+        byte[][] malformed = {
+                {'a', (byte) 0xC3},
+                {(byte) 0xC0, (byte) 0x80},
+                {(byte) 0xED, (byte) 0xA0, (byte) 0x80},
+                {(byte) 0xF5, (byte) 0x80, (byte) 0x80, (byte) 0x80},
+                {(byte) 0xE2, 'x', 'y'}};
+        for (byte[] bytes : malformed) {
+            assertEquals(new String(bytes, StandardCharsets.UTF_8), pool.intern(bytes, 0, bytes.length));
+        }
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void testBoundedWithEviction() {
+        StringPool pool = new StringPool(100);
+        assertEquals(128, pool.capacity());
+        for (int i = 0; i < 10_000; i++) {
+            pool.intern("key-" + i);
+        }
+        assertTrue(pool.size() <= pool.capacity());
+        assertTrue(pool.getEvictions() >= 10_000 - pool.capacity());
+        assertEquals(10_000, pool.getMisses());
+        assertThrows(IllegalArgumentException.class, () -> new StringPool(0));
+    }
+
+    @Test
+    public void testConcurrentInterning() throws Exception {
+        StringPool pool = new StringPool(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(() -> {
+                    List<String> interned = new ArrayList<>();
+                    for (int round = 0; round < 50; round++) {
+                        for (int i = 0; i < 200; i++) {
+                            byte[] key = ("key-" + i).getBytes(StandardCharsets.UTF_8);
+                            interned.add(pool.intern(key, 0, key.length));
+                        }
+                    }
+                    return interned;
+                }));
+            }
+            for (Future<List<String>> result : results) {
+                List<String> interned = result.get();
+                for (int i = 0; i < interned.size(); i++) {
+                    assertEquals("key-" + i % 200, interned.get(i));
+                }
+                // Racing threads may each create a String for new text, but
+                // once it is pooled every thread gets the same one
+                List<String> lastRound = interned.subList(interned.size() - 200, interned.size());
+                for (int i = 0; i < 200; i++) {
+                    assertSame(pool.intern("key-" + i), lastRound.get(i));
+                }
+            }
+            assertEquals(4 * 50 * 200 + 4 * 200, pool.getHits() + pool.getMisses());
+            // No bucket filled up, so a thread that lost a slot to an equal
+            // String returned that one and no text was pooled twice
+            assertEquals(0, pool.getEvictions());
+            assertEquals(200, pool.size());
+            assertEquals(200, pool.getMisses());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
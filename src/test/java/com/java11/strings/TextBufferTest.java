@@ -0,0 +1,131 @@
+package com.java11.strings;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies TextBuffer writes the same UTF-8 bytes as the String methods it replaces
+ */
+public class TextBufferTest {
+
+    @Test
+    public void testTextAndNumbers() {
+        TextBuffer out = TextBuffer.create();
+        String text = "ascii é ✓ 😀 \uD800 end";
+        out.append(text).append(',').append('é').append(true).append((CharSequence) null);
+        // The unpaired surrogate becomes '?', as in getBytes()
+        byte[] expected = (text + ",étruenull").getBytes(StandardCharsets.UTF_8);
+        assertEquals(expected.length, out.length());
+        assertEquals(new String(expected, StandardCharsets.UTF_8), out.toString());
+
+        long[] values = {0, 7, -7, 10, 99, 100, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, 1_000_000_000_000_000_000L};
+        for (long value : values) {
+            assertEquals(Long.toString(value), out.clear().append(value).toString());
+        }
+        Random random = new Random(5);
+        for (int n = 0; n < 1_000; n++) {
+            long value = random.nextLong() >> random.nextInt(64);
+            assertEquals(Long.toString(value), out.clear().append(value).toString());
+        }
+    }
+
+    @Test
+    public void testDecimals() {
+        TextBuffer out = TextBuffer.create();
+        assertEquals("3.14", out.clear().append(3.14159, 2).toString());
+        assertEquals("-0.05", out.clear().append(-0.049, 2).toString());
+        assertEquals("0.00", out.clear().append(-0.001, 2).toString());
+        assertEquals("2", out.clear().append(1.5, 0).toString());
+        assertEquals("12.000", out.clear().append(12, 3).toString());
+        assertEquals("NaN", out.clear().append(Double.NaN, 1).toString());
+        assertEquals("1.0E20", out.clear().append(1e20, 2).toString());
+        assertThrows(IllegalArgumentException.class, () -> out.append(1.0, 19));
+    }
+
+    @Test
+    public void testRepeatAndPadding() {
+        TextBuffer out = TextBuffer.create();
+        assertEquals("=".repeat(50), out.repeat('=', 50).toString());
+        assertEquals("✓".repeat(7), out.clear().repeat('✓', 7).toString());
+        assertEquals("ab日".repeat(1_000), out.clear().repeat("ab日", 1_000).toString());
+        assertEquals("", out.clear().repeat("x", 0).repeat('y', 0).toString());
+        assertThrows(IllegalArgumentException.class, () -> out.repeat('x', -1));
+
+        out.clear().append("id:").append(42, 6, ' ').append('|').append(-5, 4, '0');
+        assertEquals("id:    42|00-5", out.toString());
+
+        int mark = out.clear().append("[").length();
+        out.append("日本").padEnd(mark, 5, '.').append("]");
+        assertEquals("[日本...]", out.toString());
+
+        mark = out.clear().append("[").length();
+        out.append("longer").padStart(mark, 3, ' ');
+        assertEquals("[longer", out.toString());
+        mark = out.length();
+        out.append("x").padStart(mark, 3, '·');
+        assertEquals("[longer··x", out.toString());
+    }
+
+    @Test
+    public void testWriteToChannelAndStream() throws Exception {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(sink);
+        TextBuffer out = TextBuffer.create();
+        String line = "line ü\n".repeat(500);
+        out.append(line).writeTo(channel);
+        assertEquals(0, out.length());
+        out.append("tail").writeTo(sink);
+        assertEquals(line + "tail", sink.toString(StandardCharsets.UTF_8));
+
+        // A channel that takes a few bytes per call still gets everything
+        ByteArrayOutputStream slow = new ByteArrayOutputStream();
+        WritableByteChannel trickle = new WritableByteChannel() {
+            public int write(ByteBuffer src) {
+                int n = Math.min(3, src.remaining());
+                for (int i = 0; i < n; i++) {
+                    slow.write(src.get());
+                }
+                return n;
+            }
+
+            public boolean isOpen() {
+                return true;
+            }
+
+            public void close() {
+            }
+        };
+        out.append(line).writeTo(trickle);
+        assertEquals(line, slow.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testPoolPerThread() {
+        TextBuffer first;
+        try (TextBuffer out = TextBuffer.acquire()) {
+            first = out;
+            out.append("left over");
+            // Nested use on the same thread gets its own buffer
+            try (TextBuffer nested = TextBuffer.acquire()) {
+                assertNotSame(out, nested);
+            }
+        }
+        try (TextBuffer again = TextBuffer.acquire()) {
+            assertSame(first, again);
+            assertEquals(0, again.length());
+            again.repeat('x', TextBuffer.MAX_POOLED_CAPACITY + 1);
+        }
+        try (TextBuffer shrunk = TextBuffer.acquire()) {
+            assertSame(first, shrunk);
+            assertEquals(TextBuffer.INITIAL_CAPACITY, shrunk.capacity());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.java11.strings;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies TextScanner agrees with String.strip(), isBlank() and lines()
+ */
+public class TextScannerTest {
+
+    // Whitespace and non-whitespace pieces, including multi-byte UTF-8 whitespace
+    // (U+2028, U+3000) and non-breaking spaces that strip() keeps (U+00A0, U+202F)
+    private static final String[] UTF8_PIECES = {
+            " ", "\t", "\n", "\r", "\r\n", "\u000B", "\f", "\u001C", "\u001F",
+            "\u2028", "\u3000", "\u00A0", "\u202F", "a", "word", "é", "日本", "😀"};
+    private static final String[] LATIN1_PIECES = {
+            " ", "\t", "\n", "\r", "\r\n", "\u000B", "\f", "\u001C", "\u001F",
+            "\u00A0", "\u0085", "a", "word", "é"};
+
+    @Test
+    public void testAgreesWithStringMethods() {
+        Random random = new Random(3);
+        for (int n = 0; n < 2_000; n++) {
+            check(randomText(random, UTF8_PIECES), StandardCharsets.UTF_8);
+            check(randomText(random, LATIN1_PIECES), StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    @Test
+    public void testLongRuns() {
+        String padding = " \t".repeat(100) + "\u3000";
+        check(padding + "middle" + padding, StandardCharsets.UTF_8);
+        check(padding, StandardCharsets.UTF_8);
+        check("line\n".repeat(100) + "last", StandardCharsets.UTF_8);
+        check("", StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testRangesAndBuffers() {
+        byte[] text = "xx  hello  yy".getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals(4, TextScanner.stripStart(text, 2, 11, StandardCharsets.ISO_8859_1));
+        assertEquals(9, TextScanner.stripEnd(text, 2, 11, StandardCharsets.ISO_8859_1));
+        assertTrue(TextScanner.isBlank(text, 2, 4, StandardCharsets.ISO_8859_1));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> TextScanner.stripStart(text, 5, 20, StandardCharsets.ISO_8859_1));
+        assertThrows(IllegalArgumentException.class,
+                () -> TextScanner.isBlank(text, StandardCharsets.UTF_16));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(64);
+        direct.put("   one\r\ntwo\rthree   ".getBytes(StandardCharsets.US_ASCII)).flip();
+        assertEquals(3, TextScanner.stripStart(direct, StandardCharsets.US_ASCII));
+        assertEquals(17, TextScanner.stripEnd(direct, StandardCharsets.US_ASCII));
+        assertEquals(6, TextScanner.indexOfLineTerminator(direct, 0, direct.limit()));
+        assertEquals(3, TextScanner.forEachLine(direct, (start, end) -> { }));
+        assertEquals(0, direct.position());
+    }
+
+    private static String randomText(Random random, String[] pieces) {
+        StringBuilder text = new StringBuilder();
+        int count = random.nextInt(30);
+        for (int i = 0; i < count; i++) {
+            text.append(pieces[random.nextInt(pieces.length)]);
+        }
+        return text.toString();
+    }
+
+    private static void check(String text, Charset charset) {
+        // A few bytes of prefix so the words are read at every alignment
+        for (int prefix = 0; prefix < 3; prefix++) {
+            byte[] body = text.getBytes(charset);
+            byte[] bytes = new byte[prefix + body.length];
+            System.arraycopy(body, 0, bytes, prefix, body.length);
+            int to = bytes.length;
+
+            int start = TextScanner.stripStart(bytes, prefix, to, charset);
+            int end = TextScanner.stripEnd(bytes, start, to, charset);
+            assertEquals(text.strip(), new String(bytes, start, end - start, charset), text);
+            assertEquals(text.stripTrailing(),
+                    new String(bytes, prefix, TextScanner.stripEnd(bytes, prefix, to, charset) - prefix, charset));
+            assertEquals(text.isBlank(), TextScanner.isBlank(bytes, prefix, to, charset));
+
+            List<String> lines = new ArrayList<>();
+            int count = TextScanner.forEachLine(bytes, prefix, to,
+                    (lineStart, lineEnd) -> lines.add(new String(bytes, lineStart, lineEnd - lineStart, charset)));
+            assertEquals(text.lines().collect(Collectors.toList()), lines);
+            assertEquals(lines.size(), count);
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+            assertEquals(start, TextScanner.stripStart(buffer, prefix, to, charset));
+            assertEquals(end, TextScanner.stripEnd(buffer, start, to, charset));
+            assertEquals(text.isBlank(), TextScanner.isBlank(buffer, prefix, to, charset));
+            assertEquals(count, TextScanner.forEachLine(buffer, prefix, to, (lineStart, lineEnd) -> { }));
+        }
+    }
+}